@@ -0,0 +1,144 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.mapping;
+
+import com.firefly.idp.cognito.client.CognitoClientFactory;
+import com.firefly.idp.cognito.properties.CognitoProperties;
+import com.firefly.idp.dtos.CreateUserRequest;
+import com.firefly.idp.dtos.UserInfoResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import software.amazon.awssdk.services.cognitoidentityprovider.CognitoIdentityProviderClient;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.AttributeType;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.DescribeUserPoolRequest;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.DescribeUserPoolResponse;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.SchemaAttributeType;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.UserPoolType;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of attribute mapping: GetUser attributes to UserInfoResponse
+ * (getUserInfo) and CreateUserRequest to attributes (createUser).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AttributeMapperBenchmark {
+
+    private CognitoAttributeMapper mapper;
+    private List<AttributeType> attributes;
+    private CreateUserRequest createUserRequest;
+
+    @Setup
+    public void setUp() {
+        CognitoProperties properties = new CognitoProperties();
+        properties.setUserPoolId("us-east-1_bench");
+        mapper = new CognitoAttributeMapper(new SchemaClientFactory(properties), properties);
+
+        attributes = List.of(
+                attribute("sub", "0f4c4a0e-8c3b-4f6e-9d1a-2b7c5e8f9a01"),
+                attribute("email", "john.doe@example.com"),
+                attribute("email_verified", "true"),
+                attribute("given_name", "John"),
+                attribute("family_name", "Doe"),
+                attribute("name", "John Doe"),
+                attribute("custom:tenant", "acme"),
+                attribute("updated_at", "1700000000"));
+        createUserRequest = CreateUserRequest.builder()
+                .username("john.doe")
+                .email("john.doe@example.com")
+                .password("Passw0rd!")
+                .givenName("John")
+                .familyName("Doe")
+                .build();
+
+        // Compile the mapping outside the measurement
+        mapper.toUserInfo("john.doe", attributes);
+    }
+
+    @TearDown
+    public void tearDown() {
+        mapper.destroy();
+    }
+
+    @Benchmark
+    public UserInfoResponse toUserInfo() {
+        return mapper.toUserInfo("john.doe", attributes);
+    }
+
+    @Benchmark
+    public List<AttributeType> toCreateAttributes() {
+        return mapper.toAttributes(createUserRequest);
+    }
+
+    private static AttributeType attribute(String name, String value) {
+        return AttributeType.builder().name(name).value(value).build();
+    }
+
+    private static SchemaAttributeType schema(String name) {
+        return SchemaAttributeType.builder().name(name).mutable(true).build();
+    }
+
+    /**
+     * Client factory answering DescribeUserPool with a standard schema, without network access
+     */
+    public static final class SchemaClientFactory extends CognitoClientFactory {
+
+        public SchemaClientFactory(CognitoProperties properties) {
+            super(properties);
+        }
+
+        @Override
+        public CognitoIdentityProviderClient getClient() {
+            return new CognitoIdentityProviderClient() {
+                @Override
+                public DescribeUserPoolResponse describeUserPool(DescribeUserPoolRequest request) {
+                    return DescribeUserPoolResponse.builder()
+                            .userPool(UserPoolType.builder()
+                                    .schemaAttributes(schema("sub"), schema("email"), schema("email_verified"),
+                                            schema("given_name"), schema("family_name"), schema("name"),
+                                            schema("custom:tenant"))
+                                    .build())
+                            .build();
+                }
+
+                @Override
+                public String serviceName() {
+                    return SERVICE_NAME;
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+        }
+    }
+}
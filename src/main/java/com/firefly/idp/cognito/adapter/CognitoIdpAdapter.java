@@ -17,8 +17,13 @@
 package com.firefly.idp.cognito.adapter;
 
 import com.firefly.idp.adapter.IdpAdapter;
+import com.firefly.idp.cognito.capture.TrafficRecorder;
+import com.firefly.idp.cognito.client.CognitoOperation;
+import com.firefly.idp.cognito.outbox.AdminMutationOutbox;
+import com.firefly.idp.cognito.outbox.MutationStatus;
 import com.firefly.idp.cognito.service.CognitoAdminService;
 import com.firefly.idp.cognito.service.CognitoUserService;
+import com.firefly.idp.cognito.tracing.CognitoTracing;
 import com.firefly.idp.dtos.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -45,6 +50,10 @@ import java.util.List;
  *   <li>Password operations</li>
  * </ul>
  * 
+ * <p>Every method is observed as {@code cognito.adapter} when tracing is
+ * enabled (see {@link CognitoTracing}), and recorded to the traffic trace
+ * when capture is enabled (see {@link TrafficRecorder}).
+ * 
  * @see IdpAdapter
  * @see CognitoUserService
  * @see CognitoAdminService
@@ -56,125 +65,164 @@ public class CognitoIdpAdapter implements IdpAdapter {
 
     private final CognitoUserService userService;
     private final CognitoAdminService adminService;
-
+    private final CognitoTracing tracing;
+    private final TrafficRecorder recorder;
 
     @Override
     public Mono<ResponseEntity<TokenResponse>> login(LoginRequest request) {
         log.debug("Delegating login to CognitoUserService");
-        return userService.login(request);
+        return observe(CognitoOperation.LOGIN, request.getUsername(), userService.login(request));
     }
 
     @Override
     public Mono<ResponseEntity<TokenResponse>> refresh(RefreshRequest request) {
         log.debug("Delegating token refresh to CognitoUserService");
-        return userService.refresh(request);
+        return observe(CognitoOperation.REFRESH, request.getRefreshToken(), userService.refresh(request));
     }
 
     @Override
     public Mono<Void> logout(LogoutRequest request) {
         log.debug("Delegating logout to CognitoUserService");
-        return userService.logout(request);
+        return observe(CognitoOperation.LOGOUT, request.getAccessToken(), userService.logout(request));
     }
 
     @Override
     public Mono<ResponseEntity<IntrospectionResponse>> introspect(String accessToken) {
         log.debug("Delegating token introspection to CognitoUserService");
-        return userService.introspect(accessToken);
+        return observe(CognitoOperation.INTROSPECT, accessToken, userService.introspect(accessToken));
     }
 
     @Override
     public Mono<ResponseEntity<UserInfoResponse>> getUserInfo(String accessToken) {
         log.debug("Delegating getUserInfo to CognitoUserService");
-        return userService.getUserInfo(accessToken);
+        return observe(CognitoOperation.GET_USER_INFO, accessToken, userService.getUserInfo(accessToken));
     }
 
     @Override
     public Mono<ResponseEntity<CreateUserResponse>> createUser(CreateUserRequest request) {
         log.debug("Delegating createUser to CognitoAdminService");
-        return adminService.createUser(request);
+        return observe(CognitoOperation.CREATE_USER, request.getUsername(), adminService.createUser(request));
     }
 
     @Override
     public Mono<Void> changePassword(ChangePasswordRequest request) {
         log.debug("Delegating changePassword to CognitoAdminService");
-        return adminService.changePassword(request);
+        return observe(CognitoOperation.CHANGE_PASSWORD, request.getUserId(), adminService.changePassword(request));
     }
 
     @Override
     public Mono<Void> resetPassword(String username) {
         log.debug("Delegating resetPassword to CognitoAdminService");
-        return adminService.resetPassword(username);
+        return observe(CognitoOperation.RESET_PASSWORD, username, adminService.resetPassword(username));
     }
 
     @Override
     public Mono<ResponseEntity<MfaChallengeResponse>> mfaChallenge(String username) {
         log.debug("Delegating mfaChallenge to CognitoAdminService");
-        return adminService.mfaChallenge(username);
+        return observe(CognitoOperation.MFA_CHALLENGE, username, adminService.mfaChallenge(username));
     }
 
     @Override
     public Mono<Void> mfaVerify(MfaVerifyRequest request) {
         log.debug("Delegating mfaVerify to CognitoAdminService");
-        return adminService.mfaVerify(request);
+        return observe(CognitoOperation.MFA_VERIFY, null, adminService.mfaVerify(request));
     }
 
     @Override
     public Mono<Void> revokeRefreshToken(String refreshToken) {
         log.debug("Delegating revokeRefreshToken to CognitoUserService");
-        return userService.revokeRefreshToken(refreshToken);
+        return observe(CognitoOperation.REVOKE_REFRESH_TOKEN, refreshToken, userService.revokeRefreshToken(refreshToken));
     }
 
     @Override
     public Mono<ResponseEntity<List<SessionInfo>>> listSessions(String userId) {
         log.debug("Delegating listSessions to CognitoAdminService");
-        return adminService.listSessions(userId);
+        return observe(CognitoOperation.LIST_SESSIONS, userId, adminService.listSessions(userId));
     }
 
     @Override
     public Mono<Void> revokeSession(String sessionId) {
         log.debug("Delegating revokeSession to CognitoAdminService");
-        return adminService.revokeSession(sessionId);
+        return observe(CognitoOperation.REVOKE_SESSION, sessionId, adminService.revokeSession(sessionId));
     }
 
     @Override
     public Mono<ResponseEntity<List<String>>> getRoles(String userId) {
         log.debug("Delegating getRoles to CognitoAdminService");
-        return adminService.getRoles(userId);
+        return observe(CognitoOperation.GET_ROLES, userId, adminService.getRoles(userId));
+    }
+
+    /**
+     * List users holding a role, one page at a time.
+     *
+     * <p>Not part of {@link IdpAdapter}; served from the in-memory group membership index.
+     */
+    public Mono<ResponseEntity<List<String>>> getUsersInRole(String roleName, int offset, int limit) {
+        log.debug("Delegating getUsersInRole to CognitoAdminService");
+        return observe(CognitoOperation.GET_USERS_IN_ROLE, roleName, adminService.getUsersInRole(roleName, offset, limit));
     }
 
     @Override
     public Mono<Void> deleteUser(String userId) {
         log.debug("Delegating deleteUser to CognitoAdminService");
-        return adminService.deleteUser(userId);
+        return observe(CognitoOperation.DELETE_USER, userId, adminService.deleteUser(userId));
     }
 
     @Override
     public Mono<ResponseEntity<UpdateUserResponse>> updateUser(UpdateUserRequest request) {
         log.debug("Delegating updateUser to CognitoAdminService");
-        return adminService.updateUser(request);
+        return observe(CognitoOperation.UPDATE_USER, request.getUserId(), adminService.updateUser(request));
     }
 
     @Override
     public Mono<ResponseEntity<CreateRolesResponse>> createRoles(CreateRolesRequest request) {
         log.debug("Delegating createRoles to CognitoAdminService");
-        return adminService.createRoles(request);
+        return observe(CognitoOperation.CREATE_ROLES, null, adminService.createRoles(request));
     }
 
     @Override
     public Mono<ResponseEntity<CreateScopeResponse>> createScope(CreateScopeRequest request) {
         log.debug("Delegating createScope to CognitoAdminService");
-        return adminService.createScope(request);
+        return observe(CognitoOperation.CREATE_SCOPE, null, adminService.createScope(request));
     }
 
     @Override
     public Mono<Void> assignRolesToUser(AssignRolesRequest request) {
         log.debug("Delegating assignRolesToUser to CognitoAdminService");
-        return adminService.assignRolesToUser(request);
+        return observe(CognitoOperation.ASSIGN_ROLES, request.getUserId(), adminService.assignRolesToUser(request));
     }
 
     @Override
     public Mono<Void> removeRolesFromUser(AssignRolesRequest request) {
         log.debug("Delegating removeRolesFromUser to CognitoAdminService");
-        return adminService.removeRolesFromUser(request);
+        return observe(CognitoOperation.REMOVE_ROLES, request.getUserId(), adminService.removeRolesFromUser(request));
+    }
+
+    /**
+     * Look up an admin mutation accepted by the outbox, by the id returned in
+     * {@link AdminMutationOutbox#MUTATION_ID_HEADER}.
+     *
+     * <p>Not part of {@link IdpAdapter}; answered locally without calling Cognito.
+     */
+    public Mono<ResponseEntity<MutationStatus>> getMutationStatus(long mutationId) {
+        return adminService.getMutationStatus(mutationId);
+    }
+
+    /**
+     * List the pending and recently completed outbox mutations of a user.
+     *
+     * <p>Not part of {@link IdpAdapter}; answered locally without calling Cognito.
+     */
+    public Mono<ResponseEntity<List<MutationStatus>>> getMutationStatuses(String userId) {
+        return adminService.getMutationStatuses(userId);
+    }
+
+    /**
+     * Trace and capture an adapter method
+     *
+     * @param identity Username, user id or token the method acts on, hashed before capture
+     */
+    private <T> Mono<T> observe(CognitoOperation operation, String identity, Mono<T> source) {
+        return recorder.record(operation, identity, tracing.observeAdapter(operation, source));
     }
 }
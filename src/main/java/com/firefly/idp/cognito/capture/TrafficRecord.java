@@ -0,0 +1,65 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.capture;
+
+import com.firefly.idp.cognito.client.CognitoOperation;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * One captured adapter invocation.
+ */
+@Value
+@Builder
+public class TrafficRecord {
+
+    /**
+     * Status of an invocation that signalled an error instead of a response
+     */
+    public static final int STATUS_ERROR = 0;
+
+    /**
+     * Status of an invocation cancelled by its subscriber (as used by nginx for closed client connections)
+     */
+    public static final int STATUS_CANCELLED = 499;
+
+    /**
+     * When the invocation was subscribed, in microseconds since capture start
+     */
+    long startMicros;
+
+    /**
+     * Time from subscription to completion in microseconds
+     */
+    long durationMicros;
+
+    /**
+     * Adapter operation; null if the trace names an operation this version does not know
+     */
+    CognitoOperation operation;
+
+    /**
+     * Keyed hash of the username, user id or token the invocation acted on; 0 if it had none
+     */
+    long identity;
+
+    /**
+     * HTTP status of the response, 200 for operations without a response body,
+     * or {@link #STATUS_ERROR} / {@link #STATUS_CANCELLED}
+     */
+    int status;
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.capture;
+
+import com.firefly.idp.cognito.client.CognitoOperation;
+import com.firefly.idp.cognito.metrics.CognitoMetrics;
+import com.firefly.idp.cognito.properties.CognitoProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records adapter invocations to a binary trace file for offline replay.
+ *
+ * <p>Each invocation is captured with its operation, start offset, duration,
+ * outcome and a keyed HMAC-SHA256 hash of the identity it acted on; usernames
+ * and tokens never reach the file. Callers only enqueue the invocation, a
+ * background thread hashes and writes it with {@link TrafficTraceWriter}. When
+ * the queue is full, or the file has reached its size limit, invocations are
+ * counted in {@code cognito.capture.dropped} instead.
+ *
+ * <p>When capture is disabled publishers are returned undecorated.
+ */
+@Component
+@Slf4j
+public class TrafficRecorder {
+
+    private static final String HMAC_SHA256_ALGORITHM = "HmacSHA256";
+    private static final int BATCH_SIZE = 512;
+    private static final long FLUSH_INTERVAL_MILLIS = 100;
+
+    private final boolean enabled;
+    private final Path file;
+    private final long maxFileSize;
+    private final byte[] key;
+    private final BlockingQueue<Invocation> queue;
+    private final long originNanos = System.nanoTime();
+    private final long originEpochMillis = System.currentTimeMillis();
+
+    private volatile boolean running = true;
+    private volatile boolean stopped;
+
+    private final Counter recorded;
+    private final Counter overflowDropped;
+    private final Counter stoppedDropped;
+    private final Thread writer;
+
+    @Autowired
+    public TrafficRecorder(CognitoProperties properties, CognitoMetrics metrics) {
+        this(properties.getCapture(), metrics.registry());
+    }
+
+    public TrafficRecorder(CognitoProperties.Capture settings, MeterRegistry registry) {
+        this.enabled = settings.isEnabled();
+        this.file = Path.of(settings.getFile());
+        this.maxFileSize = settings.getMaxFileSize();
+        this.key = enabled ? key(settings.getSalt()) : null;
+        this.queue = new ArrayBlockingQueue<>(enabled ? Math.max(settings.getQueueCapacity(), 1) : 1);
+
+        this.recorded = Counter.builder("cognito.capture.recorded")
+                .description("Adapter invocations written to the traffic trace")
+                .register(registry);
+        this.overflowDropped = dropCounter(registry, "overflow");
+        this.stoppedDropped = dropCounter(registry, "stopped");
+
+        this.writer = new Thread(this::writeLoop, "cognito-traffic-capture");
+        this.writer.setDaemon(true);
+        if (enabled) {
+            log.info("Capturing adapter traffic to {}", file.toAbsolutePath());
+            this.writer.start();
+        }
+    }
+
+    /**
+     * Capture an adapter invocation once it completes, fails or is cancelled
+     *
+     * @param operation Operation the invocation performs
+     * @param identity Username, user id or token the invocation acts on, may be null
+     * @param source Publisher performing the invocation
+     * @return Recorded publisher, or {@code source} itself when capture is disabled
+     */
+    public <T> Mono<T> record(CognitoOperation operation, String identity, Mono<T> source) {
+        if (!enabled) {
+            return source;
+        }
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return source
+                    .doOnSuccess(value -> submit(operation, identity, start, status(value)))
+                    .doOnError(error -> submit(operation, identity, start, TrafficRecord.STATUS_ERROR))
+                    .doOnCancel(() -> submit(operation, identity, start, TrafficRecord.STATUS_CANCELLED));
+        });
+    }
+
+    /**
+     * Stop the writer after writing all queued invocations
+     */
+    @PreDestroy
+    public void destroy() {
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void submit(CognitoOperation operation, String identity, long start, int status) {
+        if (stopped) {
+            stoppedDropped.increment();
+            return;
+        }
+        if (!queue.offer(new Invocation(operation, identity, start, System.nanoTime(), status))) {
+            overflowDropped.increment();
+        }
+    }
+
+    private void writeLoop() {
+        List<Invocation> batch = new ArrayList<>(BATCH_SIZE);
+        try (TrafficTraceWriter trace = new TrafficTraceWriter(file, originEpochMillis)) {
+            Mac mac = mac();
+            while (running || !queue.isEmpty()) {
+                Invocation first = queue.poll(FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    trace.flush();
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, BATCH_SIZE - 1);
+                for (Invocation invocation : batch) {
+                    trace.write(toRecord(invocation, mac));
+                }
+                recorded.increment(batch.size());
+                batch.clear();
+                if (trace.size() >= maxFileSize) {
+                    log.info("Traffic capture stopped: {} reached {} bytes", file, maxFileSize);
+                    break;
+                }
+            }
+        } catch (IOException | GeneralSecurityException e) {
+            log.warn("Traffic capture to {} failed: {}", file, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            stopped = true;
+            stoppedDropped.increment(queue.size());
+            queue.clear();
+        }
+    }
+
+    private TrafficRecord toRecord(Invocation invocation, Mac mac) {
+        return TrafficRecord.builder()
+                .startMicros(TimeUnit.NANOSECONDS.toMicros(invocation.start - originNanos))
+                .durationMicros(TimeUnit.NANOSECONDS.toMicros(invocation.end - invocation.start))
+                .operation(invocation.operation)
+                .identity(hash(mac, invocation.identity))
+                .status(invocation.status)
+                .build();
+    }
+
+    private Mac mac() throws GeneralSecurityException {
+        Mac mac = Mac.getInstance(HMAC_SHA256_ALGORITHM);
+        mac.init(new SecretKeySpec(key, HMAC_SHA256_ALGORITHM));
+        return mac;
+    }
+
+    /**
+     * First 8 bytes of the identity's HMAC; 0 is reserved for invocations without identity
+     */
+    static long hash(Mac mac, String identity) {
+        if (identity == null) {
+            return 0L;
+        }
+        byte[] digest = mac.doFinal(identity.getBytes(StandardCharsets.UTF_8));
+        long hash = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            hash = (hash << 8) | (digest[i] & 0xFF);
+        }
+        return hash == 0 ? 1 : hash;
+    }
+
+    private static int status(Object value) {
+        return value instanceof ResponseEntity<?> response ? response.getStatusCode().value() : 200;
+    }
+
+    private static byte[] key(String salt) {
+        if (salt != null && !salt.isEmpty()) {
+            return salt.getBytes(StandardCharsets.UTF_8);
+        }
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        return key;
+    }
+
+    private static Counter dropCounter(MeterRegistry registry, String reason) {
+        return Counter.builder("cognito.capture.dropped")
+                .description("Adapter invocations not written to the traffic trace")
+                .tag("reason", reason)
+                .register(registry);
+    }
+
+    private record Invocation(CognitoOperation operation, String identity, long start, long end, int status) {
+    }
+}
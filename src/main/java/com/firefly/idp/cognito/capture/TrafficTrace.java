@@ -0,0 +1,117 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.capture;
+
+import com.firefly.idp.cognito.client.CognitoOperation;
+import lombok.Value;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A traffic trace read back from a file written by {@link TrafficTraceWriter}.
+ */
+@Value
+public class TrafficTrace {
+
+    /**
+     * When capture started, in epoch milliseconds
+     */
+    long startEpochMillis;
+
+    /**
+     * Captured invocations ordered by start time
+     */
+    List<TrafficRecord> records;
+
+    /**
+     * Read a trace file. A record cut short at the end of the file, as left
+     * behind when the process died mid-write, is ignored.
+     *
+     * @param file Trace file
+     * @return Trace with records sorted by start offset
+     * @throws IOException if the file cannot be read or is not a trace
+     */
+    public static TrafficTrace read(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 65536))) {
+            if (in.readInt() != TrafficTraceWriter.MAGIC) {
+                throw new IOException("Not a traffic trace: " + file);
+            }
+            int version = in.readUnsignedByte();
+            if (version != TrafficTraceWriter.VERSION) {
+                throw new IOException("Unsupported traffic trace version " + version + ": " + file);
+            }
+            long startEpochMillis = in.readLong();
+            CognitoOperation[] operations = new CognitoOperation[in.readUnsignedByte()];
+            for (int i = 0; i < operations.length; i++) {
+                operations[i] = operation(in.readUTF());
+            }
+
+            List<TrafficRecord> records = new ArrayList<>();
+            int first;
+            while ((first = in.read()) != -1) {
+                try {
+                    records.add(TrafficRecord.builder()
+                            .startMicros(readVarLong(in, first))
+                            .durationMicros(readVarLong(in, in.readUnsignedByte()))
+                            .operation(operations[in.readUnsignedByte()])
+                            .identity(in.readLong())
+                            .status((int) readVarLong(in, in.readUnsignedByte()))
+                            .build());
+                } catch (EOFException e) {
+                    break;
+                }
+            }
+            records.sort(Comparator.comparingLong(TrafficRecord::getStartMicros));
+            return new TrafficTrace(startEpochMillis, List.copyOf(records));
+        }
+    }
+
+    /**
+     * @return Time between the first and the last invocation start in microseconds
+     */
+    public long spanMicros() {
+        return records.isEmpty() ? 0 : records.get(records.size() - 1).getStartMicros() - records.get(0).getStartMicros();
+    }
+
+    private static long readVarLong(DataInputStream in, int first) throws IOException {
+        long value = first & 0x7F;
+        int shift = 7;
+        int current = first;
+        while ((current & 0x80) != 0) {
+            current = in.readUnsignedByte();
+            value |= (long) (current & 0x7F) << shift;
+            shift += 7;
+        }
+        return value;
+    }
+
+    private static CognitoOperation operation(String name) {
+        try {
+            return CognitoOperation.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.capture;
+
+import com.firefly.idp.cognito.client.CognitoOperation;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes traffic records to a compact binary trace file.
+ *
+ * <p>Layout (big-endian):
+ * <pre>
+ * header   int magic "FTRC", byte version, long capture start (epoch ms),
+ *          byte operation count, then each operation name (modified UTF-8)
+ * record   varint start offset (us), varint duration (us), byte operation index,
+ *          long identity hash, varint status
+ * </pre>
+ * Operations are stored by name in the header so traces survive reordering of
+ * {@link CognitoOperation}. A record takes 12 to 20 bytes; records appear in
+ * completion order, not start order.
+ */
+public class TrafficTraceWriter implements Closeable {
+
+    static final int MAGIC = 0x46545243;
+    static final int VERSION = 1;
+
+    private final DataOutputStream out;
+    private long size;
+
+    /**
+     * Create or replace a trace file and write its header
+     *
+     * @param file Trace file
+     * @param startEpochMillis Capture start, which record start offsets are relative to
+     */
+    public TrafficTraceWriter(Path file, long startEpochMillis) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 65536));
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeLong(startEpochMillis);
+        CognitoOperation[] operations = CognitoOperation.values();
+        out.writeByte(operations.length);
+        for (CognitoOperation operation : operations) {
+            out.writeUTF(operation.name());
+        }
+        size = out.size();
+    }
+
+    /**
+     * Append a record
+     */
+    public void write(TrafficRecord record) throws IOException {
+        size += writeVarLong(record.getStartMicros());
+        size += writeVarLong(record.getDurationMicros());
+        out.writeByte(record.getOperation().ordinal());
+        out.writeLong(record.getIdentity());
+        size += writeVarLong(record.getStatus()) + 9;
+    }
+
+    /**
+     * @return Bytes written so far, including buffered ones
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Push buffered records to the file
+     */
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    /**
+     * Write a non-negative value 7 bits at a time, low bits first
+     *
+     * @return Bytes written
+     */
+    private int writeVarLong(long value) throws IOException {
+        long remaining = Math.max(value, 0);
+        int bytes = 1;
+        while ((remaining & ~0x7FL) != 0) {
+            out.writeByte((int) ((remaining & 0x7F) | 0x80));
+            remaining >>>= 7;
+            bytes++;
+        }
+        out.writeByte((int) remaining);
+        return bytes;
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.firefly.idp.cognito.client;
+
+import io.micrometer.core.instrument.Counter;
+import software.amazon.awssdk.http.ExecutableHttpRequest;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Cancellation handle of one blocking Cognito call, see {@link CognitoCallCancellation}.
+ *
+ * <p>{@link #wrap} marks the thread running the call and the HTTP exchange in
+ * progress; {@link #cancel} aborts both. State changes are guarded by the
+ * handle's monitor, so a thread is only interrupted while it runs this call,
+ * and the interrupt is cleared before the thread goes back to its pool.
+ */
+public final class CancellableCall {
+
+    private final CognitoCallCancellation cancellation;
+    private final Counter aborted;
+
+    private Thread runner;
+    private ExecutableHttpRequest exchange;
+    private boolean cancelled;
+
+    CancellableCall(CognitoCallCancellation cancellation, Counter aborted) {
+        this.cancellation = cancellation;
+        this.aborted = aborted;
+    }
+
+    /**
+     * Wrap the blocking work of the call
+     *
+     * @param work Work making SDK calls on the calling thread
+     * @return Work that does not run once cancelled, and completes empty when cancelled while running
+     */
+    public <T> Callable<T> wrap(Callable<T> work) {
+        return () -> {
+            synchronized (this) {
+                if (cancelled) {
+                    return null;
+                }
+                runner = Thread.currentThread();
+            }
+            try {
+                return cancellation.runAs(this, work);
+            } catch (Exception e) {
+                if (isCancelled()) {
+                    // Nobody is subscribed any more; the abort is the expected outcome
+                    return null;
+                }
+                throw e;
+            } finally {
+                synchronized (this) {
+                    runner = null;
+                    exchange = null;
+                    if (cancelled) {
+                        Thread.interrupted();
+                    }
+                }
+            }
+        };
+    }
+
+    /**
+     * Abort the call: its HTTP exchange is aborted and its thread interrupted
+     */
+    public void cancel() {
+        ExecutableHttpRequest inFlight;
+        synchronized (this) {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            inFlight = exchange;
+            if (runner != null && runner != Thread.currentThread()) {
+                runner.interrupt();
+            }
+        }
+        if (inFlight != null) {
+            inFlight.abort();
+            aborted.increment();
+        }
+    }
+
+    /**
+     * @return Whether the call was cancelled
+     */
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Register an exchange about to be executed
+     *
+     * @return Whether it may proceed; {@code false} once the call was cancelled
+     */
+    synchronized boolean attach(ExecutableHttpRequest exchange) {
+        if (cancelled) {
+            return false;
+        }
+        this.exchange = exchange;
+        return true;
+    }
+
+    synchronized void detach(ExecutableHttpRequest exchange) {
+        if (this.exchange == exchange) {
+            this.exchange = null;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.firefly.idp.cognito.client;
+
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.http.ExecutableHttpRequest;
+import software.amazon.awssdk.http.HttpExecuteRequest;
+import software.amazon.awssdk.http.HttpExecuteResponse;
+import software.amazon.awssdk.http.SdkHttpClient;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+
+/**
+ * HTTP client registering each exchange with the {@link CancellableCall}
+ * running on the calling thread, so cancelling the call aborts the exchange.
+ * The exchange stays registered until its response body is closed, so a cancel
+ * also aborts a response still being read. Exchanges made outside a call pass
+ * through untouched.
+ */
+class CancellableHttpClient implements SdkHttpClient {
+
+    private final SdkHttpClient delegate;
+    private final CognitoCallCancellation cancellation;
+
+    CancellableHttpClient(SdkHttpClient delegate, CognitoCallCancellation cancellation) {
+        this.delegate = delegate;
+        this.cancellation = cancellation;
+    }
+
+    @Override
+    public ExecutableHttpRequest prepareRequest(HttpExecuteRequest request) {
+        ExecutableHttpRequest exchange = delegate.prepareRequest(request);
+        CancellableCall call = cancellation.current();
+        if (call == null) {
+            return exchange;
+        }
+        return new ExecutableHttpRequest() {
+            @Override
+            public HttpExecuteResponse call() throws IOException {
+                if (!call.attach(exchange)) {
+                    throw new IOException("Cognito call cancelled");
+                }
+                HttpExecuteResponse response;
+                try {
+                    response = exchange.call();
+                } catch (IOException | RuntimeException e) {
+                    call.detach(exchange);
+                    throw e;
+                }
+                if (response.responseBody().isEmpty()) {
+                    call.detach(exchange);
+                    return response;
+                }
+                return HttpExecuteResponse.builder()
+                        .response(response.httpResponse())
+                        .responseBody(detachOnClose(response.responseBody().get(), call, exchange))
+                        .build();
+            }
+
+            @Override
+            public void abort() {
+                exchange.abort();
+            }
+        };
+    }
+
+    private static AbortableInputStream detachOnClose(AbortableInputStream body, CancellableCall call,
+                                                      ExecutableHttpRequest exchange) {
+        return AbortableInputStream.create(new FilterInputStream(body) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    call.detach(exchange);
+                }
+            }
+        }, body);
+    }
+
+    @Override
+    public String clientName() {
+        return delegate.clientName();
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+}
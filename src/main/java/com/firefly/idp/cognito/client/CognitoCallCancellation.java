@@ -0,0 +1,119 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.firefly.idp.cognito.client;
+
+import com.firefly.idp.cognito.metrics.CognitoMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.utils.AttributeMap;
+
+import java.util.concurrent.Callable;
+
+/**
+ * End-to-end cancellation of blocking Cognito calls.
+ *
+ * <p>The SDK client is synchronous, so cancelling the {@code Mono} of a call
+ * would otherwise only stop waiting for it: the thread and the pooled
+ * connection stay busy until Cognito answers. Each call executed through
+ * {@link CognitoCallExecutor} therefore gets a {@link CancellableCall}:
+ * <ul>
+ *   <li>The HTTP client of the SDK is wrapped (see {@link #decorate}) so each
+ *       exchange a call makes registers with the call while it runs</li>
+ *   <li>Cancelling the call aborts the registered exchange, which closes its
+ *       connection instead of returning it to the pool, and interrupts the
+ *       thread, which ends connection lease waits and retry back-off</li>
+ *   <li>A call cancelled before it started never runs</li>
+ * </ul>
+ *
+ * <p>Publishes {@code cognito.call.aborted}, tagged by {@code operation}: HTTP
+ * exchanges aborted because their subscriber cancelled. Cancellations
+ * themselves are counted by {@code cognito.operation.cancelled}.
+ */
+@Component
+public class CognitoCallCancellation {
+
+    private final ThreadLocal<CancellableCall> current = new ThreadLocal<>();
+    private final Counter[] aborted;
+
+    @Autowired
+    public CognitoCallCancellation(CognitoMetrics metrics) {
+        this(metrics.registry());
+    }
+
+    public CognitoCallCancellation(MeterRegistry registry) {
+        CognitoOperation[] operations = CognitoOperation.values();
+        this.aborted = new Counter[operations.length];
+        for (CognitoOperation operation : operations) {
+            aborted[operation.ordinal()] = Counter.builder("cognito.call.aborted")
+                    .description("In-flight Cognito HTTP exchanges aborted because the caller cancelled")
+                    .tag("operation", operation.tagValue())
+                    .register(registry);
+        }
+    }
+
+    /**
+     * Prepare the cancellation of one call
+     *
+     * @param operation Operation being executed
+     * @return Handle wrapping the call's work and cancelling it
+     */
+    public CancellableCall prepare(CognitoOperation operation) {
+        return new CancellableCall(this, aborted[operation.ordinal()]);
+    }
+
+    /**
+     * Wrap the HTTP client of an SDK client so its exchanges can be aborted by their call
+     *
+     * @param httpClient Builder of the HTTP client
+     * @return Builder producing the wrapped client
+     */
+    public SdkHttpClient.Builder<?> decorate(SdkHttpClient.Builder<?> httpClient) {
+        return new DecoratingBuilder(httpClient, this);
+    }
+
+    /**
+     * @return Call running on the current thread, or {@code null}
+     */
+    CancellableCall current() {
+        return current.get();
+    }
+
+    <T> T runAs(CancellableCall call, Callable<T> work) throws Exception {
+        CancellableCall previous = current.get();
+        current.set(call);
+        try {
+            return work.call();
+        } finally {
+            if (previous != null) {
+                current.set(previous);
+            } else {
+                current.remove();
+            }
+        }
+    }
+
+    private record DecoratingBuilder(SdkHttpClient.Builder<?> delegate, CognitoCallCancellation cancellation)
+            implements SdkHttpClient.Builder<DecoratingBuilder> {
+
+        @Override
+        public SdkHttpClient buildWithDefaults(AttributeMap serviceDefaults) {
+            return new CancellableHttpClient(delegate.buildWithDefaults(serviceDefaults), cancellation);
+        }
+    }
+}
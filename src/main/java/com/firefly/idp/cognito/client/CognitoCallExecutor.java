@@ -0,0 +1,173 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.client;
+
+import com.firefly.idp.cognito.metrics.CognitoMetrics;
+import com.firefly.idp.cognito.resilience.CognitoBulkheads;
+import com.firefly.idp.cognito.resilience.CognitoCallTimeouts;
+import com.firefly.idp.cognito.resilience.CognitoCircuitBreakers;
+import com.firefly.idp.cognito.resilience.CognitoConcurrencyLimits;
+import com.firefly.idp.cognito.resilience.CognitoDeadline;
+import com.firefly.idp.cognito.resilience.CognitoHedging;
+import com.firefly.idp.cognito.tracing.CognitoTracing;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.Callable;
+import java.util.function.Predicate;
+
+/**
+ * Single execution point for Cognito operations.
+ *
+ * <p>Every operation of the user and admin services is executed through this
+ * class so that cross-cutting behaviour (bulkheads, circuit breakers, adaptive
+ * concurrency limits, hedging of reads, timeouts and deadlines, cancellation, metrics
+ * and tracing observations) is applied once and consistently, keyed by {@link CognitoOperation}. Calls rejected by a bulkhead, an
+ * open breaker or the concurrency limit never reach the metrics or tracing layers,
+ * and time spent waiting for a bulkhead slot does not count as call time.
+ */
+@Component
+@RequiredArgsConstructor
+public class CognitoCallExecutor {
+
+    private final CognitoMetrics metrics;
+    private final CognitoTracing tracing;
+    private final CognitoCircuitBreakers breakers;
+    private final CognitoBulkheads bulkheads;
+    private final CognitoConcurrencyLimits limits;
+    private final CognitoHedging hedging;
+    private final CognitoCallTimeouts timeouts;
+    private final CognitoCallCancellation cancellation;
+
+    /**
+     * Execute an operation that produces a value
+     *
+     * @param operation Operation being executed
+     * @param call Blocking work performing the operation
+     * @return Mono emitting the result of the call
+     */
+    public <T> Mono<T> execute(CognitoOperation operation, Callable<T> call) {
+        return bulkheads.isolate(operation, breakers.protect(operation, attempt(operation, call)));
+    }
+
+    /**
+     * Execute a read operation whose last result may be served while Cognito is unavailable
+     *
+     * @param operation Operation being executed
+     * @param fallbackKey Token or user the result belongs to
+     * @param call Blocking work performing the operation
+     * @return Mono emitting the result of the call, or the stored result of {@code fallbackKey}
+     */
+    public <T> Mono<T> execute(CognitoOperation operation, String fallbackKey, Callable<T> call) {
+        return bulkheads.isolate(operation, breakers.protect(operation, fallbackKey, attempt(operation, call)));
+    }
+
+    /**
+     * Execute an idempotent read, hedged with a second attempt when the first one is slow.
+     * Each attempt takes a bulkhead slot of its own.
+     *
+     * @param operation Operation being executed
+     * @param call Blocking work performing the operation; may run twice
+     * @return Mono emitting the first result of the call
+     */
+    public <T> Mono<T> executeRead(CognitoOperation operation, Callable<T> call) {
+        return breakers.protect(operation,
+                hedging.hedge(operation, bulkheads.isolate(operation, attempt(operation, call))));
+    }
+
+    /**
+     * Execute an idempotent read, hedged when slow, whose last result may be served while
+     * Cognito is unavailable
+     *
+     * @param operation Operation being executed
+     * @param fallbackKey Token or user the result belongs to
+     * @param call Blocking work performing the operation; may run twice
+     * @return Mono emitting the first result of the call, or the stored result of {@code fallbackKey}
+     */
+    public <T> Mono<T> executeRead(CognitoOperation operation, String fallbackKey, Callable<T> call) {
+        return breakers.protect(operation, fallbackKey,
+                hedging.hedge(operation, bulkheads.isolate(operation, attempt(operation, call))));
+    }
+
+    /**
+     * Forget the stored result of a read operation, e.g. after a token was revoked
+     *
+     * @param operation Read operation
+     * @param fallbackKey Token or user the result belongs to
+     */
+    public void evictFallback(CognitoOperation operation, String fallbackKey) {
+        breakers.evict(operation, fallbackKey);
+    }
+
+    /**
+     * Forget the stored results of a read operation matching a condition, e.g.
+     * the introspections of a deleted user
+     *
+     * @param operation Read operation
+     * @param condition Test of a stored result
+     */
+    public void evictFallbacks(CognitoOperation operation, Predicate<Object> condition) {
+        breakers.evictIf(operation, condition);
+    }
+
+    /**
+     * Execute an operation that produces no value
+     *
+     * @param operation Operation being executed
+     * @param call Blocking work performing the operation
+     * @return Mono completing when the call has finished
+     */
+    public Mono<Void> run(CognitoOperation operation, Runnable call) {
+        return execute(operation, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    /**
+     * Execute an operation that is already expressed as a non-blocking reactive
+     * pipeline, such as a WebClient exchange.
+     *
+     * <p>Only circuit breaking, metrics and tracing are applied: the source is
+     * neither offloaded nor isolated by a bulkhead, bounded by a timeout or
+     * limited. It must therefore never block; blocking SDK calls belong in
+     * {@link #execute(CognitoOperation, Callable)} or
+     * {@link #run(CognitoOperation, Runnable)}.
+     *
+     * @param operation Operation being executed
+     * @param source Publisher performing the operation
+     * @return Decorated publisher
+     */
+    public <T> Mono<T> execute(CognitoOperation operation, Mono<T> source) {
+        return breakers.protect(operation, metrics.instrument(operation, tracing.observeCall(operation, source)));
+    }
+
+    /**
+     * A single Cognito call: within the adaptive limit, measured, traced, bounded
+     * by the deadline in the subscriber's context and aborted when cancelled
+     */
+    private <T> Mono<T> attempt(CognitoOperation operation, Callable<T> call) {
+        return Mono.deferContextual(context -> {
+            CancellableCall cancellable = cancellation.prepare(operation);
+            Callable<T> bounded = timeouts.bound(operation, CognitoDeadline.from(context), call);
+            return limits.limit(operation, metrics.instrument(operation,
+                            tracing.observeCall(operation, cancellable.wrap(bounded))))
+                    .doOnCancel(cancellable::cancel);
+        });
+    }
+}
@@ -16,13 +16,17 @@
 
 package com.firefly.idp.cognito.client;
 
+import com.firefly.idp.cognito.metrics.CognitoSdkMetricPublisher;
 import com.firefly.idp.cognito.properties.CognitoProperties;
+import com.firefly.idp.cognito.resilience.CognitoCallTimeouts;
+import com.firefly.idp.cognito.telemetry.CognitoTelemetryInterceptor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
 import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.cognitoidentityprovider.CognitoIdentityProviderClient;
 import software.amazon.awssdk.services.cognitoidentityprovider.CognitoIdentityProviderClientBuilder;
@@ -30,12 +34,15 @@ import software.amazon.awssdk.services.cognitoidentityprovider.CognitoIdentityPr
 import jakarta.annotation.PreDestroy;
 import java.net.URI;
 import java.time.Duration;
+import java.util.function.UnaryOperator;
 
 /**
  * Factory for creating and managing AWS Cognito Identity Provider clients.
  * 
  * <p>This factory creates a singleton instance of the Cognito client
  * configured with the appropriate region and timeouts from properties.
+ * With {@code bulkhead.separate-connection-pools} enabled, admin traffic gets a
+ * second client with its own HTTP connection pool (see {@link #getAdminClient()}).
  */
 @Component
 @RequiredArgsConstructor
@@ -44,8 +51,14 @@ public class CognitoClientFactory {
 
     private final CognitoProperties properties;
     private volatile CognitoIdentityProviderClient client;
+    private volatile CognitoIdentityProviderClient adminClient;
     private URI endpointOverride;
     private AwsCredentialsProvider credentialsProvider;
+    private CognitoSdkMetricPublisher metricPublisher;
+    private CognitoTelemetryInterceptor telemetryInterceptor;
+    private CognitoCallTimeouts callTimeouts;
+    private CognitoCallCancellation callCancellation;
+    private UnaryOperator<CognitoIdentityProviderClient> clientDecorator;
 
     /**
      * Set custom endpoint override (for LocalStack testing)
@@ -65,6 +78,51 @@ public class CognitoClientFactory {
         this.credentialsProvider = credentialsProvider;
     }
 
+    /**
+     * Set SDK metric publisher (for connection pool metrics of every client)
+     *
+     * @param metricPublisher SDK metric publisher
+     */
+    public void setMetricPublisher(CognitoSdkMetricPublisher metricPublisher) {
+        this.metricPublisher = metricPublisher;
+    }
+
+    /**
+     * Set call telemetry interceptor (for per-attempt SDK telemetry)
+     *
+     * @param telemetryInterceptor Telemetry interceptor, also registered as metric publisher
+     */
+    public void setTelemetryInterceptor(CognitoTelemetryInterceptor telemetryInterceptor) {
+        this.telemetryInterceptor = telemetryInterceptor;
+    }
+
+    /**
+     * Set per-call timeouts (applies operation timeouts and caller deadlines to each SDK request)
+     *
+     * @param callTimeouts Call timeouts, registered as execution interceptor
+     */
+    public void setCallTimeouts(CognitoCallTimeouts callTimeouts) {
+        this.callTimeouts = callTimeouts;
+    }
+
+    /**
+     * Set call cancellation (lets cancelled calls abort their HTTP exchange)
+     *
+     * @param callCancellation Call cancellation, wrapping the HTTP client
+     */
+    public void setCallCancellation(CognitoCallCancellation callCancellation) {
+        this.callCancellation = callCancellation;
+    }
+
+    /**
+     * Set client decorator (for fault injection in tests and benchmarks)
+     *
+     * @param clientDecorator Function wrapping the client once it is created
+     */
+    public void setClientDecorator(UnaryOperator<CognitoIdentityProviderClient> clientDecorator) {
+        this.clientDecorator = clientDecorator;
+    }
+
     /**
      * Get or create the Cognito Identity Provider client
      *
@@ -74,26 +132,80 @@ public class CognitoClientFactory {
         if (client == null) {
             synchronized (this) {
                 if (client == null) {
-                    client = createClient();
+                    CognitoIdentityProviderClient created = createClient();
+                    client = clientDecorator != null ? clientDecorator.apply(created) : created;
                 }
             }
         }
         return client;
     }
 
+    /**
+     * Get the client for admin operations
+     *
+     * @return Client with its own connection pool when pools are separate, the shared client otherwise
+     */
+    public CognitoIdentityProviderClient getAdminClient() {
+        if (!properties.getBulkhead().isSeparateConnectionPools()) {
+            return getClient();
+        }
+        if (adminClient == null) {
+            synchronized (this) {
+                if (adminClient == null) {
+                    CognitoIdentityProviderClient created = createClient(CognitoOperation.Compartment.ADMIN);
+                    adminClient = clientDecorator != null ? clientDecorator.apply(created) : created;
+                }
+            }
+        }
+        return adminClient;
+    }
+
     /**
      * Create a new Cognito Identity Provider client
      * 
      * @return Configured CognitoIdentityProviderClient
      */
     protected CognitoIdentityProviderClient createClient() {
-        log.info("Initializing AWS Cognito client for region: {}", properties.getRegion());
+        return createClient(CognitoOperation.Compartment.AUTH);
+    }
+
+    /**
+     * Create a new Cognito Identity Provider client for a compartment; its
+     * connection pool metrics are tagged with the compartment
+     *
+     * @param compartment Compartment the client serves
+     * @return Configured CognitoIdentityProviderClient
+     */
+    protected CognitoIdentityProviderClient createClient(CognitoOperation.Compartment compartment) {
+        log.info("Initializing AWS Cognito {} client for region: {}", compartment.tagValue(), properties.getRegion());
         
         CognitoIdentityProviderClientBuilder builder = CognitoIdentityProviderClient.builder()
                 .region(Region.of(properties.getRegion()))
-                .overrideConfiguration(config -> config
-                        .apiCallTimeout(Duration.ofMillis(properties.getRequestTimeout()))
-                        .apiCallAttemptTimeout(Duration.ofMillis(properties.getConnectionTimeout())));
+                .overrideConfiguration(config -> {
+                    config.apiCallTimeout(Duration.ofMillis(properties.getRequestTimeout()))
+                            .apiCallAttemptTimeout(Duration.ofMillis(properties.getConnectionTimeout()));
+                    if (metricPublisher != null) {
+                        config.addMetricPublisher(metricPublisher.forClient(compartment));
+                    }
+                    if (callTimeouts != null) {
+                        config.addExecutionInterceptor(callTimeouts);
+                    }
+                    if (telemetryInterceptor != null) {
+                        telemetryInterceptor.enableSdkMetrics();
+                        config.addExecutionInterceptor(telemetryInterceptor)
+                                .addMetricPublisher(telemetryInterceptor);
+                    }
+                });
+        
+        // Size each pool to its compartment when pools are separate
+        ApacheHttpClient.Builder httpClient = ApacheHttpClient.builder();
+        if (properties.getBulkhead().isSeparateConnectionPools()) {
+            CognitoProperties.Bulkhead.Compartment limits = compartment == CognitoOperation.Compartment.AUTH
+                    ? properties.getBulkhead().getAuth()
+                    : properties.getBulkhead().getAdmin();
+            httpClient.maxConnections(limits.getMaxConnections());
+        }
+        builder.httpClientBuilder(callCancellation != null ? callCancellation.decorate(httpClient) : httpClient);
         
         // Apply endpoint override if set (for LocalStack)
         if (endpointOverride != null) {
@@ -119,5 +231,8 @@ public class CognitoClientFactory {
             log.info("Closing AWS Cognito client");
             client.close();
         }
+        if (adminClient != null) {
+            adminClient.close();
+        }
     }
 }
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.client;
+
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Operations exposed by the Cognito user and admin services.
+ *
+ * <p>Used as the low-cardinality key for everything that is tracked or
+ * configured per operation.
+ */
+public enum CognitoOperation {
+
+    LOGIN("login", Compartment.AUTH, Priority.HIGH),
+    REFRESH("refresh", Compartment.AUTH, Priority.HIGH),
+    LOGOUT("logout", Compartment.AUTH, Priority.NORMAL),
+    INTROSPECT("introspect", Compartment.AUTH, Priority.HIGH),
+    GET_USER_INFO("get_user_info", Compartment.AUTH, Priority.HIGH),
+    REVOKE_REFRESH_TOKEN("revoke_refresh_token", Compartment.AUTH, Priority.NORMAL),
+    AUTHORIZATION_CODE("authorization_code", Compartment.AUTH, Priority.HIGH),
+    OAUTH2_REFRESH("oauth2_refresh", Compartment.AUTH, Priority.HIGH),
+    OAUTH2_USER_INFO("oauth2_user_info", Compartment.AUTH, Priority.HIGH),
+    MIGRATE_USER("migrate_user", Compartment.ADMIN, Priority.HIGH),
+    CREATE_USER("create_user", Compartment.ADMIN, Priority.NORMAL),
+    CHANGE_PASSWORD("change_password", Compartment.ADMIN, Priority.NORMAL),
+    RESET_PASSWORD("reset_password", Compartment.ADMIN, Priority.NORMAL),
+    MFA_CHALLENGE("mfa_challenge", Compartment.ADMIN, Priority.HIGH),
+    MFA_VERIFY("mfa_verify", Compartment.ADMIN, Priority.HIGH),
+    LIST_SESSIONS("list_sessions", Compartment.ADMIN, Priority.NORMAL),
+    REVOKE_SESSION("revoke_session", Compartment.ADMIN, Priority.NORMAL),
+    FIND_DEVICE_OWNER("find_device_owner", Compartment.ADMIN, Priority.LOW),
+    GET_ROLES("get_roles", Compartment.ADMIN, Priority.NORMAL),
+    GET_USERS_IN_ROLE("get_users_in_role", Compartment.ADMIN, Priority.NORMAL),
+    DELETE_USER("delete_user", Compartment.ADMIN, Priority.NORMAL),
+    UPDATE_USER("update_user", Compartment.ADMIN, Priority.NORMAL),
+    CREATE_ROLES("create_roles", Compartment.ADMIN, Priority.LOW),
+    CREATE_SCOPE("create_scope", Compartment.ADMIN, Priority.LOW),
+    ASSIGN_ROLES("assign_roles", Compartment.ADMIN, Priority.NORMAL),
+    REMOVE_ROLES("remove_roles", Compartment.ADMIN, Priority.NORMAL),
+    ADMIN_GLOBAL_SIGN_OUT("admin_global_sign_out", Compartment.ADMIN, Priority.NORMAL);
+
+    /**
+     * Traffic class of an operation; each class gets its own bulkhead
+     */
+    public enum Compartment {
+        /** Token-facing calls made on behalf of end users */
+        AUTH,
+        /** User, role and session administration */
+        ADMIN;
+
+        private final String tagValue = name().toLowerCase(Locale.ROOT);
+
+        public String tagValue() {
+            return tagValue;
+        }
+    }
+
+    /**
+     * Urgency of a call within its compartment; a queued call of a higher
+     * priority is handed a free slot first
+     */
+    public enum Priority {
+        /** An end user is waiting on the answer: sign-in, MFA, token checks */
+        HIGH,
+        /** Regular administration */
+        NORMAL,
+        /** Background work such as bulk imports, cache warmups and provisioning */
+        LOW;
+
+        private final String tagValue = name().toLowerCase(Locale.ROOT);
+
+        public String tagValue() {
+            return tagValue;
+        }
+
+        /**
+         * Run the calls of a reactive chain at this priority instead of their
+         * operations' defaults, e.g.
+         * {@code adminService.getRoles(id).contextWrite(Priority.LOW.inContext())}
+         *
+         * @return Function for {@code contextWrite}
+         */
+        public Function<Context, Context> inContext() {
+            return context -> context.put(Priority.class, this);
+        }
+    }
+
+    private final String tagValue;
+    private final Compartment compartment;
+    private final Priority priority;
+
+    CognitoOperation(String tagValue, Compartment compartment, Priority priority) {
+        this.tagValue = tagValue;
+        this.compartment = compartment;
+        this.priority = priority;
+    }
+
+    /**
+     * Name used in metric tags and logs
+     */
+    public String tagValue() {
+        return tagValue;
+    }
+
+    /**
+     * Traffic class the operation belongs to
+     */
+    public Compartment compartment() {
+        return compartment;
+    }
+
+    /**
+     * Default urgency of the operation
+     */
+    public Priority priority() {
+        return priority;
+    }
+
+    /**
+     * Urgency of a call, overridden by a {@link Priority#inContext()} of the subscriber
+     */
+    public Priority priority(ContextView context) {
+        return context.getOrDefault(Priority.class, priority);
+    }
+}
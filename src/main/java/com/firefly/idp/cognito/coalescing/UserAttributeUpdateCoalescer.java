@@ -0,0 +1,197 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.coalescing;
+
+import com.firefly.idp.cognito.client.CognitoCallExecutor;
+import com.firefly.idp.cognito.client.CognitoClientFactory;
+import com.firefly.idp.cognito.client.CognitoOperation;
+import com.firefly.idp.cognito.properties.CognitoProperties;
+import com.firefly.idp.cognito.sharding.UserPoolShards;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.AdminUpdateUserAttributesRequest;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.AttributeType;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind coalescer for user attribute updates.
+ *
+ * <p>Updates for the same user that arrive within the configured window are
+ * merged into a single AdminUpdateUserAttributes call, last writer wins per
+ * attribute. Users are hashed onto a fixed number of stripes, each backed by a
+ * single-threaded scheduler that owns its pending batches, so updates to one
+ * user are applied in submission order without locks while users on other
+ * stripes are written in parallel.
+ *
+ * <p>Merged writes are {@link CognitoOperation#UPDATE_USER} calls through the
+ * {@link CognitoCallExecutor}. A user's next batch is written once its previous
+ * write has finished. An update whose subscriber cancels before its batch is
+ * written is left out of the batch, and a batch left without updates is not written.
+ */
+@Component
+@Slf4j
+public class UserAttributeUpdateCoalescer {
+
+    private final CognitoClientFactory clientFactory;
+    private final CognitoProperties properties;
+    private final UserPoolShards shards;
+    private final CognitoCallExecutor calls;
+    private final Stripe[] stripes;
+
+    public UserAttributeUpdateCoalescer(CognitoClientFactory clientFactory, CognitoProperties properties,
+                                        UserPoolShards shards, CognitoCallExecutor calls) {
+        this.clientFactory = clientFactory;
+        this.properties = properties;
+        this.shards = shards;
+        this.calls = calls;
+
+        CognitoProperties.UpdateCoalescing settings = properties.getUpdateCoalescing();
+        this.stripes = new Stripe[settings.isEnabled() ? settings.getStripes() : 0];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe(Schedulers.newSingle("cognito-update-stripe-" + i, true));
+        }
+    }
+
+    /**
+     * Queue attribute updates for a user
+     *
+     * @param username Cognito username
+     * @param attributes Attributes to update
+     * @return Mono completing when the merged write containing these attributes succeeds
+     */
+    public Mono<Void> submit(String username, List<AttributeType> attributes) {
+        if (stripes.length == 0) {
+            return Mono.error(new IllegalStateException("Update coalescing is not enabled"));
+        }
+        Stripe stripe = stripes[Math.floorMod(username.hashCode(), stripes.length)];
+        return Mono.create(sink -> stripe.scheduler.schedule(() -> stripe.enqueue(username, attributes, sink)));
+    }
+
+    /**
+     * Stop the stripe schedulers on shutdown
+     */
+    @PreDestroy
+    public void destroy() {
+        for (Stripe stripe : stripes) {
+            stripe.scheduler.dispose();
+        }
+    }
+
+    /**
+     * Batches waiting to be written for the users of one stripe. Only ever
+     * touched from the stripe's own thread.
+     */
+    private final class Stripe {
+
+        private final Scheduler scheduler;
+        private final Map<String, PendingUpdate> pending = new HashMap<>();
+        private final Set<String> writing = new HashSet<>();
+
+        private Stripe(Scheduler scheduler) {
+            this.scheduler = scheduler;
+        }
+
+        private void enqueue(String username, List<AttributeType> attributes, MonoSink<Void> sink) {
+            PendingUpdate update = pending.get(username);
+            if (update == null) {
+                update = new PendingUpdate();
+                pending.put(username, update);
+                scheduler.schedule(() -> flush(username),
+                        properties.getUpdateCoalescing().getWindow(), TimeUnit.MILLISECONDS);
+            }
+            Waiter waiter = new Waiter(attributes, sink);
+            update.waiters.add(waiter);
+            // Once the batch is being written, the waiter is no longer in it
+            PendingUpdate batch = update;
+            sink.onCancel(() -> scheduler.schedule(() -> batch.waiters.remove(waiter)));
+        }
+
+        private void flush(String username) {
+            PendingUpdate update = pending.get(username);
+            if (update == null) {
+                return;
+            }
+            if (writing.contains(username)) {
+                // Written once the write in flight has finished
+                update.due = true;
+                return;
+            }
+            pending.remove(username);
+            List<Waiter> waiters = List.copyOf(update.waiters);
+            if (waiters.isEmpty()) {
+                return;
+            }
+
+            Map<String, AttributeType> attributes = new LinkedHashMap<>();
+            for (Waiter waiter : waiters) {
+                for (AttributeType attribute : waiter.attributes()) {
+                    attributes.put(attribute.name(), attribute);
+                }
+            }
+            writing.add(username);
+            calls.run(CognitoOperation.UPDATE_USER, () -> clientFactory.getAdminClient().adminUpdateUserAttributes(
+                            AdminUpdateUserAttributesRequest.builder()
+                                    .userPoolId(shards.locate(username).getUserPoolId())
+                                    .username(username)
+                                    .userAttributes(attributes.values())
+                                    .build()))
+                    .doFinally(signal -> scheduler.schedule(() -> written(username)))
+                    .subscribe(null,
+                            error -> {
+                                log.error("Coalesced update failed for user: {}", username, error);
+                                waiters.forEach(waiter -> waiter.sink().error(error));
+                            },
+                            () -> {
+                                log.debug("Wrote {} coalesced update(s) for user: {}", waiters.size(), username);
+                                waiters.forEach(waiter -> waiter.sink().success());
+                            });
+        }
+
+        private void written(String username) {
+            writing.remove(username);
+            PendingUpdate next = pending.get(username);
+            if (next != null && next.due) {
+                flush(username);
+            }
+        }
+    }
+
+    private static final class PendingUpdate {
+
+        private final List<Waiter> waiters = new ArrayList<>(2);
+        private boolean due;
+    }
+
+    /**
+     * Attributes submitted by one caller, and the caller waiting for them to be written
+     */
+    private record Waiter(List<AttributeType> attributes, MonoSink<Void> sink) {
+    }
+}
@@ -16,7 +16,11 @@
 
 package com.firefly.idp.cognito.config;
 
+import com.firefly.idp.cognito.client.CognitoCallCancellation;
+import com.firefly.idp.cognito.metrics.CognitoSdkMetricPublisher;
 import com.firefly.idp.cognito.properties.CognitoProperties;
+import com.firefly.idp.cognito.resilience.CognitoCallTimeouts;
+import com.firefly.idp.cognito.telemetry.CognitoTelemetryInterceptor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
@@ -40,7 +44,10 @@ import org.springframework.context.annotation.Configuration;
 public class CognitoConfiguration {
 
     @Bean
-    public com.firefly.idp.cognito.client.CognitoClientFactory cognitoClientFactory(CognitoProperties properties) {
+    public com.firefly.idp.cognito.client.CognitoClientFactory cognitoClientFactory(
+            CognitoProperties properties, CognitoSdkMetricPublisher metricPublisher,
+            CognitoTelemetryInterceptor telemetryInterceptor, CognitoCallTimeouts callTimeouts,
+            CognitoCallCancellation callCancellation) {
         log.info("Configuring AWS Cognito Client Factory for region: {}", properties.getRegion());
         
         com.firefly.idp.cognito.client.CognitoClientFactory factory = 
@@ -52,6 +59,13 @@ public class CognitoConfiguration {
             factory.setEndpointOverride(java.net.URI.create(properties.getEndpointOverride()));
         }
         
+        factory.setMetricPublisher(metricPublisher);
+        factory.setCallTimeouts(callTimeouts);
+        factory.setCallCancellation(callCancellation);
+        if (properties.getTelemetry().isEnabled()) {
+            factory.setTelemetryInterceptor(telemetryInterceptor);
+        }
+        
         return factory;
     }
     
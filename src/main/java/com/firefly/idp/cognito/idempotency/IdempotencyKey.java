@@ -0,0 +1,77 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.idempotency;
+
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+import java.util.function.Function;
+
+/**
+ * Client-chosen key identifying one logical admin mutation across retries,
+ * carried in the Reactor context of the operation.
+ *
+ * <p>Typically taken from the {@code Idempotency-Key} header of the inbound request:
+ * <pre>{@code
+ * adapter.createUser(request)
+ *         .contextWrite(IdempotencyKey.of(exchange.getRequest().getHeaders().getFirst("Idempotency-Key")));
+ * }</pre>
+ * A retry carrying the same key gets the result of the first execution (see
+ * {@link IdempotentExecutions}). A {@code null} key leaves the context unchanged.
+ */
+public final class IdempotencyKey {
+
+    /**
+     * Reactor context key of the idempotency key
+     */
+    public static final Class<IdempotencyKey> CONTEXT_KEY = IdempotencyKey.class;
+
+    /**
+     * Longest accepted key
+     */
+    public static final int MAX_LENGTH = 255;
+
+    private final String value;
+
+    private IdempotencyKey(String value) {
+        this.value = value;
+    }
+
+    /**
+     * @param key Key chosen by the client, unique per logical mutation; may be null
+     * @return Context update to pass to {@code contextWrite}
+     * @throws IllegalArgumentException If the key is blank or longer than {@link #MAX_LENGTH}
+     */
+    public static Function<Context, Context> of(String key) {
+        if (key == null) {
+            return Function.identity();
+        }
+        if (key.isBlank() || key.length() > MAX_LENGTH) {
+            throw new IllegalArgumentException("Idempotency key must have 1 to " + MAX_LENGTH + " characters");
+        }
+        IdempotencyKey idempotencyKey = new IdempotencyKey(key);
+        return context -> context.put(CONTEXT_KEY, idempotencyKey);
+    }
+
+    /**
+     * @return Key in a context, or {@code null} when the caller set none
+     */
+    public static String from(ContextView context) {
+        IdempotencyKey key = context.getOrDefault(CONTEXT_KEY, null);
+        return key != null ? key.value : null;
+    }
+}
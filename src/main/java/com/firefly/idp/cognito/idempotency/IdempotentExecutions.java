@@ -0,0 +1,208 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.idempotency;
+
+import com.firefly.idp.cognito.client.CognitoOperation;
+import com.firefly.idp.cognito.metrics.CognitoMetrics;
+import com.firefly.idp.cognito.properties.CognitoProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Runs admin mutations at most once per {@link IdempotencyKey}.
+ *
+ * <p>The first call with a key executes and, if it succeeds, its result is
+ * stored for the TTL. Within that time:
+ * <ul>
+ *   <li>a call with the same key, operation and subject that arrives while the
+ *       first one runs shares its execution</li>
+ *   <li>one that arrives later gets the stored result without calling Cognito</li>
+ * </ul>
+ * Failures and non-2xx responses are shared with concurrent duplicates but not
+ * stored, so a later retry executes again. The execution is detached from its
+ * callers: it completes and is stored even if the caller that started it
+ * cancels, e.g. because its upstream timed out and is about to retry.
+ *
+ * <p>Keys are scoped by operation and subject, so reusing a key for another
+ * user or operation never returns a foreign result. The map is bounded like
+ * the fallback caches: when full, expired results are purged and, if that is
+ * not enough, arbitrary stored results are dropped. Executions in progress are
+ * never dropped.
+ *
+ * <p>Publishes {@code cognito.idempotency.requests} (tag {@code outcome}:
+ * {@code executed}, {@code shared} or {@code replayed}) and
+ * {@code cognito.idempotency.entries}.
+ */
+@Component
+public class IdempotentExecutions {
+
+    private final boolean enabled;
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final LongSupplier clock;
+    private final ConcurrentMap<String, Execution> executions = new ConcurrentHashMap<>();
+
+    private final Counter executed;
+    private final Counter shared;
+    private final Counter replayed;
+
+    @Autowired
+    public IdempotentExecutions(CognitoProperties properties, CognitoMetrics metrics) {
+        this(properties.getIdempotency(), metrics.registry());
+    }
+
+    public IdempotentExecutions(CognitoProperties.Idempotency settings, MeterRegistry registry) {
+        this(settings, registry, System::nanoTime);
+    }
+
+    IdempotentExecutions(CognitoProperties.Idempotency settings, MeterRegistry registry, LongSupplier clock) {
+        this.enabled = settings.isEnabled();
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(settings.getTtl());
+        this.maxEntries = Math.max(settings.getMaxEntries(), 1);
+        this.clock = clock;
+        this.executed = requestCounter(registry, "executed");
+        this.shared = requestCounter(registry, "shared");
+        this.replayed = requestCounter(registry, "replayed");
+        Gauge.builder("cognito.idempotency.entries", executions, Map::size)
+                .description("Admin mutation results and executions held per idempotency key")
+                .register(registry);
+    }
+
+    /**
+     * Run a mutation once per idempotency key of the subscriber
+     *
+     * @param operation Operation being executed
+     * @param subject Username, user id or other target of the mutation; may be null
+     * @param source Mutation, executed at most once per key while its result is stored
+     * @return Publisher of the result of this or an earlier execution; {@code source}
+     *         itself when the subscriber set no key
+     */
+    public <T> Mono<T> execute(CognitoOperation operation, String subject, Mono<T> source) {
+        if (!enabled) {
+            return source;
+        }
+        return Mono.deferContextual(context -> {
+            String key = IdempotencyKey.from(context);
+            if (key == null) {
+                return source;
+            }
+            String cacheKey = operation.tagValue() + '\u0000' + (subject != null ? subject : "") + '\u0000' + key;
+            while (true) {
+                Execution existing = executions.get(cacheKey);
+                if (existing != null) {
+                    if (!existing.isExpired(clock.getAsLong(), ttlNanos)) {
+                        (existing.isCompleted() ? replayed : shared).increment();
+                        return existing.result();
+                    }
+                    executions.remove(cacheKey, existing);
+                    continue;
+                }
+                Execution execution = new Execution();
+                if (executions.size() >= maxEntries) {
+                    purge(clock.getAsLong());
+                }
+                if (executions.putIfAbsent(cacheKey, execution) != null) {
+                    continue;
+                }
+                executed.increment();
+                source.map(Optional::<Object>of)
+                        .defaultIfEmpty(Optional.empty())
+                        .contextWrite(context)
+                        .subscribe(result -> {
+                            if (isStorable(result)) {
+                                execution.completedAt = clock.getAsLong();
+                            } else {
+                                executions.remove(cacheKey, execution);
+                            }
+                            execution.sink.tryEmitValue(result);
+                        }, error -> {
+                            executions.remove(cacheKey, execution);
+                            execution.sink.tryEmitError(error);
+                        });
+                return execution.result();
+            }
+        });
+    }
+
+    /**
+     * @return Stored results and executions in progress
+     */
+    public int size() {
+        return executions.size();
+    }
+
+    private void purge(long now) {
+        executions.values().removeIf(execution -> execution.isExpired(now, ttlNanos));
+        // Still full: make room for a tenth of the capacity at once rather than one entry per call
+        Iterator<Execution> iterator = executions.values().iterator();
+        int target = maxEntries - Math.max(maxEntries / 10, 1);
+        while (executions.size() > target && iterator.hasNext()) {
+            if (iterator.next().isCompleted()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    private static boolean isStorable(Optional<Object> result) {
+        return result.isEmpty()
+                || !(result.get() instanceof ResponseEntity<?> response)
+                || response.getStatusCode().is2xxSuccessful();
+    }
+
+    private static Counter requestCounter(MeterRegistry registry, String outcome) {
+        return Counter.builder("cognito.idempotency.requests")
+                .description("Admin mutations carrying an idempotency key")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    /**
+     * One execution per key; its result is replayed to every subscriber
+     */
+    private static final class Execution {
+
+        private final Sinks.One<Optional<Object>> sink = Sinks.one();
+        private volatile long completedAt = -1;
+
+        private boolean isCompleted() {
+            return completedAt != -1;
+        }
+
+        private boolean isExpired(long now, long ttlNanos) {
+            return isCompleted() && now - completedAt > ttlNanos;
+        }
+
+        @SuppressWarnings("unchecked")
+        private <T> Mono<T> result() {
+            return sink.asMono().flatMap(result -> Mono.justOrEmpty((Optional<T>) result));
+        }
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.index;
+
+import com.firefly.idp.cognito.client.CognitoCallExecutor;
+import com.firefly.idp.cognito.client.CognitoClientFactory;
+import com.firefly.idp.cognito.client.CognitoOperation;
+import com.firefly.idp.cognito.properties.CognitoProperties;
+import com.firefly.idp.cognito.sharding.UserPoolShard;
+import com.firefly.idp.cognito.sharding.UserPoolShards;
+import com.firefly.idp.cognito.util.RatePacer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.AdminListDevicesRequest;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.AdminListDevicesResponse;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.DeviceType;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.ListUsersRequest;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.ListUsersResponse;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.ResourceNotFoundException;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded index from Cognito device key to the username that owns the device.
+ *
+ * <p>AdminForgetDevice needs the owning username, but a session id handed out
+ * by {@code listSessions} is only a device key. The index is fed from
+ * {@code listSessions} results and from the device metadata returned on login,
+ * and evicts least recently used entries once full. On a miss the pool is
+ * scanned with ListUsers, listing devices of several users in parallel and
+ * indexing every device seen on the way, until the owner is found. With
+ * sharding, the pools of all shards are scanned one after the other.
+ *
+ * <p>Scans run as the low-priority {@link CognitoOperation#FIND_DEVICE_OWNER}
+ * through the {@link CognitoCallExecutor}, paced across all lookups and bounded
+ * by a call and time budget each. A device key no owner was found for is
+ * remembered for a while and answered as not found without scanning again, so
+ * unknown session ids cannot keep the pool busy.
+ */
+@Component
+@Slf4j
+public class DeviceOwnerIndex {
+
+    private static final int LIST_USERS_LIMIT = 60;
+    private static final int LIST_DEVICES_LIMIT = 60;
+
+    private final CognitoClientFactory clientFactory;
+    private final CognitoProperties properties;
+    private final UserPoolShards shards;
+    private final CognitoCallExecutor calls;
+    private final RatePacer pacer;
+    private final Map<String, String> owners;
+    /** Device keys no owner was found for, with the nanoTime until which that holds */
+    private final Map<String, Long> misses;
+
+    public DeviceOwnerIndex(CognitoClientFactory clientFactory, CognitoProperties properties, UserPoolShards shards,
+                            CognitoCallExecutor calls) {
+        this.clientFactory = clientFactory;
+        this.properties = properties;
+        this.shards = shards;
+        this.calls = calls;
+        this.pacer = new RatePacer(properties.getDeviceIndex().getLookupRatePerSecond());
+
+        int maxEntries = properties.getDeviceIndex().getMaxEntries();
+        this.owners = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        this.misses = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Record the owner of a device
+     */
+    public void put(String deviceKey, String username) {
+        synchronized (owners) {
+            owners.put(deviceKey, username.intern());
+            misses.remove(deviceKey);
+        }
+    }
+
+    /**
+     * Forget a device, e.g. after it has been revoked
+     */
+    public void remove(String deviceKey) {
+        synchronized (owners) {
+            owners.remove(deviceKey);
+        }
+    }
+
+    /**
+     * Get the indexed owner of a device without calling Cognito
+     *
+     * @return Owning username, or null if the device is not indexed
+     */
+    public String get(String deviceKey) {
+        synchronized (owners) {
+            return owners.get(deviceKey);
+        }
+    }
+
+    /**
+     * Resolve the owner of a device, scanning the user pool on an index miss
+     *
+     * @param deviceKey Cognito device key
+     * @return Owning username, or ResourceNotFoundException if no owner was found
+     *         within the lookup budget, now or recently
+     */
+    public Mono<String> findOwner(String deviceKey) {
+        String owner = get(deviceKey);
+        if (owner != null) {
+            return Mono.just(owner);
+        }
+        if (isRecentMiss(deviceKey)) {
+            log.debug("Device {} recently not found, skipping scan", deviceKey);
+            return Mono.error(notFound(deviceKey));
+        }
+
+        CognitoProperties.DeviceIndex settings = properties.getDeviceIndex();
+        AtomicInteger budget = new AtomicInteger(settings.getLookupMaxCalls());
+        log.debug("Device {} not indexed, scanning user pool for its owner", deviceKey);
+        return Flux.fromIterable(shards.all())
+                .concatMap(shard -> listUsers(shard, null, budget)
+                        .expand(response -> response.paginationToken() == null
+                                ? Mono.empty()
+                                : listUsers(shard, response.paginationToken(), budget))
+                        .concatMapIterable(ListUsersResponse::users)
+                        .map(user -> new PoolUser(shard, user.username())))
+                .flatMap(user -> listDevices(user, null, budget)
+                                .expand(response -> response.paginationToken() == null
+                                        ? Mono.empty()
+                                        : listDevices(user, response.paginationToken(), budget))
+                                .concatMapIterable(AdminListDevicesResponse::devices)
+                                .filter(device -> device.deviceKey().equals(deviceKey))
+                                .map(device -> user.username()),
+                        settings.getLookupConcurrency())
+                .take(Duration.ofMillis(settings.getLookupTimeout()))
+                .next()
+                .switchIfEmpty(Mono.defer(() -> {
+                    log.debug("No owner of device {} found, {} scan calls left", deviceKey, Math.max(budget.get(), 0));
+                    recordMiss(deviceKey);
+                    return Mono.error(notFound(deviceKey));
+                }));
+    }
+
+    /**
+     * List a page of users, or nothing once the lookup has spent its call budget
+     */
+    private Mono<ListUsersResponse> listUsers(UserPoolShard shard, String paginationToken, AtomicInteger budget) {
+        if (budget.getAndDecrement() <= 0) {
+            return Mono.empty();
+        }
+        return Mono.defer(pacer::acquire).then(calls.execute(CognitoOperation.FIND_DEVICE_OWNER,
+                () -> clientFactory.getAdminClient().listUsers(ListUsersRequest.builder()
+                        .userPoolId(shard.getUserPoolId())
+                        .attributesToGet("sub")
+                        .limit(LIST_USERS_LIMIT)
+                        .paginationToken(paginationToken)
+                        .build())));
+    }
+
+    /**
+     * List a page of devices of a user and index them, or nothing once the lookup
+     * has spent its call budget
+     */
+    private Mono<AdminListDevicesResponse> listDevices(PoolUser user, String paginationToken, AtomicInteger budget) {
+        if (budget.getAndDecrement() <= 0) {
+            return Mono.empty();
+        }
+        return Mono.defer(pacer::acquire).then(calls.execute(CognitoOperation.FIND_DEVICE_OWNER,
+                        () -> clientFactory.getAdminClient().adminListDevices(AdminListDevicesRequest.builder()
+                                .userPoolId(user.shard().getUserPoolId())
+                                .username(user.username())
+                                .limit(LIST_DEVICES_LIMIT)
+                                .paginationToken(paginationToken)
+                                .build())))
+                .doOnNext(response -> {
+                    for (DeviceType device : response.devices()) {
+                        put(device.deviceKey(), user.username());
+                    }
+                });
+    }
+
+    private boolean isRecentMiss(String deviceKey) {
+        synchronized (owners) {
+            Long until = misses.get(deviceKey);
+            if (until == null) {
+                return false;
+            }
+            if (until - System.nanoTime() > 0) {
+                return true;
+            }
+            misses.remove(deviceKey);
+            return false;
+        }
+    }
+
+    private void recordMiss(String deviceKey) {
+        long retention = properties.getDeviceIndex().getMissRetention();
+        if (retention <= 0) {
+            return;
+        }
+        synchronized (owners) {
+            misses.put(deviceKey, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(retention));
+        }
+    }
+
+    private static ResourceNotFoundException notFound(String deviceKey) {
+        return ResourceNotFoundException.builder()
+                .message("No user owns device: " + deviceKey)
+                .build();
+    }
+
+    /**
+     * A user found while scanning the pool of a shard
+     */
+    private record PoolUser(UserPoolShard shard, String username) {
+    }
+}
@@ -0,0 +1,324 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.index;
+
+import com.firefly.idp.cognito.client.CognitoClientFactory;
+import com.firefly.idp.cognito.properties.CognitoProperties;
+import com.firefly.idp.cognito.sharding.UserPoolShard;
+import com.firefly.idp.cognito.sharding.UserPoolShards;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.cognitoidentityprovider.CognitoIdentityProviderClient;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.ListUsersInGroupRequest;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.ListUsersInGroupResponse;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.UserType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+
+/**
+ * In-memory reverse index from Cognito groups (roles) to their members.
+ *
+ * <p>Each group is loaded lazily via ListUsersInGroup the first time it is
+ * queried and kept as a sorted array of interned usernames, so a user that
+ * belongs to many groups is stored once. Snapshots older than the configured
+ * freshness bound are reloaded on the next query; in between, admin mutations
+ * are applied to loaded snapshots so reads stay consistent with writes made
+ * through this adapter. With sharding, a group's members are those of the
+ * group in every shard's pool.
+ *
+ * <p>Mutations recorded while a group is being loaded are replayed on the
+ * loaded members before they are published, as the listing may have passed
+ * the changed user before the change; an invalidation during a load keeps the
+ * result from being cached. Concurrent queries of a group share a single load
+ * through its in-flight future; no lock is held while Cognito is paged.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class GroupMembershipIndex {
+
+    private static final int LIST_USERS_IN_GROUP_LIMIT = 60;
+
+    private final CognitoClientFactory clientFactory;
+    private final CognitoProperties properties;
+    private final UserPoolShards shards;
+    private final ConcurrentMap<String, GroupSnapshot> groups = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, PendingLoad> loading = new ConcurrentHashMap<>();
+
+    /**
+     * Get a page of members of a group, sorted by username
+     *
+     * @param groupName Cognito group name
+     * @param offset Index of the first member to return
+     * @param limit Maximum number of members to return
+     * @return Members of the group within the requested page
+     */
+    public List<String> members(String groupName, int offset, int limit) {
+        String[] members = snapshot(groupName).members();
+        int from = Math.min(Math.max(offset, 0), members.length);
+        int to = (int) Math.min((long) from + Math.max(limit, 0), members.length);
+        return List.of(Arrays.copyOfRange(members, from, to));
+    }
+
+    /**
+     * Iterate over the members of a group a page at a time, sorted by username.
+     * All pages come from the same snapshot, so concurrent changes neither skip
+     * nor repeat members; each page is copied only when it is reached.
+     *
+     * @param groupName Cognito group name
+     * @param pageSize Maximum number of members per page
+     * @return Pages of members of the group
+     */
+    public Iterable<List<String>> pages(String groupName, int pageSize) {
+        String[] members = snapshot(groupName).members();
+        int size = Math.max(pageSize, 1);
+        return () -> new Iterator<>() {
+            private int from;
+
+            @Override
+            public boolean hasNext() {
+                return from < members.length;
+            }
+
+            @Override
+            public List<String> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int to = (int) Math.min((long) from + size, members.length);
+                List<String> page = List.of(Arrays.copyOfRange(members, from, to));
+                from = to;
+                return page;
+            }
+        };
+    }
+
+    /**
+     * Get the number of members of a group
+     *
+     * @param groupName Cognito group name
+     * @return Member count
+     */
+    public int size(String groupName) {
+        return snapshot(groupName).members().length;
+    }
+
+    /**
+     * Record that a user was added to a group. Only groups already loaded are updated.
+     */
+    public void addMember(String groupName, String username) {
+        String member = username.intern();
+        update(groupName, snapshot -> snapshot.withMember(member));
+    }
+
+    /**
+     * Record that a user was removed from a group. Only groups already loaded are updated.
+     */
+    public void removeMember(String groupName, String username) {
+        update(groupName, snapshot -> snapshot.withoutMember(username));
+    }
+
+    /**
+     * Remove a deleted user from every loaded group
+     */
+    public void removeUser(String username) {
+        Set<String> groupNames = new HashSet<>(groups.keySet());
+        groupNames.addAll(loading.keySet());
+        for (String groupName : groupNames) {
+            removeMember(groupName, username);
+        }
+    }
+
+    /**
+     * Drop a group snapshot so the next query reloads it from Cognito
+     */
+    public void invalidate(String groupName) {
+        groups.compute(groupName, (name, snapshot) -> {
+            PendingLoad load = loading.get(name);
+            if (load != null) {
+                load.invalidated = true;
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Apply a mutation to the loaded snapshot of a group and record it for a load
+     * in progress. Runs atomically with the publication of a load, both computing
+     * on the group's entry.
+     */
+    private void update(String groupName, UnaryOperator<GroupSnapshot> mutation) {
+        groups.compute(groupName, (name, snapshot) -> {
+            PendingLoad load = loading.get(name);
+            if (load != null) {
+                load.mutations.add(mutation);
+            }
+            return snapshot != null ? mutation.apply(snapshot) : null;
+        });
+    }
+
+    private GroupSnapshot snapshot(String groupName) {
+        CognitoProperties.GroupIndex settings = properties.getGroupIndex();
+        if (!settings.isEnabled()) {
+            return new GroupSnapshot(load(groupName), System.nanoTime());
+        }
+
+        long maxAge = TimeUnit.MILLISECONDS.toNanos(settings.getFreshness());
+        GroupSnapshot snapshot = groups.get(groupName);
+        if (snapshot != null && !snapshot.isOlderThan(maxAge)) {
+            return snapshot;
+        }
+
+        // Only one caller reloads a given group; the others wait for its result
+        PendingLoad load = new PendingLoad();
+        PendingLoad inFlight = loading.putIfAbsent(groupName, load);
+        if (inFlight != null) {
+            return inFlight.await();
+        }
+        snapshot = groups.get(groupName);
+        if (snapshot != null && !snapshot.isOlderThan(maxAge)) {
+            loading.remove(groupName, load);
+            load.result.complete(snapshot);
+            return snapshot;
+        }
+
+        GroupSnapshot loaded;
+        try {
+            loaded = new GroupSnapshot(load(groupName), System.nanoTime());
+        } catch (RuntimeException | Error e) {
+            loading.remove(groupName, load);
+            load.result.completeExceptionally(e);
+            throw e;
+        }
+        GroupSnapshot published = groups.compute(groupName, (name, current) -> {
+            loading.remove(name, load);
+            return load.invalidated ? null : load.replay(loaded);
+        });
+        GroupSnapshot result = published != null ? published : load.replay(loaded);
+        load.result.complete(result);
+        return result;
+    }
+
+    private String[] load(String groupName) {
+        log.debug("Loading members of group: {}", groupName);
+
+        CognitoIdentityProviderClient client = clientFactory.getAdminClient();
+        List<String> members = new ArrayList<>();
+
+        for (UserPoolShard shard : shards.all()) {
+            String nextToken = null;
+            do {
+                ListUsersInGroupRequest request = ListUsersInGroupRequest.builder()
+                        .userPoolId(shard.getUserPoolId())
+                        .groupName(groupName)
+                        .limit(LIST_USERS_IN_GROUP_LIMIT)
+                        .nextToken(nextToken)
+                        .build();
+
+                ListUsersInGroupResponse response = client.listUsersInGroup(request);
+                for (UserType user : response.users()) {
+                    members.add(user.username().intern());
+                }
+                nextToken = response.nextToken();
+            } while (nextToken != null);
+        }
+
+        // A user being moved between shards may briefly be in both pools
+        String[] sorted = members.stream().distinct().sorted().toArray(String[]::new);
+
+        log.debug("Loaded {} members of group: {}", sorted.length, groupName);
+        return sorted;
+    }
+
+    /**
+     * A load in progress: its result, the mutations made meanwhile and whether it was invalidated
+     */
+    private static final class PendingLoad {
+
+        private final CompletableFuture<GroupSnapshot> result = new CompletableFuture<>();
+        private final Queue<UnaryOperator<GroupSnapshot>> mutations = new ConcurrentLinkedQueue<>();
+        private volatile boolean invalidated;
+
+        GroupSnapshot await() {
+            try {
+                return result.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+
+        GroupSnapshot replay(GroupSnapshot snapshot) {
+            for (UnaryOperator<GroupSnapshot> mutation : mutations) {
+                snapshot = mutation.apply(snapshot);
+            }
+            return snapshot;
+        }
+    }
+
+    /**
+     * Immutable, sorted member list of a group. Mutations produce a new snapshot
+     * that keeps the original load time, so the freshness bound still applies.
+     */
+    private record GroupSnapshot(String[] members, long loadedAt) {
+
+        boolean isOlderThan(long maxAgeNanos) {
+            return System.nanoTime() - loadedAt > maxAgeNanos;
+        }
+
+        GroupSnapshot withMember(String username) {
+            int index = Arrays.binarySearch(members, username);
+            if (index >= 0) {
+                return this;
+            }
+            int insertAt = -index - 1;
+            String[] updated = new String[members.length + 1];
+            System.arraycopy(members, 0, updated, 0, insertAt);
+            updated[insertAt] = username;
+            System.arraycopy(members, insertAt, updated, insertAt + 1, members.length - insertAt);
+            return new GroupSnapshot(updated, loadedAt);
+        }
+
+        GroupSnapshot withoutMember(String username) {
+            int index = Arrays.binarySearch(members, username);
+            if (index < 0) {
+                return this;
+            }
+            String[] updated = new String[members.length - 1];
+            System.arraycopy(members, 0, updated, 0, index);
+            System.arraycopy(members, index + 1, updated, index, members.length - index - 1);
+            return new GroupSnapshot(updated, loadedAt);
+        }
+    }
+}
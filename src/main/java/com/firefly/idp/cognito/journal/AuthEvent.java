@@ -0,0 +1,94 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.journal;
+
+import com.firefly.idp.cognito.client.CognitoOperation;
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Instant;
+
+/**
+ * An auth or admin event as handed to an {@link AuthEventSink}.
+ */
+@Value
+@Builder
+public class AuthEvent {
+
+    /**
+     * When the event happened, in epoch milliseconds
+     */
+    long timestamp;
+
+    /**
+     * Operation the event belongs to
+     */
+    CognitoOperation operation;
+
+    /**
+     * Username or user id the operation acted on, if known
+     */
+    String subject;
+
+    /**
+     * Whether the operation succeeded
+     */
+    boolean success;
+
+    /**
+     * Error code on failure, or operation specific detail (e.g. role names)
+     */
+    String detail;
+
+    /**
+     * Render the event as a single JSON object without line terminator
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder(128);
+        json.append("{\"timestamp\":\"").append(Instant.ofEpochMilli(timestamp)).append('"');
+        json.append(",\"operation\":\"").append(operation.tagValue()).append('"');
+        appendString(json, "subject", subject);
+        json.append(",\"success\":").append(success);
+        appendString(json, "detail", detail);
+        return json.append('}').toString();
+    }
+
+    private static void appendString(StringBuilder json, String name, String value) {
+        if (value == null) {
+            return;
+        }
+        json.append(",\"").append(name).append("\":\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+                }
+            }
+        }
+        json.append('"');
+    }
+}
@@ -0,0 +1,302 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.journal;
+
+import com.firefly.idp.cognito.client.CognitoOperation;
+import com.firefly.idp.cognito.metrics.CognitoMetrics;
+import com.firefly.idp.cognito.properties.CognitoProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * In-process journal of auth and admin events.
+ *
+ * <p>Producers write into a ring of preallocated slots: a slot is claimed with
+ * a CAS on the producer sequence and published by a volatile write of its
+ * sequence number, so recording an event never blocks and allocates nothing.
+ * A single exporter thread drains published slots in order and hands them to
+ * the configured {@link AuthEventSink}s in batches.
+ *
+ * <p>When producers outpace the exporter the configured
+ * {@link CognitoProperties.Journal.OverflowPolicy} applies; discarded events
+ * are counted in {@code cognito.journal.dropped}.
+ */
+@Component
+@Slf4j
+public class AuthEventJournal {
+
+    private final boolean enabled;
+    private final Slot[] slots;
+    private final int mask;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final boolean sampling;
+    private final int sampleRate;
+    private final List<AuthEventSink> sinks;
+
+    private final AtomicLong producerSequence = new AtomicLong();
+    private volatile long consumerSequence;
+    private volatile boolean running = true;
+
+    private final Counter overflowDropped;
+    private final Counter sampledOut;
+    private final Counter exported;
+    private final Counter exportFailures;
+    private final Thread exporter;
+
+    @Autowired
+    public AuthEventJournal(CognitoProperties properties, ObjectProvider<AuthEventSink> sinkProvider,
+                            CognitoMetrics metrics) {
+        this(properties.getJournal(), defaultSinks(properties.getJournal(), sinkProvider.orderedStream().toList()),
+                metrics.registry());
+    }
+
+    public AuthEventJournal(CognitoProperties.Journal settings, List<AuthEventSink> sinks, MeterRegistry registry) {
+        this.enabled = settings.isEnabled();
+        int capacity = Integer.highestOneBit(Math.max(settings.getCapacity(), 2) - 1) << 1;
+        this.slots = new Slot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot();
+        }
+        this.mask = capacity - 1;
+        this.batchSize = Math.max(settings.getBatchSize(), 1);
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(settings.getFlushInterval());
+        this.sampling = settings.getOverflowPolicy() == CognitoProperties.Journal.OverflowPolicy.SAMPLE;
+        this.sampleRate = Math.max(settings.getSampleRate(), 1);
+        this.sinks = List.copyOf(sinks);
+
+        this.overflowDropped = dropCounter(registry, "overflow");
+        this.sampledOut = dropCounter(registry, "sampled");
+        this.exported = Counter.builder("cognito.journal.exported")
+                .description("Auth events handed to journal sinks")
+                .register(registry);
+        this.exportFailures = Counter.builder("cognito.journal.export.failures")
+                .description("Auth event batches a journal sink failed to write")
+                .register(registry);
+        Gauge.builder("cognito.journal.backlog", this, AuthEventJournal::backlog)
+                .description("Auth events waiting to be exported")
+                .register(registry);
+
+        this.exporter = new Thread(this::exportLoop, "cognito-auth-journal");
+        this.exporter.setDaemon(true);
+        if (enabled) {
+            this.exporter.start();
+        }
+    }
+
+    /**
+     * Record a successful operation
+     *
+     * @param operation Operation that succeeded
+     * @param subject Username or user id acted on, may be null
+     */
+    public void recordSuccess(CognitoOperation operation, String subject) {
+        record(operation, subject, true, null);
+    }
+
+    /**
+     * Record a successful operation with detail
+     *
+     * @param operation Operation that succeeded
+     * @param subject Username or user id acted on, may be null
+     * @param detail Operation specific detail
+     */
+    public void recordSuccess(CognitoOperation operation, String subject, String detail) {
+        record(operation, subject, true, detail);
+    }
+
+    /**
+     * Record a failed operation; the Cognito error code is kept as detail
+     *
+     * @param operation Operation that failed
+     * @param subject Username or user id acted on, may be null
+     * @param error Failure cause
+     */
+    public void recordFailure(CognitoOperation operation, String subject, Throwable error) {
+        record(operation, subject, false, errorCode(error));
+    }
+
+    /**
+     * Record an event without blocking
+     *
+     * @return true if the event was accepted, false if the overflow policy discarded it
+     */
+    public boolean record(CognitoOperation operation, String subject, boolean success, String detail) {
+        if (!enabled) {
+            return false;
+        }
+        long sequence;
+        do {
+            sequence = producerSequence.get();
+            long used = sequence - consumerSequence;
+            if (used >= slots.length) {
+                overflowDropped.increment();
+                return false;
+            }
+            if (sampling && used >= slots.length >> 1 && ThreadLocalRandom.current().nextInt(sampleRate) != 0) {
+                sampledOut.increment();
+                return false;
+            }
+        } while (!producerSequence.compareAndSet(sequence, sequence + 1));
+
+        Slot slot = slots[(int) (sequence & mask)];
+        slot.timestamp = System.currentTimeMillis();
+        slot.operation = operation;
+        slot.subject = subject;
+        slot.success = success;
+        slot.detail = detail;
+        slot.sequence = sequence;
+        return true;
+    }
+
+    /**
+     * Number of events recorded but not yet exported
+     */
+    public long backlog() {
+        return Math.max(producerSequence.get() - consumerSequence, 0);
+    }
+
+    /**
+     * Stop the exporter after writing all buffered events, then close the sinks
+     */
+    @PreDestroy
+    public void destroy() {
+        running = false;
+        LockSupport.unpark(exporter);
+        try {
+            exporter.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (AuthEventSink sink : sinks) {
+            try {
+                sink.close();
+            } catch (IOException e) {
+                log.warn("Failed to close auth event sink {}", sink.getClass().getSimpleName(), e);
+            }
+        }
+    }
+
+    private void exportLoop() {
+        List<AuthEvent> batch = new ArrayList<>(batchSize);
+        while (true) {
+            drain(batch);
+            if (!batch.isEmpty()) {
+                export(batch);
+                batch.clear();
+                continue;
+            }
+            if (!running) {
+                return;
+            }
+            LockSupport.parkNanos(this, flushIntervalNanos);
+        }
+    }
+
+    /**
+     * Move published events into the batch, in sequence order, up to the batch size
+     */
+    private void drain(List<AuthEvent> batch) {
+        long next = consumerSequence;
+        while (batch.size() < batchSize) {
+            Slot slot = slots[(int) (next & mask)];
+            if (slot.sequence != next) {
+                // Not yet published; a claimed slot is always filled right after the claim
+                break;
+            }
+            batch.add(AuthEvent.builder()
+                    .timestamp(slot.timestamp)
+                    .operation(slot.operation)
+                    .subject(slot.subject)
+                    .success(slot.success)
+                    .detail(slot.detail)
+                    .build());
+            slot.subject = null;
+            slot.detail = null;
+            next++;
+        }
+        consumerSequence = next;
+    }
+
+    private void export(List<AuthEvent> batch) {
+        for (AuthEventSink sink : sinks) {
+            try {
+                sink.export(batch);
+            } catch (IOException | RuntimeException e) {
+                exportFailures.increment();
+                log.warn("Auth event sink {} failed to export {} events: {}",
+                        sink.getClass().getSimpleName(), batch.size(), e.getMessage());
+            }
+        }
+        exported.increment(batch.size());
+    }
+
+    private static List<AuthEventSink> defaultSinks(CognitoProperties.Journal settings, List<AuthEventSink> custom) {
+        if (!custom.isEmpty()) {
+            return custom;
+        }
+        if (settings.getDirectory() != null && !settings.getDirectory().isEmpty()) {
+            return List.of(new NdjsonFileAuthEventSink(Path.of(settings.getDirectory()),
+                    settings.getMaxFileSize(), settings.isCompress(), settings.getMaxFiles()));
+        }
+        return List.of(new LoggingAuthEventSink());
+    }
+
+    private static String errorCode(Throwable error) {
+        AwsServiceException serviceException = CognitoMetrics.findServiceException(error);
+        if (serviceException != null && serviceException.awsErrorDetails() != null
+                && serviceException.awsErrorDetails().errorCode() != null) {
+            return serviceException.awsErrorDetails().errorCode();
+        }
+        return (serviceException != null ? serviceException : error).getClass().getSimpleName();
+    }
+
+    private static Counter dropCounter(MeterRegistry registry, String reason) {
+        return Counter.builder("cognito.journal.dropped")
+                .description("Auth events discarded by the journal overflow policy")
+                .tag("reason", reason)
+                .register(registry);
+    }
+
+    /**
+     * Preallocated event record; fields are published by the volatile write of {@code sequence}
+     */
+    private static final class Slot {
+        private long timestamp;
+        private CognitoOperation operation;
+        private String subject;
+        private boolean success;
+        private String detail;
+        private volatile long sequence = -1;
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.journal;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Destination of exported auth events.
+ *
+ * <p>Define a bean implementing this interface to replace the built-in NDJSON
+ * file and log sinks. Batches are delivered in order from a single exporter
+ * thread, so implementations need not be thread-safe and may block.
+ */
+public interface AuthEventSink {
+
+    /**
+     * Export a batch of events
+     *
+     * @param events Events in the order they were recorded; the list is reused after the call returns
+     * @throws IOException if the batch could not be written; the batch is counted as lost
+     */
+    void export(List<AuthEvent> events) throws IOException;
+
+    /**
+     * Release resources once the journal shuts down
+     */
+    default void close() throws IOException {
+    }
+}
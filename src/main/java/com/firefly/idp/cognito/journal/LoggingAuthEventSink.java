@@ -0,0 +1,40 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.journal;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+
+/**
+ * Sink writing each event as one JSON line to the
+ * {@code com.firefly.idp.cognito.audit} logger. Used when neither a journal
+ * directory nor a custom sink is configured.
+ */
+@Slf4j(topic = "com.firefly.idp.cognito.audit")
+public class LoggingAuthEventSink implements AuthEventSink {
+
+    @Override
+    public void export(List<AuthEvent> events) {
+        if (!log.isInfoEnabled()) {
+            return;
+        }
+        for (AuthEvent event : events) {
+            log.info(event.toJson());
+        }
+    }
+}
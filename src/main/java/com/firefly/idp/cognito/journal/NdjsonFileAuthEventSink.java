@@ -0,0 +1,143 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.journal;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Sink appending events as newline-delimited JSON to
+ * {@code auth-events.ndjson} in a directory.
+ *
+ * <p>When the active file reaches the size limit it is renamed to
+ * {@code auth-events-<utc timestamp>.ndjson}, optionally gzip-compressed, and
+ * the oldest rotated files beyond the retention count are deleted.
+ */
+@Slf4j
+public class NdjsonFileAuthEventSink implements AuthEventSink {
+
+    static final String ACTIVE_FILE = "auth-events.ndjson";
+    private static final String ROTATED_PREFIX = "auth-events-";
+    private static final DateTimeFormatter ROTATION_STAMP =
+            DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS").withZone(ZoneOffset.UTC);
+
+    private final Path directory;
+    private final Path activeFile;
+    private final long maxFileSize;
+    private final boolean compress;
+    private final int maxFiles;
+    private BufferedWriter writer;
+    private long size;
+
+    /**
+     * @param directory Directory the files are written to; created if missing
+     * @param maxFileSize Size in bytes at which the active file is rotated
+     * @param compress Whether rotated files are gzip-compressed
+     * @param maxFiles Number of rotated files kept
+     */
+    public NdjsonFileAuthEventSink(Path directory, long maxFileSize, boolean compress, int maxFiles) {
+        this.directory = directory;
+        this.activeFile = directory.resolve(ACTIVE_FILE);
+        this.maxFileSize = maxFileSize;
+        this.compress = compress;
+        this.maxFiles = maxFiles;
+    }
+
+    @Override
+    public void export(List<AuthEvent> events) throws IOException {
+        if (writer == null) {
+            open();
+        }
+        for (AuthEvent event : events) {
+            String line = event.toJson();
+            writer.write(line);
+            writer.write('\n');
+            // Events are ASCII apart from subjects, so char count is a close enough size estimate
+            size += line.length() + 1;
+        }
+        writer.flush();
+        if (size >= maxFileSize) {
+            rotate();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+
+    private void open() throws IOException {
+        Files.createDirectories(directory);
+        writer = Files.newBufferedWriter(activeFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        size = Files.size(activeFile);
+    }
+
+    private void rotate() throws IOException {
+        close();
+        String stamp = ROTATION_STAMP.format(Instant.now());
+        Path rotated = directory.resolve(ROTATED_PREFIX + stamp + ".ndjson");
+        for (int n = 1; Files.exists(rotated) || Files.exists(directory.resolve(rotated.getFileName() + ".gz")); n++) {
+            // Rotated twice within a millisecond
+            rotated = directory.resolve(ROTATED_PREFIX + stamp + "-" + n + ".ndjson");
+        }
+        Files.move(activeFile, rotated);
+        if (compress) {
+            Path compressed = directory.resolve(rotated.getFileName() + ".gz");
+            try (InputStream in = Files.newInputStream(rotated);
+                 OutputStream out = new GZIPOutputStream(Files.newOutputStream(compressed))) {
+                in.transferTo(out);
+            }
+            Files.delete(rotated);
+        }
+        deleteExpired();
+    }
+
+    private void deleteExpired() throws IOException {
+        List<Path> rotated = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, ROTATED_PREFIX + "*")) {
+            files.forEach(rotated::add);
+        }
+        if (rotated.size() <= maxFiles) {
+            return;
+        }
+        // Timestamps sort lexicographically, oldest first
+        rotated.sort(null);
+        for (Path expired : rotated.subList(0, rotated.size() - maxFiles)) {
+            Files.deleteIfExists(expired);
+            log.debug("Deleted expired auth event file: {}", expired.getFileName());
+        }
+    }
+}
@@ -0,0 +1,286 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.mapping;
+
+import com.firefly.idp.cognito.client.CognitoClientFactory;
+import com.firefly.idp.cognito.properties.CognitoProperties;
+import com.firefly.idp.dtos.CreateUserRequest;
+import com.firefly.idp.dtos.UpdateUserRequest;
+import com.firefly.idp.dtos.UserInfoResponse;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.scheduler.Schedulers;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.AttributeType;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.DescribeUserPoolRequest;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.SchemaAttributeType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Maps Firefly user DTOs to and from Cognito user attributes using the user
+ * pool schema.
+ *
+ * <p>The schema is loaded via DescribeUserPool on a bounded elastic thread at
+ * startup and refreshed in the background, so no caller ever waits for it.
+ * Each schema is compiled into a lookup from attribute name to DTO field (for
+ * reads) and from DTO field to attribute name (for writes), honouring
+ * configured overrides such as {@code givenName -> custom:first_name}.
+ * Requests setting fields whose attributes are absent from the schema or
+ * immutable are rejected with an {@link UnwritableAttributesException} before
+ * reaching Cognito. Until the schema is loaded, or if it cannot be loaded, the
+ * mapped attribute names are used without validation.
+ *
+ * <p>The schema is read from the default pool only. With sharding, every
+ * shard's pool must therefore declare the same attributes, with the same
+ * mutability, or writes are checked against the wrong schema.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CognitoAttributeMapper {
+
+    private final CognitoClientFactory clientFactory;
+    private final CognitoProperties properties;
+
+    private volatile CompiledMapping mapping;
+    private volatile CompiledMapping unvalidated;
+    private volatile Disposable refreshTask;
+
+    /**
+     * Firefly user fields that map onto Cognito attributes
+     */
+    public enum Field {
+        SUB("sub", "sub"),
+        EMAIL("email", "email"),
+        EMAIL_VERIFIED("emailVerified", "email_verified"),
+        GIVEN_NAME("givenName", "given_name"),
+        FAMILY_NAME("familyName", "family_name"),
+        NAME("name", "name");
+
+        private final String propertyName;
+        private final String defaultAttribute;
+
+        Field(String propertyName, String defaultAttribute) {
+            this.propertyName = propertyName;
+            this.defaultAttribute = defaultAttribute;
+        }
+    }
+
+    /**
+     * Translate Cognito attributes into a UserInfoResponse in a single pass
+     *
+     * @param username Cognito username
+     * @param attributes User attributes as returned by GetUser/AdminGetUser
+     * @return Mapped user info
+     */
+    public UserInfoResponse toUserInfo(String username, List<AttributeType> attributes) {
+        CompiledMapping compiled = mapping();
+        UserInfoResponse.UserInfoResponseBuilder builder = UserInfoResponse.builder()
+                .preferredUsername(username);
+        String sub = username;
+        boolean emailVerified = false;
+
+        for (AttributeType attribute : attributes) {
+            Field field = compiled.readFields.get(attribute.name());
+            if (field == null) {
+                continue;
+            }
+            switch (field) {
+                case SUB -> sub = attribute.value();
+                case EMAIL -> builder.email(attribute.value());
+                case EMAIL_VERIFIED -> emailVerified = Boolean.parseBoolean(attribute.value());
+                case GIVEN_NAME -> builder.givenName(attribute.value());
+                case FAMILY_NAME -> builder.familyName(attribute.value());
+                case NAME -> builder.name(attribute.value());
+            }
+        }
+
+        return builder.sub(sub)
+                .emailVerified(emailVerified)
+                .build();
+    }
+
+    /**
+     * Build the attributes for AdminCreateUser
+     *
+     * @throws UnwritableAttributesException If a set field's attribute is not in the schema
+     */
+    public List<AttributeType> toAttributes(CreateUserRequest request) {
+        CompiledMapping compiled = mapping();
+        List<AttributeType> attributes = new ArrayList<>(4);
+        List<String> rejected = new ArrayList<>(0);
+        if (request.getEmail() != null) {
+            compiled.add(attributes, rejected, Field.EMAIL, request.getEmail(), false);
+            compiled.add(attributes, rejected, Field.EMAIL_VERIFIED, "true", false);
+        }
+        compiled.add(attributes, rejected, Field.GIVEN_NAME, request.getGivenName(), false);
+        compiled.add(attributes, rejected, Field.FAMILY_NAME, request.getFamilyName(), false);
+        return checked(attributes, rejected);
+    }
+
+    /**
+     * Build the attributes for AdminUpdateUserAttributes
+     *
+     * @throws UnwritableAttributesException If a set field's attribute is not in the schema or immutable
+     */
+    public List<AttributeType> toAttributes(UpdateUserRequest request) {
+        CompiledMapping compiled = mapping();
+        List<AttributeType> attributes = new ArrayList<>(3);
+        List<String> rejected = new ArrayList<>(0);
+        compiled.add(attributes, rejected, Field.EMAIL, request.getEmail(), true);
+        compiled.add(attributes, rejected, Field.GIVEN_NAME, request.getGivenName(), true);
+        compiled.add(attributes, rejected, Field.FAMILY_NAME, request.getFamilyName(), true);
+        return checked(attributes, rejected);
+    }
+
+    /**
+     * Load the user pool schema on a bounded elastic thread and keep refreshing it
+     */
+    @PostConstruct
+    public void start() {
+        long interval = properties.getAttributeMapping().getSchemaRefreshInterval();
+        refreshTask = Schedulers.boundedElastic()
+                .schedulePeriodically(this::refresh, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Reload the user pool schema and recompile the mapping; blocks on DescribeUserPool
+     */
+    public void refresh() {
+        try {
+            List<SchemaAttributeType> schema = clientFactory.getClient()
+                    .describeUserPool(DescribeUserPoolRequest.builder()
+                            .userPoolId(properties.getUserPoolId())
+                            .build())
+                    .userPool()
+                    .schemaAttributes();
+            mapping = CompiledMapping.compile(schema, properties.getAttributeMapping().getOverrides());
+            log.debug("Compiled attribute mapping from {} schema attributes", schema.size());
+        } catch (Exception e) {
+            log.warn("Failed to load user pool schema, keeping current attribute mapping", e);
+        }
+    }
+
+    /**
+     * Stop the background schema refresh on shutdown
+     */
+    @PreDestroy
+    public void destroy() {
+        if (refreshTask != null) {
+            refreshTask.dispose();
+        }
+    }
+
+    private CompiledMapping mapping() {
+        CompiledMapping compiled = mapping;
+        if (compiled != null) {
+            return compiled;
+        }
+        // Schema not loaded yet: racing compilations of the fallback are equivalent
+        compiled = unvalidated;
+        if (compiled == null) {
+            compiled = CompiledMapping.compile(null, properties.getAttributeMapping().getOverrides());
+            unvalidated = compiled;
+        }
+        return compiled;
+    }
+
+    private static List<AttributeType> checked(List<AttributeType> attributes, List<String> rejected) {
+        if (!rejected.isEmpty()) {
+            throw new UnwritableAttributesException(rejected);
+        }
+        return attributes;
+    }
+
+    /**
+     * Immutable lookup tables compiled from one version of the schema
+     */
+    private static final class CompiledMapping {
+
+        private final Map<String, Field> readFields;
+        private final String[] writeAttributes;
+        private final boolean[] creatable;
+        private final boolean[] mutable;
+
+        private CompiledMapping(Map<String, Field> readFields, String[] writeAttributes,
+                                boolean[] creatable, boolean[] mutable) {
+            this.readFields = readFields;
+            this.writeAttributes = writeAttributes;
+            this.creatable = creatable;
+            this.mutable = mutable;
+        }
+
+        /**
+         * Compile lookups for a schema; a null schema accepts every mapped attribute
+         */
+        static CompiledMapping compile(List<SchemaAttributeType> schema, Map<String, String> overrides) {
+            Map<String, SchemaAttributeType> byName = schema == null ? Map.of() : schema.stream()
+                    .collect(Collectors.toMap(SchemaAttributeType::name, attribute -> attribute, (a, b) -> a));
+
+            Field[] fields = Field.values();
+            Map<String, Field> readFields = new HashMap<>(fields.length * 2);
+            String[] writeAttributes = new String[fields.length];
+            boolean[] creatable = new boolean[fields.length];
+            boolean[] mutable = new boolean[fields.length];
+
+            for (Field field : fields) {
+                String attribute = overrides.getOrDefault(field.propertyName, field.defaultAttribute);
+                SchemaAttributeType definition = byName.get(attribute);
+
+                readFields.put(attribute, field);
+                writeAttributes[field.ordinal()] = attribute;
+                creatable[field.ordinal()] = schema == null || definition != null;
+                mutable[field.ordinal()] = schema == null
+                        || (definition != null && !Boolean.FALSE.equals(definition.mutable()));
+
+                if (schema != null && definition == null) {
+                    log.warn("Attribute '{}' mapped from field '{}' is not in the user pool schema",
+                            attribute, field.propertyName);
+                }
+            }
+
+            return new CompiledMapping(Collections.unmodifiableMap(readFields), writeAttributes,
+                    creatable, mutable);
+        }
+
+        void add(List<AttributeType> attributes, List<String> rejected, Field field, String value,
+                 boolean update) {
+            if (value == null) {
+                return;
+            }
+            boolean writable = update ? mutable[field.ordinal()] : creatable[field.ordinal()];
+            if (!writable) {
+                rejected.add(field.propertyName);
+                return;
+            }
+            attributes.add(AttributeType.builder()
+                    .name(writeAttributes[field.ordinal()])
+                    .value(value)
+                    .build());
+        }
+    }
+}
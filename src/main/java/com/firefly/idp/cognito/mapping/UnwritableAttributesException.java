@@ -0,0 +1,42 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.firefly.idp.cognito.mapping;
+
+import java.util.List;
+
+/**
+ * Thrown when a request sets user fields whose Cognito attributes cannot be
+ * written: absent from the user pool schema, or immutable on update. The
+ * request is not sent to Cognito; maps to {@code 400 Bad Request}.
+ */
+public class UnwritableAttributesException extends RuntimeException {
+
+    private final List<String> fields;
+
+    public UnwritableAttributesException(List<String> fields) {
+        super("Fields not writable in the user pool schema: " + String.join(", ", fields));
+        this.fields = List.copyOf(fields);
+    }
+
+    /**
+     * DTO property names of the rejected fields
+     */
+    public List<String> getFields() {
+        return fields;
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.metrics;
+
+import com.firefly.idp.cognito.client.CognitoOperation;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.LimitExceededException;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.NotAuthorizedException;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.ResourceNotFoundException;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.TooManyRequestsException;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.UserNotFoundException;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Micrometer instrumentation of Cognito operations.
+ *
+ * <p>Publishes, per {@link CognitoOperation}:
+ * <ul>
+ *   <li>{@code cognito.operation} timer with percentile histogram, tagged by
+ *       {@code operation}, {@code outcome} and {@code error_code}</li>
+ *   <li>{@code cognito.operation.cancelled} counter</li>
+ *   <li>{@code cognito.operation.inflight} gauge</li>
+ * </ul>
+ *
+ * <p>Meters are looked up by array index and the success timers are registered
+ * up front, so recording a call allocates nothing beyond the subscriber that
+ * carries its start time. Error codes come from the fixed set Cognito returns
+ * and are capped per operation to keep tag cardinality bounded.
+ */
+@Component
+public class CognitoMetrics {
+
+    static final String OPERATION_TIMER = "cognito.operation";
+    static final String NO_ERROR = "none";
+    static final String OTHER_ERROR = "other";
+    static final int MAX_ERROR_CODES_PER_OUTCOME = 32;
+
+    private final MeterRegistry registry;
+    private final Timer[][] successTimers;
+    private final ConcurrentMap<String, Timer>[][] errorTimers;
+    private final Counter[] cancelled;
+    private final AtomicInteger[] inFlight;
+
+    /**
+     * Outcome of an operation, used as the {@code outcome} tag
+     */
+    public enum Outcome {
+        SUCCESS, UNAUTHORIZED, NOT_FOUND, THROTTLED, ERROR;
+
+        private final String tagValue = name().toLowerCase(Locale.ROOT);
+
+        public String tagValue() {
+            return tagValue;
+        }
+    }
+
+    @Autowired
+    public CognitoMetrics(ObjectProvider<MeterRegistry> registryProvider) {
+        this(registryProvider.getIfAvailable(() -> Metrics.globalRegistry));
+    }
+
+    @SuppressWarnings("unchecked")
+    public CognitoMetrics(MeterRegistry registry) {
+        this.registry = registry;
+
+        CognitoOperation[] operations = CognitoOperation.values();
+        Outcome[] outcomes = Outcome.values();
+        this.successTimers = new Timer[operations.length][outcomes.length];
+        this.errorTimers = new ConcurrentMap[operations.length][outcomes.length];
+        this.cancelled = new Counter[operations.length];
+        this.inFlight = new AtomicInteger[operations.length];
+
+        for (CognitoOperation operation : operations) {
+            int op = operation.ordinal();
+            successTimers[op][Outcome.SUCCESS.ordinal()] = timer(operation, Outcome.SUCCESS, NO_ERROR);
+            for (Outcome outcome : outcomes) {
+                errorTimers[op][outcome.ordinal()] = new ConcurrentHashMap<>();
+            }
+            cancelled[op] = Counter.builder(OPERATION_TIMER + ".cancelled")
+                    .description("Cognito operations cancelled by their subscriber")
+                    .tag("operation", operation.tagValue())
+                    .register(registry);
+            inFlight[op] = new AtomicInteger();
+            Gauge.builder(OPERATION_TIMER + ".inflight", inFlight[op], AtomicInteger::get)
+                    .description("Cognito operations currently in flight")
+                    .tag("operation", operation.tagValue())
+                    .register(registry);
+        }
+    }
+
+    /**
+     * Instrument an operation
+     *
+     * @param operation Operation being executed
+     * @param source Publisher performing the operation
+     * @return Publisher recording timing, outcome and in-flight count of each subscription
+     */
+    public <T> Mono<T> instrument(CognitoOperation operation, Mono<T> source) {
+        return new InstrumentedMono<>(source, this, operation);
+    }
+
+    /**
+     * The registry meters are published to
+     */
+    public MeterRegistry registry() {
+        return registry;
+    }
+
+    void started(CognitoOperation operation) {
+        inFlight[operation.ordinal()].incrementAndGet();
+    }
+
+    void succeeded(CognitoOperation operation, Object value, long nanos) {
+        inFlight[operation.ordinal()].decrementAndGet();
+        Outcome outcome = Outcome.SUCCESS;
+        if (value instanceof ResponseEntity<?> response) {
+            outcome = classify(response.getStatusCode());
+        }
+        Timer timer = successTimers[operation.ordinal()][outcome.ordinal()];
+        if (timer == null) {
+            // Racing registrations resolve to the same meter in the registry
+            timer = timer(operation, outcome, NO_ERROR);
+            successTimers[operation.ordinal()][outcome.ordinal()] = timer;
+        }
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void failed(CognitoOperation operation, Throwable error, long nanos) {
+        inFlight[operation.ordinal()].decrementAndGet();
+        AwsServiceException serviceException = findServiceException(error);
+        Outcome outcome = classify(serviceException != null ? serviceException : error);
+        String errorCode = errorCode(serviceException, error);
+
+        ConcurrentMap<String, Timer> timers = errorTimers[operation.ordinal()][outcome.ordinal()];
+        Timer timer = timers.get(errorCode);
+        if (timer == null) {
+            String tag = timers.size() < MAX_ERROR_CODES_PER_OUTCOME ? errorCode : OTHER_ERROR;
+            timer = timers.computeIfAbsent(tag, code -> timer(operation, outcome, code));
+        }
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void cancelled(CognitoOperation operation) {
+        inFlight[operation.ordinal()].decrementAndGet();
+        cancelled[operation.ordinal()].increment();
+    }
+
+    /**
+     * Classify a failure into an outcome
+     */
+    public static Outcome classify(Throwable error) {
+        if (error instanceof NotAuthorizedException) {
+            return Outcome.UNAUTHORIZED;
+        }
+        if (error instanceof UserNotFoundException || error instanceof ResourceNotFoundException) {
+            return Outcome.NOT_FOUND;
+        }
+        if (error instanceof TooManyRequestsException || error instanceof LimitExceededException
+                || (error instanceof AwsServiceException serviceException && serviceException.isThrottlingException())) {
+            return Outcome.THROTTLED;
+        }
+        return Outcome.ERROR;
+    }
+
+    /**
+     * Find the Cognito service exception behind a failure, if any
+     */
+    public static AwsServiceException findServiceException(Throwable error) {
+        Throwable current = error;
+        for (int depth = 0; current != null && depth < 5; depth++) {
+            if (current instanceof AwsServiceException serviceException) {
+                return serviceException;
+            }
+            current = current.getCause();
+        }
+        return null;
+    }
+
+    private static Outcome classify(HttpStatusCode status) {
+        if (status.value() == 401) {
+            return Outcome.UNAUTHORIZED;
+        }
+        if (status.value() == 404) {
+            return Outcome.NOT_FOUND;
+        }
+        if (status.value() == 429) {
+            return Outcome.THROTTLED;
+        }
+        return status.isError() ? Outcome.ERROR : Outcome.SUCCESS;
+    }
+
+    private static String errorCode(AwsServiceException serviceException, Throwable error) {
+        if (serviceException != null && serviceException.awsErrorDetails() != null
+                && serviceException.awsErrorDetails().errorCode() != null) {
+            return serviceException.awsErrorDetails().errorCode();
+        }
+        return (serviceException != null ? serviceException : error).getClass().getSimpleName();
+    }
+
+    private Timer timer(CognitoOperation operation, Outcome outcome, String errorCode) {
+        return Timer.builder(OPERATION_TIMER)
+                .description("Latency of Cognito operations")
+                .tag("operation", operation.tagValue())
+                .tag("outcome", outcome.tagValue())
+                .tag("error_code", errorCode)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.metrics;
+
+import com.firefly.idp.cognito.client.CognitoOperation;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.http.HttpMetric;
+import software.amazon.awssdk.metrics.MetricCollection;
+import software.amazon.awssdk.metrics.MetricPublisher;
+import software.amazon.awssdk.metrics.SdkMetric;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * AWS SDK metric publishers exposing HTTP connection pool usage of the Cognito
+ * clients as gauges tagged by {@code client}:
+ * {@code cognito.http.pool.max}, {@code cognito.http.pool.leased},
+ * {@code cognito.http.pool.available} and {@code cognito.http.pool.pending}.
+ *
+ * <p>Each SDK client registers the publisher of its own compartment (see
+ * {@link #forClient(CognitoOperation.Compartment)}); a client shared by both
+ * compartments reports as {@code auth}. The SDK reports pool state with every
+ * request; the latest values are kept and read by the gauges on scrape.
+ */
+@Component
+public class CognitoSdkMetricPublisher {
+
+    private static final String HTTP_CLIENT_COLLECTION = "HttpClient";
+
+    private final MeterRegistry registry;
+    private final Map<CognitoOperation.Compartment, PoolPublisher> publishers = new ConcurrentHashMap<>();
+
+    public CognitoSdkMetricPublisher(CognitoMetrics metrics) {
+        this.registry = metrics.registry();
+    }
+
+    /**
+     * Get the publisher for the client serving a compartment, registering its
+     * gauges on first use
+     *
+     * @param compartment Compartment the client serves
+     * @return SDK metric publisher feeding the gauges tagged with the compartment
+     */
+    public MetricPublisher forClient(CognitoOperation.Compartment compartment) {
+        return publishers.computeIfAbsent(compartment, c -> new PoolPublisher(registry, c.tagValue()));
+    }
+
+    private static final class PoolPublisher implements MetricPublisher {
+
+        private final AtomicInteger max = new AtomicInteger();
+        private final AtomicInteger leased = new AtomicInteger();
+        private final AtomicInteger available = new AtomicInteger();
+        private final AtomicInteger pending = new AtomicInteger();
+
+        private PoolPublisher(MeterRegistry registry, String client) {
+            gauge(registry, client, "max", "Maximum concurrent connections of the Cognito HTTP client", max);
+            gauge(registry, client, "leased", "Connections currently leased by the Cognito HTTP client", leased);
+            gauge(registry, client, "available", "Idle connections available to the Cognito HTTP client", available);
+            gauge(registry, client, "pending", "Requests waiting for a Cognito HTTP connection", pending);
+        }
+
+        @Override
+        public void publish(MetricCollection metricCollection) {
+            if (HTTP_CLIENT_COLLECTION.equals(metricCollection.name())) {
+                update(metricCollection, HttpMetric.MAX_CONCURRENCY, max);
+                update(metricCollection, HttpMetric.LEASED_CONCURRENCY, leased);
+                update(metricCollection, HttpMetric.AVAILABLE_CONCURRENCY, available);
+                update(metricCollection, HttpMetric.PENDING_CONCURRENCY_ACQUIRES, pending);
+                return;
+            }
+            for (MetricCollection child : metricCollection.children()) {
+                publish(child);
+            }
+        }
+
+        @Override
+        public void close() {
+            // Nothing to release; gauges live as long as the registry
+        }
+    }
+
+    private static void update(MetricCollection collection, SdkMetric<Integer> metric, AtomicInteger target) {
+        List<Integer> values = collection.metricValues(metric);
+        if (!values.isEmpty()) {
+            target.set(values.get(values.size() - 1));
+        }
+    }
+
+    private static void gauge(MeterRegistry registry, String client, String name, String description,
+                              AtomicInteger value) {
+        Gauge.builder("cognito.http.pool." + name, value, AtomicInteger::get)
+                .description(description)
+                .tag("client", client)
+                .register(registry);
+    }
+}
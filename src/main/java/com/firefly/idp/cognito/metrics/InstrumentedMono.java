@@ -0,0 +1,117 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.metrics;
+
+import com.firefly.idp.cognito.client.CognitoOperation;
+import org.reactivestreams.Subscription;
+import reactor.core.CoreSubscriber;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoOperator;
+import reactor.util.context.Context;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * Mono operator that times each subscription and reports its outcome to
+ * {@link CognitoMetrics}. The subscriber itself carries the start time, so no
+ * other object is allocated per call.
+ */
+final class InstrumentedMono<T> extends MonoOperator<T, T> {
+
+    private final CognitoMetrics metrics;
+    private final CognitoOperation operation;
+
+    InstrumentedMono(Mono<? extends T> source, CognitoMetrics metrics, CognitoOperation operation) {
+        super(source);
+        this.metrics = metrics;
+        this.operation = operation;
+    }
+
+    @Override
+    public void subscribe(CoreSubscriber<? super T> actual) {
+        source.subscribe(new RecordingSubscriber<>(actual, metrics, operation));
+    }
+
+    static final class RecordingSubscriber<T> implements CoreSubscriber<T>, Subscription {
+
+        private static final AtomicIntegerFieldUpdater<RecordingSubscriber> DONE =
+                AtomicIntegerFieldUpdater.newUpdater(RecordingSubscriber.class, "done");
+
+        private final CoreSubscriber<? super T> actual;
+        private final CognitoMetrics metrics;
+        private final CognitoOperation operation;
+        private long startNanos;
+        private Object value;
+        private Subscription upstream;
+        private volatile int done;
+
+        RecordingSubscriber(CoreSubscriber<? super T> actual, CognitoMetrics metrics, CognitoOperation operation) {
+            this.actual = actual;
+            this.metrics = metrics;
+            this.operation = operation;
+        }
+
+        @Override
+        public Context currentContext() {
+            return actual.currentContext();
+        }
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.upstream = subscription;
+            this.startNanos = System.nanoTime();
+            metrics.started(operation);
+            actual.onSubscribe(this);
+        }
+
+        @Override
+        public void onNext(T t) {
+            value = t;
+            actual.onNext(t);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            if (DONE.compareAndSet(this, 0, 1)) {
+                metrics.failed(operation, throwable, System.nanoTime() - startNanos);
+            }
+            actual.onError(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            if (DONE.compareAndSet(this, 0, 1)) {
+                metrics.succeeded(operation, value, System.nanoTime() - startNanos);
+            }
+            value = null;
+            actual.onComplete();
+        }
+
+        @Override
+        public void request(long n) {
+            upstream.request(n);
+        }
+
+        @Override
+        public void cancel() {
+            if (DONE.compareAndSet(this, 0, 1)) {
+                metrics.cancelled(operation);
+            }
+            upstream.cancel();
+        }
+    }
+}
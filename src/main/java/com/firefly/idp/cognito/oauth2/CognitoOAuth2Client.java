@@ -0,0 +1,378 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.firefly.idp.cognito.oauth2;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.firefly.idp.cognito.client.CognitoCallExecutor;
+import com.firefly.idp.cognito.client.CognitoOperation;
+import com.firefly.idp.cognito.journal.AuthEventJournal;
+import com.firefly.idp.cognito.mapping.CognitoAttributeMapper;
+import com.firefly.idp.cognito.properties.CognitoProperties;
+import com.firefly.idp.cognito.resilience.CognitoUnavailableException;
+import com.firefly.idp.dtos.TokenResponse;
+import com.firefly.idp.dtos.UserInfoResponse;
+import io.netty.channel.ChannelOption;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.AttributeType;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Non-blocking client of the OAuth2 endpoints of the Cognito domain.
+ *
+ * <p>Completes hosted UI and social logins: {@link #authorizationUrl} sends the
+ * user to {@code /oauth2/authorize} with a PKCE challenge, and
+ * {@link #exchangeAuthorizationCode} trades the returned code and the verifier
+ * for tokens at {@code /oauth2/token}. Tokens are refreshed at the same
+ * endpoint, and {@code /oauth2/userInfo} returns the claims of an access token.
+ *
+ * <p>Calls share a bounded pool of keep-alive connections to the domain and are
+ * decoded straight from the response stream into the DTOs; no thread waits on
+ * them. They run through {@link CognitoCallExecutor}, so they are measured,
+ * traced and guarded by their own circuit breakers, but do not take bulkhead
+ * slots. Rejected codes and tokens answer {@code 401}, like the other services;
+ * error answers that are no OAuth2 error, such as the HTML page of a proxy, keep
+ * their status.
+ *
+ * <p>The domain belongs to the user pool configured at the top level; with
+ * sharding, hosted UI logins are served by the default shard only.
+ */
+@Component
+@Slf4j
+public class CognitoOAuth2Client {
+
+    private static final Set<String> REJECTED_GRANTS = Set.of("invalid_grant", "invalid_client", "unauthorized_client");
+    private static final ParameterizedTypeReference<Map<String, Object>> CLAIMS =
+            new ParameterizedTypeReference<>() { };
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final int MAX_LOGGED_BODY = 200;
+
+    private final CognitoProperties properties;
+    private final CognitoCallExecutor calls;
+    private final CognitoAttributeMapper attributeMapper;
+    private final AuthEventJournal journal;
+    private final String baseUrl;
+    private final ConnectionProvider connections;
+    private final WebClient webClient;
+
+    public CognitoOAuth2Client(CognitoProperties properties, CognitoCallExecutor calls,
+                               CognitoAttributeMapper attributeMapper, AuthEventJournal journal) {
+        this.properties = properties;
+        this.calls = calls;
+        this.attributeMapper = attributeMapper;
+        this.journal = journal;
+        this.baseUrl = baseUrl(properties.getDomain());
+
+        CognitoProperties.OAuth2 settings = properties.getOauth2();
+        this.connections = ConnectionProvider.builder("cognito-oauth2")
+                .maxConnections(settings.getMaxConnections())
+                .pendingAcquireTimeout(Duration.ofMillis(settings.getPendingAcquireTimeout()))
+                .maxIdleTime(Duration.ofMillis(settings.getMaxIdleTime()))
+                .evictInBackground(Duration.ofMillis(settings.getMaxIdleTime()))
+                .build();
+        HttpClient httpClient = HttpClient.create(connections)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, settings.getConnectTimeout())
+                .responseTimeout(Duration.ofMillis(settings.getResponseTimeout()));
+        this.webClient = WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+    }
+
+    /**
+     * Build the hosted UI URL starting an authorization code flow
+     *
+     * @param state Opaque value returned with the code, binding it to the caller's session
+     * @param pkce Challenge whose verifier is kept for {@link #exchangeAuthorizationCode}
+     * @param identityProvider Social or SAML provider to go to directly, or {@code null} for the sign-in page
+     * @return Absolute {@code /oauth2/authorize} URL
+     */
+    public String authorizationUrl(String state, PkceChallenge pkce, String identityProvider) {
+        UriComponentsBuilder url = UriComponentsBuilder.fromHttpUrl(requireBaseUrl())
+                .path("/oauth2/authorize")
+                .queryParam("response_type", "code")
+                .queryParam("client_id", properties.getClientId())
+                .queryParam("redirect_uri", properties.getOauth2().getRedirectUri())
+                .queryParam("scope", properties.getOauth2().getScopes())
+                .queryParam("state", state)
+                .queryParam("code_challenge", pkce.getCodeChallenge())
+                .queryParam("code_challenge_method", PkceChallenge.METHOD);
+        if (identityProvider != null) {
+            url.queryParam("identity_provider", identityProvider);
+        }
+        return url.encode().toUriString();
+    }
+
+    /**
+     * Exchange an authorization code for tokens
+     *
+     * @param code Code passed to the redirect URI
+     * @param codeVerifier Verifier of the challenge sent with the authorization request
+     * @param redirectUri Redirect URI of the authorization request, or {@code null} for the configured one
+     * @return Tokens, or {@code 401} when the code or verifier is rejected
+     */
+    public Mono<ResponseEntity<TokenResponse>> exchangeAuthorizationCode(String code, String codeVerifier,
+                                                                         String redirectUri) {
+        MultiValueMap<String, String> form = new LinkedMultiValueMap<>();
+        form.add("grant_type", "authorization_code");
+        form.add("code", code);
+        form.add("code_verifier", codeVerifier);
+        form.add("redirect_uri", redirectUri != null ? redirectUri : properties.getOauth2().getRedirectUri());
+        return token(CognitoOperation.AUTHORIZATION_CODE, form, null);
+    }
+
+    /**
+     * Refresh tokens at the token endpoint
+     *
+     * @param refreshToken Refresh token issued by the domain
+     * @return New access and ID tokens with the same refresh token, or {@code 401} when it is rejected
+     */
+    public Mono<ResponseEntity<TokenResponse>> refresh(String refreshToken) {
+        MultiValueMap<String, String> form = new LinkedMultiValueMap<>();
+        form.add("grant_type", "refresh_token");
+        form.add("refresh_token", refreshToken);
+        return token(CognitoOperation.OAUTH2_REFRESH, form, refreshToken);
+    }
+
+    /**
+     * Get the user information of an access token from the userInfo endpoint
+     *
+     * @param accessToken Access token with the {@code openid} scope
+     * @return User info, or {@code 401} when the token is rejected
+     */
+    public Mono<ResponseEntity<UserInfoResponse>> userInfo(String accessToken) {
+        if (baseUrl == null) {
+            return notConfigured(CognitoOperation.OAUTH2_USER_INFO);
+        }
+        return calls.execute(CognitoOperation.OAUTH2_USER_INFO, webClient.get()
+                        .uri(baseUrl + "/oauth2/userInfo")
+                        .headers(headers -> headers.setBearerAuth(accessToken))
+                        .accept(MediaType.APPLICATION_JSON)
+                        .exchangeToMono(response -> {
+                            if (response.statusCode().is2xxSuccessful()) {
+                                return response.bodyToMono(CLAIMS).map(claims -> ResponseEntity.ok(toUserInfo(claims)));
+                            }
+                            if (isClientError(response)) {
+                                return response.releaseBody()
+                                        .thenReturn(ResponseEntity.status(response.statusCode()).<UserInfoResponse>build());
+                            }
+                            return response.createException().flatMap(Mono::error);
+                        }))
+                .onErrorResume(exception -> {
+                    if (exception instanceof CognitoUnavailableException unavailable) {
+                        return Mono.just(unavailable.<UserInfoResponse>toResponseEntity());
+                    }
+                    log.error("Failed to fetch user info from the Cognito domain", exception);
+                    return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
+                });
+    }
+
+    /**
+     * Stop pooling connections on shutdown
+     */
+    @PreDestroy
+    public void destroy() {
+        connections.dispose();
+    }
+
+    private Mono<ResponseEntity<TokenResponse>> token(CognitoOperation operation, MultiValueMap<String, String> form,
+                                                      String refreshToken) {
+        if (baseUrl == null) {
+            return notConfigured(operation);
+        }
+        String clientSecret = properties.getClientSecret();
+        boolean confidential = clientSecret != null && !clientSecret.isEmpty();
+        if (!confidential) {
+            form.add("client_id", properties.getClientId());
+        }
+        return calls.execute(operation, webClient.post()
+                        .uri(baseUrl + "/oauth2/token")
+                        .headers(headers -> {
+                            if (confidential) {
+                                headers.setBasicAuth(properties.getClientId(), clientSecret);
+                            }
+                        })
+                        .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .body(BodyInserters.fromFormData(form))
+                        .exchangeToMono(response -> {
+                            if (response.statusCode().is2xxSuccessful()) {
+                                return response.bodyToMono(TokenEndpointResponse.class)
+                                        .doOnNext(body -> journal.recordSuccess(operation, null))
+                                        .map(body -> ResponseEntity.ok(body.toTokenResponse(refreshToken)));
+                            }
+                            if (isClientError(response)) {
+                                // Rejected codes and tokens are expected traffic, journaled with the OAuth2 error
+                                return response.bodyToMono(String.class)
+                                        .defaultIfEmpty("")
+                                        .map(body -> TokenEndpointError.parse(response.statusCode(), body))
+                                        .doOnNext(error -> {
+                                            if (error.error() == null) {
+                                                log.warn("Cognito token endpoint answered {} without an OAuth2 error: {}",
+                                                        error.httpStatus().value(), abbreviate(error.body()));
+                                            }
+                                            journal.record(operation, null, false, error.detail());
+                                        })
+                                        .map(error -> ResponseEntity.status(error.status()).<TokenResponse>build());
+                            }
+                            return response.createException().flatMap(Mono::error);
+                        }))
+                .onErrorResume(exception -> {
+                    journal.recordFailure(operation, null, exception);
+                    if (exception instanceof CognitoUnavailableException unavailable) {
+                        return Mono.just(unavailable.<TokenResponse>toResponseEntity());
+                    }
+                    log.error("Cognito token endpoint call failed: {}", operation.tagValue(), exception);
+                    return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
+                });
+    }
+
+    /**
+     * Map the claims of the userInfo endpoint like the attributes of GetUser
+     */
+    private UserInfoResponse toUserInfo(Map<String, Object> claims) {
+        List<AttributeType> attributes = new ArrayList<>(claims.size());
+        claims.forEach((name, value) -> {
+            if (!"username".equals(name) && value != null) {
+                attributes.add(AttributeType.builder().name(name).value(String.valueOf(value)).build());
+            }
+        });
+        Object username = claims.get("username");
+        return attributeMapper.toUserInfo(username != null ? username.toString() : null, attributes);
+    }
+
+    /**
+     * A rejection of the request rather than a failure of the domain
+     */
+    private static boolean isClientError(ClientResponse response) {
+        return response.statusCode().is4xxClientError() && response.statusCode().value() != 429;
+    }
+
+    /**
+     * Answer like a failed call when there is no domain to call
+     */
+    private static <T> Mono<ResponseEntity<T>> notConfigured(CognitoOperation operation) {
+        log.error("Cognito OAuth2 call {} failed: the Cognito domain is not configured", operation.tagValue());
+        return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
+    }
+
+    private static String abbreviate(String body) {
+        return body.length() <= MAX_LOGGED_BODY ? body : body.substring(0, MAX_LOGGED_BODY) + "...";
+    }
+
+    private String requireBaseUrl() {
+        if (baseUrl == null) {
+            throw new IllegalStateException("The Cognito domain is not configured");
+        }
+        return baseUrl;
+    }
+
+    private static String baseUrl(String domain) {
+        if (domain == null || domain.isBlank()) {
+            return null;
+        }
+        String url = domain.contains("://") ? domain : "https://" + domain;
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+
+    /**
+     * Successful answer of the token endpoint
+     */
+    record TokenEndpointResponse(@JsonProperty("access_token") String accessToken,
+                                 @JsonProperty("id_token") String idToken,
+                                 @JsonProperty("refresh_token") String refreshToken,
+                                 @JsonProperty("token_type") String tokenType,
+                                 @JsonProperty("expires_in") Long expiresIn) {
+
+        /**
+         * @param currentRefreshToken Refresh token kept when none is returned (refresh grants)
+         */
+        TokenResponse toTokenResponse(String currentRefreshToken) {
+            return TokenResponse.builder()
+                    .accessToken(accessToken)
+                    .idToken(idToken)
+                    .refreshToken(refreshToken != null ? refreshToken : currentRefreshToken)
+                    .tokenType(tokenType)
+                    .expiresIn(expiresIn)
+                    .build();
+        }
+    }
+
+    /**
+     * Error answer of the token endpoint
+     *
+     * @param error OAuth2 error code, {@code null} when the body carries none
+     * @param httpStatus Status of the answer
+     * @param body Raw body, kept when it carries no OAuth2 error
+     */
+    record TokenEndpointError(String error, HttpStatusCode httpStatus, String body) {
+
+        /**
+         * Decode an error answer; a body that is no OAuth2 error, such as the
+         * HTML page of a load balancer, falls back to the status and raw body
+         */
+        static TokenEndpointError parse(HttpStatusCode httpStatus, String body) {
+            try {
+                JsonNode error = OBJECT_MAPPER.readTree(body).path("error");
+                if (error.isTextual()) {
+                    return new TokenEndpointError(error.asText(), httpStatus, null);
+                }
+            } catch (JsonProcessingException e) {
+                // Not JSON; fall back below
+            }
+            return new TokenEndpointError(null, httpStatus, body);
+        }
+
+        HttpStatusCode status() {
+            if (error == null) {
+                return httpStatus;
+            }
+            return REJECTED_GRANTS.contains(error) ? HttpStatus.UNAUTHORIZED : HttpStatus.BAD_REQUEST;
+        }
+
+        /**
+         * @return Journal detail: the OAuth2 error, or the status when there is none
+         */
+        String detail() {
+            return error != null ? error : "http_" + httpStatus.value();
+        }
+    }
+}
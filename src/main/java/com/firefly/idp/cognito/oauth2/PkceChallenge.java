@@ -0,0 +1,77 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.firefly.idp.cognito.oauth2;
+
+import lombok.Value;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Proof Key for Code Exchange (RFC 7636) of one authorization request.
+ *
+ * <p>The challenge goes into the authorization URL, the verifier stays with
+ * the caller (e.g. in its session) until the code is exchanged.
+ */
+@Value
+public class PkceChallenge {
+
+    /**
+     * The only challenge method Cognito accepts
+     */
+    public static final String METHOD = "S256";
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final Base64.Encoder BASE64_URL = Base64.getUrlEncoder().withoutPadding();
+
+    /**
+     * Secret sent with the code to the token endpoint
+     */
+    String codeVerifier;
+
+    /**
+     * {@code BASE64URL(SHA-256(codeVerifier))}, sent with the authorization request
+     */
+    String codeChallenge;
+
+    /**
+     * @return A challenge for a fresh 256-bit verifier
+     */
+    public static PkceChallenge generate() {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        return of(BASE64_URL.encodeToString(bytes));
+    }
+
+    /**
+     * @param codeVerifier Verifier chosen by the caller
+     * @return The challenge of the verifier
+     */
+    public static PkceChallenge of(String codeVerifier) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(codeVerifier.getBytes(StandardCharsets.US_ASCII));
+            return new PkceChallenge(codeVerifier, BASE64_URL.encodeToString(digest));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
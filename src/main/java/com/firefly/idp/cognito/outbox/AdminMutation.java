@@ -0,0 +1,65 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.outbox;
+
+import com.firefly.idp.cognito.client.CognitoOperation;
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An admin mutation as stored in the outbox journal.
+ */
+@Value
+@Builder(toBuilder = true)
+public class AdminMutation {
+
+    /**
+     * Outbox id, increasing in submission order
+     */
+    long id;
+
+    /**
+     * When the mutation was accepted, in epoch milliseconds
+     */
+    long createdAt;
+
+    /**
+     * {@link CognitoOperation#CREATE_USER}, {@link CognitoOperation#UPDATE_USER}
+     * or {@link CognitoOperation#ASSIGN_ROLES}
+     */
+    CognitoOperation operation;
+
+    /**
+     * Username or user id the mutation acts on
+     */
+    String subject;
+
+    /**
+     * Cognito attributes to set, by attribute name; empty for role assignment
+     */
+    @Builder.Default
+    Map<String, String> attributes = Map.of();
+
+    /**
+     * Roles (groups) to add the user to; empty unless assigning roles
+     */
+    @Builder.Default
+    List<String> roleNames = List.of();
+}
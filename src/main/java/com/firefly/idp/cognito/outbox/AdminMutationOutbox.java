@@ -0,0 +1,473 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.outbox;
+
+import com.firefly.idp.cognito.client.CognitoOperation;
+import com.firefly.idp.cognito.metrics.CognitoMetrics;
+import com.firefly.idp.cognito.properties.CognitoProperties;
+import com.firefly.idp.cognito.resilience.CognitoCircuitBreakers;
+import com.firefly.idp.cognito.resilience.CognitoUnavailableException;
+import com.firefly.idp.cognito.util.RatePacer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.UsernameExistsException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Durable outbox applying admin mutations to Cognito in the background.
+ *
+ * <p>{@link #submit} appends a mutation to the {@link OutboxJournal} and
+ * completes once the journal is forced to disk, so an accepted mutation
+ * survives Cognito throttling, outages and restarts. On startup the journal is
+ * replayed: mutations without a recorded outcome are dispatched again.
+ *
+ * <p>A single dispatcher thread owns the pending mutations and applies them
+ * through the handler registered with {@link #start}, in id order:
+ * <ul>
+ *   <li>At most {@code concurrency} calls are in flight, paced to
+ *       {@code ratePerSecond} by a shared {@link RatePacer}, at
+ *       {@link CognitoOperation.Priority#LOW} so they queue behind interactive calls</li>
+ *   <li>Mutations of one user are applied one at a time, in order</li>
+ *   <li>A throttled call, or one rejected because Cognito is unavailable,
+ *       backs off the whole dispatcher; these and other transient failures are
+ *       retried with exponential backoff until they succeed</li>
+ *   <li>Any other error fails the mutation for good</li>
+ * </ul>
+ * Delivery is at least once: a mutation in flight when the process stops is
+ * applied again after the restart, and one whose call failed transiently may
+ * have been applied anyway. A replayed or retried user creation answered with
+ * {@code UsernameExistsException} therefore counts as applied.
+ *
+ * <p>Statuses of pending mutations and of the last {@code statusRetention}
+ * completed ones can be looked up by id or user.
+ */
+@Component
+@Slf4j
+public class AdminMutationOutbox {
+
+    /**
+     * Response header carrying the outbox id of an accepted mutation
+     */
+    public static final String MUTATION_ID_HEADER = "X-Cognito-Mutation-Id";
+
+    private final boolean enabled;
+    private final CognitoProperties.Outbox settings;
+    private final OutboxJournal journal;
+    private final RatePacer pacer;
+    private final Scheduler dispatcher;
+    // Continues after the highest journaled id on replay; starting from the clock
+    // keeps ids unique once the segments holding the last ones have been deleted
+    private final AtomicLong nextId = new AtomicLong(System.currentTimeMillis() * 1000);
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final Map<Long, MutationStatus> statuses = new ConcurrentHashMap<>();
+
+    // Only touched on the dispatcher thread, or before it starts
+    private final TreeMap<Long, Entry> pending = new TreeMap<>();
+    private final ArrayDeque<Long> completed = new ArrayDeque<>();
+    private Function<AdminMutation, Mono<Void>> handler;
+    private int inFlight;
+    private Disposable retryTask;
+    private long retryAt;
+
+    private final Counter appended;
+    private final Counter succeeded;
+    private final Counter failed;
+    private final Counter retried;
+    private final Timer delay;
+
+    @Autowired
+    public AdminMutationOutbox(CognitoProperties properties, CognitoMetrics metrics) {
+        this(properties.getOutbox(), metrics.registry());
+    }
+
+    public AdminMutationOutbox(CognitoProperties.Outbox settings, MeterRegistry registry) {
+        this.enabled = settings.isEnabled();
+        this.settings = settings;
+
+        this.appended = Counter.builder("cognito.outbox.appended")
+                .description("Admin mutations accepted into the outbox")
+                .register(registry);
+        this.succeeded = completedCounter(registry, MutationStatus.State.SUCCEEDED);
+        this.failed = completedCounter(registry, MutationStatus.State.FAILED);
+        this.retried = Counter.builder("cognito.outbox.retries")
+                .description("Outbox dispatch attempts that failed transiently and are retried")
+                .register(registry);
+        this.delay = Timer.builder("cognito.outbox.delay")
+                .description("Time from accepting a mutation to applying it")
+                .publishPercentileHistogram()
+                .register(registry);
+        Gauge.builder("cognito.outbox.pending", pendingCount, AtomicInteger::get)
+                .description("Admin mutations waiting to be applied")
+                .register(registry);
+
+        if (!enabled) {
+            this.journal = null;
+            this.pacer = null;
+            this.dispatcher = null;
+            return;
+        }
+        this.journal = new OutboxJournal(Path.of(settings.getDirectory()), settings.getSegmentSize(),
+                settings.getFsyncInterval(), registry);
+        try {
+            journal.open(new Replay());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open the outbox journal in " + settings.getDirectory(), e);
+        }
+        if (!pending.isEmpty()) {
+            log.info("Replaying {} pending admin mutation(s) from the outbox", pending.size());
+        }
+        this.pacer = new RatePacer(settings.getRatePerSecond());
+        this.dispatcher = Schedulers.newSingle("cognito-outbox", true);
+    }
+
+    /**
+     * @return Whether mutations are journaled and dispatched asynchronously
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Start dispatching with the handler applying a mutation to Cognito
+     *
+     * @param handler Function performing the Cognito calls of a mutation; must
+     *                be safe to repeat, as a mutation may be applied more than once
+     */
+    public void start(Function<AdminMutation, Mono<Void>> handler) {
+        if (!enabled) {
+            return;
+        }
+        dispatcher.schedule(() -> {
+            this.handler = handler;
+            pump();
+        });
+    }
+
+    /**
+     * Durably accept a mutation for asynchronous dispatch
+     *
+     * @param operation {@link CognitoOperation#CREATE_USER}, {@link CognitoOperation#UPDATE_USER}
+     *                  or {@link CognitoOperation#ASSIGN_ROLES}
+     * @param subject Username or user id the mutation acts on
+     * @param attributes Cognito attributes to set, by name
+     * @param roleNames Roles to add the user to
+     * @return Mono emitting the pending status once the mutation is on disk
+     */
+    public Mono<MutationStatus> submit(CognitoOperation operation, String subject,
+                                       Map<String, String> attributes, List<String> roleNames) {
+        if (!enabled) {
+            return Mono.error(new IllegalStateException("The admin mutation outbox is not enabled"));
+        }
+        return Mono.fromCallable(() -> {
+                    AdminMutation mutation = AdminMutation.builder()
+                            .id(nextId.getAndIncrement())
+                            .createdAt(System.currentTimeMillis())
+                            .operation(operation)
+                            .subject(subject)
+                            .attributes(attributes)
+                            .roleNames(roleNames)
+                            .build();
+                    OutboxJournal.Appended position = journal.appendMutation(mutation);
+                    statuses.put(mutation.getId(), pendingStatus(mutation));
+                    appended.increment();
+                    return new Entry(mutation, position, false);
+                })
+                // Appending may page in or roll a segment
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(entry -> journal.awaitForced(entry.position.offset())
+                        .then(Mono.fromCallable(() -> {
+                            // Read before enqueuing: the dispatcher may complete the mutation right away
+                            MutationStatus accepted = statuses.get(entry.mutation.getId());
+                            dispatcher.schedule(() -> enqueue(entry));
+                            return accepted;
+                        })));
+    }
+
+    /**
+     * @return Status of a mutation, unless unknown or completed beyond the retention
+     */
+    public Optional<MutationStatus> status(long id) {
+        return Optional.ofNullable(statuses.get(id));
+    }
+
+    /**
+     * @return Known mutations of a user, oldest first
+     */
+    public List<MutationStatus> statuses(String subject) {
+        return statuses.values().stream()
+                .filter(status -> status.getSubject().equals(subject))
+                .sorted(Comparator.comparingLong(MutationStatus::getId))
+                .toList();
+    }
+
+    /**
+     * Stop dispatching and force the journal; mutations in flight are replayed after a restart
+     */
+    @PreDestroy
+    public void destroy() {
+        if (enabled) {
+            dispatcher.dispose();
+            journal.close();
+        }
+    }
+
+    private void enqueue(Entry entry) {
+        pending.put(entry.mutation.getId(), entry);
+        pendingCount.incrementAndGet();
+        pump();
+    }
+
+    /**
+     * Dispatch every pending mutation that is due, whose user has no earlier
+     * pending mutation, while calls are available
+     */
+    private void pump() {
+        if (handler == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        long nextRetry = Long.MAX_VALUE;
+        Set<String> blocked = new HashSet<>();
+        for (Entry entry : pending.values()) {
+            if (inFlight >= settings.getConcurrency()) {
+                break;
+            }
+            if (!blocked.add(entry.mutation.getSubject()) || entry.inFlight) {
+                continue;
+            }
+            if (entry.retryAt - now > 0) {
+                nextRetry = Math.min(nextRetry, entry.retryAt);
+                continue;
+            }
+            dispatch(entry);
+        }
+        if (nextRetry != Long.MAX_VALUE && (retryTask == null || nextRetry - retryAt < 0)) {
+            if (retryTask != null) {
+                retryTask.dispose();
+            }
+            retryAt = nextRetry;
+            retryTask = dispatcher.schedule(() -> {
+                retryTask = null;
+                pump();
+            }, nextRetry - now, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void dispatch(Entry entry) {
+        entry.inFlight = true;
+        entry.attempts++;
+        inFlight++;
+        pacer.acquire()
+                .then(Mono.defer(() -> handler.apply(entry.mutation)))
+                .contextWrite(CognitoOperation.Priority.LOW.inContext())
+                .subscribe(null,
+                        error -> dispatcher.schedule(() -> onError(entry, error)),
+                        () -> dispatcher.schedule(() -> complete(entry, MutationStatus.State.SUCCEEDED, null)));
+    }
+
+    private void onError(Entry entry, Throwable error) {
+        if ((entry.replayed || entry.attempts > 1)
+                && CognitoMetrics.findServiceException(error) instanceof UsernameExistsException
+                && entry.mutation.getOperation() == CognitoOperation.CREATE_USER) {
+            // Created by an earlier attempt whose outcome was lost, e.g. a timeout or a restart
+            complete(entry, MutationStatus.State.SUCCEEDED, null);
+            return;
+        }
+        if (!isTransient(error)) {
+            log.warn("Admin mutation {} ({}) failed for user {}", entry.mutation.getId(),
+                    entry.mutation.getOperation().tagValue(), entry.mutation.getSubject(), error);
+            complete(entry, MutationStatus.State.FAILED, errorCode(error));
+            return;
+        }
+        retried.increment();
+        entry.inFlight = false;
+        inFlight--;
+        Duration backoff = backoff(entry, error);
+        entry.retryAt = System.nanoTime() + backoff.toNanos();
+        if (isOverload(error)) {
+            pacer.backOff(backoff);
+        }
+        statuses.put(entry.mutation.getId(), statuses.get(entry.mutation.getId()).toBuilder()
+                .attempts(entry.attempts)
+                .error(errorCode(error))
+                .build());
+        log.debug("Retrying admin mutation {} in {} ms: {}", entry.mutation.getId(), backoff.toMillis(),
+                error.toString());
+        pump();
+    }
+
+    private void complete(Entry entry, MutationStatus.State state, String error) {
+        long now = System.currentTimeMillis();
+        try {
+            journal.appendCompletion(entry.mutation.getId(), state, error, now);
+        } catch (IOException e) {
+            // The mutation is applied again after a restart
+            log.warn("Failed to journal the outcome of admin mutation {}", entry.mutation.getId(), e);
+        }
+        journal.release(entry.position.segment());
+        pending.remove(entry.mutation.getId());
+        pendingCount.decrementAndGet();
+        entry.inFlight = false;
+        inFlight--;
+        (state == MutationStatus.State.SUCCEEDED ? succeeded : failed).increment();
+        delay.record(Math.max(now - entry.mutation.getCreatedAt(), 0), TimeUnit.MILLISECONDS);
+        retain(statuses.get(entry.mutation.getId()).toBuilder()
+                .state(state)
+                .attempts(entry.attempts)
+                .error(error)
+                .completedAt(now)
+                .build());
+        pump();
+    }
+
+    private void retain(MutationStatus status) {
+        statuses.put(status.getId(), status);
+        completed.add(status.getId());
+        while (completed.size() > settings.getStatusRetention()) {
+            statuses.remove(completed.poll());
+        }
+    }
+
+    private Duration backoff(Entry entry, Throwable error) {
+        long millis = (long) settings.getInitialRetryBackoff() << Math.min(entry.attempts - 1, 20);
+        Duration backoff = Duration.ofMillis(Math.min(millis, settings.getMaxRetryBackoff()));
+        if (error instanceof CognitoUnavailableException unavailable && unavailable.getRetryAfter() != null
+                && unavailable.getRetryAfter().compareTo(backoff) > 0) {
+            return unavailable.getRetryAfter();
+        }
+        return backoff;
+    }
+
+    private static boolean isTransient(Throwable error) {
+        return error instanceof CognitoUnavailableException || CognitoCircuitBreakers.isFailure(error);
+    }
+
+    private static boolean isOverload(Throwable error) {
+        if (error instanceof CognitoUnavailableException) {
+            return true;
+        }
+        AwsServiceException serviceException = CognitoMetrics.findServiceException(error);
+        return serviceException != null
+                && CognitoMetrics.classify(serviceException) == CognitoMetrics.Outcome.THROTTLED;
+    }
+
+    private static String errorCode(Throwable error) {
+        AwsServiceException serviceException = CognitoMetrics.findServiceException(error);
+        if (serviceException != null && serviceException.awsErrorDetails() != null
+                && serviceException.awsErrorDetails().errorCode() != null) {
+            return serviceException.awsErrorDetails().errorCode();
+        }
+        return (serviceException != null ? serviceException : error).getClass().getSimpleName();
+    }
+
+    private static MutationStatus pendingStatus(AdminMutation mutation) {
+        return MutationStatus.builder()
+                .id(mutation.getId())
+                .operation(mutation.getOperation())
+                .subject(mutation.getSubject())
+                .state(MutationStatus.State.PENDING)
+                .createdAt(mutation.getCreatedAt())
+                .build();
+    }
+
+    private static Counter completedCounter(MeterRegistry registry, MutationStatus.State state) {
+        return Counter.builder("cognito.outbox.completed")
+                .description("Admin mutations applied to Cognito or failed for good")
+                .tag("state", state.name().toLowerCase(Locale.ROOT))
+                .register(registry);
+    }
+
+    /**
+     * Rebuilds the pending mutations and recent statuses from the journal
+     */
+    private final class Replay implements OutboxJournal.Visitor {
+
+        @Override
+        public void mutation(AdminMutation mutation, long segment) {
+            pending.put(mutation.getId(), new Entry(mutation, new OutboxJournal.Appended(segment, 0), true));
+            pendingCount.incrementAndGet();
+            statuses.put(mutation.getId(), pendingStatus(mutation));
+            nextId.accumulateAndGet(mutation.getId() + 1, Math::max);
+        }
+
+        @Override
+        public void completion(long id, MutationStatus.State state, String error, long completedAt) {
+            nextId.accumulateAndGet(id + 1, Math::max);
+            Entry entry = pending.remove(id);
+            if (entry == null) {
+                // Its segment was already deleted
+                return;
+            }
+            pendingCount.decrementAndGet();
+            journal.release(entry.position.segment());
+            retain(statuses.get(id).toBuilder()
+                    .state(state)
+                    .error(error)
+                    .completedAt(completedAt)
+                    .build());
+        }
+    }
+
+    /**
+     * A pending mutation and its dispatch state
+     */
+    private static final class Entry {
+
+        private final AdminMutation mutation;
+        private final OutboxJournal.Appended position;
+        private final boolean replayed;
+        private boolean inFlight;
+        private int attempts;
+        private long retryAt;
+
+        private Entry(AdminMutation mutation, OutboxJournal.Appended position, boolean replayed) {
+            this.mutation = mutation;
+            this.position = position;
+            this.replayed = replayed;
+            this.retryAt = System.nanoTime();
+        }
+    }
+}
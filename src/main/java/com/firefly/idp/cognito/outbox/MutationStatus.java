@@ -0,0 +1,81 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.outbox;
+
+import com.firefly.idp.cognito.client.CognitoOperation;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Progress of a mutation accepted by the {@link AdminMutationOutbox}.
+ */
+@Value
+@Builder(toBuilder = true)
+public class MutationStatus {
+
+    /**
+     * Where a mutation stands
+     */
+    public enum State {
+        /** Journaled, waiting to be applied or retried */
+        PENDING,
+        /** Applied to Cognito */
+        SUCCEEDED,
+        /** Rejected by Cognito for a reason retrying cannot fix, e.g. an invalid attribute */
+        FAILED
+    }
+
+    /**
+     * Outbox id of the mutation
+     */
+    long id;
+
+    /**
+     * Operation the mutation performs
+     */
+    CognitoOperation operation;
+
+    /**
+     * Username or user id the mutation acts on
+     */
+    String subject;
+
+    /**
+     * Current state
+     */
+    State state;
+
+    /**
+     * Calls made to apply the mutation so far in this process
+     */
+    int attempts;
+
+    /**
+     * Cognito error code or exception name of the last failed attempt, if any
+     */
+    String error;
+
+    /**
+     * When the mutation was accepted, in epoch milliseconds
+     */
+    long createdAt;
+
+    /**
+     * When the mutation succeeded or failed for good, in epoch milliseconds; 0 while pending
+     */
+    long completedAt;
+}
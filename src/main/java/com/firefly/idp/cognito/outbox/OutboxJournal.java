@@ -0,0 +1,477 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.outbox;
+
+import com.firefly.idp.cognito.client.CognitoOperation;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of outbox records in memory-mapped segment files.
+ *
+ * <p>Segments are files of a fixed size named {@code outbox-<index>.seg}.
+ * Layout (big-endian):
+ * <pre>
+ * header      int magic "FOBX", byte version
+ * record      int payload length, int CRC32 of the payload, payload
+ * mutation    byte 1, long id, long created at (epoch ms), UTF operation name, UTF subject,
+ *             short attribute count, then name and value (UTF) of each,
+ *             short role count, then each role name (UTF)
+ * completion  byte 2, long id, long completed at (epoch ms), byte state, UTF error ("" if none)
+ * </pre>
+ * A zero length ends the written part of a segment. The length is written
+ * last, and a record whose checksum does not match was torn by a crash; it and
+ * anything after it are discarded when the journal is opened.
+ *
+ * <p>Appending copies a record into the mapped segment under a lock and forces
+ * nothing. A flusher thread forces the range written since its last pass every
+ * {@code fsyncInterval}, completing all appends made in the meantime with one
+ * {@code msync} (group commit).
+ *
+ * <p>A segment is deleted once neither it nor an older segment holds a pending
+ * mutation, so the completion of a mutation is never lost while the mutation
+ * itself is kept. The active segment is never deleted.
+ */
+@Slf4j
+class OutboxJournal implements Closeable {
+
+    static final int MAGIC = 0x46424F58;
+    static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 5;
+    private static final int RECORD_OVERHEAD = 8;
+    private static final byte MUTATION = 1;
+    private static final byte COMPLETION = 2;
+    private static final String PREFIX = "outbox-";
+    private static final String SUFFIX = ".seg";
+
+    /**
+     * Receives the records of the journal when it is opened, oldest first
+     */
+    interface Visitor {
+
+        void mutation(AdminMutation mutation, long segment);
+
+        void completion(long id, MutationStatus.State state, String error, long completedAt);
+    }
+
+    /**
+     * Where a record was appended
+     *
+     * @param segment Index of the segment holding the record
+     * @param offset Journal offset the record ends at; see {@link #awaitForced(long)}
+     */
+    record Appended(long segment, long offset) {
+    }
+
+    private final Path directory;
+    private final int segmentSize;
+    private final long fsyncIntervalNanos;
+    private final Timer fsyncTimer;
+
+    // Guarded by this
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+    private Segment active;
+    private int position;
+    private int forcedPosition;
+
+    private final List<Waiter> waiters = new ArrayList<>();
+    private volatile long forcedOffset;
+    private volatile boolean running = true;
+    private Thread flusher;
+
+    OutboxJournal(Path directory, int segmentSize, long fsyncIntervalMillis, MeterRegistry registry) {
+        this.directory = directory;
+        this.segmentSize = Math.max(segmentSize, 4096);
+        this.fsyncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(fsyncIntervalMillis, 1));
+        this.fsyncTimer = Timer.builder("cognito.outbox.fsync")
+                .description("Time spent forcing outbox journal writes to disk")
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    /**
+     * Map the existing segments, pass their records to the visitor, and start
+     * appending after the last intact record
+     */
+    synchronized void open(Visitor visitor) throws IOException {
+        Files.createDirectories(directory);
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        // Indexes are zero-padded, so names sort in append order
+        files.sort(null);
+        for (Path file : files) {
+            Segment segment = map(file, index(file), Files.size(file));
+            segments.put(segment.index, segment);
+            position = scan(segment, visitor);
+        }
+        if (segments.isEmpty()) {
+            active = create(1);
+        } else {
+            active = segments.lastEntry().getValue();
+            if (position + RECORD_OVERHEAD <= active.buffer.capacity() && active.buffer.getInt(position) != 0) {
+                log.warn("Discarding torn outbox record at {} of {}", position, active.file.getFileName());
+                for (int i = position; i < active.buffer.capacity(); i++) {
+                    active.buffer.put(i, (byte) 0);
+                }
+                active.buffer.force();
+            }
+        }
+        forcedPosition = position;
+        forcedOffset = offset(active, position);
+        purge();
+
+        flusher = new Thread(this::flushLoop, "cognito-outbox-fsync");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Append a mutation; it keeps its segment until {@link #release(long)}
+     */
+    synchronized Appended appendMutation(AdminMutation mutation) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(MUTATION);
+        out.writeLong(mutation.getId());
+        out.writeLong(mutation.getCreatedAt());
+        out.writeUTF(mutation.getOperation().name());
+        out.writeUTF(mutation.getSubject());
+        out.writeShort(mutation.getAttributes().size());
+        for (Map.Entry<String, String> attribute : mutation.getAttributes().entrySet()) {
+            out.writeUTF(attribute.getKey());
+            out.writeUTF(attribute.getValue() != null ? attribute.getValue() : "");
+        }
+        out.writeShort(mutation.getRoleNames().size());
+        for (String roleName : mutation.getRoleNames()) {
+            out.writeUTF(roleName);
+        }
+        Appended appended = append(bytes.toByteArray());
+        active.live++;
+        return appended;
+    }
+
+    /**
+     * Append the outcome of a mutation
+     */
+    synchronized Appended appendCompletion(long id, MutationStatus.State state, String error, long completedAt)
+            throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(COMPLETION);
+        out.writeLong(id);
+        out.writeLong(completedAt);
+        out.writeByte(state.ordinal());
+        out.writeUTF(error != null ? error : "");
+        return append(bytes.toByteArray());
+    }
+
+    /**
+     * A mutation of a segment completed; delete the segments no longer needed
+     */
+    synchronized void release(long segment) {
+        Segment released = segments.get(segment);
+        if (released != null) {
+            released.live--;
+        }
+        if (active != null) {
+            purge();
+        }
+    }
+
+    /**
+     * @return Mono completing once everything up to the offset has been forced to disk
+     */
+    Mono<Void> awaitForced(long offset) {
+        if (forcedOffset >= offset) {
+            return Mono.empty();
+        }
+        return Mono.create(sink -> {
+            synchronized (waiters) {
+                if (forcedOffset < offset) {
+                    waiters.add(new Waiter(offset, sink));
+                    return;
+                }
+            }
+            sink.success();
+        });
+    }
+
+    /**
+     * @return Number of segment files
+     */
+    synchronized int segmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Force what is left and stop the flusher
+     */
+    @Override
+    public void close() {
+        running = false;
+        if (flusher != null) {
+            LockSupport.unpark(flusher);
+            try {
+                flusher.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private Appended append(byte[] payload) throws IOException {
+        int size = RECORD_OVERHEAD + payload.length;
+        if (HEADER_SIZE + size > segmentSize) {
+            throw new IOException("Outbox record of " + size + " bytes exceeds the segment size");
+        }
+        if (position + size > active.buffer.capacity()) {
+            roll();
+        }
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        MappedByteBuffer buffer = active.buffer;
+        buffer.putInt(position + 4, (int) crc.getValue());
+        buffer.put(position + RECORD_OVERHEAD, payload);
+        // Length last: a record is only visible once it is complete
+        buffer.putInt(position, payload.length);
+        position += size;
+        return new Appended(active.index, offset(active, position));
+    }
+
+    /**
+     * Force the rest of the active segment and continue in a new one
+     */
+    private void roll() throws IOException {
+        active.buffer.force(forcedPosition, position - forcedPosition);
+        active = create(active.index + 1);
+        forcedPosition = 0;
+    }
+
+    private Segment create(long index) throws IOException {
+        Path file = directory.resolve(String.format("%s%012d%s", PREFIX, index, SUFFIX));
+        Segment segment = map(file, index, segmentSize);
+        segment.buffer.putInt(0, MAGIC);
+        segment.buffer.put(4, (byte) VERSION);
+        segments.put(index, segment);
+        position = HEADER_SIZE;
+        forceDirectory();
+        return segment;
+    }
+
+    private void purge() {
+        while (segments.size() > 1) {
+            Segment oldest = segments.firstEntry().getValue();
+            if (oldest == active || oldest.live > 0) {
+                return;
+            }
+            segments.remove(oldest.index);
+            try {
+                Files.deleteIfExists(oldest.file);
+                log.debug("Deleted completed outbox segment: {}", oldest.file.getFileName());
+            } catch (IOException e) {
+                log.warn("Failed to delete outbox segment {}", oldest.file.getFileName(), e);
+            }
+        }
+    }
+
+    private void flushLoop() {
+        while (running) {
+            LockSupport.parkNanos(this, fsyncIntervalNanos);
+            sync();
+        }
+        sync();
+    }
+
+    private void sync() {
+        Segment segment;
+        int from;
+        int to;
+        long offset;
+        synchronized (this) {
+            offset = offset(active, position);
+            if (offset == forcedOffset) {
+                return;
+            }
+            segment = active;
+            from = forcedPosition;
+            to = position;
+            forcedPosition = position;
+        }
+        long start = System.nanoTime();
+        try {
+            segment.buffer.force(from, to - from);
+        } catch (UncheckedIOException e) {
+            log.error("Failed to force the outbox journal, retrying", e);
+            synchronized (this) {
+                if (active == segment) {
+                    forcedPosition = Math.min(forcedPosition, from);
+                }
+            }
+            return;
+        }
+        fsyncTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        forcedOffset = offset;
+
+        List<MonoSink<Void>> durable = new ArrayList<>();
+        synchronized (waiters) {
+            waiters.removeIf(waiter -> {
+                if (waiter.offset <= offset) {
+                    durable.add(waiter.sink);
+                    return true;
+                }
+                return false;
+            });
+        }
+        durable.forEach(MonoSink::success);
+    }
+
+    /**
+     * Read the records of a segment
+     *
+     * @return Position after the last intact record
+     */
+    private int scan(Segment segment, Visitor visitor) throws IOException {
+        MappedByteBuffer buffer = segment.buffer;
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.get(4) != VERSION) {
+            throw new IOException("Not an outbox segment: " + segment.file);
+        }
+        CRC32 crc = new CRC32();
+        int position = HEADER_SIZE;
+        while (position + RECORD_OVERHEAD <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || position + RECORD_OVERHEAD + length > buffer.capacity()) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            buffer.get(position + RECORD_OVERHEAD, payload);
+            crc.reset();
+            crc.update(payload);
+            if ((int) crc.getValue() != buffer.getInt(position + 4)) {
+                break;
+            }
+            read(payload, segment, visitor);
+            position += RECORD_OVERHEAD + length;
+        }
+        return position;
+    }
+
+    private void read(byte[] payload, Segment segment, Visitor visitor) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte type = in.readByte();
+        long id = in.readLong();
+        long timestamp = in.readLong();
+        if (type == COMPLETION) {
+            MutationStatus.State state = MutationStatus.State.values()[in.readByte()];
+            String error = in.readUTF();
+            visitor.completion(id, state, error.isEmpty() ? null : error, timestamp);
+            return;
+        }
+        String operation = in.readUTF();
+        String subject = in.readUTF();
+        Map<String, String> attributes = new LinkedHashMap<>();
+        for (int i = in.readShort(); i > 0; i--) {
+            attributes.put(in.readUTF(), in.readUTF());
+        }
+        List<String> roleNames = new ArrayList<>();
+        for (int i = in.readShort(); i > 0; i--) {
+            roleNames.add(in.readUTF());
+        }
+        segment.live++;
+        visitor.mutation(AdminMutation.builder()
+                .id(id)
+                .createdAt(timestamp)
+                .operation(CognitoOperation.valueOf(operation))
+                .subject(subject)
+                .attributes(attributes)
+                .roleNames(roleNames)
+                .build(), segment.index);
+    }
+
+    private static long offset(Segment segment, int position) {
+        // Increases across segments whatever their size
+        return (segment.index << 32) + position;
+    }
+
+    /**
+     * Make a new segment file's directory entry durable; not supported everywhere
+     */
+    private void forceDirectory() {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            log.trace("Cannot force outbox directory: {}", e.getMessage());
+        }
+    }
+
+    private static Segment map(Path file, long index, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // Mapping past the end grows the file; the mapping outlives the channel
+            return new Segment(index, file, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        }
+    }
+
+    private static long index(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    private static final class Segment {
+
+        private final long index;
+        private final Path file;
+        private final MappedByteBuffer buffer;
+        private int live;
+
+        private Segment(long index, Path file, MappedByteBuffer buffer) {
+            this.index = index;
+            this.file = file;
+            this.buffer = buffer;
+        }
+    }
+
+    private record Waiter(long offset, MonoSink<Void> sink) {
+    }
+}
@@ -16,11 +16,17 @@
 
 package com.firefly.idp.cognito.properties;
 
+import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.validation.annotation.Validated;
 
 import jakarta.validation.constraints.NotBlank;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Configuration properties for AWS Cognito Identity Provider.
@@ -69,7 +75,9 @@ public class CognitoProperties {
     private String clientSecret;
 
     /**
-     * Cognito domain for hosted UI (optional)
+     * Cognito domain of the hosted UI and OAuth2 endpoints (optional), e.g.
+     * {@code myapp.auth.us-east-1.amazoncognito.com}; a full URL such as
+     * {@code http://localhost:8080} is used as is
      */
     private String domain;
 
@@ -79,12 +87,812 @@ public class CognitoProperties {
     private String endpointOverride;
 
     /**
-     * Connection timeout in milliseconds
+     * Timeout in milliseconds of a single HTTP attempt, connecting included
+     * (the SDK's API call attempt timeout, despite the name)
      */
     private Integer connectionTimeout = 30000;
 
     /**
-     * Request timeout in milliseconds
+     * Timeout in milliseconds of a whole SDK call, retries included; the default
+     * of the per-operation timeouts
      */
     private Integer requestTimeout = 60000;
+
+    /**
+     * Group-to-members index settings
+     */
+    private GroupIndex groupIndex = new GroupIndex();
+
+    /**
+     * Write-behind coalescing settings for user attribute updates
+     */
+    private UpdateCoalescing updateCoalescing = new UpdateCoalescing();
+
+    /**
+     * User attribute mapping settings
+     */
+    private AttributeMapping attributeMapping = new AttributeMapping();
+
+    /**
+     * Device-key-to-owner index settings
+     */
+    private DeviceIndex deviceIndex = new DeviceIndex();
+
+    /**
+     * Bulk global sign-out settings
+     */
+    private BulkSignOut bulkSignOut = new BulkSignOut();
+
+    /**
+     * Per-attempt SDK call telemetry settings
+     */
+    private Telemetry telemetry = new Telemetry();
+
+    /**
+     * Auth and admin event journal settings
+     */
+    private Journal journal = new Journal();
+
+    /**
+     * Observation (tracing) settings
+     */
+    private Tracing tracing = new Tracing();
+
+    /**
+     * Traffic capture configuration
+     */
+    private Capture capture = new Capture();
+
+    /**
+     * Circuit breaker settings
+     */
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    /**
+     * Bulkhead settings for auth and admin traffic
+     */
+    private Bulkhead bulkhead = new Bulkhead();
+
+    /**
+     * Adaptive concurrency limit settings
+     */
+    private AdaptiveLimit adaptiveLimit = new AdaptiveLimit();
+
+    /**
+     * Hedged request settings for idempotent reads
+     */
+    private Hedging hedging = new Hedging();
+
+    /**
+     * Per-operation timeouts and deadline propagation
+     */
+    private Timeouts timeouts = new Timeouts();
+
+    /**
+     * Durable outbox for admin mutations dispatched asynchronously
+     */
+    private Outbox outbox = new Outbox();
+
+    /**
+     * Results of admin mutations kept per idempotency key
+     */
+    private Idempotency idempotency = new Idempotency();
+
+    /**
+     * Spreading of users over several user pools
+     */
+    private Sharding sharding = new Sharding();
+
+    /**
+     * OAuth2 token and userInfo endpoint client settings
+     */
+    private OAuth2 oauth2 = new OAuth2();
+
+    /**
+     * Settings for the in-memory group-to-members index used to answer
+     * "who has role X" without paginating ListUsersInGroup on every query.
+     */
+    @Data
+    public static class GroupIndex {
+
+        /**
+         * Whether role member queries are served from the in-memory index
+         */
+        private boolean enabled = true;
+
+        /**
+         * Maximum age in milliseconds of a group snapshot before it is reloaded from Cognito
+         */
+        private Integer freshness = 300000;
+
+        /**
+         * Maximum number of members returned by a single page query
+         */
+        private Integer maxPageSize = 500;
+    }
+
+    /**
+     * Settings for merging attribute updates to the same user that arrive within
+     * a short window into a single AdminUpdateUserAttributes call.
+     */
+    @Data
+    public static class UpdateCoalescing {
+
+        /**
+         * Whether updateUser calls are coalesced (opt-in)
+         */
+        private boolean enabled = false;
+
+        /**
+         * Time in milliseconds to collect updates for a user before writing them
+         */
+        private Integer window = 20;
+
+        /**
+         * Number of per-user ordering stripes; updates to different stripes run in parallel
+         */
+        private Integer stripes = 8;
+    }
+
+    /**
+     * Settings for mapping Firefly DTO fields to Cognito user attributes.
+     */
+    @Data
+    public static class AttributeMapping {
+
+        /**
+         * Interval in milliseconds between background refreshes of the user pool schema
+         */
+        private Integer schemaRefreshInterval = 600000;
+
+        /**
+         * Overrides of the default attribute for a DTO field, keyed by field name
+         * (e.g. {@code givenName: custom:first_name})
+         */
+        private Map<String, String> overrides = new HashMap<>();
+    }
+
+    /**
+     * Settings for the bounded index from device key to owning username used by
+     * session revocation.
+     */
+    @Data
+    public static class DeviceIndex {
+
+        /**
+         * Maximum number of device keys kept; least recently used entries are evicted
+         */
+        private Integer maxEntries = 100000;
+
+        /**
+         * Number of users whose devices are listed in parallel when a device key is not indexed
+         */
+        private Integer lookupConcurrency = 8;
+
+        /**
+         * Maximum number of ListUsers and AdminListDevices calls a single lookup may make
+         */
+        private Integer lookupMaxCalls = 500;
+
+        /**
+         * Maximum time in milliseconds a single lookup may scan before giving up
+         */
+        private Long lookupTimeout = 10000L;
+
+        /**
+         * Maximum ListUsers and AdminListDevices calls per second across all lookups
+         */
+        private Integer lookupRatePerSecond = 20;
+
+        /**
+         * How long in milliseconds a device key no owner was found for is answered
+         * as not found without scanning again; 0 disables
+         */
+        private Long missRetention = 300000L;
+    }
+
+    /**
+     * Settings for admin bulk global sign-out (incident response).
+     */
+    @Data
+    public static class BulkSignOut {
+
+        /**
+         * Maximum number of AdminUserGlobalSignOut calls in flight
+         */
+        private Integer concurrency = 16;
+
+        /**
+         * Maximum AdminUserGlobalSignOut calls per second; keep below the account quota
+         */
+        private Integer ratePerSecond = 50;
+
+        /**
+         * Retries per user when Cognito throttles the call
+         */
+        private Integer maxRetries = 5;
+
+        /**
+         * How long in milliseconds a sign-out is remembered for local token validation;
+         * should cover the access token lifetime
+         */
+        private Long revocationRetention = 3600000L;
+    }
+
+    /**
+     * Settings for the SDK execution interceptor recording per-attempt latency,
+     * signing and connection acquisition time, payload sizes and request ids.
+     */
+    @Data
+    public static class Telemetry {
+
+        /**
+         * Whether the telemetry interceptor is registered on the Cognito client
+         */
+        private boolean enabled = true;
+
+        /**
+         * Calls slower than this many milliseconds are kept in the slow call ring
+         */
+        private Integer slowCallThreshold = 1000;
+
+        /**
+         * Number of recent slow calls kept for inspection
+         */
+        private Integer slowCallCapacity = 128;
+    }
+
+    /**
+     * Settings for the in-process journal of auth and admin events, exported
+     * asynchronously in batches instead of being logged on the request path.
+     */
+    @Data
+    public static class Journal {
+
+        /**
+         * What to do with events when the journal buffer fills up
+         */
+        public enum OverflowPolicy {
+            /** Keep every event until the buffer is full, then drop new events */
+            DROP,
+            /** Keep one in {@code sampleRate} events once the buffer is half full, drop when full */
+            SAMPLE
+        }
+
+        /**
+         * Whether auth and admin events are recorded
+         */
+        private boolean enabled = true;
+
+        /**
+         * Number of events buffered between producers and the exporter; rounded up to a power of two
+         */
+        private Integer capacity = 8192;
+
+        /**
+         * Maximum number of events handed to the sink at once
+         */
+        private Integer batchSize = 256;
+
+        /**
+         * Time in milliseconds the exporter waits for new events when the buffer is empty
+         */
+        private Integer flushInterval = 200;
+
+        /**
+         * Overflow handling when events are produced faster than they are exported
+         */
+        private OverflowPolicy overflowPolicy = OverflowPolicy.DROP;
+
+        /**
+         * One in this many events is kept under the SAMPLE policy while the buffer is under pressure
+         */
+        private Integer sampleRate = 10;
+
+        /**
+         * Directory NDJSON files are written to; when unset, events go to the
+         * {@code com.firefly.idp.cognito.audit} logger unless a custom sink bean exists
+         */
+        private String directory;
+
+        /**
+         * Size in bytes at which the active NDJSON file is rotated
+         */
+        private Long maxFileSize = 67108864L;
+
+        /**
+         * Whether rotated NDJSON files are gzip-compressed
+         */
+        private boolean compress = false;
+
+        /**
+         * Number of rotated files kept; older files are deleted
+         */
+        private Integer maxFiles = 10;
+    }
+
+    /**
+     * Settings for Micrometer Observation spans around adapter methods and the
+     * Cognito calls they make. Only active when an ObservationRegistry bean exists.
+     */
+    @Data
+    public static class Tracing {
+
+        /**
+         * Whether adapter methods and Cognito calls are observed
+         */
+        private boolean enabled = true;
+
+        /**
+         * Fraction (0.0 - 1.0) of adapter invocations that are observed; Cognito
+         * calls follow the decision of the adapter method they belong to
+         */
+        private Double sampleRate = 0.1;
+    }
+
+    /**
+     * Settings for recording anonymized adapter traffic to a binary trace file
+     * that can be replayed offline for performance regression testing.
+     */
+    @Data
+    public static class Capture {
+
+        /**
+         * Whether adapter invocations are recorded
+         */
+        private boolean enabled = false;
+
+        /**
+         * Trace file to write; replaced if it exists
+         */
+        private String file = "cognito-traffic.trace";
+
+        /**
+         * Key identities are hashed with, so traces from different runs can be
+         * correlated; when unset a random key is used per process
+         */
+        private String salt;
+
+        /**
+         * Size in bytes at which capture stops
+         */
+        private Long maxFileSize = 268435456L;
+
+        /**
+         * Number of invocations buffered between callers and the writer thread
+         */
+        private Integer queueCapacity = 65536;
+    }
+
+    /**
+     * Settings for the per-operation circuit breakers that fail calls fast once
+     * Cognito is failing or slow, instead of letting every caller wait out the
+     * request timeout.
+     */
+    @Data
+    public static class CircuitBreaker {
+
+        /**
+         * Whether Cognito calls are guarded by circuit breakers
+         */
+        private boolean enabled = true;
+
+        /**
+         * Number of most recent calls per operation the rates are computed over
+         */
+        private Integer slidingWindowSize = 50;
+
+        /**
+         * Calls an operation must have made before its breaker can open
+         */
+        private Integer minimumCalls = 20;
+
+        /**
+         * Percentage of failed calls in the window at which the breaker opens
+         */
+        private Integer failureRateThreshold = 50;
+
+        /**
+         * Percentage of slow calls in the window at which the breaker opens
+         */
+        private Integer slowCallRateThreshold = 80;
+
+        /**
+         * Duration in milliseconds from which a call counts as slow
+         */
+        private Integer slowCallDuration = 5000;
+
+        /**
+         * Time in milliseconds an open breaker rejects calls before letting trial calls through
+         */
+        private Integer waitDurationInOpenState = 30000;
+
+        /**
+         * Trial calls let through while half-open; the breaker closes when their rates stay below the thresholds
+         */
+        private Integer permittedCallsInHalfOpenState = 5;
+
+        /**
+         * Time in milliseconds a successful introspection may be served while
+         * Cognito is unavailable; 0 disables the fallback
+         */
+        private Integer introspectionFallbackTtl = 300000;
+
+        /**
+         * Time in milliseconds a user's roles may be served while Cognito is
+         * unavailable; 0 disables the fallback
+         */
+        private Integer rolesFallbackTtl = 300000;
+
+        /**
+         * Maximum number of results kept per fallback
+         */
+        private Integer fallbackMaxEntries = 10000;
+    }
+
+    /**
+     * Settings for the bulkheads that keep admin traffic (bulk jobs, role
+     * assignment) from starving authentication. Each compartment has its own
+     * concurrency limit, wait queue and threads, and optionally its own HTTP
+     * connection pool.
+     */
+    @Data
+    public static class Bulkhead {
+
+        /**
+         * Whether Cognito calls are isolated per compartment
+         */
+        private boolean enabled = true;
+
+        /**
+         * Time in milliseconds a call may wait in the queue before it is rejected
+         */
+        private Integer maxWaitDuration = 5000;
+
+        /**
+         * Time in milliseconds after which a queued call is served ahead of higher priorities
+         */
+        private Integer starvationThreshold = 1000;
+
+        /**
+         * Whether the admin compartment gets its own SDK client and connection pool
+         */
+        private boolean separateConnectionPools = false;
+
+        /**
+         * Login, refresh, logout, introspection and user info; reserved for end users
+         */
+        private Compartment auth = new Compartment(64, 1024, 64);
+
+        /**
+         * CognitoAdminService operations
+         */
+        private Compartment admin = new Compartment(16, 256, 16);
+
+        /**
+         * Limits of one compartment
+         */
+        @Data
+        @NoArgsConstructor
+        @AllArgsConstructor
+        public static class Compartment {
+
+            /**
+             * Calls executing at once, and size of the compartment's thread pool
+             */
+            private Integer maxConcurrentCalls;
+
+            /**
+             * Calls waiting for a slot; further calls are rejected
+             */
+            private Integer maxQueuedCalls;
+
+            /**
+             * HTTP connections of the compartment's pool, when pools are separate
+             */
+            private Integer maxConnections;
+        }
+    }
+
+    /**
+     * Settings for the adaptive concurrency limit of each compartment, which
+     * follows Cognito's latency and throttling instead of a fixed number: it
+     * probes upwards while latency stays near its long-term level, and backs off
+     * when latency grows or Cognito throttles.
+     */
+    @Data
+    public static class AdaptiveLimit {
+
+        /**
+         * Whether excess Cognito calls are shed once the limit is reached
+         */
+        private boolean enabled = true;
+
+        /**
+         * Limit of each compartment before any latency has been observed; above the
+         * bulkhead sizes, so the limit only bites once Cognito pushes it down
+         */
+        private Integer initialLimit = 100;
+
+        /**
+         * Floor the limit never drops below
+         */
+        private Integer minLimit = 8;
+
+        /**
+         * Ceiling the limit never grows above
+         */
+        private Integer maxLimit = 256;
+
+        /**
+         * Factor by which recent latency may exceed the long-term latency before the limit shrinks
+         */
+        private Double rttTolerance = 2.0;
+
+        /**
+         * Weight (0.0 - 1.0) of each new estimate in the limit
+         */
+        private Double smoothing = 0.2;
+
+        /**
+         * Factor the limit is multiplied by when Cognito throttles or times out
+         */
+        private Double backoffRatio = 0.9;
+
+        /**
+         * Time in milliseconds between limit updates
+         */
+        private Integer updateInterval = 100;
+
+        /**
+         * Number of updates the long-term latency is averaged over
+         */
+        private Integer longWindow = 100;
+    }
+
+    /**
+     * Settings for hedged requests: an idempotent read that has not answered
+     * within a latency percentile of its operation is sent a second time, and
+     * the first response wins. A budget caps the extra calls.
+     */
+    @Data
+    public static class Hedging {
+
+        /**
+         * Whether idempotent reads are hedged
+         */
+        private boolean enabled = false;
+
+        /**
+         * Latency percentile (0.0 - 1.0) of an operation after which a hedge is sent
+         */
+        private Double percentile = 0.95;
+
+        /**
+         * Delay in milliseconds before a hedge while too few latencies are known
+         */
+        private Integer initialDelay = 100;
+
+        /**
+         * Lowest hedge delay in milliseconds, however fast the operation usually is
+         */
+        private Integer minDelay = 10;
+
+        /**
+         * Hedges earned per call, i.e. the share of extra load hedging may add
+         */
+        private Double budgetRatio = 0.05;
+
+        /**
+         * Hedges that may be sent in a burst once the budget has filled up
+         */
+        private Integer budgetBurst = 10;
+    }
+
+    /**
+     * Settings for the timeout of each Cognito call: the operation's timeout,
+     * shortened to the time left before the caller's deadline.
+     */
+    @Data
+    public static class Timeouts {
+
+        /**
+         * Whether a {@code CognitoDeadline} in the Reactor context bounds Cognito calls
+         */
+        private boolean deadlinePropagation = true;
+
+        /**
+         * Timeouts in milliseconds keyed by operation, as in the {@code operation}
+         * metric tag (e.g. {@code introspect: 2000}); other operations use request-timeout
+         */
+        private Map<String, Integer> operations = new HashMap<>();
+    }
+
+    /**
+     * Settings for the durable outbox that makes createUser, updateUser and
+     * assignRolesToUser asynchronous: mutations are journaled to local disk,
+     * acknowledged, and applied to Cognito by a paced background dispatcher.
+     */
+    @Data
+    public static class Outbox {
+
+        /**
+         * Whether the three mutations are journaled and dispatched asynchronously
+         */
+        private boolean enabled = false;
+
+        /**
+         * Directory of the journal segments; must be local, persistent and not shared between instances
+         */
+        private String directory = "cognito-outbox";
+
+        /**
+         * Size in bytes of a memory-mapped journal segment
+         */
+        private Integer segmentSize = 8388608;
+
+        /**
+         * Time in milliseconds between forced writes of the journal; mutations are
+         * acknowledged once forced, so this bounds the added latency
+         */
+        private Integer fsyncInterval = 10;
+
+        /**
+         * Maximum mutations dispatched per second; keep below the account quota
+         */
+        private Integer ratePerSecond = 10;
+
+        /**
+         * Maximum mutations in flight; mutations of one user are always applied one at a time, in order
+         */
+        private Integer concurrency = 4;
+
+        /**
+         * Time in milliseconds before the first retry of a mutation Cognito throttled or failed to apply
+         */
+        private Integer initialRetryBackoff = 500;
+
+        /**
+         * Upper bound in milliseconds of the exponential retry backoff
+         */
+        private Integer maxRetryBackoff = 60000;
+
+        /**
+         * Number of completed mutations whose status can still be looked up
+         */
+        private Integer statusRetention = 10000;
+    }
+
+    /**
+     * Settings for idempotent admin mutations: calls carrying an
+     * {@code IdempotencyKey} in their Reactor context run once per key, and
+     * retries get the stored result.
+     */
+    @Data
+    public static class Idempotency {
+
+        /**
+         * Whether idempotency keys are honoured; calls without a key are never cached
+         */
+        private boolean enabled = true;
+
+        /**
+         * Time in milliseconds a successful result is returned to retries with the same key
+         */
+        private Long ttl = 3600000L;
+
+        /**
+         * Maximum number of stored results
+         */
+        private Integer maxEntries = 10000;
+    }
+
+    /**
+     * Settings for spreading users over several user pools, to scale past the
+     * per-pool request quotas. The pool configured above is the shard named
+     * {@code default}; each username is owned by one shard, chosen by a
+     * consistent hash.
+     */
+    @Data
+    public static class Sharding {
+
+        /**
+         * Whether users are spread over the default pool and {@code shards}
+         */
+        private boolean enabled = false;
+
+        /**
+         * User pools besides the default one
+         */
+        private List<Shard> shards = new ArrayList<>();
+
+        /**
+         * Points per shard on the hash ring; more points spread users more evenly
+         */
+        private Integer virtualNodes = 128;
+
+        /**
+         * Names of the shards before the last change of {@code shards}; while set,
+         * users whose shard changed are still found in their former pool and moved
+         * to the new one on their next login
+         */
+        private List<String> previousShards = new ArrayList<>();
+
+        /**
+         * Maximum number of users remembered as moved out of their former pool,
+         * which are then no longer looked up there
+         */
+        private Integer movedUsersCacheSize = 100000;
+
+        /**
+         * A user pool and its app client, in the configured region and account
+         */
+        @Data
+        public static class Shard {
+
+            /**
+             * Unique name of the shard; renaming a shard moves its users
+             */
+            private String name;
+
+            /**
+             * Cognito User Pool ID
+             */
+            private String userPoolId;
+
+            /**
+             * Cognito App Client ID of the pool
+             */
+            private String clientId;
+
+            /**
+             * Cognito App Client Secret of the pool (optional)
+             */
+            private String clientSecret;
+        }
+    }
+
+    /**
+     * Settings for the non-blocking client of the OAuth2 endpoints of the
+     * Cognito {@code domain}, used for hosted UI and social logins
+     * (authorization code with PKCE) and token endpoint refreshes.
+     */
+    @Data
+    public static class OAuth2 {
+
+        /**
+         * Redirect URI registered on the app client, used when a call does not pass one
+         */
+        private String redirectUri;
+
+        /**
+         * Space-separated scopes requested by the authorization URL
+         */
+        private String scopes = "openid email profile";
+
+        /**
+         * Timeout in milliseconds for opening a connection to the domain
+         */
+        private Integer connectTimeout = 2000;
+
+        /**
+         * Timeout in milliseconds for the response of an endpoint, from the request being sent
+         */
+        private Integer responseTimeout = 5000;
+
+        /**
+         * Maximum number of pooled connections to the domain
+         */
+        private Integer maxConnections = 50;
+
+        /**
+         * Time in milliseconds a call may wait for a pooled connection
+         */
+        private Integer pendingAcquireTimeout = 5000;
+
+        /**
+         * Time in milliseconds after which an idle pooled connection is closed
+         */
+        private Integer maxIdleTime = 30000;
+    }
 }
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.resilience;
+
+import com.firefly.idp.cognito.properties.CognitoProperties;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Concurrency limit estimated from observed latency and throttling, in the
+ * style of the gradient algorithm used by TCP Vegas-like limiters.
+ *
+ * <p>Completed calls add their latency to the current sample window. Once per
+ * {@code updateInterval} the caller that completes a call wins the update and
+ * recomputes the limit from the window:
+ * <ul>
+ *   <li>If a call was throttled or timed out, the limit is multiplied by
+ *       {@code backoffRatio} (multiplicative decrease)</li>
+ *   <li>Otherwise the window's average latency is compared with the long-term
+ *       average: {@code gradient = clamp(rttTolerance * long / short, 0.5, 1)}.
+ *       Below 1 latency is growing and the new estimate is {@code limit * gradient};
+ *       at 1 it is {@code limit + sqrt(limit)}, probing upwards, but only when the
+ *       window actually used half of the limit</li>
+ * </ul>
+ * Estimates are smoothed and clamped to {@code [minLimit, maxLimit]}.
+ *
+ * <p>Nothing here takes a lock: acquiring is a CAS on the in-flight count,
+ * samples go to {@link LongAdder}s, and the update is claimed with a CAS on
+ * its due time. Samples racing with an update may land in either window.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double rttTolerance;
+    private final double smoothing;
+    private final double backoffRatio;
+    private final long updateIntervalNanos;
+    private final double longRttWeight;
+    private final LongSupplier clock;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger windowMaxInFlight = new AtomicInteger();
+    private final LongAdder windowRttNanos = new LongAdder();
+    private final LongAdder windowSamples = new LongAdder();
+    private final LongAdder windowDrops = new LongAdder();
+    private final AtomicLong nextUpdate;
+
+    private volatile int limit;
+
+    // Only touched by the caller that claimed the update
+    private double estimatedLimit;
+    private double longRttNanos;
+
+    public AdaptiveConcurrencyLimiter(CognitoProperties.AdaptiveLimit settings) {
+        this(settings, System::nanoTime);
+    }
+
+    AdaptiveConcurrencyLimiter(CognitoProperties.AdaptiveLimit settings, LongSupplier clock) {
+        this.minLimit = Math.max(settings.getMinLimit(), 1);
+        this.maxLimit = Math.max(settings.getMaxLimit(), minLimit);
+        this.rttTolerance = settings.getRttTolerance();
+        this.smoothing = settings.getSmoothing();
+        this.backoffRatio = settings.getBackoffRatio();
+        this.updateIntervalNanos = TimeUnit.MILLISECONDS.toNanos(settings.getUpdateInterval());
+        this.longRttWeight = 2.0 / (Math.max(settings.getLongWindow(), 1) + 1);
+        this.clock = clock;
+        this.estimatedLimit = Math.min(Math.max(settings.getInitialLimit(), minLimit), maxLimit);
+        this.limit = (int) estimatedLimit;
+        this.nextUpdate = new AtomicLong(clock.getAsLong() + updateIntervalNanos);
+    }
+
+    /**
+     * Take an in-flight slot if the limit allows
+     *
+     * @return Whether the call may proceed; if so, exactly one of the completion methods must follow
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                if (current + 1 > windowMaxInFlight.get()) {
+                    windowMaxInFlight.accumulateAndGet(current + 1, Math::max);
+                }
+                return true;
+            }
+        }
+    }
+
+    /**
+     * A call completed and its latency reflects Cognito's load
+     */
+    public void onSuccess(long rttNanos) {
+        inFlight.decrementAndGet();
+        windowRttNanos.add(rttNanos);
+        windowSamples.increment();
+        maybeUpdate();
+    }
+
+    /**
+     * A call was throttled or timed out: Cognito is overloaded
+     */
+    public void onDropped() {
+        inFlight.decrementAndGet();
+        windowDrops.increment();
+        maybeUpdate();
+    }
+
+    /**
+     * A call ended without a usable signal, e.g. cancelled or failed for another reason
+     */
+    public void onIgnored() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * @return Current limit
+     */
+    public int limit() {
+        return limit;
+    }
+
+    /**
+     * @return Calls currently holding a slot
+     */
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    private void maybeUpdate() {
+        long now = clock.getAsLong();
+        long due = nextUpdate.get();
+        if (now - due < 0 || !nextUpdate.compareAndSet(due, now + updateIntervalNanos)) {
+            return;
+        }
+        long drops = windowDrops.sumThenReset();
+        long samples = windowSamples.sumThenReset();
+        long rttSum = windowRttNanos.sumThenReset();
+        int maxInFlight = windowMaxInFlight.getAndSet(inFlight.get());
+
+        double estimate = estimatedLimit;
+        if (drops > 0) {
+            estimate = estimate * backoffRatio;
+        } else if (samples > 0) {
+            double shortRtt = (double) rttSum / samples;
+            longRttNanos = longRttNanos == 0 ? shortRtt : longRttNanos + longRttWeight * (shortRtt - longRttNanos);
+            if (longRttNanos / shortRtt > 2) {
+                // Latency dropped well below the long-term level, e.g. after a brownout: catch up faster
+                longRttNanos *= 0.95;
+            }
+            double gradient = Math.max(0.5, Math.min(1.0, rttTolerance * longRttNanos / shortRtt));
+            if (gradient < 1.0) {
+                estimate = estimate * (1 - smoothing) + estimate * gradient * smoothing;
+            } else if (maxInFlight * 2 >= estimate) {
+                estimate = estimate * (1 - smoothing) + (estimate + Math.sqrt(estimate)) * smoothing;
+            }
+        } else {
+            return;
+        }
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, estimate));
+        limit = (int) estimatedLimit;
+    }
+}
@@ -0,0 +1,276 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.resilience;
+
+import com.firefly.idp.cognito.client.CognitoOperation;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Concurrency limit, wait queue and thread pool of one compartment.
+ *
+ * <p>A call runs on the compartment's own threads as soon as fewer than
+ * {@code maxConcurrentCalls} are executing. Otherwise it waits without holding
+ * a thread in the queue of its {@link CognitoOperation.Priority}; a finishing
+ * call hands its slot straight to the oldest waiter of the highest non-empty
+ * priority. So that background work is delayed but never starved, a waiter of
+ * a lower priority that has been queued for {@code starvationThreshold} is
+ * served first once it is older than that head.
+ *
+ * <p>Calls are rejected with {@link BulkheadFullException} after waiting
+ * {@code maxWaitDuration}, or when the queues together hold
+ * {@code maxQueuedCalls}. A full queue does not turn away a call of a higher
+ * priority: it displaces the newest waiter of the lowest priority instead.
+ */
+class Bulkhead {
+
+    private final CognitoOperation.Compartment compartment;
+    private final int maxConcurrentCalls;
+    private final int maxQueuedCalls;
+    private final Duration maxWait;
+    private final long starvationNanos;
+    private final Scheduler scheduler;
+
+    private final Map<CognitoOperation.Priority, ArrayDeque<Waiter>> queues =
+            new EnumMap<>(CognitoOperation.Priority.class);
+    private int queued;
+    private int active;
+
+    private final Map<CognitoOperation.Priority, Timer> waitTimers =
+            new EnumMap<>(CognitoOperation.Priority.class);
+    private final Counter queueFull;
+    private final Counter timedOut;
+    private final Counter displaced;
+    private final Counter promoted;
+
+    Bulkhead(CognitoOperation.Compartment compartment, int maxConcurrentCalls, int maxQueuedCalls,
+             Duration maxWait, Duration starvationThreshold, MeterRegistry registry) {
+        this.compartment = compartment;
+        this.maxConcurrentCalls = Math.max(maxConcurrentCalls, 1);
+        this.maxQueuedCalls = Math.max(maxQueuedCalls, 0);
+        this.maxWait = maxWait;
+        this.starvationNanos = starvationThreshold.toNanos();
+        this.scheduler = Schedulers.newBoundedElastic(this.maxConcurrentCalls, Integer.MAX_VALUE,
+                "cognito-" + compartment.tagValue(), 60, true);
+
+        String tag = compartment.tagValue();
+        Gauge.builder("cognito.bulkhead.active", this, Bulkhead::active)
+                .description("Cognito calls executing in the compartment")
+                .tag("compartment", tag)
+                .register(registry);
+        Gauge.builder("cognito.bulkhead.queued", this, Bulkhead::queued)
+                .description("Cognito calls waiting for a slot in the compartment")
+                .tag("compartment", tag)
+                .register(registry);
+        for (CognitoOperation.Priority priority : CognitoOperation.Priority.values()) {
+            queues.put(priority, new ArrayDeque<>());
+            waitTimers.put(priority, Timer.builder("cognito.bulkhead.wait")
+                    .description("Time Cognito calls waited for a slot")
+                    .tag("compartment", tag)
+                    .tag("priority", priority.tagValue())
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+        this.queueFull = rejectedCounter(registry, tag, "queue_full");
+        this.timedOut = rejectedCounter(registry, tag, "timeout");
+        this.displaced = rejectedCounter(registry, tag, "displaced");
+        this.promoted = Counter.builder("cognito.bulkhead.promoted")
+                .description("Queued Cognito calls served ahead of a higher priority to avoid starvation")
+                .tag("compartment", tag)
+                .register(registry);
+    }
+
+    /**
+     * Run a call within the compartment
+     */
+    <T> Mono<T> isolate(CognitoOperation.Priority priority, Mono<T> source) {
+        return Mono.defer(() -> {
+            Waiter waiter;
+            Waiter victim = null;
+            synchronized (queues) {
+                if (active < maxConcurrentCalls) {
+                    active++;
+                    waiter = null;
+                } else if (queued < maxQueuedCalls || (victim = displace(priority)) != null) {
+                    waiter = new Waiter(priority);
+                    queues.get(priority).add(waiter);
+                    queued++;
+                } else {
+                    queueFull.increment();
+                    return Mono.error(new BulkheadFullException(compartment, "queue full"));
+                }
+            }
+            Timer waitTimer = waitTimers.get(priority);
+            if (waiter == null) {
+                waitTimer.record(0, TimeUnit.NANOSECONDS);
+                return run(source);
+            }
+            if (victim != null) {
+                displaced.increment();
+                victim.sink.tryEmitError(new BulkheadFullException(compartment,
+                        "queue full, displaced by a " + priority.tagValue() + " priority call"));
+            }
+            return waiter.sink.asMono()
+                    .timeout(maxWait)
+                    .onErrorMap(TimeoutException.class, e -> {
+                        timedOut.increment();
+                        return new BulkheadFullException(compartment, "waited " + maxWait.toMillis() + " ms");
+                    })
+                    .doOnError(e -> abandon(waiter))
+                    .doOnCancel(() -> abandon(waiter))
+                    .then(Mono.defer(() -> {
+                        waitTimer.record(System.nanoTime() - waiter.enqueuedNanos, TimeUnit.NANOSECONDS);
+                        return run(source);
+                    }));
+        });
+    }
+
+    int active() {
+        synchronized (queues) {
+            return active;
+        }
+    }
+
+    int queued() {
+        synchronized (queues) {
+            return queued;
+        }
+    }
+
+    void dispose() {
+        scheduler.dispose();
+    }
+
+    private <T> Mono<T> run(Mono<T> source) {
+        return source.subscribeOn(scheduler).doFinally(signal -> release());
+    }
+
+    /**
+     * Free a slot, or hand it to the next waiter
+     */
+    private void release() {
+        Waiter next;
+        synchronized (queues) {
+            next = next();
+            if (next == null) {
+                active--;
+                return;
+            }
+            queues.get(next.priority).remove(next);
+            queued--;
+            next.granted = true;
+        }
+        next.sink.tryEmitEmpty();
+    }
+
+    /**
+     * Stop waiting; a slot handed over in the meantime is passed on
+     */
+    private void abandon(Waiter waiter) {
+        synchronized (queues) {
+            if (queues.get(waiter.priority).remove(waiter)) {
+                queued--;
+                return;
+            }
+            if (!waiter.granted) {
+                // Displaced before it got a slot
+                return;
+            }
+        }
+        release();
+    }
+
+    /**
+     * Oldest waiter of the highest priority, unless a lower priority's oldest
+     * waiter is starving and queued before it. Caller holds the lock.
+     */
+    private Waiter next() {
+        long now = System.nanoTime();
+        Waiter first = null;
+        Waiter next = null;
+        for (ArrayDeque<Waiter> queue : queues.values()) {
+            Waiter head = queue.peek();
+            if (head == null) {
+                continue;
+            }
+            if (first == null) {
+                first = head;
+                next = head;
+            } else if (now - head.enqueuedNanos >= starvationNanos && head.enqueuedNanos - next.enqueuedNanos < 0) {
+                next = head;
+            }
+        }
+        if (next != first) {
+            promoted.increment();
+        }
+        return next;
+    }
+
+    /**
+     * Make room in a full queue by removing the newest waiter of the lowest
+     * priority below the given one. Caller holds the lock.
+     *
+     * @return Removed waiter, to be failed outside the lock, or {@code null} if there is none
+     */
+    private Waiter displace(CognitoOperation.Priority priority) {
+        CognitoOperation.Priority[] priorities = CognitoOperation.Priority.values();
+        for (int i = priorities.length - 1; i > priority.ordinal(); i--) {
+            Waiter victim = queues.get(priorities[i]).pollLast();
+            if (victim != null) {
+                queued--;
+                return victim;
+            }
+        }
+        return null;
+    }
+
+    private static Counter rejectedCounter(MeterRegistry registry, String compartment, String reason) {
+        return Counter.builder("cognito.bulkhead.rejected")
+                .description("Cognito calls rejected by a full compartment")
+                .tag("compartment", compartment)
+                .tag("reason", reason)
+                .register(registry);
+    }
+
+    /**
+     * A call waiting for a slot; guarded by the bulkhead's lock
+     */
+    private static final class Waiter {
+
+        private final Sinks.Empty<Void> sink = Sinks.empty();
+        private final CognitoOperation.Priority priority;
+        private final long enqueuedNanos = System.nanoTime();
+        private boolean granted;
+
+        private Waiter(CognitoOperation.Priority priority) {
+            this.priority = priority;
+        }
+    }
+}
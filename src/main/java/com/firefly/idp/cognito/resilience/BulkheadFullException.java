@@ -0,0 +1,44 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.resilience;
+
+import com.firefly.idp.cognito.client.CognitoOperation;
+
+import java.time.Duration;
+
+/**
+ * Thrown when a compartment's bulkhead has no slot for a call: its queue is
+ * full, or the call waited longer than the maximum wait duration.
+ */
+public class BulkheadFullException extends CognitoUnavailableException {
+
+    private static final Duration RETRY_AFTER = Duration.ofSeconds(1);
+
+    private final CognitoOperation.Compartment compartment;
+
+    public BulkheadFullException(CognitoOperation.Compartment compartment, String detail) {
+        super("Cognito " + compartment.tagValue() + " capacity exhausted, " + detail, RETRY_AFTER);
+        this.compartment = compartment;
+    }
+
+    /**
+     * Compartment that rejected the call
+     */
+    public CognitoOperation.Compartment getCompartment() {
+        return compartment;
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.resilience;
+
+import com.firefly.idp.cognito.properties.CognitoProperties;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker over a count-based sliding window of call outcomes.
+ *
+ * <p>While {@link State#CLOSED} the last {@code slidingWindowSize} calls are
+ * kept in a ring; once at least {@code minimumCalls} have been recorded and the
+ * failure or slow-call rate reaches its threshold, the breaker opens. An open
+ * breaker rejects every call for {@code waitDurationInOpenState}, then turns
+ * {@link State#HALF_OPEN} and lets {@code permittedCallsInHalfOpenState} trial
+ * calls through; their rates decide whether it closes again or re-opens.
+ *
+ * <p>Each permit carries the generation of the state it was granted in, so
+ * results of calls started before a transition do not count towards the new
+ * state. State changes are rare and the critical sections are a few field
+ * updates, so the breaker is guarded by its own monitor.
+ */
+public class CircuitBreaker {
+
+    /**
+     * Returned by {@link #acquire()} when the call is not permitted
+     */
+    public static final long REJECTED = -1;
+
+    private static final byte SUCCESS = 0;
+    private static final byte FAILURE = 1;
+    private static final byte SLOW = 2;
+
+    /**
+     * State of a breaker, published as the {@code cognito.circuit.state} gauge value
+     */
+    public enum State {
+        CLOSED(0), OPEN(1), HALF_OPEN(2);
+
+        private final int code;
+        private final String tagValue = name().toLowerCase(Locale.ROOT);
+
+        State(int code) {
+            this.code = code;
+        }
+
+        public int code() {
+            return code;
+        }
+
+        public String tagValue() {
+            return tagValue;
+        }
+    }
+
+    /**
+     * Notified of every state change, while the breaker's monitor is held
+     */
+    @FunctionalInterface
+    public interface Listener {
+        void onTransition(State from, State to);
+    }
+
+    private final int minimumCalls;
+    private final int failureRateThreshold;
+    private final int slowCallRateThreshold;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final int halfOpenCalls;
+    private final LongSupplier clock;
+    private final Listener listener;
+
+    private final byte[] window;
+    private int next;
+    private int recorded;
+    private int failures;
+    private int slowCalls;
+
+    private volatile State state = State.CLOSED;
+    private long generation;
+    private long openedAt;
+    private int halfOpenPermits;
+
+    public CircuitBreaker(CognitoProperties.CircuitBreaker settings, Listener listener) {
+        this(settings, listener, System::nanoTime);
+    }
+
+    CircuitBreaker(CognitoProperties.CircuitBreaker settings, Listener listener, LongSupplier clock) {
+        this.window = new byte[Math.max(settings.getSlidingWindowSize(), 1)];
+        this.minimumCalls = Math.max(Math.min(settings.getMinimumCalls(), window.length), 1);
+        this.failureRateThreshold = settings.getFailureRateThreshold();
+        this.slowCallRateThreshold = settings.getSlowCallRateThreshold();
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(settings.getSlowCallDuration());
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(settings.getWaitDurationInOpenState());
+        this.halfOpenCalls = Math.max(settings.getPermittedCallsInHalfOpenState(), 1);
+        this.clock = clock;
+        this.listener = listener;
+    }
+
+    /**
+     * Ask permission for a call
+     *
+     * @return Permit to pass to {@link #onResult} or {@link #release}, or {@link #REJECTED}
+     */
+    public synchronized long acquire() {
+        if (state == State.OPEN) {
+            if (clock.getAsLong() - openedAt < openNanos) {
+                return REJECTED;
+            }
+            transition(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenPermits >= halfOpenCalls) {
+                return REJECTED;
+            }
+            halfOpenPermits++;
+        }
+        return generation;
+    }
+
+    /**
+     * Record the outcome of a permitted call
+     *
+     * @param permit Permit returned by {@link #acquire()}
+     * @param failure Whether the call failed in a way that points at Cognito
+     * @param nanos Duration of the call
+     */
+    public synchronized void onResult(long permit, boolean failure, long nanos) {
+        if (permit != generation || state == State.OPEN) {
+            return;
+        }
+        record(failure ? FAILURE : nanos >= slowCallNanos ? SLOW : SUCCESS);
+
+        if (state == State.HALF_OPEN) {
+            if (recorded >= halfOpenCalls) {
+                transition(exceedsThresholds() ? State.OPEN : State.CLOSED);
+            }
+        } else if (recorded >= minimumCalls && exceedsThresholds()) {
+            transition(State.OPEN);
+        }
+    }
+
+    /**
+     * Give back the permit of a call that ended without an outcome, e.g. cancelled
+     */
+    public synchronized void release(long permit) {
+        if (permit == generation && state == State.HALF_OPEN) {
+            halfOpenPermits--;
+        }
+    }
+
+    /**
+     * @return Current state; an open breaker whose wait has elapsed turns half-open on the next call
+     */
+    public State state() {
+        return state;
+    }
+
+    /**
+     * @return Time until an open breaker lets trial calls through, zero otherwise
+     */
+    public synchronized long retryAfterNanos() {
+        return state == State.OPEN ? Math.max(openNanos - (clock.getAsLong() - openedAt), 0) : 0;
+    }
+
+    private void record(byte outcome) {
+        if (recorded == window.length) {
+            forget(window[next]);
+        } else {
+            recorded++;
+        }
+        window[next] = outcome;
+        next = (next + 1) % window.length;
+        if (outcome == FAILURE) {
+            failures++;
+        } else if (outcome == SLOW) {
+            slowCalls++;
+        }
+    }
+
+    private void forget(byte outcome) {
+        if (outcome == FAILURE) {
+            failures--;
+        } else if (outcome == SLOW) {
+            slowCalls--;
+        }
+    }
+
+    private boolean exceedsThresholds() {
+        return failures * 100 >= failureRateThreshold * recorded
+                || slowCalls * 100 >= slowCallRateThreshold * recorded;
+    }
+
+    private void transition(State target) {
+        State previous = state;
+        state = target;
+        generation++;
+        next = 0;
+        recorded = 0;
+        failures = 0;
+        slowCalls = 0;
+        halfOpenPermits = 0;
+        if (target == State.OPEN) {
+            openedAt = clock.getAsLong();
+        }
+        listener.onTransition(previous, target);
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.resilience;
+
+import com.firefly.idp.cognito.client.CognitoOperation;
+
+import java.time.Duration;
+
+/**
+ * Thrown instead of calling Cognito while the circuit breaker of an operation is open.
+ */
+public class CircuitOpenException extends CognitoUnavailableException {
+
+    private final CognitoOperation operation;
+
+    public CircuitOpenException(CognitoOperation operation, Duration retryAfter) {
+        super("Cognito is unavailable, circuit open for " + operation.tagValue(), retryAfter);
+        this.operation = operation;
+    }
+
+    /**
+     * Operation whose breaker rejected the call
+     */
+    public CognitoOperation getOperation() {
+        return operation;
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.resilience;
+
+import com.firefly.idp.cognito.client.CognitoOperation;
+import com.firefly.idp.cognito.metrics.CognitoMetrics;
+import com.firefly.idp.cognito.properties.CognitoProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Bulkheads isolating auth traffic from admin traffic.
+ *
+ * <p>Each {@link CognitoOperation.Compartment} has its own {@link Bulkhead}:
+ * a concurrency limit, a bounded wait queue and a dedicated thread pool the
+ * Cognito calls run on. Admin calls can never occupy more than the admin
+ * limit, so the auth limit is capacity reserved for end users, also of a
+ * shared connection pool as long as it is sized for both limits. With
+ * {@code bulkhead.separate-connection-pools}, admin calls also use their own
+ * SDK client and connections.
+ *
+ * <p>Within a compartment, queued calls are served by priority: the
+ * operation's {@link CognitoOperation#priority() default}, unless the
+ * subscriber overrides it with {@link CognitoOperation.Priority#inContext()}.
+ *
+ * <p>Publishes {@code cognito.bulkhead.active}, {@code cognito.bulkhead.queued},
+ * {@code cognito.bulkhead.wait} (tag {@code priority}),
+ * {@code cognito.bulkhead.rejected} (tag {@code reason}) and
+ * {@code cognito.bulkhead.promoted}, all tagged by {@code compartment}. When disabled, publishers
+ * are returned undecorated and calls run on the subscribing thread.
+ */
+@Component
+public class CognitoBulkheads {
+
+    private final boolean enabled;
+    private final Map<CognitoOperation.Compartment, Bulkhead> bulkheads =
+            new EnumMap<>(CognitoOperation.Compartment.class);
+
+    @Autowired
+    public CognitoBulkheads(CognitoProperties properties, CognitoMetrics metrics) {
+        this(properties.getBulkhead(), metrics.registry());
+    }
+
+    public CognitoBulkheads(CognitoProperties.Bulkhead settings, MeterRegistry registry) {
+        this.enabled = settings.isEnabled();
+        if (enabled) {
+            Duration maxWait = Duration.ofMillis(settings.getMaxWaitDuration());
+            Duration starvation = Duration.ofMillis(settings.getStarvationThreshold());
+            bulkheads.put(CognitoOperation.Compartment.AUTH, bulkhead(CognitoOperation.Compartment.AUTH,
+                    settings.getAuth(), maxWait, starvation, registry));
+            bulkheads.put(CognitoOperation.Compartment.ADMIN, bulkhead(CognitoOperation.Compartment.ADMIN,
+                    settings.getAdmin(), maxWait, starvation, registry));
+        }
+    }
+
+    /**
+     * Run an operation within the bulkhead of its compartment
+     *
+     * @param operation Operation being executed
+     * @param source Publisher performing a single Cognito call
+     * @return Publisher running on the compartment's threads once a slot is free
+     */
+    public <T> Mono<T> isolate(CognitoOperation operation, Mono<T> source) {
+        if (!enabled) {
+            return source;
+        }
+        Bulkhead bulkhead = bulkheads.get(operation.compartment());
+        return Mono.deferContextual(context -> bulkhead.isolate(operation.priority(context), source));
+    }
+
+    /**
+     * @return Calls executing in a compartment
+     */
+    public int active(CognitoOperation.Compartment compartment) {
+        return enabled ? bulkheads.get(compartment).active() : 0;
+    }
+
+    /**
+     * @return Calls waiting for a slot in a compartment
+     */
+    public int queued(CognitoOperation.Compartment compartment) {
+        return enabled ? bulkheads.get(compartment).queued() : 0;
+    }
+
+    /**
+     * Stop the compartments' threads
+     */
+    @PreDestroy
+    public void destroy() {
+        bulkheads.values().forEach(Bulkhead::dispose);
+    }
+
+    private static Bulkhead bulkhead(CognitoOperation.Compartment compartment,
+                                     CognitoProperties.Bulkhead.Compartment limits,
+                                     Duration maxWait, Duration starvationThreshold, MeterRegistry registry) {
+        return new Bulkhead(compartment, limits.getMaxConcurrentCalls(), limits.getMaxQueuedCalls(),
+                maxWait, starvationThreshold, registry);
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.resilience;
+
+import com.firefly.idp.cognito.client.CognitoOperation;
+import com.firefly.idp.cognito.properties.CognitoProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.awscore.AwsRequest;
+import software.amazon.awssdk.awscore.AwsRequestOverrideConfiguration;
+import software.amazon.awssdk.core.SdkRequest;
+import software.amazon.awssdk.core.exception.ApiCallTimeoutException;
+import software.amazon.awssdk.core.interceptor.Context;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.interceptor.ExecutionInterceptor;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timeout of every Cognito call: the operation's configured timeout, shortened
+ * to the time left before the caller's {@link CognitoDeadline}.
+ *
+ * <p>{@link #bound} wraps the blocking work of an operation. A call whose
+ * deadline has already passed, e.g. while it waited for a bulkhead slot, fails
+ * with {@link DeadlineExceededException} without reaching Cognito. Otherwise the
+ * operation and deadline are parked in a thread-local, and this class, registered
+ * on the SDK client as an {@link ExecutionInterceptor}, sets
+ * {@code min(time left, operation timeout)} as the API call timeout of each SDK
+ * request made meanwhile. The SDK then aborts requests the caller no longer
+ * waits for; such timeouts surface as {@link DeadlineExceededException} rather
+ * than as Cognito failures. Requests carrying their own API call timeout keep it.
+ */
+@Component
+@Slf4j
+public class CognitoCallTimeouts implements ExecutionInterceptor {
+
+    private static final long MIN_TIMEOUT_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final boolean deadlinePropagation;
+    private final long[] timeoutNanos = new long[CognitoOperation.values().length];
+    private final long attemptTimeoutNanos;
+    private final ThreadLocal<Call> current = new ThreadLocal<>();
+
+    public CognitoCallTimeouts(CognitoProperties properties) {
+        this.deadlinePropagation = properties.getTimeouts().isDeadlinePropagation();
+        this.attemptTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(properties.getConnectionTimeout());
+        Arrays.fill(timeoutNanos, TimeUnit.MILLISECONDS.toNanos(properties.getRequestTimeout()));
+        for (Map.Entry<String, Integer> timeout : properties.getTimeouts().getOperations().entrySet()) {
+            CognitoOperation operation = Arrays.stream(CognitoOperation.values())
+                    .filter(candidate -> candidate.tagValue().equals(timeout.getKey()))
+                    .findFirst()
+                    .orElse(null);
+            if (operation == null) {
+                log.warn("Ignoring timeout of unknown Cognito operation {}", timeout.getKey());
+                continue;
+            }
+            timeoutNanos[operation.ordinal()] = TimeUnit.MILLISECONDS.toNanos(timeout.getValue());
+        }
+    }
+
+    /**
+     * @return Configured timeout of an operation
+     */
+    public Duration timeout(CognitoOperation operation) {
+        return Duration.ofNanos(timeoutNanos[operation.ordinal()]);
+    }
+
+    /**
+     * Bound the blocking work of an operation by its timeout and the caller's deadline
+     *
+     * @param operation Operation being executed
+     * @param deadline Deadline from the Reactor context, or {@code null}
+     * @param call Blocking work making SDK calls on the calling thread
+     * @return Work failing with {@link DeadlineExceededException} once the deadline has passed
+     */
+    public <T> Callable<T> bound(CognitoOperation operation, CognitoDeadline deadline, Callable<T> call) {
+        CognitoDeadline effective = deadlinePropagation ? deadline : null;
+        return () -> {
+            if (effective != null && effective.isExpired()) {
+                throw new DeadlineExceededException(operation);
+            }
+            Call previous = current.get();
+            current.set(new Call(operation, effective));
+            try {
+                return call.call();
+            } catch (ApiCallTimeoutException e) {
+                if (effective != null && effective.isExpired()) {
+                    throw new DeadlineExceededException(operation, e);
+                }
+                throw e;
+            } finally {
+                if (previous != null) {
+                    current.set(previous);
+                } else {
+                    current.remove();
+                }
+            }
+        };
+    }
+
+    @Override
+    public SdkRequest modifyRequest(Context.ModifyRequest context, ExecutionAttributes executionAttributes) {
+        Call call = current.get();
+        if (call == null || !(context.request() instanceof AwsRequest request)) {
+            return context.request();
+        }
+        AwsRequestOverrideConfiguration.Builder override = request.overrideConfiguration()
+                .map(AwsRequestOverrideConfiguration::toBuilder)
+                .orElseGet(AwsRequestOverrideConfiguration::builder);
+        if (override.apiCallTimeout() != null) {
+            return request;
+        }
+        long timeout = timeoutNanos[call.operation().ordinal()];
+        if (call.deadline() != null) {
+            timeout = Math.min(timeout, Math.max(call.deadline().remainingNanos(), MIN_TIMEOUT_NANOS));
+        }
+        return request.toBuilder()
+                .overrideConfiguration(override
+                        .apiCallTimeout(Duration.ofNanos(timeout))
+                        .apiCallAttemptTimeout(Duration.ofNanos(Math.min(timeout, attemptTimeoutNanos)))
+                        .build())
+                .build();
+    }
+
+    /**
+     * Operation and deadline of the blocking work running on a thread
+     */
+    private record Call(CognitoOperation operation, CognitoDeadline deadline) {
+    }
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.resilience;
+
+import com.firefly.idp.cognito.client.CognitoOperation;
+import com.firefly.idp.cognito.metrics.CognitoMetrics;
+import com.firefly.idp.cognito.properties.CognitoProperties;
+import com.firefly.idp.cognito.util.JwtClaims;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.core.exception.SdkClientException;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeoutException;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * One {@link CircuitBreaker} per {@link CognitoOperation}, with fallbacks for read paths.
+ *
+ * <p>A call counts as failed when it points at Cognito itself: a 5xx or
+ * throttling response, or a client-side timeout or connection failure. Rejected
+ * credentials, missing users and other 4xx answers show Cognito is healthy and
+ * count as successful calls. Calls slower than {@code slow-call-duration} count
+ * as slow, whatever their outcome.
+ *
+ * <p>Introspection and role lookups keep their last successful result per token
+ * or user. When such a call is rejected by an open breaker, or fails in a way the
+ * breaker counts, the stored result is served if it is younger than the
+ * configured fallback TTL; introspections never outlive the token's {@code exp}.
+ * Calls shed locally, by the concurrency limit or a spent deadline, say nothing
+ * about Cognito and are not answered from the fallback.
+ *
+ * <p>Publishes {@code cognito.circuit.state} (0 closed, 1 open, 2 half-open),
+ * {@code cognito.circuit.transitions} (tag {@code state}),
+ * {@code cognito.circuit.rejected} and {@code cognito.circuit.fallbacks}, all
+ * tagged by {@code operation}. When disabled, publishers are returned undecorated.
+ */
+@Component
+@Slf4j
+public class CognitoCircuitBreakers {
+
+    private final boolean enabled;
+    private final CircuitBreaker[] breakers;
+    private final FallbackCache[] fallbacks;
+    private final Counter[] rejected;
+    private final Counter[] fallbacksServed;
+    private final LongSupplier clock;
+
+    @Autowired
+    public CognitoCircuitBreakers(CognitoProperties properties, CognitoMetrics metrics) {
+        this(properties.getCircuitBreaker(), metrics.registry());
+    }
+
+    public CognitoCircuitBreakers(CognitoProperties.CircuitBreaker settings, MeterRegistry registry) {
+        this(settings, registry, System::nanoTime);
+    }
+
+    CognitoCircuitBreakers(CognitoProperties.CircuitBreaker settings, MeterRegistry registry, LongSupplier clock) {
+        this.enabled = settings.isEnabled();
+        this.clock = clock;
+
+        CognitoOperation[] operations = CognitoOperation.values();
+        this.breakers = new CircuitBreaker[operations.length];
+        this.fallbacks = new FallbackCache[operations.length];
+        this.rejected = new Counter[operations.length];
+        this.fallbacksServed = new Counter[operations.length];
+
+        for (CognitoOperation operation : operations) {
+            int op = operation.ordinal();
+            Counter[] transitions = new Counter[CircuitBreaker.State.values().length];
+            for (CircuitBreaker.State state : CircuitBreaker.State.values()) {
+                transitions[state.ordinal()] = Counter.builder("cognito.circuit.transitions")
+                        .description("Circuit breaker state changes, by target state")
+                        .tag("operation", operation.tagValue())
+                        .tag("state", state.tagValue())
+                        .register(registry);
+            }
+            breakers[op] = new CircuitBreaker(settings, (from, to) -> {
+                transitions[to.ordinal()].increment();
+                if (to == CircuitBreaker.State.OPEN) {
+                    log.warn("Circuit for Cognito operation {} opened (was {})", operation.tagValue(), from.tagValue());
+                } else {
+                    log.info("Circuit for Cognito operation {} is now {}", operation.tagValue(), to.tagValue());
+                }
+            }, clock);
+            CircuitBreaker breaker = breakers[op];
+            Gauge.builder("cognito.circuit.state", breaker, b -> b.state().code())
+                    .description("Circuit breaker state: 0 closed, 1 open, 2 half-open")
+                    .tag("operation", operation.tagValue())
+                    .register(registry);
+            rejected[op] = Counter.builder("cognito.circuit.rejected")
+                    .description("Calls rejected by an open circuit breaker")
+                    .tag("operation", operation.tagValue())
+                    .register(registry);
+            fallbacksServed[op] = Counter.builder("cognito.circuit.fallbacks")
+                    .description("Stored results served while Cognito was unavailable")
+                    .tag("operation", operation.tagValue())
+                    .register(registry);
+        }
+        fallbacks[CognitoOperation.INTROSPECT.ordinal()] = fallbackCache(settings.getIntrospectionFallbackTtl(),
+                settings.getFallbackMaxEntries(), clock, CognitoCircuitBreakers::tokenLifetime);
+        fallbacks[CognitoOperation.GET_ROLES.ordinal()] = fallbackCache(settings.getRolesFallbackTtl(),
+                settings.getFallbackMaxEntries(), clock, key -> Long.MAX_VALUE);
+    }
+
+    /**
+     * Guard an operation with its breaker
+     *
+     * @param operation Operation being executed
+     * @param source Publisher performing the operation
+     * @return Publisher failing with {@link CircuitOpenException} while the breaker is open
+     */
+    public <T> Mono<T> protect(CognitoOperation operation, Mono<T> source) {
+        if (!enabled) {
+            return source;
+        }
+        CircuitBreaker breaker = breakers[operation.ordinal()];
+        return Mono.defer(() -> {
+            long permit = breaker.acquire();
+            if (permit == CircuitBreaker.REJECTED) {
+                rejected[operation.ordinal()].increment();
+                return Mono.error(new CircuitOpenException(operation, Duration.ofNanos(breaker.retryAfterNanos())));
+            }
+            long start = clock.getAsLong();
+            return source
+                    .doOnSuccess(value -> breaker.onResult(permit, false, clock.getAsLong() - start))
+                    .doOnError(error -> {
+                        if (error instanceof CognitoUnavailableException) {
+                            // A nested call was shed by the adapter; says nothing about this operation
+                            breaker.release(permit);
+                        } else {
+                            breaker.onResult(permit, isFailure(error), clock.getAsLong() - start);
+                        }
+                    })
+                    .doOnCancel(() -> breaker.release(permit));
+        });
+    }
+
+    /**
+     * Guard a read operation with its breaker and serve its last result while Cognito is unavailable
+     *
+     * @param operation Operation being executed
+     * @param key Token or user the result belongs to
+     * @param source Publisher performing the operation
+     * @return Publisher falling back to the stored result of {@code key} when the operation has a fallback
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> protect(CognitoOperation operation, String key, Mono<T> source) {
+        FallbackCache fallback = enabled && key != null ? fallbacks[operation.ordinal()] : null;
+        if (fallback == null) {
+            return protect(operation, source);
+        }
+        return protect(operation, source)
+                .doOnNext(value -> {
+                    if (value instanceof ResponseEntity<?> response && response.getStatusCode().is2xxSuccessful()) {
+                        fallback.put(key, value);
+                    }
+                })
+                .onErrorResume(CognitoCircuitBreakers::isCognitoUnavailable, error -> {
+                    Object stored = fallback.get(key);
+                    if (stored == null) {
+                        return Mono.error(error);
+                    }
+                    fallbacksServed[operation.ordinal()].increment();
+                    log.debug("Serving stored {} result while Cognito is unavailable", operation.tagValue());
+                    return Mono.just((T) stored);
+                });
+    }
+
+    /**
+     * Forget the stored result of a key, e.g. after the token was revoked or the roles changed
+     */
+    public void evict(CognitoOperation operation, String key) {
+        FallbackCache fallback = fallbacks[operation.ordinal()];
+        if (fallback != null && key != null) {
+            fallback.evict(key);
+        }
+    }
+
+    /**
+     * Forget the stored results matching a condition, e.g. the introspections of a deleted user
+     */
+    public void evictIf(CognitoOperation operation, Predicate<Object> condition) {
+        FallbackCache fallback = fallbacks[operation.ordinal()];
+        if (fallback != null) {
+            fallback.evictIf(condition);
+        }
+    }
+
+    /**
+     * @return Current state of an operation's breaker
+     */
+    public CircuitBreaker.State state(CognitoOperation operation) {
+        return breakers[operation.ordinal()].state();
+    }
+
+    /**
+     * Whether a failure points at Cognito being unavailable rather than at the request
+     */
+    public static boolean isFailure(Throwable error) {
+        AwsServiceException serviceException = CognitoMetrics.findServiceException(error);
+        if (serviceException != null) {
+            return serviceException.statusCode() >= 500
+                    || CognitoMetrics.classify(serviceException) == CognitoMetrics.Outcome.THROTTLED;
+        }
+        Throwable current = error;
+        for (int depth = 0; current != null && depth < 5; depth++) {
+            if (current instanceof SdkClientException || current instanceof TimeoutException
+                    || current instanceof IOException || current instanceof WebClientRequestException) {
+                return true;
+            }
+            if (current instanceof WebClientResponseException response) {
+                // Calls to the OAuth2 endpoints of the Cognito domain
+                return response.getStatusCode().is5xxServerError() || response.getStatusCode().value() == 429;
+            }
+            current = current.getCause();
+        }
+        return false;
+    }
+
+    /**
+     * Whether a failure comes from Cognito itself; calls shed by the adapter are not
+     */
+    private static boolean isCognitoUnavailable(Throwable error) {
+        if (error instanceof CircuitOpenException) {
+            return true;
+        }
+        return !(error instanceof CognitoUnavailableException) && isFailure(error);
+    }
+
+    /**
+     * Remaining lifetime of an access token in milliseconds, 0 if it has no {@code exp}
+     */
+    private static long tokenLifetime(String token) {
+        Instant expiresAt = JwtClaims.expiresAt(token);
+        return expiresAt != null ? Duration.between(Instant.now(), expiresAt).toMillis() : 0;
+    }
+
+    private static FallbackCache fallbackCache(Integer ttlMillis, Integer maxEntries, LongSupplier clock,
+                                               ToLongFunction<String> keyLifetime) {
+        return ttlMillis != null && ttlMillis > 0
+                ? new FallbackCache(ttlMillis, maxEntries, clock, keyLifetime)
+                : null;
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.resilience;
+
+import com.firefly.idp.cognito.client.CognitoOperation;
+import com.firefly.idp.cognito.metrics.CognitoMetrics;
+import com.firefly.idp.cognito.properties.CognitoProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.core.exception.ApiCallAttemptTimeoutException;
+import software.amazon.awssdk.core.exception.ApiCallTimeoutException;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Adaptive concurrency limits of the Cognito calls, one per
+ * {@link CognitoOperation.Compartment}.
+ *
+ * <p>Where the bulkheads cap concurrency at fixed values, these limits follow
+ * what Cognito currently sustains: they grow while latency holds and shrink
+ * when it rises or calls are throttled, see {@link AdaptiveConcurrencyLimiter}.
+ * Calls over the limit fail fast with {@link ConcurrencyLimitExceededException}
+ * instead of queueing up behind a slow Cognito. Keeping auth and admin apart
+ * means a burst of admin throttling does not shrink the limit end users get.
+ *
+ * <p>Publishes {@code cognito.limiter.limit}, {@code cognito.limiter.inflight}
+ * and {@code cognito.limiter.rejected}, all tagged by {@code compartment}.
+ */
+@Component
+public class CognitoConcurrencyLimits {
+
+    private final boolean enabled;
+    private final Map<CognitoOperation.Compartment, AdaptiveConcurrencyLimiter> limiters =
+            new EnumMap<>(CognitoOperation.Compartment.class);
+    private final Map<CognitoOperation.Compartment, Counter> rejected =
+            new EnumMap<>(CognitoOperation.Compartment.class);
+
+    @Autowired
+    public CognitoConcurrencyLimits(CognitoProperties properties, CognitoMetrics metrics) {
+        this(properties.getAdaptiveLimit(), metrics.registry());
+    }
+
+    public CognitoConcurrencyLimits(CognitoProperties.AdaptiveLimit settings, MeterRegistry registry) {
+        this.enabled = settings.isEnabled();
+        if (!enabled) {
+            return;
+        }
+        for (CognitoOperation.Compartment compartment : CognitoOperation.Compartment.values()) {
+            AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(settings);
+            limiters.put(compartment, limiter);
+            String tag = compartment.tagValue();
+            Gauge.builder("cognito.limiter.limit", limiter, AdaptiveConcurrencyLimiter::limit)
+                    .description("Current adaptive concurrency limit of the compartment")
+                    .tag("compartment", tag)
+                    .register(registry);
+            Gauge.builder("cognito.limiter.inflight", limiter, AdaptiveConcurrencyLimiter::inFlight)
+                    .description("Cognito calls holding a slot of the adaptive limit")
+                    .tag("compartment", tag)
+                    .register(registry);
+            rejected.put(compartment, Counter.builder("cognito.limiter.rejected")
+                    .description("Cognito calls rejected by the adaptive concurrency limit")
+                    .tag("compartment", tag)
+                    .register(registry));
+        }
+    }
+
+    /**
+     * Run an operation within the adaptive limit of its compartment
+     *
+     * @param operation Operation being executed
+     * @param source Publisher performing a single Cognito call
+     * @return Publisher failing fast when the limit is reached, and feeding the limit otherwise
+     */
+    public <T> Mono<T> limit(CognitoOperation operation, Mono<T> source) {
+        if (!enabled) {
+            return source;
+        }
+        CognitoOperation.Compartment compartment = operation.compartment();
+        AdaptiveConcurrencyLimiter limiter = limiters.get(compartment);
+        return Mono.defer(() -> {
+            if (!limiter.tryAcquire()) {
+                rejected.get(compartment).increment();
+                return Mono.error(new ConcurrencyLimitExceededException(compartment, limiter.limit()));
+            }
+            long start = System.nanoTime();
+            // Exactly one of the signals below completes the slot
+            return source
+                    .doOnSuccess(value -> limiter.onSuccess(System.nanoTime() - start))
+                    .doOnError(error -> complete(limiter, error, System.nanoTime() - start))
+                    .doOnCancel(limiter::onIgnored);
+        });
+    }
+
+    /**
+     * @return Current limit of a compartment, or {@code 0} when disabled
+     */
+    public int currentLimit(CognitoOperation.Compartment compartment) {
+        return enabled ? limiters.get(compartment).limit() : 0;
+    }
+
+    /**
+     * @return Calls holding a slot in a compartment
+     */
+    public int inFlight(CognitoOperation.Compartment compartment) {
+        return enabled ? limiters.get(compartment).inFlight() : 0;
+    }
+
+    /**
+     * Throttling and timeouts mean Cognito is overloaded; a rejected request
+     * (4xx) still measured a full round trip; anything else, including calls the
+     * adapter cut short for the caller's deadline, says nothing about load
+     */
+    private static void complete(AdaptiveConcurrencyLimiter limiter, Throwable error, long rttNanos) {
+        if (error instanceof CognitoUnavailableException) {
+            limiter.onIgnored();
+            return;
+        }
+        if (isOverload(error)) {
+            limiter.onDropped();
+            return;
+        }
+        AwsServiceException serviceException = CognitoMetrics.findServiceException(error);
+        if (serviceException != null && serviceException.statusCode() < 500) {
+            limiter.onSuccess(rttNanos);
+        } else {
+            limiter.onIgnored();
+        }
+    }
+
+    private static boolean isOverload(Throwable error) {
+        AwsServiceException serviceException = CognitoMetrics.findServiceException(error);
+        if (serviceException != null) {
+            return CognitoMetrics.classify(serviceException) == CognitoMetrics.Outcome.THROTTLED;
+        }
+        Throwable current = error;
+        for (int depth = 0; current != null && depth < 5; depth++) {
+            if (current instanceof TimeoutException || current instanceof ApiCallTimeoutException
+                    || current instanceof ApiCallAttemptTimeoutException) {
+                return true;
+            }
+            current = current.getCause();
+        }
+        return false;
+    }
+}
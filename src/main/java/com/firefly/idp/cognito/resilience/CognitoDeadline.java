@@ -0,0 +1,87 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.resilience;
+
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Point in time by which the caller needs an answer, carried in the Reactor
+ * context of a Cognito operation.
+ *
+ * <p>Whoever knows the caller's budget, e.g. a web filter from the timeout of
+ * the inbound HTTP request, writes it into the context:
+ * <pre>{@code
+ * adapter.introspect(token)
+ *         .contextWrite(CognitoDeadline.within(Duration.ofMillis(800)));
+ * }</pre>
+ * Every Cognito call of the operation, also those made by nested pipelines,
+ * is then bounded by the time left (see {@link CognitoCallTimeouts}). The
+ * deadline is fixed when the operation is subscribed to. An outer deadline
+ * already in the context is kept when it is earlier.
+ */
+public final class CognitoDeadline {
+
+    /**
+     * Reactor context key of the deadline
+     */
+    public static final Class<CognitoDeadline> CONTEXT_KEY = CognitoDeadline.class;
+
+    private final long deadlineNanos;
+
+    private CognitoDeadline(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * @param budget Time the caller is willing to wait, from subscription on
+     * @return Context update to pass to {@code contextWrite}
+     */
+    public static Function<Context, Context> within(Duration budget) {
+        return context -> {
+            CognitoDeadline deadline = new CognitoDeadline(System.nanoTime() + budget.toNanos());
+            CognitoDeadline outer = from(context);
+            return outer != null && outer.deadlineNanos - deadline.deadlineNanos <= 0
+                    ? context
+                    : context.put(CONTEXT_KEY, deadline);
+        };
+    }
+
+    /**
+     * @return Deadline in a context, or {@code null} when the caller set none
+     */
+    public static CognitoDeadline from(ContextView context) {
+        return context.getOrDefault(CONTEXT_KEY, null);
+    }
+
+    /**
+     * @return Nanoseconds left, negative once the deadline has passed
+     */
+    public long remainingNanos() {
+        return deadlineNanos - System.nanoTime();
+    }
+
+    /**
+     * @return Whether the deadline has passed
+     */
+    public boolean isExpired() {
+        return remainingNanos() <= 0;
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.resilience;
+
+import com.firefly.idp.cognito.client.CognitoOperation;
+import com.firefly.idp.cognito.metrics.CognitoMetrics;
+import com.firefly.idp.cognito.properties.CognitoProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Hedged requests for idempotent reads.
+ *
+ * <p>A hedged call starts its first attempt as usual. If no response arrived
+ * after the operation's {@code hedging.percentile} latency (or
+ * {@code initial-delay} until enough latencies are known, never below
+ * {@code min-delay}), a second attempt is sent and the first response wins;
+ * the other attempt is cancelled. A failed hedge is ignored, while an error of
+ * the first attempt is final, so Cognito's answer for a bad token is not
+ * delayed. Hedges spend from a shared {@link HedgeBudget}, which keeps the
+ * extra calls below {@code budget-ratio} of all hedged calls.
+ *
+ * <p>Attempts are expected to take a bulkhead slot each; the hedge asks for
+ * its slot at {@link CognitoOperation.Priority#LOW}, so it only uses capacity
+ * no other call is waiting for. The delay percentile is computed from first
+ * attempts alone, failed ones included; a first attempt cut short by a winning
+ * hedge counts with the time it had taken, a lower bound of its latency.
+ *
+ * <p>Publishes {@code cognito.hedge.sent}, {@code cognito.hedge.won},
+ * {@code cognito.hedge.skipped} and {@code cognito.hedge.delay}, tagged by
+ * {@code operation}, and {@code cognito.hedge.budget}.
+ */
+@Component
+public class CognitoHedging {
+
+    private final boolean enabled;
+    private final double percentile;
+    private final long initialDelayNanos;
+    private final long minDelayNanos;
+    private final HedgeBudget budget;
+    private final MeterRegistry registry;
+    private final ConcurrentMap<CognitoOperation, HedgedOperation> operations = new ConcurrentHashMap<>();
+
+    @Autowired
+    public CognitoHedging(CognitoProperties properties, CognitoMetrics metrics) {
+        this(properties.getHedging(), metrics.registry());
+    }
+
+    public CognitoHedging(CognitoProperties.Hedging settings, MeterRegistry registry) {
+        this.enabled = settings.isEnabled();
+        this.percentile = settings.getPercentile();
+        this.initialDelayNanos = TimeUnit.MILLISECONDS.toNanos(settings.getInitialDelay());
+        this.minDelayNanos = TimeUnit.MILLISECONDS.toNanos(settings.getMinDelay());
+        this.budget = new HedgeBudget(settings.getBudgetRatio(), settings.getBudgetBurst());
+        this.registry = registry;
+        if (enabled) {
+            Gauge.builder("cognito.hedge.budget", budget, HedgeBudget::available)
+                    .description("Hedged requests that may currently be sent")
+                    .register(registry);
+        }
+    }
+
+    /**
+     * Hedge an idempotent read
+     *
+     * @param operation Operation being executed
+     * @param attempt Publisher performing one attempt within the operation's bulkhead;
+     *                subscribed a second time for the hedge
+     * @return Publisher emitting the first response
+     */
+    public <T> Mono<T> hedge(CognitoOperation operation, Mono<T> attempt) {
+        if (!enabled) {
+            return attempt;
+        }
+        HedgedOperation hedged = operations.computeIfAbsent(operation, HedgedOperation::new);
+        return Mono.defer(() -> {
+            budget.onCall();
+            long start = System.nanoTime();
+            AtomicBoolean hedgeWon = new AtomicBoolean();
+            Mono<T> first = attempt.doFinally(signal -> {
+                if (signal != SignalType.CANCEL || hedgeWon.get()) {
+                    hedged.latency.record(System.nanoTime() - start);
+                }
+            });
+            // Fires on a bounded elastic thread, so a hedge running without a bulkhead never blocks a timer thread
+            Mono<T> hedge = Mono.delay(hedged.delay(), Schedulers.boundedElastic())
+                    .flatMap(tick -> {
+                        if (!budget.tryHedge()) {
+                            hedged.skipped.increment();
+                            return Mono.<T>never();
+                        }
+                        hedged.sent.increment();
+                        return attempt.contextWrite(CognitoOperation.Priority.LOW.inContext())
+                                .doOnSuccess(value -> {
+                                    hedgeWon.set(true);
+                                    hedged.won.increment();
+                                })
+                                .onErrorResume(error -> Mono.never());
+                    });
+            // The hedge is subscribed first: the first attempt may block the subscribing thread
+            return Mono.firstWithSignal(hedge, first);
+        });
+    }
+
+    /**
+     * @return Current hedge delay of an operation
+     */
+    public Duration delay(CognitoOperation operation) {
+        HedgedOperation hedged = operations.get(operation);
+        return hedged != null ? hedged.delay() : Duration.ofNanos(Math.max(initialDelayNanos, minDelayNanos));
+    }
+
+    /**
+     * Latencies and meters of one hedged operation
+     */
+    private final class HedgedOperation {
+
+        private final LatencyPercentile latency = new LatencyPercentile(percentile);
+        private final Counter sent;
+        private final Counter won;
+        private final Counter skipped;
+
+        HedgedOperation(CognitoOperation operation) {
+            String tag = operation.tagValue();
+            this.sent = counter("cognito.hedge.sent", "Hedged attempts sent", tag);
+            this.won = counter("cognito.hedge.won", "Hedged attempts that answered first", tag);
+            this.skipped = counter("cognito.hedge.skipped", "Hedges not sent because the budget was spent", tag);
+            Gauge.builder("cognito.hedge.delay", this, h -> h.delay().toNanos() / 1e9)
+                    .description("Delay after which a hedge is sent")
+                    .tag("operation", tag)
+                    .baseUnit("seconds")
+                    .register(registry);
+        }
+
+        Duration delay() {
+            long observed = latency.value();
+            return Duration.ofNanos(Math.max(observed < 0 ? initialDelayNanos : observed, minDelayNanos));
+        }
+
+        private Counter counter(String name, String description, String operation) {
+            return Counter.builder(name)
+                    .description(description)
+                    .tag("operation", operation)
+                    .register(registry);
+        }
+    }
+}
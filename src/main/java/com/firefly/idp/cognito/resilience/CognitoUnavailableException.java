@@ -0,0 +1,86 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.resilience;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+
+/**
+ * Thrown instead of calling Cognito when the adapter sheds the call itself.
+ *
+ * <p>Maps to {@code 503 Service Unavailable} with a {@code Retry-After} header
+ * (or the status of a subclass, such as {@code 504} for a spent deadline), both
+ * when rendered by WebFlux and through {@link #toResponseEntity()}. The stack
+ * trace is not filled in, rejections are expected to be frequent.
+ */
+public abstract class CognitoUnavailableException extends ResponseStatusException {
+
+    private final Duration retryAfter;
+
+    protected CognitoUnavailableException(String reason, Duration retryAfter) {
+        this(HttpStatus.SERVICE_UNAVAILABLE, reason, retryAfter);
+    }
+
+    protected CognitoUnavailableException(HttpStatusCode status, String reason, Duration retryAfter) {
+        this(status, reason, retryAfter, null);
+    }
+
+    protected CognitoUnavailableException(HttpStatusCode status, String reason, Duration retryAfter, Throwable cause) {
+        super(status, reason, cause);
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Time after which the call may be retried, or {@code null} when there is no advice
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        if (retryAfter != null) {
+            headers.set(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds()));
+        }
+        return headers;
+    }
+
+    /**
+     * @return The error response for services that answer with a {@link ResponseEntity}
+     */
+    public <T> ResponseEntity<T> toResponseEntity() {
+        return ResponseEntity.status(getStatusCode())
+                .headers(getHeaders())
+                .build();
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+
+    private long retryAfterSeconds() {
+        // Round up so clients never retry before the adapter allows it
+        return (retryAfter.toMillis() + 999) / 1000;
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.resilience;
+
+import com.firefly.idp.cognito.client.CognitoOperation;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Thrown when the deadline of the caller has passed before or during a Cognito
+ * call; the caller has given up, so the call is not made or not waited for.
+ * Maps to {@code 504 Gateway Timeout}.
+ */
+public class DeadlineExceededException extends CognitoUnavailableException {
+
+    private final CognitoOperation operation;
+
+    public DeadlineExceededException(CognitoOperation operation) {
+        this(operation, null);
+    }
+
+    public DeadlineExceededException(CognitoOperation operation, Throwable cause) {
+        super(HttpStatus.GATEWAY_TIMEOUT, "Deadline exceeded before Cognito answered " + operation.tagValue(),
+                null, cause);
+        this.operation = operation;
+    }
+
+    /**
+     * Operation that was cut short
+     */
+    public CognitoOperation getOperation() {
+        return operation;
+    }
+}
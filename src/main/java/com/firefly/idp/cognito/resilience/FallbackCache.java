@@ -0,0 +1,114 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.resilience;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Last successful results of a read operation, served while Cognito is unavailable.
+ *
+ * <p>Written on every successful call, so puts are a single map write without
+ * locking. The map is bounded: when full, expired entries are purged and, if
+ * that is not enough, arbitrary entries are dropped. An entry lives for the
+ * TTL, or less when its key expires earlier (e.g. the access token it was
+ * stored for).
+ */
+class FallbackCache {
+
+    private record Entry(Object value, long expiresAt) {
+    }
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final LongSupplier clock;
+    private final ToLongFunction<String> keyLifetime;
+
+    FallbackCache(long ttlMillis, int maxEntries, LongSupplier clock) {
+        this(ttlMillis, maxEntries, clock, key -> Long.MAX_VALUE);
+    }
+
+    /**
+     * @param keyLifetime Remaining lifetime of a key in milliseconds; keys without any are not stored
+     */
+    FallbackCache(long ttlMillis, int maxEntries, LongSupplier clock, ToLongFunction<String> keyLifetime) {
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.maxEntries = Math.max(maxEntries, 1);
+        this.clock = clock;
+        this.keyLifetime = keyLifetime;
+    }
+
+    void put(String key, Object value) {
+        long lifetimeMillis = keyLifetime.applyAsLong(key);
+        if (lifetimeMillis <= 0) {
+            entries.remove(key);
+            return;
+        }
+        long now = clock.getAsLong();
+        if (entries.size() >= maxEntries && !entries.containsKey(key)) {
+            purge(now);
+        }
+        entries.put(key, new Entry(value, now + Math.min(ttlNanos, TimeUnit.MILLISECONDS.toNanos(lifetimeMillis))));
+    }
+
+    /**
+     * @return The stored value if it has not expired, null otherwise
+     */
+    Object get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (clock.getAsLong() - entry.expiresAt() > 0) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry.value();
+    }
+
+    void evict(String key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Drop every stored value matching a condition
+     */
+    void evictIf(Predicate<Object> condition) {
+        entries.values().removeIf(entry -> condition.test(entry.value()));
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private void purge(long now) {
+        entries.values().removeIf(entry -> now - entry.expiresAt() > 0);
+        // Still full: make room for a tenth of the capacity at once rather than one entry per put
+        Iterator<String> keys = entries.keySet().iterator();
+        int target = maxEntries - Math.max(maxEntries / 10, 1);
+        while (entries.size() > target && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.firefly.idp.cognito.resilience;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket bounding the extra calls hedging adds.
+ *
+ * <p>Every call earns {@code ratio} of a token, up to {@code burst} tokens, and
+ * every hedge spends one, so over time hedges stay below {@code ratio} times the
+ * calls. Tokens are kept in thousandths in a single {@link AtomicLong}.
+ */
+class HedgeBudget {
+
+    private static final long TOKEN = 1000;
+
+    private final long earnedPerCall;
+    private final long capacity;
+    private final AtomicLong balance;
+
+    HedgeBudget(double ratio, int burst) {
+        this.earnedPerCall = Math.max(0, Math.round(ratio * TOKEN));
+        this.capacity = Math.max(burst, 0) * TOKEN;
+        this.balance = new AtomicLong(capacity);
+    }
+
+    void onCall() {
+        balance.accumulateAndGet(earnedPerCall, (current, earned) -> Math.min(capacity, current + earned));
+    }
+
+    boolean tryHedge() {
+        while (true) {
+            long current = balance.get();
+            if (current < TOKEN) {
+                return false;
+            }
+            if (balance.compareAndSet(current, current - TOKEN)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @return Hedges that may currently be sent
+     */
+    double available() {
+        return (double) balance.get() / TOKEN;
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.firefly.idp.cognito.resilience;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Percentile over the most recent latencies of an operation.
+ *
+ * <p>Samples go into a fixed ring without locking. Every {@value #RECOMPUTE_EVERY}
+ * samples, the caller recording the sample that completes the batch sorts a
+ * copy of the ring and publishes the new value.
+ */
+class LatencyPercentile {
+
+    static final int WINDOW = 256;
+    static final int RECOMPUTE_EVERY = 32;
+
+    private final double percentile;
+    private final AtomicLongArray samples = new AtomicLongArray(WINDOW);
+    private final AtomicLong recorded = new AtomicLong();
+
+    private volatile long value = -1;
+
+    LatencyPercentile(double percentile) {
+        this.percentile = Math.max(0.0, Math.min(1.0, percentile));
+    }
+
+    void record(long nanos) {
+        long count = recorded.incrementAndGet();
+        samples.set((int) ((count - 1) % WINDOW), nanos);
+        if (count % RECOMPUTE_EVERY == 0) {
+            recompute((int) Math.min(count, WINDOW));
+        }
+    }
+
+    /**
+     * @return Percentile in nanoseconds, or {@code -1} until {@value #RECOMPUTE_EVERY} samples were recorded
+     */
+    long value() {
+        return value;
+    }
+
+    private void recompute(int size) {
+        long[] sorted = new long[size];
+        for (int i = 0; i < size; i++) {
+            sorted[i] = samples.get(i);
+        }
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile * size) - 1;
+        value = sorted[Math.max(0, Math.min(size - 1, rank))];
+    }
+}
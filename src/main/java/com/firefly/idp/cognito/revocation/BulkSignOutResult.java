@@ -0,0 +1,48 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.revocation;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Outcome of signing out one user during a bulk global sign-out.
+ */
+@Value
+@Builder
+public class BulkSignOutResult {
+
+    /**
+     * Username that was signed out
+     */
+    String username;
+
+    /**
+     * Whether AdminUserGlobalSignOut succeeded
+     */
+    boolean success;
+
+    /**
+     * Cognito error code or exception name when the sign-out failed
+     */
+    String error;
+
+    /**
+     * Number of users processed so far in this bulk operation, including this one
+     */
+    long processed;
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.revocation;
+
+import com.firefly.idp.cognito.properties.CognitoProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Records users that were globally signed out by an admin.
+ *
+ * <p>Cognito rejects their tokens on its side, but anything that validates or
+ * caches tokens locally would keep accepting them until they expire. Such
+ * caches either register a listener to evict entries as soon as a sign-out
+ * happens, or ask {@link #isSignedOutSince(String, Instant)} whether a token
+ * issued at a given time has been revoked. Entries are retained for the
+ * configured revocation retention, which should cover the access token lifetime.
+ * Usernames are matched case-insensitively, like Cognito does by default.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SignOutRegistry {
+
+    private final CognitoProperties properties;
+    private final ConcurrentMap<String, Instant> signedOutAt = new ConcurrentHashMap<>();
+    private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Register a callback invoked with the username of every signed-out user
+     */
+    public void addListener(Consumer<String> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Record that a user has been signed out globally and notify listeners
+     */
+    public void recordSignOut(String username) {
+        signedOutAt.put(key(username), Instant.now());
+        for (Consumer<String> listener : listeners) {
+            try {
+                listener.accept(username);
+            } catch (Exception e) {
+                log.warn("Sign-out listener failed for user: {}", username, e);
+            }
+        }
+    }
+
+    /**
+     * Check whether a user was signed out after a token was issued. Token issue
+     * times have second precision, so a token issued in the second of the sign-out
+     * is accepted: it may have been issued after the sign-out
+     *
+     * @param username Cognito username
+     * @param issuedAt Issue time of the token being validated
+     * @return true if the token must no longer be accepted
+     */
+    public boolean isSignedOutSince(String username, Instant issuedAt) {
+        Instant signOut = signedOutAt.get(key(username));
+        if (signOut == null) {
+            return false;
+        }
+        if (signOut.plusMillis(properties.getBulkSignOut().getRevocationRetention()).isBefore(Instant.now())) {
+            signedOutAt.remove(key(username), signOut);
+            return false;
+        }
+        return issuedAt.getEpochSecond() < signOut.getEpochSecond();
+    }
+
+    /**
+     * Drop sign-outs older than the retention period
+     */
+    public void purgeExpired() {
+        Instant cutoff = Instant.now().minusMillis(properties.getBulkSignOut().getRevocationRetention());
+        signedOutAt.values().removeIf(signOut -> signOut.isBefore(cutoff));
+    }
+
+    private static String key(String username) {
+        return username.toLowerCase(Locale.ROOT);
+    }
+}
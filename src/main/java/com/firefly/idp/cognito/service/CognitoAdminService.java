@@ -16,19 +16,46 @@
 
 package com.firefly.idp.cognito.service;
 
+import com.firefly.idp.cognito.client.CognitoCallExecutor;
 import com.firefly.idp.cognito.client.CognitoClientFactory;
+import com.firefly.idp.cognito.client.CognitoOperation;
+import com.firefly.idp.cognito.coalescing.UserAttributeUpdateCoalescer;
+import com.firefly.idp.cognito.idempotency.IdempotencyKey;
+import com.firefly.idp.cognito.idempotency.IdempotentExecutions;
+import com.firefly.idp.cognito.index.DeviceOwnerIndex;
+import com.firefly.idp.cognito.index.GroupMembershipIndex;
+import com.firefly.idp.cognito.journal.AuthEventJournal;
+import com.firefly.idp.cognito.mapping.CognitoAttributeMapper;
+import com.firefly.idp.cognito.mapping.UnwritableAttributesException;
+import com.firefly.idp.cognito.outbox.AdminMutation;
+import com.firefly.idp.cognito.outbox.AdminMutationOutbox;
+import com.firefly.idp.cognito.outbox.MutationStatus;
 import com.firefly.idp.cognito.properties.CognitoProperties;
+import com.firefly.idp.cognito.resilience.CognitoUnavailableException;
+import com.firefly.idp.cognito.revocation.BulkSignOutResult;
+import com.firefly.idp.cognito.revocation.SignOutRegistry;
+import com.firefly.idp.cognito.sharding.UserPoolShard;
+import com.firefly.idp.cognito.sharding.UserPoolShards;
+import com.firefly.idp.cognito.util.RatePacer;
 import com.firefly.idp.dtos.*;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
 import software.amazon.awssdk.services.cognitoidentityprovider.CognitoIdentityProviderClient;
 import software.amazon.awssdk.services.cognitoidentityprovider.model.*;
 
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 /**
@@ -41,63 +68,83 @@ import java.util.stream.Collectors;
  *   <li>User updates and deletion</li>
  *   <li>Role/Group management</li>
  *   <li>Session management</li>
+ *   <li>Bulk global sign-out</li>
  * </ul>
+ *
+ * <p>With the outbox enabled, createUser, updateUser and assignRolesToUser are
+ * acknowledged once journaled and applied by the {@link AdminMutationOutbox}.
+ *
+ * <p>Mutations subscribed with an {@link IdempotencyKey} in their context run
+ * at most once per key, see {@link IdempotentExecutions}. With sharding, each
+ * call goes to the user pool that owns the user, see {@link UserPoolShards}.
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class CognitoAdminService {
 
+    private static final Duration THROTTLE_PENALTY = Duration.ofMillis(500);
+    private static final int GROUP_SIGN_OUT_PAGE_SIZE = 100;
+
     private final CognitoClientFactory clientFactory;
     private final CognitoProperties properties;
+    private final GroupMembershipIndex groupIndex;
+    private final UserAttributeUpdateCoalescer updateCoalescer;
+    private final CognitoAttributeMapper attributeMapper;
+    private final DeviceOwnerIndex deviceIndex;
+    private final SignOutRegistry signOutRegistry;
+    private final CognitoCallExecutor calls;
+    private final AuthEventJournal journal;
+    private final AdminMutationOutbox outbox;
+    private final IdempotentExecutions idempotency;
+    private final UserPoolShards shards;
 
     /**
-     * Create a new user in Cognito
+     * Start applying the mutations of the outbox, including those replayed from its journal
+     */
+    @PostConstruct
+    public void startOutbox() {
+        outbox.start(this::applyMutation);
+    }
+
+    /**
+     * Create a new user in Cognito.
+     *
+     * <p>With the outbox enabled, a user without a password is created
+     * asynchronously: the answer is {@code 202 Accepted} with the outbox id in
+     * {@link AdminMutationOutbox#MUTATION_ID_HEADER}. A user with a password is
+     * always created synchronously, so passwords never reach the disk. Fields
+     * the user pool schema does not accept fail with {@code 400 Bad Request}.
      */
     public Mono<ResponseEntity<CreateUserResponse>> createUser(CreateUserRequest request) {
-        return Mono.fromCallable(() -> {
-            log.info("Creating Cognito user: {}", request.getUsername());
-            
-            CognitoIdentityProviderClient client = clientFactory.getClient();
-            
-            List<AttributeType> attributes = new ArrayList<>();
-            if (request.getEmail() != null) {
-                attributes.add(AttributeType.builder()
-                        .name("email")
-                        .value(request.getEmail())
-                        .build());
-                attributes.add(AttributeType.builder()
-                        .name("email_verified")
-                        .value("true")
-                        .build());
-            }
-            if (request.getGivenName() != null) {
-                attributes.add(AttributeType.builder()
-                        .name("given_name")
-                        .value(request.getGivenName())
-                        .build());
-            }
-            if (request.getFamilyName() != null) {
-                attributes.add(AttributeType.builder()
-                        .name("family_name")
-                        .value(request.getFamilyName())
-                        .build());
-            }
-            
-            AdminCreateUserRequest createUserRequest = AdminCreateUserRequest.builder()
-                    .userPoolId(properties.getUserPoolId())
-                    .username(request.getUsername())
-                    .userAttributes(attributes)
-                    .temporaryPassword(request.getPassword())
-                    .messageAction(MessageActionType.SUPPRESS) // Don't send invitation email
-                    .build();
-            
-            AdminCreateUserResponse response = client.adminCreateUser(createUserRequest);
+        return idempotency.execute(CognitoOperation.CREATE_USER, request.getUsername(),
+                Mono.defer(() -> performCreateUser(request))
+                        .onErrorResume(UnwritableAttributesException.class, exception ->
+                                rejectAttributes(CognitoOperation.CREATE_USER, request.getUsername(), exception)));
+    }
+
+    private Mono<ResponseEntity<CreateUserResponse>> performCreateUser(CreateUserRequest request) {
+        List<AttributeType> attributes = attributeMapper.toAttributes(request);
+        if (outbox.isEnabled() && request.getPassword() == null) {
+            return accept(CognitoOperation.CREATE_USER, request.getUsername(),
+                    attributes, List.of(),
+                    CreateUserResponse.builder()
+                            .id(request.getUsername())
+                            .username(request.getUsername())
+                            .email(request.getEmail())
+                            .build());
+        }
+        return calls.execute(CognitoOperation.CREATE_USER, () -> {
+            log.debug("Creating Cognito user: {}", request.getUsername());
+            
+            CognitoIdentityProviderClient client = clientFactory.getAdminClient();
+            
+            AdminCreateUserResponse response = client.adminCreateUser(buildCreateUserRequest(request, attributes));
             
             // Set permanent password if provided
             if (request.getPassword() != null) {
                 AdminSetUserPasswordRequest setPasswordRequest = AdminSetUserPasswordRequest.builder()
-                        .userPoolId(properties.getUserPoolId())
+                        .userPoolId(shards.forUser(request.getUsername()).getUserPoolId())
                         .username(request.getUsername())
                         .password(request.getPassword())
                         .permanent(true)
@@ -111,27 +158,44 @@ public class CognitoAdminService {
                     .email(request.getEmail())
                     .build();
             
-            log.info("Successfully created user: {}", request.getUsername());
+            journal.recordSuccess(CognitoOperation.CREATE_USER, request.getUsername());
             return ResponseEntity.ok(userResponse);
             
         }).onErrorResume(exception -> {
+            journal.recordFailure(CognitoOperation.CREATE_USER, request.getUsername(), exception);
+            if (exception instanceof CognitoUnavailableException unavailable) {
+                return Mono.just(unavailable.<CreateUserResponse>toResponseEntity());
+            }
             log.error("Failed to create user: {}", request.getUsername(), exception);
             return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
         });
     }
 
+    /**
+     * Build the AdminCreateUser request for a new user
+     */
+    AdminCreateUserRequest buildCreateUserRequest(CreateUserRequest request, List<AttributeType> attributes) {
+        return AdminCreateUserRequest.builder()
+                .userPoolId(shards.forUser(request.getUsername()).getUserPoolId())
+                .username(request.getUsername())
+                .userAttributes(attributes)
+                .temporaryPassword(request.getPassword())
+                .messageAction(MessageActionType.SUPPRESS) // Don't send invitation email
+                .build();
+    }
+
     /**
      * Change user password
      */
     public Mono<Void> changePassword(com.firefly.idp.dtos.ChangePasswordRequest request) {
-        return Mono.fromRunnable(() -> {
-            log.info("Changing password for user: {}", request.getUserId());
+        Mono<Void> change = calls.run(CognitoOperation.CHANGE_PASSWORD, () -> {
+            log.debug("Changing password for user: {}", request.getUserId());
             
             try {
-                CognitoIdentityProviderClient client = clientFactory.getClient();
+                CognitoIdentityProviderClient client = clientFactory.getAdminClient();
                 
                 AdminSetUserPasswordRequest setPasswordRequest = AdminSetUserPasswordRequest.builder()
-                        .userPoolId(properties.getUserPoolId())
+                        .userPoolId(shards.locate(request.getUserId()).getUserPoolId())
                         .username(request.getUserId())
                         .password(request.getNewPassword())
                         .permanent(true)
@@ -139,45 +203,49 @@ public class CognitoAdminService {
                 
                 client.adminSetUserPassword(setPasswordRequest);
                 
-                log.info("Successfully changed password for user: {}", request.getUserId());
+                journal.recordSuccess(CognitoOperation.CHANGE_PASSWORD, request.getUserId());
             } catch (Exception e) {
+                journal.recordFailure(CognitoOperation.CHANGE_PASSWORD, request.getUserId(), e);
                 log.error("Failed to change password", e);
                 throw new RuntimeException("Password change failed", e);
             }
         });
+        return idempotency.execute(CognitoOperation.CHANGE_PASSWORD, request.getUserId(), change);
     }
 
     /**
      * Reset user password (send reset email)
      */
     public Mono<Void> resetPassword(String username) {
-        return Mono.fromRunnable(() -> {
-            log.info("Resetting password for user: {}", username);
+        Mono<Void> reset = calls.run(CognitoOperation.RESET_PASSWORD, () -> {
+            log.debug("Resetting password for user: {}", username);
             
             try {
-                CognitoIdentityProviderClient client = clientFactory.getClient();
+                CognitoIdentityProviderClient client = clientFactory.getAdminClient();
                 
                 AdminResetUserPasswordRequest resetRequest = AdminResetUserPasswordRequest.builder()
-                        .userPoolId(properties.getUserPoolId())
+                        .userPoolId(shards.locate(username).getUserPoolId())
                         .username(username)
                         .build();
                 
                 client.adminResetUserPassword(resetRequest);
                 
-                log.info("Successfully initiated password reset for user: {}", username);
+                journal.recordSuccess(CognitoOperation.RESET_PASSWORD, username);
             } catch (Exception e) {
+                journal.recordFailure(CognitoOperation.RESET_PASSWORD, username, e);
                 log.error("Failed to reset password", e);
                 throw new RuntimeException("Password reset failed", e);
             }
         });
+        return idempotency.execute(CognitoOperation.RESET_PASSWORD, username, reset);
     }
 
     /**
      * Initiate MFA challenge (returns challenge details)
      */
     public Mono<ResponseEntity<MfaChallengeResponse>> mfaChallenge(String username) {
-        return Mono.fromCallable(() -> {
-            log.info("Initiating MFA challenge for user: {}", username);
+        return calls.execute(CognitoOperation.MFA_CHALLENGE, () -> {
+            log.debug("Initiating MFA challenge for user: {}", username);
             
             // Cognito MFA is typically handled during authentication flow
             // This is a placeholder for custom MFA implementation
@@ -186,6 +254,7 @@ public class CognitoAdminService {
                     .deliveryMethod("SMS")
                     .build();
             
+            journal.recordSuccess(CognitoOperation.MFA_CHALLENGE, username);
             return ResponseEntity.ok(response);
         });
     }
@@ -194,12 +263,12 @@ public class CognitoAdminService {
      * Verify MFA code
      */
     public Mono<Void> mfaVerify(MfaVerifyRequest request) {
-        return Mono.fromRunnable(() -> {
-            log.info("Verifying MFA code");
+        return calls.run(CognitoOperation.MFA_VERIFY, () -> {
+            log.debug("Verifying MFA code");
             
             // MFA verification is handled during authentication flow in Cognito
             // This is a placeholder
-            log.info("MFA verification completed");
+            journal.recordSuccess(CognitoOperation.MFA_VERIFY, null);
         });
     }
 
@@ -207,18 +276,20 @@ public class CognitoAdminService {
      * List active sessions for a user
      */
     public Mono<ResponseEntity<List<SessionInfo>>> listSessions(String userId) {
-        return Mono.fromCallable(() -> {
-            log.info("Listing sessions for user: {}", userId);
+        return calls.executeRead(CognitoOperation.LIST_SESSIONS, () -> {
+            log.debug("Listing sessions for user: {}", userId);
             
-            CognitoIdentityProviderClient client = clientFactory.getClient();
+            CognitoIdentityProviderClient client = clientFactory.getAdminClient();
             
             AdminListDevicesRequest listDevicesRequest = AdminListDevicesRequest.builder()
-                    .userPoolId(properties.getUserPoolId())
+                    .userPoolId(shards.locate(userId).getUserPoolId())
                     .username(userId)
                     .build();
             
             AdminListDevicesResponse response = client.adminListDevices(listDevicesRequest);
             
+            response.devices().forEach(device -> deviceIndex.put(device.deviceKey(), userId));
+            
             List<SessionInfo> sessions = response.devices().stream()
                     .map(device -> SessionInfo.builder()
                             .sessionId(device.deviceKey())
@@ -230,6 +301,9 @@ public class CognitoAdminService {
             return ResponseEntity.ok(sessions);
             
         }).onErrorResume(exception -> {
+            if (exception instanceof CognitoUnavailableException unavailable) {
+                return Mono.just(unavailable.<List<SessionInfo>>toResponseEntity());
+            }
             log.error("Failed to list sessions", exception);
             return Mono.just(ResponseEntity.ok(Collections.emptyList()));
         });
@@ -239,39 +313,144 @@ public class CognitoAdminService {
      * Revoke a specific session
      */
     public Mono<Void> revokeSession(String sessionId) {
-        return Mono.fromRunnable(() -> {
-            log.info("Revoking session: {}", sessionId);
-            
-            try {
-                CognitoIdentityProviderClient client = clientFactory.getClient();
-                
-                // Note: Cognito uses device keys for session management
-                AdminForgetDeviceRequest forgetDeviceRequest = AdminForgetDeviceRequest.builder()
-                        .userPoolId(properties.getUserPoolId())
-                        .deviceKey(sessionId)
-                        .build();
-                
-                client.adminForgetDevice(forgetDeviceRequest);
-                
-                log.info("Successfully revoked session: {}", sessionId);
-            } catch (Exception e) {
-                log.error("Failed to revoke session", e);
-                throw new RuntimeException("Session revocation failed", e);
-            }
-        });
+        // Note: Cognito uses device keys for session management, and forgetting a device requires its owner
+        Mono<Void> revocation = deviceIndex.findOwner(sessionId)
+                .onErrorMap(exception -> !(exception instanceof CognitoUnavailableException), exception -> {
+                    journal.recordFailure(CognitoOperation.REVOKE_SESSION, null, exception);
+                    log.error("Failed to revoke session", exception);
+                    return new RuntimeException("Session revocation failed", exception);
+                })
+                .flatMap(username -> calls.run(CognitoOperation.REVOKE_SESSION, () -> {
+                    log.debug("Revoking session: {}", sessionId);
+                    
+                    try {
+                        CognitoIdentityProviderClient client = clientFactory.getAdminClient();
+                        
+                        AdminForgetDeviceRequest forgetDeviceRequest = AdminForgetDeviceRequest.builder()
+                                .userPoolId(shards.locate(username).getUserPoolId())
+                                .username(username)
+                                .deviceKey(sessionId)
+                                .build();
+                        
+                        client.adminForgetDevice(forgetDeviceRequest);
+                        deviceIndex.remove(sessionId);
+                        
+                        journal.recordSuccess(CognitoOperation.REVOKE_SESSION, username, sessionId);
+                    } catch (Exception e) {
+                        journal.recordFailure(CognitoOperation.REVOKE_SESSION, username, e);
+                        log.error("Failed to revoke session", e);
+                        throw new RuntimeException("Session revocation failed", e);
+                    }
+                }));
+        
+        return idempotency.execute(CognitoOperation.REVOKE_SESSION, sessionId, revocation);
     }
 
     /**
-     * Get user roles (groups in Cognito)
+     * Globally sign out many users, e.g. after a compromise.
+     *
+     * <p>Calls AdminUserGlobalSignOut with bounded concurrency, paced below the
+     * configured rate and retried with backoff when Cognito throttles. One result
+     * is emitted per user as soon as it completes, so callers can stream progress.
+     * Successful sign-outs are recorded in the {@link SignOutRegistry} so local
+     * token caches stop accepting the users' tokens immediately.
      */
-    public Mono<ResponseEntity<List<String>>> getRoles(String userId) {
+    public Flux<BulkSignOutResult> bulkGlobalSignOut(Flux<String> usernames) {
+        CognitoProperties.BulkSignOut settings = properties.getBulkSignOut();
+        RatePacer pacer = new RatePacer(settings.getRatePerSecond());
+        AtomicLong processed = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        
+        return usernames
+                .flatMap(username -> signOutUser(username, pacer, settings)
+                        .map(error -> {
+                            if (!error.isEmpty()) {
+                                failed.incrementAndGet();
+                            }
+                            return BulkSignOutResult.builder()
+                                    .username(username)
+                                    .success(error.isEmpty())
+                                    .error(error.isEmpty() ? null : error)
+                                    .processed(processed.incrementAndGet())
+                                    .build();
+                        }), settings.getConcurrency())
+                .doOnSubscribe(subscription -> log.info("Starting bulk global sign-out"))
+                .doFinally(signal -> {
+                    signOutRegistry.purgeExpired();
+                    log.info("Bulk global sign-out finished ({}): {} users processed, {} failed",
+                            signal, processed.get(), failed.get());
+                });
+    }
+
+    /**
+     * Globally sign out every member of a role (group in Cognito), taking the
+     * members a page at a time as the sign-outs progress
+     */
+    public Flux<BulkSignOutResult> bulkGlobalSignOutGroup(String roleName) {
         return Mono.fromCallable(() -> {
-            log.info("Getting roles for user: {}", userId);
+                    // Never act on a stale member list during incident response
+                    groupIndex.invalidate(roleName);
+                    return groupIndex.pages(roleName, GROUP_SIGN_OUT_PAGE_SIZE);
+                })
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMapMany(pages -> bulkGlobalSignOut(Flux.fromIterable(pages).concatMapIterable(page -> page, 1)));
+    }
+
+    /**
+     * Sign out one user
+     *
+     * @return Empty string on success, otherwise the error code
+     */
+    private Mono<String> signOutUser(String username, RatePacer pacer, CognitoProperties.BulkSignOut settings) {
+        // Deferred so every retry reserves a slot of its own
+        return Mono.defer(pacer::acquire)
+                .then(calls.execute(CognitoOperation.ADMIN_GLOBAL_SIGN_OUT, () -> clientFactory.getAdminClient()
+                                .adminUserGlobalSignOut(AdminUserGlobalSignOutRequest.builder()
+                                        .userPoolId(shards.locate(username).getUserPoolId())
+                                        .username(username)
+                                        .build())))
+                .doOnError(this::isThrottling, e -> pacer.backOff(THROTTLE_PENALTY))
+                .retryWhen(Retry.backoff(settings.getMaxRetries(), THROTTLE_PENALTY).filter(this::isThrottling))
+                .map(response -> {
+                    signOutRegistry.recordSignOut(username);
+                    journal.recordSuccess(CognitoOperation.ADMIN_GLOBAL_SIGN_OUT, username);
+                    return "";
+                })
+                .onErrorResume(e -> {
+                    Throwable cause = Exceptions.unwrap(e);
+                    if (Exceptions.isRetryExhausted(e) && e.getCause() != null) {
+                        cause = e.getCause();
+                    }
+                    journal.recordFailure(CognitoOperation.ADMIN_GLOBAL_SIGN_OUT, username, cause);
+                    log.debug("Global sign-out failed for user: {}", username, cause);
+                    return Mono.just(errorCode(cause));
+                });
+    }
+
+    private boolean isThrottling(Throwable e) {
+        return e instanceof TooManyRequestsException || e instanceof LimitExceededException;
+    }
+
+    private static String errorCode(Throwable e) {
+        if (e instanceof AwsServiceException serviceException && serviceException.awsErrorDetails() != null
+                && serviceException.awsErrorDetails().errorCode() != null) {
+            return serviceException.awsErrorDetails().errorCode();
+        }
+        return e.getClass().getSimpleName();
+    }
+
+    /**
+     * Get user roles (groups in Cognito); while Cognito is unavailable the last
+     * result for the user is served, if recent enough
+     */
+    public Mono<ResponseEntity<List<String>>> getRoles(String userId) {
+        return calls.executeRead(CognitoOperation.GET_ROLES, userId, () -> {
+            log.debug("Getting roles for user: {}", userId);
             
-            CognitoIdentityProviderClient client = clientFactory.getClient();
+            CognitoIdentityProviderClient client = clientFactory.getAdminClient();
             
             AdminListGroupsForUserRequest listGroupsRequest = AdminListGroupsForUserRequest.builder()
-                    .userPoolId(properties.getUserPoolId())
+                    .userPoolId(shards.locate(userId).getUserPoolId())
                     .username(userId)
                     .build();
             
@@ -284,100 +463,164 @@ public class CognitoAdminService {
             return ResponseEntity.ok(roles);
             
         }).onErrorResume(exception -> {
+            if (exception instanceof CognitoUnavailableException unavailable) {
+                return Mono.just(unavailable.<List<String>>toResponseEntity());
+            }
             log.error("Failed to get user roles", exception);
             return Mono.just(ResponseEntity.ok(Collections.emptyList()));
         });
     }
 
+    /**
+     * List users holding a role (members of a group in Cognito), served from the group membership index
+     */
+    public Mono<ResponseEntity<List<String>>> getUsersInRole(String roleName, int offset, int limit) {
+        return calls.execute(CognitoOperation.GET_USERS_IN_ROLE, () -> {
+            log.debug("Listing users in role: {}", roleName);
+            
+            int pageSize = Math.min(limit, properties.getGroupIndex().getMaxPageSize());
+            List<String> members = groupIndex.members(roleName, offset, pageSize);
+            
+            return ResponseEntity.ok(members);
+            
+        }).onErrorResume(exception -> {
+            if (exception instanceof CognitoUnavailableException unavailable) {
+                return Mono.just(unavailable.<List<String>>toResponseEntity());
+            }
+            log.error("Failed to list users in role: {}", roleName, exception);
+            
+            if (exception instanceof ResourceNotFoundException) {
+                return Mono.just(ResponseEntity.status(HttpStatus.NOT_FOUND).<List<String>>build());
+            }
+            return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).<List<String>>build());
+        });
+    }
+
     /**
      * Delete a user
      */
     public Mono<Void> deleteUser(String userId) {
-        return Mono.fromRunnable(() -> {
-            log.info("Deleting user: {}", userId);
+        Mono<Void> deletion = calls.run(CognitoOperation.DELETE_USER, () -> {
+            log.debug("Deleting user: {}", userId);
+            calls.evictFallback(CognitoOperation.GET_ROLES, userId);
             
             try {
-                CognitoIdentityProviderClient client = clientFactory.getClient();
+                CognitoIdentityProviderClient client = clientFactory.getAdminClient();
                 
                 AdminDeleteUserRequest deleteRequest = AdminDeleteUserRequest.builder()
-                        .userPoolId(properties.getUserPoolId())
+                        .userPoolId(shards.locate(userId).getUserPoolId())
                         .username(userId)
                         .build();
                 
                 client.adminDeleteUser(deleteRequest);
+                groupIndex.removeUser(userId);
+                // Tokens of a deleted user must not be reported active from the fallback during an outage
+                calls.evictFallbacks(CognitoOperation.INTROSPECT, CognitoUserService.introspectionOf(userId));
                 
-                log.info("Successfully deleted user: {}", userId);
+                journal.recordSuccess(CognitoOperation.DELETE_USER, userId);
             } catch (Exception e) {
+                journal.recordFailure(CognitoOperation.DELETE_USER, userId, e);
                 log.error("Failed to delete user", e);
                 throw new RuntimeException("User deletion failed", e);
             }
         });
+        return idempotency.execute(CognitoOperation.DELETE_USER, userId, deletion);
     }
 
     /**
-     * Update user attributes
+     * Update user attributes; with the outbox enabled the update is accepted
+     * ({@code 202}) and applied asynchronously, without coalescing. Fields the
+     * user pool schema does not accept, such as immutable attributes, fail the
+     * whole update with {@code 400 Bad Request}.
      */
     public Mono<ResponseEntity<UpdateUserResponse>> updateUser(UpdateUserRequest request) {
-        return Mono.fromCallable(() -> {
-            log.info("Updating user: {}", request.getUserId());
-            
-            CognitoIdentityProviderClient client = clientFactory.getClient();
-            
-            List<AttributeType> attributes = new ArrayList<>();
-            if (request.getEmail() != null) {
-                attributes.add(AttributeType.builder().name("email").value(request.getEmail()).build());
-            }
-            if (request.getGivenName() != null) {
-                attributes.add(AttributeType.builder().name("given_name").value(request.getGivenName()).build());
-            }
-            if (request.getFamilyName() != null) {
-                attributes.add(AttributeType.builder().name("family_name").value(request.getFamilyName()).build());
-            }
+        return idempotency.execute(CognitoOperation.UPDATE_USER, request.getUserId(),
+                Mono.defer(() -> performUpdateUser(request))
+                        .onErrorResume(UnwritableAttributesException.class, exception ->
+                                rejectAttributes(CognitoOperation.UPDATE_USER, request.getUserId(), exception)));
+    }
+
+    private Mono<ResponseEntity<UpdateUserResponse>> performUpdateUser(UpdateUserRequest request) {
+        List<AttributeType> attributes = attributeMapper.toAttributes(request);
+        if (outbox.isEnabled()) {
+            return accept(CognitoOperation.UPDATE_USER, request.getUserId(),
+                    attributes, List.of(), toUpdateUserResponse(request));
+        }
+        if (properties.getUpdateCoalescing().isEnabled()) {
+            // The merged write is an UPDATE_USER call through the executor of its own
+            Mono<Void> write = updateCoalescer.submit(request.getUserId(), attributes);
+            return write.then(Mono.fromCallable(() -> {
+                        journal.recordSuccess(CognitoOperation.UPDATE_USER, request.getUserId());
+                        return ResponseEntity.ok(toUpdateUserResponse(request));
+                    }))
+                    .onErrorResume(exception -> {
+                        journal.recordFailure(CognitoOperation.UPDATE_USER, request.getUserId(), exception);
+                        if (exception instanceof CognitoUnavailableException unavailable) {
+                            return Mono.just(unavailable.<UpdateUserResponse>toResponseEntity());
+                        }
+                        log.error("Failed to update user", exception);
+                        return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
+                    });
+        }
+        
+        return calls.execute(CognitoOperation.UPDATE_USER, () -> {
+            log.debug("Updating user: {}", request.getUserId());
+            
+            CognitoIdentityProviderClient client = clientFactory.getAdminClient();
             
             AdminUpdateUserAttributesRequest updateRequest = AdminUpdateUserAttributesRequest.builder()
-                    .userPoolId(properties.getUserPoolId())
+                    .userPoolId(shards.locate(request.getUserId()).getUserPoolId())
                     .username(request.getUserId())
                     .userAttributes(attributes)
                     .build();
             
             client.adminUpdateUserAttributes(updateRequest);
             
-            UpdateUserResponse response = UpdateUserResponse.builder()
-                    .id(request.getUserId())
-                    .username(request.getUserId())
-                    .build();
-            
-            log.info("Successfully updated user: {}", request.getUserId());
-            return ResponseEntity.ok(response);
+            journal.recordSuccess(CognitoOperation.UPDATE_USER, request.getUserId());
+            return ResponseEntity.ok(toUpdateUserResponse(request));
             
         }).onErrorResume(exception -> {
+            journal.recordFailure(CognitoOperation.UPDATE_USER, request.getUserId(), exception);
+            if (exception instanceof CognitoUnavailableException unavailable) {
+                return Mono.just(unavailable.<UpdateUserResponse>toResponseEntity());
+            }
             log.error("Failed to update user", exception);
             return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
         });
     }
 
+    private <T> Mono<ResponseEntity<T>> rejectAttributes(CognitoOperation operation, String username,
+                                                         UnwritableAttributesException exception) {
+        journal.recordFailure(operation, username, exception);
+        log.warn("Rejected {} of user {}: {}", operation.tagValue(), username, exception.getMessage());
+        return Mono.just(ResponseEntity.status(HttpStatus.BAD_REQUEST).build());
+    }
+
+    private UpdateUserResponse toUpdateUserResponse(UpdateUserRequest request) {
+        return UpdateUserResponse.builder()
+                .id(request.getUserId())
+                .username(request.getUserId())
+                .build();
+    }
+
     /**
-     * Create roles (groups in Cognito)
+     * Create roles (groups in Cognito); with sharding, every shard's pool gets the group
      */
     public Mono<ResponseEntity<CreateRolesResponse>> createRoles(CreateRolesRequest request) {
-        return Mono.fromCallable(() -> {
-            log.info("Creating roles: {}", request.getRoleNames());
+        Mono<ResponseEntity<CreateRolesResponse>> creation = calls.execute(CognitoOperation.CREATE_ROLES, () -> {
+            log.debug("Creating roles: {}", request.getRoleNames());
             
-            CognitoIdentityProviderClient client = clientFactory.getClient();
+            CognitoIdentityProviderClient client = clientFactory.getAdminClient();
             List<String> createdRoles = new ArrayList<>();
             
             for (String roleName : request.getRoleNames()) {
                 try {
-                    CreateGroupRequest createGroupRequest = CreateGroupRequest.builder()
-                            .groupName(roleName)
-                            .userPoolId(properties.getUserPoolId())
-                            .description("Role: " + roleName)
-                            .build();
-                    
-                    client.createGroup(createGroupRequest);
+                    createGroup(client, roleName);
                     createdRoles.add(roleName);
+                    journal.recordSuccess(CognitoOperation.CREATE_ROLES, null, roleName);
                     
                 } catch (Exception e) {
+                    journal.recordFailure(CognitoOperation.CREATE_ROLES, null, e);
                     log.warn("Failed to create role: {}", roleName, e);
                 }
             }
@@ -389,17 +632,46 @@ public class CognitoAdminService {
             return ResponseEntity.ok(response);
             
         }).onErrorResume(exception -> {
+            if (exception instanceof CognitoUnavailableException unavailable) {
+                return Mono.just(unavailable.<CreateRolesResponse>toResponseEntity());
+            }
             log.error("Failed to create roles", exception);
             return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
         });
+        return idempotency.execute(CognitoOperation.CREATE_ROLES, null, creation);
+    }
+
+    /**
+     * Create a group in the pool of every shard. A shard added after the role was
+     * created lacks the group, so the role only fails as existing if every pool has it.
+     */
+    private void createGroup(CognitoIdentityProviderClient client, String roleName) {
+        GroupExistsException existing = null;
+        int created = 0;
+        for (UserPoolShard shard : shards.all()) {
+            CreateGroupRequest createGroupRequest = CreateGroupRequest.builder()
+                    .groupName(roleName)
+                    .userPoolId(shard.getUserPoolId())
+                    .description("Role: " + roleName)
+                    .build();
+            try {
+                client.createGroup(createGroupRequest);
+                created++;
+            } catch (GroupExistsException e) {
+                existing = e;
+            }
+        }
+        if (created == 0 && existing != null) {
+            throw existing;
+        }
     }
 
     /**
      * Create scope (placeholder - Cognito doesn't have direct scope concept)
      */
     public Mono<ResponseEntity<CreateScopeResponse>> createScope(CreateScopeRequest request) {
-        return Mono.fromCallable(() -> {
-            log.info("Creating scope: {}", request.getName());
+        Mono<ResponseEntity<CreateScopeResponse>> creation = calls.execute(CognitoOperation.CREATE_SCOPE, () -> {
+            log.debug("Creating scope: {}", request.getName());
             
             // Cognito uses resource servers for scopes
             // This is a simplified placeholder
@@ -407,32 +679,37 @@ public class CognitoAdminService {
                     .name(request.getName())
                     .build();
             
+            journal.recordSuccess(CognitoOperation.CREATE_SCOPE, null, request.getName());
             return ResponseEntity.ok(response);
         });
+        return idempotency.execute(CognitoOperation.CREATE_SCOPE, request.getName(), creation);
     }
 
     /**
-     * Assign roles (add user to groups)
+     * Assign roles (add user to groups); with the outbox enabled, completes once
+     * the assignment is journaled, see {@link #getMutationStatuses(String)}
      */
     public Mono<Void> assignRolesToUser(AssignRolesRequest request) {
-        return Mono.fromRunnable(() -> {
-            log.info("Assigning roles to user: {}", request.getUserId());
+        return idempotency.execute(CognitoOperation.ASSIGN_ROLES, request.getUserId(),
+                Mono.defer(() -> performAssignRoles(request)));
+    }
+
+    private Mono<Void> performAssignRoles(AssignRolesRequest request) {
+        if (outbox.isEnabled()) {
+            return outbox.submit(CognitoOperation.ASSIGN_ROLES, request.getUserId(), Map.of(),
+                    List.copyOf(request.getRoleNames())).then();
+        }
+        return calls.run(CognitoOperation.ASSIGN_ROLES, () -> {
+            log.debug("Assigning roles to user: {}", request.getUserId());
+            calls.evictFallback(CognitoOperation.GET_ROLES, request.getUserId());
             
             try {
-                CognitoIdentityProviderClient client = clientFactory.getClient();
-                
-                for (String roleName : request.getRoleNames()) {
-                    AdminAddUserToGroupRequest addToGroupRequest = AdminAddUserToGroupRequest.builder()
-                            .userPoolId(properties.getUserPoolId())
-                            .username(request.getUserId())
-                            .groupName(roleName)
-                            .build();
-                    
-                    client.adminAddUserToGroup(addToGroupRequest);
-                }
+                addToGroups(request.getUserId(), request.getRoleNames());
                 
-                log.info("Successfully assigned roles to user: {}", request.getUserId());
+                journal.recordSuccess(CognitoOperation.ASSIGN_ROLES, request.getUserId(),
+                        String.join(",", request.getRoleNames()));
             } catch (Exception e) {
+                journal.recordFailure(CognitoOperation.ASSIGN_ROLES, request.getUserId(), e);
                 log.error("Failed to assign roles", e);
                 throw new RuntimeException("Role assignment failed", e);
             }
@@ -443,27 +720,121 @@ public class CognitoAdminService {
      * Remove roles from user
      */
     public Mono<Void> removeRolesFromUser(AssignRolesRequest request) {
-        return Mono.fromRunnable(() -> {
-            log.info("Removing roles from user: {}", request.getUserId());
+        Mono<Void> removal = calls.run(CognitoOperation.REMOVE_ROLES, () -> {
+            log.debug("Removing roles from user: {}", request.getUserId());
+            calls.evictFallback(CognitoOperation.GET_ROLES, request.getUserId());
             
             try {
-                CognitoIdentityProviderClient client = clientFactory.getClient();
+                CognitoIdentityProviderClient client = clientFactory.getAdminClient();
+                String userPoolId = shards.locate(request.getUserId()).getUserPoolId();
                 
                 for (String roleName : request.getRoleNames()) {
                     AdminRemoveUserFromGroupRequest removeFromGroupRequest = AdminRemoveUserFromGroupRequest.builder()
-                            .userPoolId(properties.getUserPoolId())
+                            .userPoolId(userPoolId)
                             .username(request.getUserId())
                             .groupName(roleName)
                             .build();
                     
                     client.adminRemoveUserFromGroup(removeFromGroupRequest);
+                    groupIndex.removeMember(roleName, request.getUserId());
                 }
                 
-                log.info("Successfully removed roles from user: {}", request.getUserId());
+                journal.recordSuccess(CognitoOperation.REMOVE_ROLES, request.getUserId(),
+                        String.join(",", request.getRoleNames()));
             } catch (Exception e) {
+                journal.recordFailure(CognitoOperation.REMOVE_ROLES, request.getUserId(), e);
                 log.error("Failed to remove roles", e);
                 throw new RuntimeException("Role removal failed", e);
             }
         });
+        return idempotency.execute(CognitoOperation.REMOVE_ROLES, request.getUserId(), removal);
+    }
+
+    /**
+     * Look up a mutation accepted by the outbox
+     */
+    public Mono<ResponseEntity<MutationStatus>> getMutationStatus(long mutationId) {
+        return Mono.fromSupplier(() -> outbox.status(mutationId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build()));
+    }
+
+    /**
+     * List the pending and recently completed outbox mutations of a user
+     */
+    public Mono<ResponseEntity<List<MutationStatus>>> getMutationStatuses(String userId) {
+        return Mono.fromSupplier(() -> ResponseEntity.ok(outbox.statuses(userId)));
+    }
+
+    /**
+     * Journal a mutation and answer {@code 202 Accepted} with its outbox id
+     */
+    private <T> Mono<ResponseEntity<T>> accept(CognitoOperation operation, String subject,
+                                               List<AttributeType> attributes, List<String> roleNames, T body) {
+        Map<String, String> values = new LinkedHashMap<>();
+        attributes.forEach(attribute -> values.put(attribute.name(), attribute.value()));
+        return outbox.submit(operation, subject, values, roleNames)
+                .map(status -> ResponseEntity.accepted()
+                        .header(AdminMutationOutbox.MUTATION_ID_HEADER, Long.toString(status.getId()))
+                        .body(body))
+                .onErrorResume(exception -> {
+                    log.error("Failed to journal {} for user: {}", operation.tagValue(), subject, exception);
+                    return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
+                });
+    }
+
+    /**
+     * Apply a mutation dispatched by the outbox; errors are left to the outbox to retry or report
+     */
+    Mono<Void> applyMutation(AdminMutation mutation) {
+        CognitoOperation operation = mutation.getOperation();
+        String subject = mutation.getSubject();
+        List<AttributeType> attributes = mutation.getAttributes().entrySet().stream()
+                .map(attribute -> AttributeType.builder().name(attribute.getKey()).value(attribute.getValue()).build())
+                .collect(Collectors.toList());
+        Runnable call = switch (operation) {
+            case CREATE_USER -> () -> clientFactory.getAdminClient().adminCreateUser(AdminCreateUserRequest.builder()
+                    .userPoolId(shards.forUser(subject).getUserPoolId())
+                    .username(subject)
+                    .userAttributes(attributes)
+                    .messageAction(MessageActionType.SUPPRESS)
+                    .build());
+            case UPDATE_USER -> () -> clientFactory.getAdminClient().adminUpdateUserAttributes(
+                    AdminUpdateUserAttributesRequest.builder()
+                            .userPoolId(shards.locate(subject).getUserPoolId())
+                            .username(subject)
+                            .userAttributes(attributes)
+                            .build());
+            case ASSIGN_ROLES -> () -> {
+                calls.evictFallback(CognitoOperation.GET_ROLES, subject);
+                addToGroups(subject, mutation.getRoleNames());
+            };
+            default -> throw new IllegalArgumentException("Not an outbox operation: " + operation);
+        };
+        return calls.run(operation, () -> {
+                    log.debug("Applying outbox mutation {} ({}) for user: {}", mutation.getId(),
+                            operation.tagValue(), subject);
+                    call.run();
+                    journal.recordSuccess(operation, subject, "outbox:" + mutation.getId());
+                })
+                .doOnError(exception -> journal.recordFailure(operation, subject, exception));
+    }
+
+    /**
+     * Add a user to groups, keeping the group membership index in step
+     */
+    private void addToGroups(String userId, Collection<String> roleNames) {
+        CognitoIdentityProviderClient client = clientFactory.getAdminClient();
+        String userPoolId = shards.locate(userId).getUserPoolId();
+        for (String roleName : roleNames) {
+            AdminAddUserToGroupRequest addToGroupRequest = AdminAddUserToGroupRequest.builder()
+                    .userPoolId(userPoolId)
+                    .username(userId)
+                    .groupName(roleName)
+                    .build();
+            
+            client.adminAddUserToGroup(addToGroupRequest);
+            groupIndex.addMember(roleName, userId);
+        }
     }
 }
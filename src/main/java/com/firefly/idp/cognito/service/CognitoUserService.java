@@ -16,10 +16,22 @@
 
 package com.firefly.idp.cognito.service;
 
+import com.firefly.idp.cognito.client.CognitoCallExecutor;
 import com.firefly.idp.cognito.client.CognitoClientFactory;
+import com.firefly.idp.cognito.client.CognitoOperation;
+import com.firefly.idp.cognito.index.DeviceOwnerIndex;
+import com.firefly.idp.cognito.journal.AuthEventJournal;
+import com.firefly.idp.cognito.mapping.CognitoAttributeMapper;
 import com.firefly.idp.cognito.properties.CognitoProperties;
+import com.firefly.idp.cognito.resilience.CognitoUnavailableException;
+import com.firefly.idp.cognito.revocation.SignOutRegistry;
+import com.firefly.idp.cognito.sharding.UserPoolMigrator;
+import com.firefly.idp.cognito.sharding.UserPoolShard;
+import com.firefly.idp.cognito.sharding.UserPoolShards;
 import com.firefly.idp.cognito.util.CognitoSecretHashCalculator;
+import com.firefly.idp.cognito.util.JwtClaims;
 import com.firefly.idp.dtos.*;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
@@ -32,7 +44,9 @@ import software.amazon.awssdk.services.cognitoidentityprovider.model.*;
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
 import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.*;
+import java.util.function.Predicate;
 
 /**
  * Service for handling AWS Cognito user-related operations.
@@ -45,6 +59,9 @@ import java.util.*;
  *   <li>Token introspection</li>
  *   <li>User info retrieval</li>
  * </ul>
+ *
+ * <p>With sharding, each call goes to the app client of the user pool that
+ * owns the user or issued the token, see {@link UserPoolShards}.
  */
 @Service
 @RequiredArgsConstructor
@@ -53,58 +70,58 @@ public class CognitoUserService {
 
     private final CognitoClientFactory clientFactory;
     private final CognitoProperties properties;
+    private final CognitoAttributeMapper attributeMapper;
+    private final DeviceOwnerIndex deviceIndex;
+    private final CognitoCallExecutor calls;
+    private final AuthEventJournal journal;
+    private final SignOutRegistry signOutRegistry;
+    private final UserPoolShards shards;
+    private final UserPoolMigrator migrator;
+
+    /**
+     * Stop serving stored introspections of users an admin signs out
+     */
+    @PostConstruct
+    public void evictIntrospectionsOnSignOut() {
+        signOutRegistry.addListener(username ->
+                calls.evictFallbacks(CognitoOperation.INTROSPECT, introspectionOf(username)));
+    }
 
     /**
      * Authenticate user with username and password
      */
     public Mono<ResponseEntity<TokenResponse>> login(LoginRequest request) {
-        return Mono.<ResponseEntity<TokenResponse>>fromCallable(() -> {
-            log.info("Initiating Cognito login for user: {}", request.getUsername());
-            
-            CognitoIdentityProviderClient client = clientFactory.getClient();
-            
-            Map<String, String> authParams = new HashMap<>();
-            authParams.put("USERNAME", request.getUsername());
-            authParams.put("PASSWORD", request.getPassword());
-            
-            // Add SECRET_HASH if client secret is configured
-            if (properties.getClientSecret() != null && !properties.getClientSecret().isEmpty()) {
-                String secretHash = CognitoSecretHashCalculator.calculateSecretHash(
-                        properties.getClientId(),
-                        properties.getClientSecret(),
-                        request.getUsername()
-                );
-                authParams.put("SECRET_HASH", secretHash);
-            }
-            
-            InitiateAuthRequest authRequest = InitiateAuthRequest.builder()
-                    .authFlow(AuthFlowType.USER_PASSWORD_AUTH)
-                    .clientId(properties.getClientId())
-                    .authParameters(authParams)
-                    .build();
-            
-            InitiateAuthResponse authResponse = client.initiateAuth(authRequest);
-            
-            AuthenticationResultType authResult = authResponse.authenticationResult();
+        return authenticate(request).map(signIn -> {
+            AuthenticationResultType authResult = signIn.response().authenticationResult();
             
             if (authResult == null) {
                 log.error("Authentication failed: No authentication result returned");
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+                journal.record(CognitoOperation.LOGIN, request.getUsername(), false, "NoAuthenticationResult");
+                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).<TokenResponse>build();
             }
             
-            TokenResponse tokenResponse = TokenResponse.builder()
-                    .accessToken(authResult.accessToken())
-                    .refreshToken(authResult.refreshToken())
-                    .idToken(authResult.idToken())
-                    .tokenType(authResult.tokenType())
-                    .expiresIn(authResult.expiresIn().longValue())
-                    .build();
+            TokenResponse tokenResponse = toTokenResponse(authResult,
+                    shards.tagRefreshToken(signIn.shard(), authResult.refreshToken()));
             
-            log.info("Successfully authenticated user: {}", request.getUsername());
+            // Remember which user owns a newly tracked device so its session can be revoked later
+            if (authResult.newDeviceMetadata() != null) {
+                deviceIndex.put(authResult.newDeviceMetadata().deviceKey(), request.getUsername());
+            }
+            
+            journal.recordSuccess(CognitoOperation.LOGIN, request.getUsername());
             return ResponseEntity.ok(tokenResponse);
             
         }).onErrorResume(exception -> {
-            log.error("Cognito login failed for user: {}", request.getUsername(), exception);
+            journal.recordFailure(CognitoOperation.LOGIN, request.getUsername(), exception);
+            
+            if (exception instanceof CognitoUnavailableException unavailable) {
+                return Mono.just(unavailable.<TokenResponse>toResponseEntity());
+            }
+            
+            // Rejected credentials are expected traffic and already journaled
+            if (!(exception instanceof NotAuthorizedException) && !(exception instanceof UserNotFoundException)) {
+                log.error("Cognito login failed for user: {}", request.getUsername(), exception);
+            }
             
             if (exception instanceof NotAuthorizedException) {
                 return Mono.just(ResponseEntity.status(HttpStatus.UNAUTHORIZED).<TokenResponse>build());
@@ -116,39 +133,132 @@ public class CognitoUserService {
         });
     }
 
+    /**
+     * Sign a user in to the pool it lives in. While shards change, a moving user
+     * lives in its former pool until its move has completed, the delete from that
+     * pool being the last step; a successful login there moves it, resuming any
+     * earlier move that failed part-way.
+     */
+    private Mono<SignIn> authenticate(LoginRequest request) {
+        UserPoolShard shard = shards.forUser(request.getUsername());
+        UserPoolShard previous = shards.formerHome(request.getUsername());
+        
+        return calls.execute(CognitoOperation.LOGIN, () -> {
+            log.debug("Initiating Cognito login for user: {}", request.getUsername());
+            
+            CognitoIdentityProviderClient client = clientFactory.getClient();
+            if (previous != null) {
+                try {
+                    return new SignIn(previous, client.initiateAuth(buildLoginRequest(request, previous)));
+                } catch (UserNotFoundException e) {
+                    log.debug("User {} already moved to shard {}", request.getUsername(), shard.getName());
+                    shards.markMoved(request.getUsername());
+                }
+            }
+            return new SignIn(shard, client.initiateAuth(buildLoginRequest(request, shard)));
+        }).flatMap(signIn -> signIn.shard() == shard || signIn.response().authenticationResult() == null
+                // A pending challenge: the user moves once it signs in without one
+                ? Mono.just(signIn)
+                : moveUser(request, signIn, shard));
+    }
+
+    /**
+     * Move a user just signed in to its former pool, then sign it in to its new one.
+     * The move is an operation of its own, not bound by the login's timeout; if it
+     * fails, the user keeps the tokens of its former pool and the next login resumes it.
+     */
+    private Mono<SignIn> moveUser(LoginRequest request, SignIn signIn, UserPoolShard shard) {
+        return calls.run(CognitoOperation.MIGRATE_USER,
+                        () -> migrator.migrate(request.getUsername(), request.getPassword(), signIn.shard(), shard))
+                .doOnSuccess(done -> shards.markMoved(request.getUsername()))
+                .thenReturn(true)
+                .onErrorResume(exception -> {
+                    log.warn("Moving user {} to shard {} failed, resuming on its next login",
+                            request.getUsername(), shard.getName(), exception);
+                    return Mono.just(false);
+                })
+                .flatMap(moved -> moved
+                        ? calls.execute(CognitoOperation.LOGIN, () -> new SignIn(shard,
+                                clientFactory.getClient().initiateAuth(buildLoginRequest(request, shard))))
+                        : Mono.just(signIn));
+    }
+
+    /**
+     * Build the USER_PASSWORD_AUTH request for a login, including SECRET_HASH
+     * when a client secret is configured
+     */
+    InitiateAuthRequest buildLoginRequest(LoginRequest request) {
+        return buildLoginRequest(request, shards.forUser(request.getUsername()));
+    }
+
+    private InitiateAuthRequest buildLoginRequest(LoginRequest request, UserPoolShard shard) {
+        Map<String, String> authParams = new HashMap<>();
+        authParams.put("USERNAME", request.getUsername());
+        authParams.put("PASSWORD", request.getPassword());
+        
+        // Add SECRET_HASH if client secret is configured
+        if (shard.hasClientSecret()) {
+            String secretHash = CognitoSecretHashCalculator.calculateSecretHash(
+                    shard.getClientId(),
+                    shard.getClientSecret(),
+                    request.getUsername()
+            );
+            authParams.put("SECRET_HASH", secretHash);
+        }
+        
+        return InitiateAuthRequest.builder()
+                .authFlow(AuthFlowType.USER_PASSWORD_AUTH)
+                .clientId(shard.getClientId())
+                .authParameters(authParams)
+                .build();
+    }
+
+    /**
+     * Map a Cognito authentication result to a token response
+     */
+    static TokenResponse toTokenResponse(AuthenticationResultType authResult, String refreshToken) {
+        return TokenResponse.builder()
+                .accessToken(authResult.accessToken())
+                .refreshToken(refreshToken)
+                .idToken(authResult.idToken())
+                .tokenType(authResult.tokenType())
+                .expiresIn(authResult.expiresIn().longValue())
+                .build();
+    }
+
     /**
      * Refresh access token using refresh token
      */
     public Mono<ResponseEntity<TokenResponse>> refresh(RefreshRequest request) {
-        return Mono.fromCallable(() -> {
+        return calls.execute(CognitoOperation.REFRESH, () -> {
             log.debug("Refreshing Cognito token");
             
             CognitoIdentityProviderClient client = clientFactory.getClient();
+            UserPoolShards.RoutedToken refreshToken = shards.routeRefreshToken(request.getRefreshToken());
             
             Map<String, String> authParams = new HashMap<>();
-            authParams.put("REFRESH_TOKEN", request.getRefreshToken());
+            authParams.put("REFRESH_TOKEN", refreshToken.token());
             
             InitiateAuthRequest authRequest = InitiateAuthRequest.builder()
                     .authFlow(AuthFlowType.REFRESH_TOKEN_AUTH)
-                    .clientId(properties.getClientId())
+                    .clientId(refreshToken.shard().getClientId())
                     .authParameters(authParams)
                     .build();
             
             InitiateAuthResponse authResponse = client.initiateAuth(authRequest);
             AuthenticationResultType authResult = authResponse.authenticationResult();
             
-            TokenResponse tokenResponse = TokenResponse.builder()
-                    .accessToken(authResult.accessToken())
-                    .refreshToken(request.getRefreshToken()) // Cognito doesn't return new refresh token
-                    .idToken(authResult.idToken())
-                    .tokenType(authResult.tokenType())
-                    .expiresIn(authResult.expiresIn().longValue())
-                    .build();
+            // Cognito doesn't return new refresh token
+            TokenResponse tokenResponse = toTokenResponse(authResult, request.getRefreshToken());
             
-            log.debug("Successfully refreshed token");
+            journal.recordSuccess(CognitoOperation.REFRESH, null);
             return ResponseEntity.ok(tokenResponse);
             
         }).onErrorResume(exception -> {
+            journal.recordFailure(CognitoOperation.REFRESH, null, exception);
+            if (exception instanceof CognitoUnavailableException unavailable) {
+                return Mono.just(unavailable.<TokenResponse>toResponseEntity());
+            }
             log.error("Token refresh failed", exception);
             return Mono.just(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build());
         });
@@ -158,8 +268,9 @@ public class CognitoUserService {
      * Logout user (global sign out)
      */
     public Mono<Void> logout(LogoutRequest request) {
-        return Mono.fromRunnable(() -> {
-            log.info("Logging out user from Cognito");
+        return calls.run(CognitoOperation.LOGOUT, () -> {
+            log.debug("Logging out user from Cognito");
+            calls.evictFallback(CognitoOperation.INTROSPECT, request.getAccessToken());
             
             try {
                 CognitoIdentityProviderClient client = clientFactory.getClient();
@@ -170,8 +281,9 @@ public class CognitoUserService {
                 
                 client.globalSignOut(signOutRequest);
                 
-                log.info("Successfully logged out user");
+                journal.recordSuccess(CognitoOperation.LOGOUT, null);
             } catch (Exception e) {
+                journal.recordFailure(CognitoOperation.LOGOUT, null, e);
                 log.error("Logout failed", e);
                 throw new RuntimeException("Logout failed", e);
             }
@@ -179,13 +291,19 @@ public class CognitoUserService {
     }
 
     /**
-     * Introspect access token
+     * Introspect access token; while Cognito is unavailable the last result for
+     * the token is served, if recent enough
      */
     public Mono<ResponseEntity<IntrospectionResponse>> introspect(String accessToken) {
-        return Mono.fromCallable(() -> {
+        return calls.executeRead(CognitoOperation.INTROSPECT, accessToken, () -> {
             log.debug("Introspecting Cognito token");
             
             try {
+                if (shards.isEnabled() && shards.forToken(accessToken) == null) {
+                    log.debug("Token was not issued by any shard's user pool");
+                    return ResponseEntity.ok(IntrospectionResponse.builder().active(false).build());
+                }
+                
                 CognitoIdentityProviderClient client = clientFactory.getClient();
                 
                 GetUserRequest getUserRequest = GetUserRequest.builder()
@@ -209,17 +327,50 @@ public class CognitoUserService {
                         .build();
                 return ResponseEntity.ok(introspection);
             }
+        }).map(response -> {
+            if (isSignedOut(response.getBody(), accessToken)) {
+                log.debug("Token was issued before its user was signed out");
+                return ResponseEntity.ok(IntrospectionResponse.builder().active(false).build());
+            }
+            return response;
         }).onErrorResume(exception -> {
+            if (exception instanceof CognitoUnavailableException unavailable) {
+                return Mono.just(unavailable.<IntrospectionResponse>toResponseEntity());
+            }
             log.error("Token introspection failed", exception);
             return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build());
         });
     }
 
+    /**
+     * Whether an active introspection is for a token issued before an admin
+     * signed its user out; the answer may be a stored one, or race the sign-out
+     */
+    private boolean isSignedOut(IntrospectionResponse introspection, String accessToken) {
+        if (introspection == null || !introspection.isActive() || introspection.getUsername() == null) {
+            return false;
+        }
+        Instant issuedAt = JwtClaims.issuedAt(accessToken);
+        return signOutRegistry.isSignedOutSince(introspection.getUsername(), issuedAt != null ? issuedAt : Instant.EPOCH);
+    }
+
+    /**
+     * Match the stored introspections of a user, to evict them from the fallback
+     *
+     * @param username Cognito username
+     * @return Test of a stored introspection result
+     */
+    static Predicate<Object> introspectionOf(String username) {
+        return result -> result instanceof ResponseEntity<?> response
+                && response.getBody() instanceof IntrospectionResponse introspection
+                && username.equalsIgnoreCase(introspection.getUsername());
+    }
+
     /**
      * Get user information from access token
      */
     public Mono<ResponseEntity<UserInfoResponse>> getUserInfo(String accessToken) {
-        return Mono.fromCallable(() -> {
+        return calls.executeRead(CognitoOperation.GET_USER_INFO, () -> {
             log.debug("Fetching Cognito user info");
             
             CognitoIdentityProviderClient client = clientFactory.getClient();
@@ -230,26 +381,16 @@ public class CognitoUserService {
             
             GetUserResponse getUserResponse = client.getUser(getUserRequest);
             
-            // Extract user attributes
-            Map<String, String> attributes = new HashMap<>();
-            for (AttributeType attr : getUserResponse.userAttributes()) {
-                attributes.put(attr.name(), attr.value());
-            }
-            
-            UserInfoResponse userInfo = UserInfoResponse.builder()
-                    .sub(attributes.getOrDefault("sub", getUserResponse.username()))
-                    .preferredUsername(getUserResponse.username())
-                    .email(attributes.get("email"))
-                    .emailVerified(Boolean.parseBoolean(attributes.getOrDefault("email_verified", "false")))
-                    .givenName(attributes.get("given_name"))
-                    .familyName(attributes.get("family_name"))
-                    .name(attributes.get("name"))
-                    .build();
+            UserInfoResponse userInfo = attributeMapper.toUserInfo(
+                    getUserResponse.username(), getUserResponse.userAttributes());
             
             log.debug("Successfully fetched user info for: {}", getUserResponse.username());
             return ResponseEntity.ok(userInfo);
             
         }).onErrorResume(exception -> {
+            if (exception instanceof CognitoUnavailableException unavailable) {
+                return Mono.just(unavailable.<UserInfoResponse>toResponseEntity());
+            }
             log.error("Failed to fetch user info", exception);
             return Mono.just(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build());
         });
@@ -259,30 +400,38 @@ public class CognitoUserService {
      * Revoke refresh token
      */
     public Mono<Void> revokeRefreshToken(String refreshToken) {
-        return Mono.fromRunnable(() -> {
-            log.info("Revoking Cognito refresh token");
+        return calls.run(CognitoOperation.REVOKE_REFRESH_TOKEN, () -> {
+            log.debug("Revoking Cognito refresh token");
             
             try {
                 CognitoIdentityProviderClient client = clientFactory.getClient();
+                UserPoolShards.RoutedToken routed = shards.routeRefreshToken(refreshToken);
                 
                 RevokeTokenRequest revokeRequest = RevokeTokenRequest.builder()
-                        .token(refreshToken)
-                        .clientId(properties.getClientId())
+                        .token(routed.token())
+                        .clientId(routed.shard().getClientId())
                         .build();
                 
-                if (properties.getClientSecret() != null) {
+                if (routed.shard().getClientSecret() != null) {
                     revokeRequest = revokeRequest.toBuilder()
-                            .clientSecret(properties.getClientSecret())
+                            .clientSecret(routed.shard().getClientSecret())
                             .build();
                 }
                 
                 client.revokeToken(revokeRequest);
                 
-                log.info("Successfully revoked refresh token");
+                journal.recordSuccess(CognitoOperation.REVOKE_REFRESH_TOKEN, null);
             } catch (Exception e) {
+                journal.recordFailure(CognitoOperation.REVOKE_REFRESH_TOKEN, null, e);
                 log.error("Failed to revoke refresh token", e);
                 throw new RuntimeException("Token revocation failed", e);
             }
         });
     }
+
+    /**
+     * Result of a sign-in and the shard whose pool answered it
+     */
+    private record SignIn(UserPoolShard shard, InitiateAuthResponse response) {
+    }
 }
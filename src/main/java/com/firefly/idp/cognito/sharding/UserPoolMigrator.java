@@ -0,0 +1,149 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.sharding;
+
+import com.firefly.idp.cognito.client.CognitoClientFactory;
+import com.firefly.idp.cognito.metrics.CognitoMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.cognitoidentityprovider.CognitoIdentityProviderClient;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.*;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Moves a user from its former shard to the shard that owns it now.
+ *
+ * <p>Cognito never exports passwords, so a user is moved when it signs in and
+ * its password has just been verified by the former pool. The user is created
+ * in the new pool with its attributes, password, enabled state and groups, and
+ * only then deleted from the former pool. Every step tolerates having run
+ * before, so a move that failed part-way is resumed by the next login: until
+ * the final delete, the user keeps living in, and signing in to, the former
+ * pool. Device registrations are not moved.
+ *
+ * <p>Publishes {@code cognito.sharding.migrated} (tag {@code shard}, the new one).
+ */
+@Component
+@Slf4j
+public class UserPoolMigrator {
+
+    private final CognitoClientFactory clientFactory;
+    private final MeterRegistry registry;
+
+    @Autowired
+    public UserPoolMigrator(CognitoClientFactory clientFactory, CognitoMetrics metrics) {
+        this(clientFactory, metrics.registry());
+    }
+
+    public UserPoolMigrator(CognitoClientFactory clientFactory, MeterRegistry registry) {
+        this.clientFactory = clientFactory;
+        this.registry = registry;
+    }
+
+    /**
+     * Move a user whose password was just verified by its former pool. Blocking.
+     *
+     * @param username User to move
+     * @param password Verified password of the user
+     * @param from Shard the user lives in
+     * @param to Shard that owns the user now
+     */
+    public void migrate(String username, String password, UserPoolShard from, UserPoolShard to) {
+        log.info("Moving user {} from shard {} to shard {}", username, from.getName(), to.getName());
+        CognitoIdentityProviderClient client = clientFactory.getAdminClient();
+
+        AdminGetUserResponse user = client.adminGetUser(AdminGetUserRequest.builder()
+                .userPoolId(from.getUserPoolId())
+                .username(username)
+                .build());
+        // The new pool assigns its own sub
+        List<AttributeType> attributes = user.userAttributes().stream()
+                .filter(attribute -> !"sub".equals(attribute.name()))
+                .collect(Collectors.toList());
+        try {
+            client.adminCreateUser(AdminCreateUserRequest.builder()
+                    .userPoolId(to.getUserPoolId())
+                    .username(username)
+                    .userAttributes(attributes)
+                    .temporaryPassword(password)
+                    .messageAction(MessageActionType.SUPPRESS)
+                    .build());
+        } catch (UsernameExistsException e) {
+            log.debug("User {} already created in shard {} by an earlier attempt", username, to.getName());
+        }
+        client.adminSetUserPassword(AdminSetUserPasswordRequest.builder()
+                .userPoolId(to.getUserPoolId())
+                .username(username)
+                .password(password)
+                .permanent(true)
+                .build());
+        if (Boolean.FALSE.equals(user.enabled())) {
+            client.adminDisableUser(AdminDisableUserRequest.builder()
+                    .userPoolId(to.getUserPoolId())
+                    .username(username)
+                    .build());
+        }
+        copyGroups(client, username, from, to);
+
+        client.adminDeleteUser(AdminDeleteUserRequest.builder()
+                .userPoolId(from.getUserPoolId())
+                .username(username)
+                .build());
+        Counter.builder("cognito.sharding.migrated")
+                .description("Users moved to the shard that owns them")
+                .tag("shard", to.getName())
+                .register(registry)
+                .increment();
+    }
+
+    private void copyGroups(CognitoIdentityProviderClient client, String username, UserPoolShard from,
+                            UserPoolShard to) {
+        String nextToken = null;
+        do {
+            AdminListGroupsForUserResponse response = client.adminListGroupsForUser(
+                    AdminListGroupsForUserRequest.builder()
+                            .userPoolId(from.getUserPoolId())
+                            .username(username)
+                            .nextToken(nextToken)
+                            .build());
+            for (GroupType group : response.groups()) {
+                AdminAddUserToGroupRequest request = AdminAddUserToGroupRequest.builder()
+                        .userPoolId(to.getUserPoolId())
+                        .username(username)
+                        .groupName(group.groupName())
+                        .build();
+                try {
+                    client.adminAddUserToGroup(request);
+                } catch (ResourceNotFoundException e) {
+                    // Role created before the shard was added
+                    client.createGroup(CreateGroupRequest.builder()
+                            .userPoolId(to.getUserPoolId())
+                            .groupName(group.groupName())
+                            .description(group.description())
+                            .build());
+                    client.adminAddUserToGroup(request);
+                }
+            }
+            nextToken = response.nextToken();
+        } while (nextToken != null);
+    }
+}
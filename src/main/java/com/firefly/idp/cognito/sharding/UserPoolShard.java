@@ -0,0 +1,60 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.sharding;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * A user pool owning part of the users, with the app client used to sign them in.
+ */
+@Value
+@Builder
+public class UserPoolShard {
+
+    /**
+     * Shard name, {@code default} for the pool configured at the top level
+     */
+    String name;
+
+    /**
+     * Cognito User Pool ID
+     */
+    String userPoolId;
+
+    /**
+     * Cognito App Client ID
+     */
+    String clientId;
+
+    /**
+     * Cognito App Client Secret, or {@code null} for public clients
+     */
+    String clientSecret;
+
+    /**
+     * Issuer ({@code iss} claim) of the tokens of the pool
+     */
+    String issuer;
+
+    /**
+     * @return Whether requests of the app client need a SECRET_HASH
+     */
+    public boolean hasClientSecret() {
+        return clientSecret != null && !clientSecret.isEmpty();
+    }
+}
@@ -0,0 +1,311 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.sharding;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.firefly.idp.cognito.client.CognitoClientFactory;
+import com.firefly.idp.cognito.properties.CognitoProperties;
+import com.firefly.idp.cognito.util.JwtClaims;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.AdminGetUserRequest;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.UserNotFoundException;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Routing of users to the user pools they are sharded over.
+ *
+ * <p>Cognito's request quotas apply per user pool, so spreading users over
+ * {@code n} pools gives about {@code n} times the throughput. With
+ * {@code sharding.enabled}, the pool configured at the top level is the shard
+ * named {@code default} and {@code sharding.shards} adds further pools. A
+ * consistent hash of the lower-cased username picks the owning shard:
+ * <ul>
+ *   <li>Calls naming a user go to the pool of its shard, with that pool's app client
+ *       id and secret</li>
+ *   <li>With more than one shard, refresh tokens handed out are prefixed with the
+ *       shard name, so refreshes and revocations go to the app client that issued them</li>
+ *   <li>Access tokens are routed and checked by their issuer: a token whose
+ *       {@code iss} is not one of the shards' pools is not ours</li>
+ * </ul>
+ *
+ * <p>All shards share the SDK clients of {@link CognitoClientFactory}, with one
+ * region and one set of credentials, so every pool must be in the configured
+ * region and reachable with those credentials.
+ *
+ * <p>Adding a shard moves about {@code 1/n} of the users, all to the new shard.
+ * While {@code sharding.previous-shards} lists the shards as they were before,
+ * a moving user is still found in its former pool ({@link #locate(String)})
+ * and is moved by {@link UserPoolMigrator} on its next login, when its
+ * password is known. Finding a moving user costs an AdminGetUser call on its
+ * former pool per admin call, until the user is known to have left it; users
+ * known to have moved are remembered, up to {@code moved-users-cache-size}.
+ * Once no more users need to move, clear the list.
+ *
+ * <p>Without sharding every call goes to the default pool, as before.
+ */
+@Component
+@Slf4j
+public class UserPoolShards {
+
+    /**
+     * Name of the shard of the pool configured at the top level
+     */
+    public static final String DEFAULT_SHARD = "default";
+
+    private static final char REFRESH_TOKEN_SEPARATOR = ':';
+
+    private final CognitoClientFactory clientFactory;
+    private final boolean enabled;
+    private final UserPoolShard defaultShard;
+    private final Map<String, UserPoolShard> shards = new LinkedHashMap<>();
+    private final Map<String, UserPoolShard> shardsByIssuer = new HashMap<>();
+    private final ConsistentHashRing<UserPoolShard> ring;
+    private final ConsistentHashRing<UserPoolShard> previousRing;
+    private final Set<String> moved;
+
+    public UserPoolShards(CognitoProperties properties, CognitoClientFactory clientFactory) {
+        this.clientFactory = clientFactory;
+        CognitoProperties.Sharding settings = properties.getSharding();
+        this.enabled = settings.isEnabled();
+        String issuerBase = properties.getEndpointOverride() != null && !properties.getEndpointOverride().isEmpty()
+                ? properties.getEndpointOverride().replaceFirst("/+$", "")
+                : "https://cognito-idp." + properties.getRegion() + ".amazonaws.com";
+
+        this.defaultShard = shard(DEFAULT_SHARD, properties.getUserPoolId(), properties.getClientId(),
+                properties.getClientSecret(), issuerBase);
+        add(defaultShard);
+        if (enabled) {
+            for (CognitoProperties.Sharding.Shard shard : settings.getShards()) {
+                add(shard(shard.getName(), shard.getUserPoolId(), shard.getClientId(), shard.getClientSecret(),
+                        issuerBase));
+            }
+        }
+        this.ring = new ConsistentHashRing<>(shards.values(), UserPoolShard::getName, settings.getVirtualNodes());
+        int movedUsersCacheSize = settings.getMovedUsersCacheSize();
+        this.moved = Collections.newSetFromMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > movedUsersCacheSize;
+            }
+        });
+
+        List<String> previous = settings.getPreviousShards();
+        if (enabled && !previous.isEmpty()) {
+            List<UserPoolShard> previousShards = previous.stream()
+                    .map(name -> {
+                        UserPoolShard shard = shards.get(name);
+                        if (shard == null) {
+                            throw new IllegalArgumentException("Unknown previous shard: " + name);
+                        }
+                        return shard;
+                    })
+                    .toList();
+            this.previousRing = new ConsistentHashRing<>(previousShards, UserPoolShard::getName,
+                    settings.getVirtualNodes());
+            log.info("Sharding users over {} user pools, moving users from shards {}", shards.size(), previous);
+        } else {
+            this.previousRing = null;
+            if (enabled) {
+                log.info("Sharding users over {} user pools", shards.size());
+            }
+        }
+    }
+
+    /**
+     * @return Whether users are sharded over several pools
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return Shard of the pool configured at the top level
+     */
+    public UserPoolShard defaultShard() {
+        return defaultShard;
+    }
+
+    /**
+     * @return All shards, the default one first
+     */
+    public Collection<UserPoolShard> all() {
+        return shards.values();
+    }
+
+    /**
+     * @return Shard owning a user, where it is created and where it ends up
+     */
+    public UserPoolShard forUser(String username) {
+        return enabled ? ring.get(key(username)) : defaultShard;
+    }
+
+    /**
+     * @return Shard that owned a user before the last change of shards, or
+     *         {@code null} when the user did not move
+     */
+    public UserPoolShard previousForUser(String username) {
+        if (previousRing == null) {
+            return null;
+        }
+        UserPoolShard previous = previousRing.get(key(username));
+        return previous != forUser(username) ? previous : null;
+    }
+
+    /**
+     * @return Shard a user may still live in while it moves: its previous shard,
+     *         or {@code null} when the user did not move or is known to have left it
+     */
+    public UserPoolShard formerHome(String username) {
+        UserPoolShard previous = previousForUser(username);
+        if (previous == null) {
+            return null;
+        }
+        synchronized (moved) {
+            return moved.contains(key(username)) ? null : previous;
+        }
+    }
+
+    /**
+     * Remember that a user has left its former pool, so it is no longer looked up there
+     */
+    public void markMoved(String username) {
+        if (previousRing != null) {
+            synchronized (moved) {
+                moved.add(key(username));
+            }
+        }
+    }
+
+    /**
+     * Find the pool a user currently lives in. Blocking, so call it within the
+     * executor's call: for a user that is moving, asks the former pool with
+     * AdminGetUser whether it still holds the user; a move deletes the user
+     * from there last, so until then it is the user's home. Once the former
+     * pool answers that the user is gone, the user is remembered as moved.
+     *
+     * @return Owning shard, or the previous one while the user has not been moved
+     */
+    public UserPoolShard locate(String username) {
+        UserPoolShard owner = forUser(username);
+        UserPoolShard previous = formerHome(username);
+        if (previous == null) {
+            return owner;
+        }
+        try {
+            clientFactory.getAdminClient().adminGetUser(AdminGetUserRequest.builder()
+                    .userPoolId(previous.getUserPoolId())
+                    .username(username)
+                    .build());
+            return previous;
+        } catch (UserNotFoundException e) {
+            markMoved(username);
+            return owner;
+        }
+    }
+
+    /**
+     * @return Shard whose pool issues tokens with the given {@code iss}, or {@code null}
+     */
+    public UserPoolShard forIssuer(String issuer) {
+        return issuer != null ? shardsByIssuer.get(issuer) : null;
+    }
+
+    /**
+     * Route an access or ID token by its issuer. The signature is not verified
+     * here; Cognito verifies the token on the call it is routed to.
+     *
+     * @return Shard whose pool issued the token, or {@code null} if the token
+     *         is no JWT or was issued elsewhere
+     */
+    public UserPoolShard forToken(String token) {
+        JsonNode claims = JwtClaims.read(token);
+        return claims != null ? forIssuer(claims.path("iss").asText(null)) : null;
+    }
+
+    /**
+     * Prefix a refresh token with the name of the shard that issued it. With a
+     * single pool there is nothing to route, so Cognito's token is handed out as is.
+     *
+     * @return Token to hand out; unchanged unless users are sharded over several pools
+     */
+    public String tagRefreshToken(UserPoolShard shard, String refreshToken) {
+        if (!enabled || shards.size() < 2 || refreshToken == null) {
+            return refreshToken;
+        }
+        return shard.getName() + REFRESH_TOKEN_SEPARATOR + refreshToken;
+    }
+
+    /**
+     * Resolve a refresh token handed out by {@link #tagRefreshToken}. Tokens
+     * without a known prefix, e.g. issued before sharding was enabled, belong
+     * to the default shard.
+     */
+    public RoutedToken routeRefreshToken(String refreshToken) {
+        int separator = refreshToken != null ? refreshToken.indexOf(REFRESH_TOKEN_SEPARATOR) : -1;
+        if (enabled && separator > 0) {
+            UserPoolShard shard = shards.get(refreshToken.substring(0, separator));
+            if (shard != null) {
+                return new RoutedToken(shard, refreshToken.substring(separator + 1));
+            }
+        }
+        return new RoutedToken(defaultShard, refreshToken);
+    }
+
+    private void add(UserPoolShard shard) {
+        if (shard.getName() == null || shard.getName().isEmpty()
+                || shard.getName().indexOf(REFRESH_TOKEN_SEPARATOR) >= 0) {
+            throw new IllegalArgumentException("Invalid shard name: " + shard.getName());
+        }
+        if (shards.putIfAbsent(shard.getName(), shard) != null) {
+            throw new IllegalArgumentException("Duplicate shard name: " + shard.getName());
+        }
+        shardsByIssuer.put(shard.getIssuer(), shard);
+    }
+
+    private static UserPoolShard shard(String name, String userPoolId, String clientId, String clientSecret,
+                                       String issuerBase) {
+        return UserPoolShard.builder()
+                .name(name)
+                .userPoolId(userPoolId)
+                .clientId(clientId)
+                .clientSecret(clientSecret)
+                .issuer(issuerBase + "/" + userPoolId)
+                .build();
+    }
+
+    private static String key(String username) {
+        return username.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * A refresh token without its shard prefix, and the shard that issued it
+     *
+     * @param shard Issuing shard
+     * @param token Token as issued by Cognito
+     */
+    public record RoutedToken(UserPoolShard shard, String token) {
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.telemetry;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * One HTTP attempt of a Cognito SDK call. Durations are in nanoseconds; values
+ * the SDK did not report are {@code -1}.
+ */
+@Value
+@Builder
+public class CallAttempt {
+
+    /**
+     * Attempt number, starting at 1; values above 1 are retries
+     */
+    int attempt;
+
+    /**
+     * Time from handing the signed request to the HTTP client until the response headers arrived
+     */
+    long latencyNanos;
+
+    /**
+     * Time spent signing the request; {@code -1} for unsigned operations such as GetUser
+     */
+    long signingNanos;
+
+    /**
+     * Time spent waiting for a pooled HTTP connection
+     */
+    long connectionAcquireNanos;
+
+    /**
+     * Size of the request body in bytes
+     */
+    long requestBytes;
+
+    /**
+     * Size of the response body in bytes
+     */
+    long responseBytes;
+
+    /**
+     * HTTP status code, or {@code -1} when no response was received
+     */
+    int statusCode;
+
+    /**
+     * Cognito request id ({@code x-amzn-RequestId}), if a response was received
+     */
+    String requestId;
+}
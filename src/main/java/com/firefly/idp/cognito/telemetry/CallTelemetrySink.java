@@ -0,0 +1,35 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.telemetry;
+
+/**
+ * Receiver of completed Cognito SDK call traces.
+ *
+ * <p>Every bean implementing this interface is handed each trace by
+ * {@link CognitoTelemetryInterceptor}. Implementations are called on the thread
+ * that made the SDK call and must not block.
+ */
+@FunctionalInterface
+public interface CallTelemetrySink {
+
+    /**
+     * Accept a completed call trace
+     *
+     * @param trace Telemetry of the call
+     */
+    void accept(CallTrace trace);
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.telemetry;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Telemetry of one Cognito SDK call, including every attempt made by the SDK
+ * retry policy.
+ */
+@Value
+@Builder
+public class CallTrace {
+
+    /**
+     * Cognito API operation name (e.g. {@code InitiateAuth})
+     */
+    String operation;
+
+    /**
+     * Wall-clock time the call completed, in epoch milliseconds
+     */
+    long timestamp;
+
+    /**
+     * Total duration of the call in nanoseconds, including retries and backoff
+     */
+    long totalNanos;
+
+    /**
+     * Whether the call eventually succeeded
+     */
+    boolean success;
+
+    /**
+     * Exception name when the call failed
+     */
+    String error;
+
+    /**
+     * Attempts in the order they were made
+     */
+    List<CallAttempt> attempts;
+
+    /**
+     * Number of retries, i.e. attempts beyond the first
+     */
+    public int retries() {
+        return Math.max(attempts.size() - 1, 0);
+    }
+
+    /**
+     * The last attempt, or {@code null} if the call failed before sending a request
+     */
+    public CallAttempt lastAttempt() {
+        return attempts.isEmpty() ? null : attempts.get(attempts.size() - 1);
+    }
+}
@@ -0,0 +1,281 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.telemetry;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.interceptor.Context;
+import software.amazon.awssdk.core.interceptor.ExecutionAttribute;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.interceptor.ExecutionInterceptor;
+import software.amazon.awssdk.core.interceptor.SdkExecutionAttribute;
+import software.amazon.awssdk.core.metrics.CoreMetric;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.http.HttpMetric;
+import software.amazon.awssdk.http.SdkHttpHeaders;
+import software.amazon.awssdk.metrics.MetricCollection;
+import software.amazon.awssdk.metrics.MetricPublisher;
+import software.amazon.awssdk.metrics.SdkMetric;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * SDK execution interceptor recording per-attempt telemetry of Cognito calls
+ * and handing each completed {@link CallTrace} to every {@link CallTelemetrySink}.
+ *
+ * <p>The interceptor hooks measure attempt latency, payload sizes, status and
+ * request id. Signing and connection acquisition happen where no interceptor
+ * hook can observe them, so those durations are taken from the SDK metric
+ * collection: the interceptor is also registered as a {@link MetricPublisher}.
+ * The SDK publishes a call's metrics on the calling thread right after the
+ * interceptors completed, so the finished trace is parked in a thread-local,
+ * completed with the SDK durations and only then emitted. A trace whose metrics
+ * never arrive is emitted as is with the next call on the same thread.
+ */
+@Component
+@Slf4j
+public class CognitoTelemetryInterceptor implements ExecutionInterceptor, MetricPublisher {
+
+    private static final ExecutionAttribute<TraceState> TRACE = new ExecutionAttribute<>("CognitoCallTrace");
+    private static final String REQUEST_ID_HEADER = "x-amzn-RequestId";
+    private static final String CONTENT_LENGTH_HEADER = "Content-Length";
+    private static final String API_CALL_COLLECTION = "ApiCall";
+    private static final String ATTEMPT_COLLECTION = "ApiCallAttempt";
+    private static final String HTTP_CLIENT_COLLECTION = "HttpClient";
+    private static final long UNKNOWN = -1;
+
+    private final List<CallTelemetrySink> sinks;
+    private final ThreadLocal<TraceState> awaitingMetrics = new ThreadLocal<>();
+    private volatile boolean sdkMetricsEnabled;
+
+    public CognitoTelemetryInterceptor(List<CallTelemetrySink> sinks) {
+        this.sinks = List.copyOf(sinks);
+    }
+
+    /**
+     * Announce that this interceptor is also registered as metric publisher,
+     * so traces wait for the SDK signing and connection acquisition durations
+     */
+    public void enableSdkMetrics() {
+        this.sdkMetricsEnabled = true;
+    }
+
+    @Override
+    public void beforeExecution(Context.BeforeExecution context, ExecutionAttributes executionAttributes) {
+        executionAttributes.putAttribute(TRACE,
+                new TraceState(executionAttributes.getAttribute(SdkExecutionAttribute.OPERATION_NAME)));
+    }
+
+    @Override
+    public void beforeTransmission(Context.BeforeTransmission context, ExecutionAttributes executionAttributes) {
+        TraceState trace = executionAttributes.getAttribute(TRACE);
+        if (trace == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        trace.closeOpenAttempt(now);
+        long requestBytes = contentLength(context.httpRequest())
+                .or(() -> context.requestBody().flatMap(RequestBody::optionalContentLength))
+                .orElse(UNKNOWN);
+        trace.open = new AttemptState(trace.attempts.size() + 1, now, requestBytes);
+        trace.attempts.add(trace.open);
+    }
+
+    @Override
+    public void afterTransmission(Context.AfterTransmission context, ExecutionAttributes executionAttributes) {
+        TraceState trace = executionAttributes.getAttribute(TRACE);
+        if (trace == null || trace.open == null) {
+            return;
+        }
+        AttemptState attempt = trace.open;
+        attempt.latencyNanos = System.nanoTime() - attempt.startNanos;
+        attempt.statusCode = context.httpResponse().statusCode();
+        attempt.requestId = context.httpResponse().firstMatchingHeader(REQUEST_ID_HEADER).orElse(null);
+        attempt.responseBytes = contentLength(context.httpResponse()).orElse(UNKNOWN);
+        trace.open = null;
+    }
+
+    @Override
+    public void afterExecution(Context.AfterExecution context, ExecutionAttributes executionAttributes) {
+        complete(executionAttributes, null);
+    }
+
+    @Override
+    public void onExecutionFailure(Context.FailedExecution context, ExecutionAttributes executionAttributes) {
+        complete(executionAttributes, context.exception());
+    }
+
+    @Override
+    public void publish(MetricCollection metricCollection) {
+        if (!API_CALL_COLLECTION.equals(metricCollection.name())) {
+            return;
+        }
+        TraceState trace = awaitingMetrics.get();
+        if (trace == null) {
+            return;
+        }
+        awaitingMetrics.remove();
+
+        List<String> operations = metricCollection.metricValues(CoreMetric.OPERATION_NAME);
+        if (operations.isEmpty() || Objects.equals(operations.get(0), trace.operation)) {
+            int index = 0;
+            for (MetricCollection attempt : metricCollection.childrenWithName(ATTEMPT_COLLECTION).toList()) {
+                if (index >= trace.attempts.size()) {
+                    break;
+                }
+                AttemptState state = trace.attempts.get(index++);
+                state.signingNanos = nanos(attempt, CoreMetric.SIGNING_DURATION);
+                attempt.childrenWithName(HTTP_CLIENT_COLLECTION).findFirst()
+                        .ifPresent(http -> state.acquireNanos = nanos(http, HttpMetric.CONCURRENCY_ACQUIRE_DURATION));
+            }
+        }
+        emit(trace);
+    }
+
+    @Override
+    public void close() {
+        // Nothing to release; parked traces belong to their calling threads
+    }
+
+    private void complete(ExecutionAttributes executionAttributes, Throwable error) {
+        TraceState trace = executionAttributes.getAttribute(TRACE);
+        if (trace == null || trace.completed) {
+            return;
+        }
+        long now = System.nanoTime();
+        trace.completed = true;
+        trace.closeOpenAttempt(now);
+        trace.totalNanos = now - trace.startNanos;
+        trace.timestamp = System.currentTimeMillis();
+        trace.error = error != null ? error.getClass().getSimpleName() : null;
+
+        if (!sdkMetricsEnabled) {
+            emit(trace);
+            return;
+        }
+        TraceState stale = awaitingMetrics.get();
+        awaitingMetrics.set(trace);
+        if (stale != null) {
+            emit(stale);
+        }
+    }
+
+    private void emit(TraceState state) {
+        if (sinks.isEmpty()) {
+            return;
+        }
+        CallTrace trace = state.toTrace();
+        for (CallTelemetrySink sink : sinks) {
+            try {
+                sink.accept(trace);
+            } catch (RuntimeException e) {
+                log.debug("Call telemetry sink {} failed: {}", sink.getClass().getSimpleName(), e.getMessage());
+            }
+        }
+    }
+
+    private static Optional<Long> contentLength(SdkHttpHeaders headers) {
+        return headers.firstMatchingHeader(CONTENT_LENGTH_HEADER).flatMap(value -> {
+            try {
+                return Optional.of(Long.parseLong(value.trim()));
+            } catch (NumberFormatException e) {
+                return Optional.empty();
+            }
+        });
+    }
+
+    private static long nanos(MetricCollection collection, SdkMetric<Duration> metric) {
+        List<Duration> values = collection.metricValues(metric);
+        return values.isEmpty() ? UNKNOWN : values.get(0).toNanos();
+    }
+
+    /**
+     * Mutable state of one call; touched only by the thread executing the call.
+     */
+    private static final class TraceState {
+
+        private final String operation;
+        private final long startNanos = System.nanoTime();
+        private final List<AttemptState> attempts = new ArrayList<>(2);
+        private AttemptState open;
+        private long totalNanos;
+        private long timestamp;
+        private String error;
+        private boolean completed;
+
+        private TraceState(String operation) {
+            this.operation = operation;
+        }
+
+        /**
+         * Close an attempt that ended without a response (I/O failure or attempt timeout)
+         */
+        private void closeOpenAttempt(long now) {
+            if (open != null) {
+                open.latencyNanos = now - open.startNanos;
+                open = null;
+            }
+        }
+
+        private CallTrace toTrace() {
+            List<CallAttempt> built = new ArrayList<>(attempts.size());
+            for (AttemptState attempt : attempts) {
+                built.add(CallAttempt.builder()
+                        .attempt(attempt.attempt)
+                        .latencyNanos(attempt.latencyNanos)
+                        .signingNanos(attempt.signingNanos)
+                        .connectionAcquireNanos(attempt.acquireNanos)
+                        .requestBytes(attempt.requestBytes)
+                        .responseBytes(attempt.responseBytes)
+                        .statusCode(attempt.statusCode)
+                        .requestId(attempt.requestId)
+                        .build());
+            }
+            return CallTrace.builder()
+                    .operation(operation)
+                    .timestamp(timestamp)
+                    .totalNanos(totalNanos)
+                    .success(error == null)
+                    .error(error)
+                    .attempts(List.copyOf(built))
+                    .build();
+        }
+    }
+
+    private static final class AttemptState {
+
+        private final int attempt;
+        private final long startNanos;
+        private final long requestBytes;
+        private long latencyNanos = UNKNOWN;
+        private long signingNanos = UNKNOWN;
+        private long acquireNanos = UNKNOWN;
+        private long responseBytes = UNKNOWN;
+        private int statusCode = -1;
+        private String requestId;
+
+        private AttemptState(int attempt, long startNanos, long requestBytes) {
+            this.attempt = attempt;
+            this.startNanos = startNanos;
+            this.requestBytes = requestBytes;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.telemetry;
+
+import com.firefly.idp.cognito.metrics.CognitoMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Call telemetry sink publishing per-attempt SDK measurements to Micrometer,
+ * tagged by Cognito API name ({@code api}):
+ * <ul>
+ *   <li>{@code cognito.sdk.attempt} timer, additionally tagged by HTTP {@code status}</li>
+ *   <li>{@code cognito.sdk.signing} timer</li>
+ *   <li>{@code cognito.http.acquire} timer (connection pool wait)</li>
+ *   <li>{@code cognito.sdk.retries} counter</li>
+ *   <li>{@code cognito.sdk.request.size} and {@code cognito.sdk.response.size} summaries in bytes</li>
+ * </ul>
+ *
+ * <p>Comparing attempt latency with connection acquisition time tells slow
+ * Cognito responses apart from a starved connection pool.
+ */
+@Component
+public class MicrometerCallTelemetrySink implements CallTelemetrySink {
+
+    private static final String NO_RESPONSE = "none";
+
+    private final MeterRegistry registry;
+    private final ConcurrentMap<String, ApiMeters> meters = new ConcurrentHashMap<>();
+
+    public MicrometerCallTelemetrySink(CognitoMetrics metrics) {
+        this.registry = metrics.registry();
+    }
+
+    @Override
+    public void accept(CallTrace trace) {
+        if (trace.getOperation() == null) {
+            return;
+        }
+        ApiMeters api = meters.computeIfAbsent(trace.getOperation(), ApiMeters::new);
+        if (trace.retries() > 0) {
+            api.retries.increment(trace.retries());
+        }
+        for (CallAttempt attempt : trace.getAttempts()) {
+            if (attempt.getLatencyNanos() >= 0) {
+                api.attempt(attempt.getStatusCode()).record(attempt.getLatencyNanos(), TimeUnit.NANOSECONDS);
+            }
+            if (attempt.getSigningNanos() >= 0) {
+                api.signing.record(attempt.getSigningNanos(), TimeUnit.NANOSECONDS);
+            }
+            if (attempt.getConnectionAcquireNanos() >= 0) {
+                api.acquire.record(attempt.getConnectionAcquireNanos(), TimeUnit.NANOSECONDS);
+            }
+            if (attempt.getRequestBytes() >= 0) {
+                api.requestSize.record(attempt.getRequestBytes());
+            }
+            if (attempt.getResponseBytes() >= 0) {
+                api.responseSize.record(attempt.getResponseBytes());
+            }
+        }
+    }
+
+    /**
+     * Meters of one Cognito API, resolved once so recording does no registry lookups
+     */
+    private final class ApiMeters {
+
+        private final String api;
+        private final ConcurrentMap<Integer, Timer> attempts = new ConcurrentHashMap<>();
+        private final Timer signing;
+        private final Timer acquire;
+        private final Counter retries;
+        private final DistributionSummary requestSize;
+        private final DistributionSummary responseSize;
+
+        private ApiMeters(String api) {
+            this.api = api;
+            this.signing = Timer.builder("cognito.sdk.signing")
+                    .description("Time spent signing Cognito requests")
+                    .tag("api", api)
+                    .register(registry);
+            this.acquire = Timer.builder("cognito.http.acquire")
+                    .description("Time Cognito requests waited for a pooled HTTP connection")
+                    .tag("api", api)
+                    .publishPercentileHistogram()
+                    .register(registry);
+            this.retries = Counter.builder("cognito.sdk.retries")
+                    .description("Retried Cognito request attempts")
+                    .tag("api", api)
+                    .register(registry);
+            this.requestSize = size("cognito.sdk.request.size", "Size of Cognito request bodies");
+            this.responseSize = size("cognito.sdk.response.size", "Size of Cognito response bodies");
+        }
+
+        private Timer attempt(int statusCode) {
+            Timer timer = attempts.get(statusCode);
+            if (timer == null) {
+                timer = attempts.computeIfAbsent(statusCode, status -> Timer.builder("cognito.sdk.attempt")
+                        .description("Latency of individual Cognito HTTP attempts")
+                        .tag("api", api)
+                        .tag("status", status < 0 ? NO_RESPONSE : Integer.toString(status))
+                        .publishPercentileHistogram()
+                        .register(registry));
+            }
+            return timer;
+        }
+
+        private DistributionSummary size(String name, String description) {
+            return DistributionSummary.builder(name)
+                    .description(description)
+                    .baseUnit("bytes")
+                    .tag("api", api)
+                    .register(registry);
+        }
+    }
+}
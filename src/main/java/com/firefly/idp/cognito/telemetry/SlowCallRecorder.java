@@ -0,0 +1,88 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.telemetry;
+
+import com.firefly.idp.cognito.properties.CognitoProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Call telemetry sink keeping the most recent slow Cognito calls in a bounded
+ * ring, so individual outliers can be inspected with their request ids, retry
+ * history and connection wait after the fact.
+ *
+ * <p>Recording claims a slot with one atomic increment and overwrites the
+ * oldest entry once the ring is full; no locks are taken.
+ */
+@Component
+public class SlowCallRecorder implements CallTelemetrySink {
+
+    private final long thresholdNanos;
+    private final AtomicReferenceArray<CallTrace> ring;
+    private final AtomicLong sequence = new AtomicLong();
+
+    public SlowCallRecorder(CognitoProperties properties) {
+        this(properties.getTelemetry().getSlowCallThreshold(), properties.getTelemetry().getSlowCallCapacity());
+    }
+
+    /**
+     * @param thresholdMillis Calls at least this slow are recorded
+     * @param capacity Number of slow calls kept
+     */
+    public SlowCallRecorder(long thresholdMillis, int capacity) {
+        this.thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        this.ring = new AtomicReferenceArray<>(Math.max(capacity, 1));
+    }
+
+    @Override
+    public void accept(CallTrace trace) {
+        if (trace.getTotalNanos() >= thresholdNanos) {
+            long slot = sequence.getAndIncrement();
+            ring.set((int) (slot % ring.length()), trace);
+        }
+    }
+
+    /**
+     * Recent slow calls
+     *
+     * @return Snapshot of the recorded calls, newest first
+     */
+    public List<CallTrace> recent() {
+        long end = sequence.get();
+        long start = Math.max(0, end - ring.length());
+        List<CallTrace> traces = new ArrayList<>((int) (end - start));
+        for (long slot = end - 1; slot >= start; slot--) {
+            CallTrace trace = ring.get((int) (slot % ring.length()));
+            if (trace != null) {
+                traces.add(trace);
+            }
+        }
+        return traces;
+    }
+
+    /**
+     * Total number of slow calls recorded since startup, including overwritten ones
+     */
+    public long count() {
+        return sequence.get();
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.tracing;
+
+import com.firefly.idp.cognito.client.CognitoOperation;
+import com.firefly.idp.cognito.properties.CognitoProperties;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Micrometer Observation support for the adapter.
+ *
+ * <p>Two observations are produced per sampled invocation:
+ * <ul>
+ *   <li>{@code cognito.adapter} around the adapter method, from subscription
+ *       to completion, including time spent waiting for a thread</li>
+ *   <li>{@code cognito.call} around the Cognito call itself, opened as the
+ *       current observation on whichever thread executes the SDK call</li>
+ * </ul>
+ * Both carry the low-cardinality key {@code operation}.
+ *
+ * <p>The current observation travels through the Reactor context under the
+ * key Micrometer and Spring WebFlux use, so an incoming server observation
+ * becomes the parent of the adapter observation. Unsampled invocations store
+ * {@link Observation#NOOP} there so their Cognito calls are skipped as well.
+ * When tracing is disabled, or no real ObservationRegistry exists, publishers
+ * are returned undecorated.
+ */
+@Component
+public class CognitoTracing {
+
+    /**
+     * Reactor context key of the current observation ({@code ObservationThreadLocalAccessor.KEY});
+     * repeated here so the context-propagation library is not required
+     */
+    public static final String OBSERVATION_KEY = "micrometer.observation";
+
+    static final String ADAPTER_OBSERVATION = "cognito.adapter";
+    static final String CALL_OBSERVATION = "cognito.call";
+
+    private final ObservationRegistry registry;
+    private final boolean active;
+    private final double sampleRate;
+
+    @Autowired
+    public CognitoTracing(ObjectProvider<ObservationRegistry> registryProvider, CognitoProperties properties) {
+        this(registryProvider.getIfAvailable(() -> ObservationRegistry.NOOP), properties.getTracing());
+    }
+
+    public CognitoTracing(ObservationRegistry registry, CognitoProperties.Tracing settings) {
+        this.registry = registry;
+        this.active = settings.isEnabled() && !registry.isNoop() && settings.getSampleRate() > 0;
+        this.sampleRate = settings.getSampleRate();
+    }
+
+    /**
+     * Observe an adapter method, sampling a new decision for it
+     *
+     * @param operation Operation the method performs
+     * @param source Publisher performing the method
+     * @return Observed publisher, or {@code source} itself when tracing is inactive
+     */
+    public <T> Mono<T> observeAdapter(CognitoOperation operation, Mono<T> source) {
+        if (!active) {
+            return source;
+        }
+        return Mono.deferContextual(context -> {
+            if (!sampled()) {
+                return source.contextWrite(ctx -> ctx.put(OBSERVATION_KEY, Observation.NOOP));
+            }
+            Observation parent = parent(context);
+            return observe(ADAPTER_OBSERVATION, operation, parent != null && parent.isNoop() ? null : parent, source);
+        });
+    }
+
+    /**
+     * Observe a Cognito call expressed as a reactive pipeline
+     *
+     * @param operation Operation being executed
+     * @param source Publisher performing the call
+     * @return Observed publisher, or {@code source} itself when tracing is inactive
+     */
+    public <T> Mono<T> observeCall(CognitoOperation operation, Mono<T> source) {
+        if (!active) {
+            return source;
+        }
+        return Mono.deferContextual(context -> {
+            Observation parent = parent(context);
+            if (!shouldObserveCall(parent)) {
+                return source;
+            }
+            return observe(CALL_OBSERVATION, operation, parent, source);
+        });
+    }
+
+    /**
+     * Observe a blocking Cognito call. The observation is started and opened
+     * as current on the thread that runs the call, so thread-local tracing
+     * (log correlation, SDK instrumentation) sees it.
+     *
+     * @param operation Operation being executed
+     * @param call Blocking work performing the call
+     * @return Mono running the call
+     */
+    public <T> Mono<T> observeCall(CognitoOperation operation, Callable<T> call) {
+        if (!active) {
+            return Mono.fromCallable(call);
+        }
+        return Mono.deferContextual(context -> {
+            Observation parent = parent(context);
+            if (!shouldObserveCall(parent)) {
+                return Mono.fromCallable(call);
+            }
+            Observation observation = create(CALL_OBSERVATION, operation, parent);
+            return Mono.fromCallable(() -> {
+                observation.start();
+                try (Observation.Scope scope = observation.openScope()) {
+                    return call.call();
+                } catch (Exception e) {
+                    observation.error(e);
+                    throw e;
+                } finally {
+                    observation.stop();
+                }
+            });
+        });
+    }
+
+    private <T> Mono<T> observe(String name, CognitoOperation operation, Observation parent, Mono<T> source) {
+        Observation observation = create(name, operation, parent).start();
+        return source
+                .doOnError(observation::error)
+                .doFinally(signal -> observation.stop())
+                .contextWrite(ctx -> ctx.put(OBSERVATION_KEY, observation));
+    }
+
+    private Observation create(String name, CognitoOperation operation, Observation parent) {
+        return Observation.createNotStarted(name, registry)
+                .contextualName(name + " " + operation.tagValue())
+                .lowCardinalityKeyValue("operation", operation.tagValue())
+                .parentObservation(parent);
+    }
+
+    /**
+     * A call is observed under a sampled adapter observation, or sampled on its own when called directly
+     */
+    private boolean shouldObserveCall(Observation parent) {
+        if (parent != null) {
+            return !parent.isNoop();
+        }
+        return sampled();
+    }
+
+    private boolean sampled() {
+        return sampleRate >= 1.0 || ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    private static Observation parent(ContextView context) {
+        Object current = context.getOrDefault(OBSERVATION_KEY, null);
+        return current instanceof Observation observation ? observation : null;
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.firefly.idp.cognito.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Reads the claims of a JWT without verifying its signature.
+ *
+ * <p>Only for routing tokens and for bounding local state kept about tokens
+ * Cognito has verified; never to accept a token.
+ */
+public final class JwtClaims {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private JwtClaims() {
+    }
+
+    /**
+     * @return Payload claims, or {@code null} if the token is no JWT
+     */
+    public static JsonNode read(String token) {
+        if (token == null) {
+            return null;
+        }
+        int start = token.indexOf('.');
+        int end = token.indexOf('.', start + 1);
+        if (start < 0 || end < 0) {
+            return null;
+        }
+        try {
+            return OBJECT_MAPPER.readTree(Base64.getUrlDecoder().decode(token.substring(start + 1, end)));
+        } catch (IllegalArgumentException | IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return Expiry ({@code exp}) of the token, or {@code null} if it has none
+     */
+    public static Instant expiresAt(String token) {
+        return instant(read(token), "exp");
+    }
+
+    /**
+     * @return Issue time ({@code iat}) of the token, or {@code null} if it has none
+     */
+    public static Instant issuedAt(String token) {
+        return instant(read(token), "iat");
+    }
+
+    private static Instant instant(JsonNode claims, String name) {
+        if (claims == null || !claims.path(name).canConvertToLong()) {
+            return null;
+        }
+        return Instant.ofEpochSecond(claims.path(name).asLong());
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.util;
+
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free pacer that spaces calls evenly to stay under a Cognito request quota.
+ *
+ * <p>Each caller reserves the next free time slot with a single CAS and waits
+ * until it arrives. When Cognito throttles anyway, {@link #backOff(Duration)}
+ * pushes every future slot back so the whole batch slows down, not just the
+ * call that was rejected.
+ */
+public class RatePacer {
+
+    private final long intervalNanos;
+    private final AtomicLong nextSlot = new AtomicLong(System.nanoTime());
+
+    /**
+     * @param permitsPerSecond Maximum number of calls per second
+     */
+    public RatePacer(int permitsPerSecond) {
+        this.intervalNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(permitsPerSecond, 1);
+    }
+
+    /**
+     * Reserve the next slot
+     *
+     * @return Mono completing when the caller may issue its call
+     */
+    public Mono<Void> acquire() {
+        long now = System.nanoTime();
+        long slot = nextSlot.getAndAccumulate(now, (next, current) -> Math.max(next, current) + intervalNanos);
+        long wait = Math.max(slot, now) - now;
+        return wait <= 0 ? Mono.empty() : Mono.delay(Duration.ofNanos(wait)).then();
+    }
+
+    /**
+     * Delay all future slots after Cognito signalled throttling
+     */
+    public void backOff(Duration penalty) {
+        long until = System.nanoTime() + penalty.toNanos();
+        nextSlot.accumulateAndGet(until, Math::max);
+    }
+}
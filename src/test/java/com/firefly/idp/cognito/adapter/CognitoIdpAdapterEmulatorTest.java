@@ -0,0 +1,539 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.adapter;
+
+import com.firefly.idp.cognito.capture.TrafficRecorder;
+import com.firefly.idp.cognito.client.CognitoCallCancellation;
+import com.firefly.idp.cognito.client.CognitoCallExecutor;
+import com.firefly.idp.cognito.client.CognitoClientFactory;
+import com.firefly.idp.cognito.coalescing.UserAttributeUpdateCoalescer;
+import com.firefly.idp.cognito.emulator.CognitoEmulator;
+import com.firefly.idp.cognito.fault.FaultInjector;
+import com.firefly.idp.cognito.fault.FaultScenario;
+import com.firefly.idp.cognito.idempotency.IdempotentExecutions;
+import com.firefly.idp.cognito.index.DeviceOwnerIndex;
+import com.firefly.idp.cognito.index.GroupMembershipIndex;
+import com.firefly.idp.cognito.journal.AuthEventJournal;
+import com.firefly.idp.cognito.mapping.CognitoAttributeMapper;
+import com.firefly.idp.cognito.metrics.CognitoMetrics;
+import com.firefly.idp.cognito.outbox.AdminMutationOutbox;
+import com.firefly.idp.cognito.properties.CognitoProperties;
+import com.firefly.idp.cognito.resilience.CognitoBulkheads;
+import com.firefly.idp.cognito.resilience.CognitoCallTimeouts;
+import com.firefly.idp.cognito.resilience.CognitoCircuitBreakers;
+import com.firefly.idp.cognito.resilience.CognitoConcurrencyLimits;
+import com.firefly.idp.cognito.resilience.CognitoHedging;
+import com.firefly.idp.cognito.revocation.SignOutRegistry;
+import com.firefly.idp.cognito.service.CognitoAdminService;
+import com.firefly.idp.cognito.service.CognitoUserService;
+import com.firefly.idp.cognito.sharding.UserPoolMigrator;
+import com.firefly.idp.cognito.sharding.UserPoolShards;
+import com.firefly.idp.cognito.tracing.CognitoTracing;
+import com.firefly.idp.cognito.util.JwtClaims;
+import com.firefly.idp.dtos.*;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+import software.amazon.awssdk.services.cognitoidentityprovider.CognitoIdentityProviderClient;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.AdminGetUserRequest;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.CreateUserPoolRequest;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.DeviceConfigurationType;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.ResourceNotFoundException;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.UserNotFoundException;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for CognitoIdpAdapter against the embedded CognitoEmulator.
+ *
+ * <p>Covers the scenarios of {@link CognitoIdpAdapterLocalStackIT} without Docker;
+ * every test gets its own emulator and user pool, so tests are independent.
+ */
+class CognitoIdpAdapterEmulatorTest {
+
+    private static final String USERNAME = "testuser";
+    private static final String PASSWORD = "TestPass123!";
+    private static final String EMAIL = "testuser@example.com";
+
+    private final FaultInjector faults = new FaultInjector();
+    private CognitoEmulator emulator;
+    private CognitoProperties properties;
+    private CognitoClientFactory clientFactory;
+    private CognitoAttributeMapper attributeMapper;
+    private UserAttributeUpdateCoalescer updateCoalescer;
+    private AuthEventJournal journal;
+    private CognitoBulkheads bulkheads;
+    private CognitoIdpAdapter adapter;
+    private CognitoAdminService adminService;
+    private DeviceOwnerIndex deviceIndex;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        emulator = new CognitoEmulator().start();
+        String userPoolId;
+        try (CognitoIdentityProviderClient client = emulator.newClient()) {
+            // Device tracking makes logins register devices, which back the session operations
+            userPoolId = client.createUserPool(CreateUserPoolRequest.builder()
+                            .poolName("test-pool")
+                            .deviceConfiguration(DeviceConfigurationType.builder()
+                                    .challengeRequiredOnNewDevice(false)
+                                    .build())
+                            .build())
+                    .userPool().id();
+        }
+
+        properties = new CognitoProperties();
+        properties.setRegion(emulator.region());
+        properties.setEndpointOverride(emulator.endpoint().toString());
+        properties.setUserPoolId(userPoolId);
+        properties.setClientId(emulator.createUserPoolClient(userPoolId, "test-client", false).clientId());
+        start();
+    }
+
+    /**
+     * Wire the adapter for the current properties
+     */
+    private void start() {
+        clientFactory = new CognitoClientFactory(properties);
+        clientFactory.setClientDecorator(faults::decorate);
+
+        CognitoCallTimeouts callTimeouts = new CognitoCallTimeouts(properties);
+
+        clientFactory.setCallTimeouts(callTimeouts);
+        emulator.configure(clientFactory);
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        CognitoTracing tracing = new CognitoTracing(ObservationRegistry.NOOP, properties.getTracing());
+        bulkheads = new CognitoBulkheads(properties.getBulkhead(), meterRegistry);
+        CognitoCallCancellation callCancellation = new CognitoCallCancellation(meterRegistry);
+        clientFactory.setCallCancellation(callCancellation);
+        CognitoCallExecutor calls = new CognitoCallExecutor(new CognitoMetrics(meterRegistry), tracing,
+                new CognitoCircuitBreakers(properties.getCircuitBreaker(), meterRegistry), bulkheads,
+                new CognitoConcurrencyLimits(properties.getAdaptiveLimit(), meterRegistry),
+                new CognitoHedging(properties.getHedging(), meterRegistry), callTimeouts, callCancellation);
+        journal = new AuthEventJournal(properties.getJournal(), List.of(events -> { }), meterRegistry);
+        attributeMapper = new CognitoAttributeMapper(clientFactory, properties);
+        // Loaded before any traffic, so calls to Cognito stay countable
+        attributeMapper.refresh();
+        UserPoolShards shards = new UserPoolShards(properties, clientFactory);
+        deviceIndex = new DeviceOwnerIndex(clientFactory, properties, shards, calls);
+        updateCoalescer = new UserAttributeUpdateCoalescer(clientFactory, properties, shards, calls);
+        SignOutRegistry signOutRegistry = new SignOutRegistry(properties);
+        CognitoUserService userService = new CognitoUserService(clientFactory, properties, attributeMapper,
+                deviceIndex, calls, journal, signOutRegistry, shards, new UserPoolMigrator(clientFactory, meterRegistry));
+        userService.evictIntrospectionsOnSignOut();
+        adminService = new CognitoAdminService(clientFactory, properties,
+                new GroupMembershipIndex(clientFactory, properties, shards), updateCoalescer, attributeMapper, deviceIndex,
+                signOutRegistry, calls, journal,
+                new AdminMutationOutbox(properties.getOutbox(), meterRegistry),
+                new IdempotentExecutions(properties.getIdempotency(), meterRegistry), shards);
+        adapter = new CognitoIdpAdapter(userService, adminService, tracing,
+                new TrafficRecorder(properties.getCapture(), meterRegistry));
+    }
+
+    @AfterEach
+    void tearDown() {
+        stop();
+        emulator.close();
+    }
+
+    private void stop() {
+        journal.destroy();
+        updateCoalescer.destroy();
+        attributeMapper.destroy();
+        clientFactory.destroy();
+        bulkheads.destroy();
+    }
+
+    @Test
+    void testCreateUserAndLogin_ReturnsTokensAndUserInfo() {
+        // Arrange
+        createUser(USERNAME, EMAIL);
+
+        // Act
+        TokenResponse tokens = login(USERNAME, PASSWORD);
+
+        // Assert
+        assertThat(tokens.getAccessToken()).isNotEmpty();
+        assertThat(tokens.getRefreshToken()).isNotEmpty();
+        StepVerifier.create(adapter.getUserInfo(tokens.getAccessToken()))
+                .assertNext(response -> {
+                    assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+                    assertThat(response.getBody().getEmail()).isEqualTo(EMAIL);
+                })
+                .verifyComplete();
+        StepVerifier.create(adapter.introspect(tokens.getAccessToken()))
+                .assertNext(response -> {
+                    assertThat(response.getBody().isActive()).isTrue();
+                    assertThat(response.getBody().getUsername()).isEqualTo(USERNAME);
+                })
+                .verifyComplete();
+        StepVerifier.create(adapter.refresh(RefreshRequest.builder().refreshToken(tokens.getRefreshToken()).build()))
+                .assertNext(response -> assertThat(response.getBody().getAccessToken()).isNotEmpty())
+                .verifyComplete();
+    }
+
+    @Test
+    void testRoles_CreateAssignGetAndRemove() {
+        // Arrange
+        createUser(USERNAME, EMAIL);
+        AssignRolesRequest assignment = AssignRolesRequest.builder()
+                .userId(USERNAME)
+                .roleNames(List.of("user"))
+                .build();
+
+        // Act & Assert
+        StepVerifier.create(adapter.createRoles(CreateRolesRequest.builder().roleNames(List.of("admin", "user")).build()))
+                .assertNext(response -> assertThat(response.getBody().getCreatedRoleNames())
+                        .containsExactlyInAnyOrder("admin", "user"))
+                .verifyComplete();
+        StepVerifier.create(adapter.assignRolesToUser(assignment)).verifyComplete();
+        StepVerifier.create(adapter.getRoles(USERNAME))
+                .assertNext(response -> assertThat(response.getBody()).containsExactly("user"))
+                .verifyComplete();
+        StepVerifier.create(adapter.getUsersInRole("user", 0, 10))
+                .assertNext(response -> assertThat(response.getBody()).containsExactly(USERNAME))
+                .verifyComplete();
+        StepVerifier.create(adapter.removeRolesFromUser(assignment)).verifyComplete();
+        StepVerifier.create(adapter.getRoles(USERNAME))
+                .assertNext(response -> assertThat(response.getBody()).isEmpty())
+                .verifyComplete();
+    }
+
+    @Test
+    void testUpdateUserAndChangePassword_AppliesChanges() {
+        // Arrange
+        createUser(USERNAME, EMAIL);
+
+        // Act
+        StepVerifier.create(adapter.updateUser(UpdateUserRequest.builder()
+                        .userId(USERNAME)
+                        .email("newemail@example.com")
+                        .givenName("Updated")
+                        .familyName("User")
+                        .build()))
+                .assertNext(response -> assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK))
+                .verifyComplete();
+        StepVerifier.create(adapter.changePassword(ChangePasswordRequest.builder()
+                        .userId(USERNAME)
+                        .oldPassword(PASSWORD)
+                        .newPassword("NewTestPass123!")
+                        .build()))
+                .verifyComplete();
+
+        // Assert
+        TokenResponse tokens = login(USERNAME, "NewTestPass123!");
+        StepVerifier.create(adapter.getUserInfo(tokens.getAccessToken()))
+                .assertNext(response -> assertThat(response.getBody().getEmail()).isEqualTo("newemail@example.com"))
+                .verifyComplete();
+    }
+
+    @Test
+    void testUpdateUser_AttributeOutsideSchemaRejected() {
+        // Arrange
+        createUser(USERNAME, EMAIL);
+        stop();
+        properties.getAttributeMapping().getOverrides().put("familyName", "custom:surname");
+        start();
+
+        // Act
+        StepVerifier.create(adapter.updateUser(UpdateUserRequest.builder()
+                        .userId(USERNAME)
+                        .email("newemail@example.com")
+                        .familyName("User")
+                        .build()))
+                .assertNext(response -> assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST))
+                .verifyComplete();
+
+        // Assert: none of the update was applied
+        TokenResponse tokens = login(USERNAME, PASSWORD);
+        StepVerifier.create(adapter.getUserInfo(tokens.getAccessToken()))
+                .assertNext(response -> assertThat(response.getBody().getEmail()).isEqualTo(EMAIL))
+                .verifyComplete();
+    }
+
+    @Test
+    void testLoginFailures_MapToHttpStatus() {
+        // Arrange
+        createUser(USERNAME, EMAIL);
+
+        // Act & Assert
+        StepVerifier.create(adapter.login(LoginRequest.builder().username("nonexistent-user").password(PASSWORD).build()))
+                .assertNext(response -> assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND))
+                .verifyComplete();
+        StepVerifier.create(adapter.login(LoginRequest.builder().username(USERNAME).password("WrongPassword123!").build()))
+                .assertNext(response -> assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED))
+                .verifyComplete();
+    }
+
+    @Test
+    void testLogoutAndRevocation_InvalidateTokens() {
+        // Arrange
+        createUser(USERNAME, EMAIL);
+        TokenResponse loggedOut = login(USERNAME, PASSWORD);
+        TokenResponse revoked = login(USERNAME, PASSWORD);
+
+        // Act
+        StepVerifier.create(adapter.revokeRefreshToken(revoked.getRefreshToken())).verifyComplete();
+        StepVerifier.create(adapter.logout(LogoutRequest.builder().accessToken(loggedOut.getAccessToken()).build()))
+                .verifyComplete();
+
+        // Assert
+        StepVerifier.create(adapter.introspect(loggedOut.getAccessToken()))
+                .assertNext(response -> assertThat(response.getBody().isActive()).isFalse())
+                .verifyComplete();
+        StepVerifier.create(adapter.refresh(RefreshRequest.builder().refreshToken(revoked.getRefreshToken()).build()))
+                .assertNext(response -> assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED))
+                .verifyComplete();
+    }
+
+    @Test
+    void testBulkSignOut_StoredIntrospectionNotServedDuringOutage() {
+        // Arrange
+        createUser(USERNAME, EMAIL);
+        TokenResponse tokens = login(USERNAME, PASSWORD);
+        StepVerifier.create(adapter.introspect(tokens.getAccessToken()))
+                .assertNext(response -> assertThat(response.getBody().isActive()).isTrue())
+                .verifyComplete();
+
+        // Act
+        StepVerifier.create(adminService.bulkGlobalSignOut(Flux.just(USERNAME)))
+                .assertNext(result -> assertThat(result.isSuccess()).isTrue())
+                .verifyComplete();
+        emulator.close();
+
+        // Assert
+        StepVerifier.create(adapter.introspect(tokens.getAccessToken()))
+                .assertNext(response -> assertThat(response.getStatusCode()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR))
+                .verifyComplete();
+    }
+
+    @Test
+    void testSessions_ListAndRevoke() {
+        // Arrange
+        createUser(USERNAME, EMAIL);
+        login(USERNAME, PASSWORD);
+        login(USERNAME, PASSWORD);
+
+        // Act
+        List<SessionInfo> sessions = adapter.listSessions(USERNAME).block().getBody();
+        StepVerifier.create(adapter.revokeSession(sessions.get(0).getSessionId())).verifyComplete();
+
+        // Assert
+        assertThat(sessions).hasSize(2).allSatisfy(session -> assertThat(session.getUserId()).isEqualTo(USERNAME));
+        StepVerifier.create(adapter.listSessions(USERNAME))
+                .assertNext(response -> assertThat(response.getBody()).extracting(SessionInfo::getSessionId)
+                        .containsExactly(sessions.get(1).getSessionId()))
+                .verifyComplete();
+    }
+
+    @Test
+    void testSessions_DevicesIndexedOnLoginAndListing() {
+        // Arrange
+        createUser(USERNAME, EMAIL);
+        String deviceKey = JwtClaims.read(login(USERNAME, PASSWORD).getAccessToken()).path("device_key").asText();
+        String indexedOnLogin = deviceIndex.get(deviceKey);
+        deviceIndex.remove(deviceKey);
+
+        // Act
+        adapter.listSessions(USERNAME).block();
+
+        // Assert
+        assertThat(indexedOnLogin).isEqualTo(USERNAME);
+        assertThat(deviceIndex.get(deviceKey)).isEqualTo(USERNAME);
+    }
+
+    @Test
+    void testRevokeSession_UnknownDeviceNotFound() {
+        // Arrange
+        createUser(USERNAME, EMAIL);
+        login(USERNAME, PASSWORD);
+
+        // Act & Assert
+        StepVerifier.create(adapter.revokeSession("us-east-1_unknown"))
+                .expectErrorSatisfies(error -> assertThat(error).hasRootCauseInstanceOf(ResourceNotFoundException.class))
+                .verify();
+    }
+
+    @Test
+    void testDeleteUser_RemovesUser() {
+        // Arrange
+        createUser(USERNAME, EMAIL);
+
+        // Act
+        StepVerifier.create(adapter.deleteUser(USERNAME)).verifyComplete();
+
+        // Assert
+        StepVerifier.create(adapter.login(LoginRequest.builder().username(USERNAME).password(PASSWORD).build()))
+                .assertNext(response -> assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND))
+                .verifyComplete();
+    }
+
+    @Test
+    void testShardAdded_UserMovedToItsShardOnLogin() {
+        // Arrange
+        UserPoolShards shards = addShard();
+        String username = ownedBy(shards, "second");
+        createMovingUser(username);
+
+        // Act
+        StepVerifier.create(adapter.getRoles(username))
+                .assertNext(response -> assertThat(response.getBody()).containsExactly("user"))
+                .verifyComplete();
+        TokenResponse tokens = login(username, PASSWORD);
+
+        // Assert
+        assertThat(shards.forToken(tokens.getAccessToken()).getName()).isEqualTo("second");
+        assertThat(tokens.getRefreshToken()).startsWith("second:");
+        StepVerifier.create(adapter.getUserInfo(tokens.getAccessToken()))
+                .assertNext(response -> assertThat(response.getBody().getEmail()).isEqualTo("moving@example.com"))
+                .verifyComplete();
+        StepVerifier.create(adapter.refresh(RefreshRequest.builder().refreshToken(tokens.getRefreshToken()).build()))
+                .assertNext(response -> assertThat(response.getBody().getAccessToken()).isNotEmpty())
+                .verifyComplete();
+        StepVerifier.create(adapter.getUsersInRole("user", 0, 10))
+                .assertNext(response -> assertThat(response.getBody()).containsExactly(username))
+                .verifyComplete();
+        assertThat(inDefaultPool(username)).isFalse();
+    }
+
+    @Test
+    void testShardAdded_MoveFailedBeforePasswordSet_ResumedOnNextLogin() {
+        // Arrange
+        UserPoolShards shards = addShard();
+        String username = ownedBy(shards, "second");
+        createMovingUser(username);
+        faults.activate(FaultScenario.named("password-not-set").serverError("AdminSetUserPassword", 1.0));
+
+        // Act: the user is left created, with a temporary password, in its new pool
+        TokenResponse interrupted = login(username, PASSWORD);
+        faults.clear();
+        TokenResponse resumed = login(username, PASSWORD);
+
+        // Assert
+        assertThat(shards.forToken(interrupted.getAccessToken()).getName()).isEqualTo(UserPoolShards.DEFAULT_SHARD);
+        assertThat(shards.forToken(resumed.getAccessToken()).getName()).isEqualTo("second");
+        StepVerifier.create(adapter.getUserInfo(resumed.getAccessToken()))
+                .assertNext(response -> assertThat(response.getBody().getEmail()).isEqualTo("moving@example.com"))
+                .verifyComplete();
+        assertThat(inDefaultPool(username)).isFalse();
+    }
+
+    @Test
+    void testShardAdded_MoveFailedBeforeGroupsCopied_ResumedOnNextLogin() {
+        // Arrange
+        UserPoolShards shards = addShard();
+        String username = ownedBy(shards, "second");
+        createMovingUser(username);
+        faults.activate(FaultScenario.named("groups-not-copied").serverError("AdminAddUserToGroup", 1.0));
+
+        // Act: the user can sign in to its new pool, but has no groups there and is still in the former one
+        TokenResponse interrupted = login(username, PASSWORD);
+        StepVerifier.create(adapter.getRoles(username))
+                .assertNext(response -> assertThat(response.getBody()).containsExactly("user"))
+                .verifyComplete();
+        faults.clear();
+        TokenResponse resumed = login(username, PASSWORD);
+
+        // Assert
+        assertThat(shards.forToken(interrupted.getAccessToken()).getName()).isEqualTo(UserPoolShards.DEFAULT_SHARD);
+        assertThat(inDefaultPool(username)).isFalse();
+        assertThat(shards.forToken(resumed.getAccessToken()).getName()).isEqualTo("second");
+        StepVerifier.create(adapter.getRoles(username))
+                .assertNext(response -> assertThat(response.getBody()).containsExactly("user"))
+                .verifyComplete();
+    }
+
+    /**
+     * Add a second shard to the properties, moving the users it owns out of the
+     * default pool; the running adapter keeps its wiring until restarted
+     */
+    private UserPoolShards addShard() {
+        String shardPoolId = emulator.createUserPool("shard-pool");
+        CognitoProperties.Sharding.Shard shard = new CognitoProperties.Sharding.Shard();
+        shard.setName("second");
+        shard.setUserPoolId(shardPoolId);
+        shard.setClientId(emulator.createUserPoolClient(shardPoolId, "shard-client", false).clientId());
+        properties.getSharding().setEnabled(true);
+        properties.getSharding().setShards(List.of(shard));
+        properties.getSharding().setPreviousShards(List.of(UserPoolShards.DEFAULT_SHARD));
+        return new UserPoolShards(properties, clientFactory);
+    }
+
+    /**
+     * Create a user with the role "user" through the running adapter, which was
+     * wired before sharding and so puts it in the default pool, then restart with sharding
+     */
+    private void createMovingUser(String username) {
+        createUser(username, "moving@example.com");
+        StepVerifier.create(adapter.createRoles(CreateRolesRequest.builder().roleNames(List.of("user")).build()))
+                .expectNextCount(1)
+                .verifyComplete();
+        StepVerifier.create(adapter.assignRolesToUser(AssignRolesRequest.builder()
+                        .userId(username)
+                        .roleNames(List.of("user"))
+                        .build()))
+                .verifyComplete();
+        stop();
+        start();
+    }
+
+    private boolean inDefaultPool(String username) {
+        try (CognitoIdentityProviderClient client = emulator.newClient()) {
+            client.adminGetUser(AdminGetUserRequest.builder()
+                    .userPoolId(properties.getUserPoolId())
+                    .username(username)
+                    .build());
+            return true;
+        } catch (UserNotFoundException e) {
+            return false;
+        }
+    }
+
+    private static String ownedBy(UserPoolShards shards, String shardName) {
+        for (int i = 0; ; i++) {
+            if (shards.forUser("user-" + i).getName().equals(shardName)) {
+                return "user-" + i;
+            }
+        }
+    }
+
+    private void createUser(String username, String email) {
+        StepVerifier.create(adapter.createUser(CreateUserRequest.builder()
+                        .username(username)
+                        .email(email)
+                        .givenName("Test")
+                        .familyName("User")
+                        .password(PASSWORD)
+                        .build()))
+                .assertNext(response -> assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK))
+                .verifyComplete();
+    }
+
+    private TokenResponse login(String username, String password) {
+        return adapter.login(LoginRequest.builder().username(username).password(password).build())
+                .block()
+                .getBody();
+    }
+}
@@ -16,11 +16,34 @@
 
 package com.firefly.idp.cognito.adapter;
 
+import com.firefly.idp.cognito.capture.TrafficRecorder;
+import com.firefly.idp.cognito.client.CognitoCallCancellation;
+import com.firefly.idp.cognito.client.CognitoCallExecutor;
 import com.firefly.idp.cognito.client.CognitoClientFactory;
+import com.firefly.idp.cognito.coalescing.UserAttributeUpdateCoalescer;
+import com.firefly.idp.cognito.idempotency.IdempotentExecutions;
+import com.firefly.idp.cognito.index.DeviceOwnerIndex;
+import com.firefly.idp.cognito.index.GroupMembershipIndex;
+import com.firefly.idp.cognito.journal.AuthEventJournal;
+import com.firefly.idp.cognito.journal.LoggingAuthEventSink;
+import com.firefly.idp.cognito.mapping.CognitoAttributeMapper;
+import com.firefly.idp.cognito.metrics.CognitoMetrics;
+import com.firefly.idp.cognito.outbox.AdminMutationOutbox;
 import com.firefly.idp.cognito.properties.CognitoProperties;
+import com.firefly.idp.cognito.resilience.CognitoBulkheads;
+import com.firefly.idp.cognito.resilience.CognitoCallTimeouts;
+import com.firefly.idp.cognito.resilience.CognitoCircuitBreakers;
+import com.firefly.idp.cognito.resilience.CognitoConcurrencyLimits;
+import com.firefly.idp.cognito.resilience.CognitoHedging;
+import com.firefly.idp.cognito.revocation.SignOutRegistry;
 import com.firefly.idp.cognito.service.CognitoAdminService;
 import com.firefly.idp.cognito.service.CognitoUserService;
+import com.firefly.idp.cognito.sharding.UserPoolMigrator;
+import com.firefly.idp.cognito.sharding.UserPoolShards;
+import com.firefly.idp.cognito.tracing.CognitoTracing;
 import com.firefly.idp.dtos.*;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.*;
 import org.springframework.http.HttpStatus;
@@ -168,6 +191,8 @@ class CognitoIdpAdapterLocalStackIT {
 
         // Create factory and configure for LocalStack
         CognitoClientFactory clientFactory = new CognitoClientFactory(properties);
+        CognitoCallTimeouts callTimeouts = new CognitoCallTimeouts(properties);
+        clientFactory.setCallTimeouts(callTimeouts);
         clientFactory.setEndpointOverride(URI.create(endpoint));
         clientFactory.setCredentialsProvider(
                 StaticCredentialsProvider.create(
@@ -178,9 +203,33 @@ class CognitoIdpAdapterLocalStackIT {
                 )
         );
 
-        CognitoUserService userService = new CognitoUserService(clientFactory, properties);
-        CognitoAdminService adminService = new CognitoAdminService(clientFactory, properties);
-        adapter = new CognitoIdpAdapter(userService, adminService);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        CognitoTracing tracing = new CognitoTracing(ObservationRegistry.NOOP, properties.getTracing());
+        CognitoCallCancellation callCancellation = new CognitoCallCancellation(meterRegistry);
+        clientFactory.setCallCancellation(callCancellation);
+        CognitoCallExecutor calls = new CognitoCallExecutor(new CognitoMetrics(meterRegistry), tracing,
+                new CognitoCircuitBreakers(properties.getCircuitBreaker(), meterRegistry),
+                new CognitoBulkheads(properties.getBulkhead(), meterRegistry),
+                new CognitoConcurrencyLimits(properties.getAdaptiveLimit(), meterRegistry),
+                new CognitoHedging(properties.getHedging(), meterRegistry), callTimeouts, callCancellation);
+        AuthEventJournal journal = new AuthEventJournal(properties.getJournal(),
+                java.util.List.of(new LoggingAuthEventSink()), meterRegistry);
+        CognitoAttributeMapper attributeMapper = new CognitoAttributeMapper(clientFactory, properties);
+        attributeMapper.refresh();
+        UserPoolShards shards = new UserPoolShards(properties, clientFactory);
+        DeviceOwnerIndex deviceIndex = new DeviceOwnerIndex(clientFactory, properties, shards, calls);
+        SignOutRegistry signOutRegistry = new SignOutRegistry(properties);
+        CognitoUserService userService = new CognitoUserService(clientFactory, properties, attributeMapper, deviceIndex, calls, journal,
+                signOutRegistry, shards, new UserPoolMigrator(clientFactory, meterRegistry));
+        GroupMembershipIndex groupIndex = new GroupMembershipIndex(clientFactory, properties, shards);
+        UserAttributeUpdateCoalescer updateCoalescer =
+                new UserAttributeUpdateCoalescer(clientFactory, properties, shards, calls);
+        CognitoAdminService adminService = new CognitoAdminService(clientFactory, properties, groupIndex,
+                updateCoalescer, attributeMapper, deviceIndex, signOutRegistry, calls, journal,
+                new AdminMutationOutbox(properties.getOutbox(), meterRegistry),
+                new IdempotentExecutions(properties.getIdempotency(), meterRegistry), shards);
+        adapter = new CognitoIdpAdapter(userService, adminService, tracing,
+                new TrafficRecorder(properties.getCapture(), meterRegistry));
     }
 
     @AfterAll
@@ -16,9 +16,14 @@
 
 package com.firefly.idp.cognito.adapter;
 
+import com.firefly.idp.cognito.capture.TrafficRecorder;
+import com.firefly.idp.cognito.properties.CognitoProperties;
 import com.firefly.idp.cognito.service.CognitoAdminService;
 import com.firefly.idp.cognito.service.CognitoUserService;
+import com.firefly.idp.cognito.tracing.CognitoTracing;
 import com.firefly.idp.dtos.*;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -56,7 +61,9 @@ class CognitoIdpAdapterTest {
 
     @BeforeEach
     void setUp() {
-        adapter = new CognitoIdpAdapter(userService, adminService);
+        adapter = new CognitoIdpAdapter(userService, adminService,
+                new CognitoTracing(ObservationRegistry.NOOP, new CognitoProperties.Tracing()),
+                new TrafficRecorder(new CognitoProperties.Capture(), new SimpleMeterRegistry()));
     }
 
     @Test
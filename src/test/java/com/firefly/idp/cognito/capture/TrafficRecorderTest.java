@@ -0,0 +1,126 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.capture;
+
+import com.firefly.idp.cognito.client.CognitoOperation;
+import com.firefly.idp.cognito.properties.CognitoProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.NotAuthorizedException;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for TrafficRecorder and the trace file format.
+ */
+class TrafficRecorderTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testRecord_WritesAnonymizedInvocations() throws Exception {
+        // Arrange
+        Path file = directory.resolve("traffic.trace");
+        CognitoProperties.Capture settings = new CognitoProperties.Capture();
+        settings.setEnabled(true);
+        settings.setFile(file.toString());
+        settings.setSalt("test-salt");
+        TrafficRecorder recorder = new TrafficRecorder(settings, new SimpleMeterRegistry());
+
+        // Act
+        StepVerifier.create(recorder.record(CognitoOperation.LOGIN, "alice",
+                        Mono.just(ResponseEntity.ok("tokens")).delayElement(Duration.ofMillis(20))))
+                .expectNextCount(1)
+                .verifyComplete();
+        StepVerifier.create(recorder.record(CognitoOperation.LOGIN, "alice",
+                        Mono.just(ResponseEntity.status(401).build())))
+                .expectNextCount(1)
+                .verifyComplete();
+        StepVerifier.create(recorder.record(CognitoOperation.LOGOUT, "bob", Mono.empty()))
+                .verifyComplete();
+        StepVerifier.create(recorder.record(CognitoOperation.CREATE_ROLES, null,
+                        Mono.error(NotAuthorizedException.builder().message("denied").build())))
+                .verifyError(NotAuthorizedException.class);
+        recorder.destroy();
+
+        // Assert
+        List<TrafficRecord> records = TrafficTrace.read(file).getRecords();
+        assertThat(records).extracting(TrafficRecord::getOperation).containsExactly(
+                CognitoOperation.LOGIN, CognitoOperation.LOGIN, CognitoOperation.LOGOUT, CognitoOperation.CREATE_ROLES);
+        assertThat(records).extracting(TrafficRecord::getStatus)
+                .containsExactly(200, 401, 200, TrafficRecord.STATUS_ERROR);
+        assertThat(records.get(0).getDurationMicros()).isGreaterThanOrEqualTo(20_000);
+        assertThat(records.get(0).getIdentity()).isEqualTo(records.get(1).getIdentity()).isNotZero();
+        assertThat(records.get(2).getIdentity()).isNotEqualTo(records.get(0).getIdentity()).isNotZero();
+        assertThat(records.get(3).getIdentity()).isZero();
+        assertThat(new String(Files.readAllBytes(file), StandardCharsets.ISO_8859_1)).doesNotContain("alice", "bob");
+    }
+
+    @Test
+    void testRecord_Disabled_ReturnsSourceUnchanged() {
+        // Arrange
+        TrafficRecorder recorder = new TrafficRecorder(new CognitoProperties.Capture(), new SimpleMeterRegistry());
+        Mono<String> source = Mono.just("value");
+
+        // Act
+        Mono<String> recorded = recorder.record(CognitoOperation.LOGIN, "alice", source);
+
+        // Assert
+        assertThat(recorded).isSameAs(source);
+    }
+
+    @Test
+    void testRead_IgnoresTruncatedLastRecord() throws Exception {
+        // Arrange
+        Path file = directory.resolve("truncated.trace");
+        try (TrafficTraceWriter writer = new TrafficTraceWriter(file, 1_700_000_000_000L)) {
+            writer.write(record(5_000_000, CognitoOperation.REFRESH));
+            writer.write(record(1_000, CognitoOperation.INTROSPECT));
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 4));
+
+        // Act
+        TrafficTrace trace = TrafficTrace.read(file);
+
+        // Assert
+        assertThat(trace.getStartEpochMillis()).isEqualTo(1_700_000_000_000L);
+        assertThat(trace.getRecords()).containsExactly(record(5_000_000, CognitoOperation.REFRESH));
+    }
+
+    private static TrafficRecord record(long startMicros, CognitoOperation operation) {
+        return TrafficRecord.builder()
+                .startMicros(startMicros)
+                .durationMicros(12_345)
+                .operation(operation)
+                .identity(-42L)
+                .status(200)
+                .build();
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.firefly.idp.cognito.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.http.ExecutableHttpRequest;
+import software.amazon.awssdk.http.HttpExecuteRequest;
+import software.amazon.awssdk.http.HttpExecuteResponse;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.SdkHttpFullRequest;
+import software.amazon.awssdk.http.SdkHttpMethod;
+import software.amazon.awssdk.http.SdkHttpResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for CancellableHttpClient.
+ */
+class CancellableHttpClientTest {
+
+    private final CognitoCallCancellation cancellation = new CognitoCallCancellation(new SimpleMeterRegistry());
+    private ExecutableHttpRequest exchange;
+    private CancellableHttpClient client;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        SdkHttpClient delegate = mock(SdkHttpClient.class);
+        exchange = mock(ExecutableHttpRequest.class);
+        when(delegate.prepareRequest(any())).thenReturn(exchange);
+        when(exchange.call()).thenReturn(HttpExecuteResponse.builder()
+                .response(SdkHttpResponse.builder().statusCode(200).build())
+                .responseBody(AbortableInputStream.create(
+                        new ByteArrayInputStream("{}".getBytes(StandardCharsets.UTF_8))))
+                .build());
+        client = new CancellableHttpClient(delegate, cancellation);
+    }
+
+    @Test
+    void testCancelWhileReadingBody_AbortsExchange() throws Exception {
+        // Arrange
+        CancellableCall call = cancellation.prepare(CognitoOperation.GET_USER_INFO);
+
+        // Act
+        call.wrap(() -> {
+            InputStream body = execute();
+            call.cancel();
+            body.close();
+            return null;
+        }).call();
+
+        // Assert
+        verify(exchange).abort();
+    }
+
+    @Test
+    void testCancelAfterBodyClosed_LeavesExchangeAlone() throws Exception {
+        // Arrange
+        CancellableCall call = cancellation.prepare(CognitoOperation.GET_USER_INFO);
+
+        // Act
+        String body = call.wrap(() -> {
+            String read;
+            try (InputStream stream = execute()) {
+                read = new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+            }
+            call.cancel();
+            return read;
+        }).call();
+
+        // Assert
+        assertThat(body).isEqualTo("{}");
+        verify(exchange, never()).abort();
+    }
+
+    private InputStream execute() throws Exception {
+        SdkHttpFullRequest request = SdkHttpFullRequest.builder()
+                .method(SdkHttpMethod.POST)
+                .uri(URI.create("https://cognito-idp.us-east-1.amazonaws.com"))
+                .build();
+        return client.prepareRequest(HttpExecuteRequest.builder().request(request).build())
+                .call()
+                .responseBody()
+                .orElseThrow();
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.client;
+
+import com.firefly.idp.cognito.loadtest.CognitoStubServer;
+import com.firefly.idp.cognito.properties.CognitoProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.GetUserRequest;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for CognitoCallCancellation.
+ */
+class CognitoCallCancellationTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CognitoCallCancellation cancellation = new CognitoCallCancellation(meterRegistry);
+    private CognitoStubServer stub;
+    private CognitoClientFactory clientFactory;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        stub = new CognitoStubServer().start();
+        CognitoProperties properties = new CognitoProperties();
+        properties.setRegion("us-east-1");
+        properties.setUserPoolId("us-east-1_stub");
+        properties.setClientId("stub-client");
+        clientFactory = new CognitoClientFactory(properties);
+        clientFactory.setEndpointOverride(stub.endpoint());
+        clientFactory.setCredentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("stub", "stub")));
+        clientFactory.setCallCancellation(cancellation);
+        // Create the client and warm the connection pool up
+        getUser();
+    }
+
+    @AfterEach
+    void tearDown() {
+        clientFactory.destroy();
+        stub.close();
+    }
+
+    @Test
+    void testCancelledCall_AbortsInFlightExchange() throws Exception {
+        // Arrange
+        stub.latency("GetUser", random -> TimeUnit.SECONDS.toNanos(10));
+        CancellableCall call = cancellation.prepare(CognitoOperation.GET_USER_INFO);
+        CountDownLatch finished = new CountDownLatch(1);
+        Disposable subscription = Mono.fromCallable(call.wrap(() -> {
+                    try {
+                        return getUser();
+                    } finally {
+                        finished.countDown();
+                    }
+                }))
+                .subscribeOn(Schedulers.boundedElastic())
+                .doOnCancel(call::cancel)
+                .subscribe();
+        awaitRequests(2);
+
+        // Act
+        subscription.dispose();
+
+        // Assert: the thread is released long before Cognito would have answered
+        assertThat(finished.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(call.isCancelled()).isTrue();
+        assertThat(meterRegistry.get("cognito.call.aborted")
+                .tag("operation", "get_user_info").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void testCallCancelledBeforeStart_NeverRuns() throws Exception {
+        // Arrange
+        CancellableCall call = cancellation.prepare(CognitoOperation.GET_USER_INFO);
+        AtomicBoolean ran = new AtomicBoolean();
+
+        // Act
+        call.cancel();
+        Object result = call.wrap(() -> {
+            ran.set(true);
+            return getUser();
+        }).call();
+
+        // Assert
+        assertThat(result).isNull();
+        assertThat(ran).isFalse();
+        assertThat(stub.requestCount("GetUser")).isEqualTo(1);
+    }
+
+    @Test
+    void testCompletedCall_LeavesThreadUninterrupted() throws Exception {
+        // Arrange
+        CancellableCall call = cancellation.prepare(CognitoOperation.GET_USER_INFO);
+
+        // Act
+        String username = call.wrap(this::getUser).call();
+        call.cancel();
+
+        // Assert
+        assertThat(username).isNotNull();
+        assertThat(Thread.currentThread().isInterrupted()).isFalse();
+        assertThat(meterRegistry.get("cognito.call.aborted")
+                .tag("operation", "get_user_info").counter().count()).isZero();
+    }
+
+    private String getUser() {
+        return clientFactory.getClient()
+                .getUser(GetUserRequest.builder().accessToken("token").build())
+                .username();
+    }
+
+    private void awaitRequests(long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (stub.requestCount("GetUser") < expected && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(stub.requestCount("GetUser")).isEqualTo(expected);
+    }
+}
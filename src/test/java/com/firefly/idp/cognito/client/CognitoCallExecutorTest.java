@@ -0,0 +1,105 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.firefly.idp.cognito.client;
+
+import com.firefly.idp.cognito.metrics.CognitoMetrics;
+import com.firefly.idp.cognito.properties.CognitoProperties;
+import com.firefly.idp.cognito.resilience.CognitoBulkheads;
+import com.firefly.idp.cognito.resilience.CognitoCallTimeouts;
+import com.firefly.idp.cognito.resilience.CognitoCircuitBreakers;
+import com.firefly.idp.cognito.resilience.CognitoConcurrencyLimits;
+import com.firefly.idp.cognito.resilience.CognitoHedging;
+import com.firefly.idp.cognito.tracing.CognitoTracing;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for CognitoCallExecutor.
+ */
+class CognitoCallExecutorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch slowRelease = new CountDownLatch(1);
+    private final AtomicInteger attempts = new AtomicInteger();
+    private CognitoBulkheads bulkheads;
+
+    @AfterEach
+    void tearDown() {
+        slowRelease.countDown();
+        bulkheads.destroy();
+    }
+
+    @Test
+    void testHedgedRead_HedgeRunsInCompartment() {
+        // Arrange
+        CognitoCallExecutor calls = executor(2);
+
+        // Act & Assert
+        StepVerifier.create(calls.executeRead(CognitoOperation.GET_ROLES, this::slowFirstAttempt))
+                .assertNext(thread -> assertThat(thread).startsWith("cognito-admin"))
+                .verifyComplete();
+        assertThat(attempts.get()).isEqualTo(2);
+    }
+
+    @Test
+    void testHedgedRead_HedgeWaitsForBulkheadSlot() {
+        // Arrange
+        CognitoCallExecutor calls = executor(1);
+
+        // Act & Assert: the hedge is queued behind the first attempt, which answers once released
+        StepVerifier.create(calls.executeRead(CognitoOperation.GET_ROLES, this::slowFirstAttempt))
+                .then(() -> Mono.delay(Duration.ofMillis(150)).subscribe(tick -> slowRelease.countDown()))
+                .expectNext("slow")
+                .expectComplete()
+                .verify(Duration.ofSeconds(2));
+        assertThat(attempts.get()).isEqualTo(1);
+    }
+
+    private String slowFirstAttempt() throws InterruptedException {
+        if (attempts.incrementAndGet() == 1) {
+            slowRelease.await(5, TimeUnit.SECONDS);
+            return "slow";
+        }
+        return Thread.currentThread().getName();
+    }
+
+    private CognitoCallExecutor executor(int adminMaxConcurrentCalls) {
+        CognitoProperties properties = new CognitoProperties();
+        properties.getBulkhead().getAdmin().setMaxConcurrentCalls(adminMaxConcurrentCalls);
+        properties.getHedging().setEnabled(true);
+        properties.getHedging().setInitialDelay(50);
+        bulkheads = new CognitoBulkheads(properties.getBulkhead(), meterRegistry);
+        return new CognitoCallExecutor(new CognitoMetrics(meterRegistry),
+                new CognitoTracing(ObservationRegistry.NOOP, properties.getTracing()),
+                new CognitoCircuitBreakers(properties.getCircuitBreaker(), meterRegistry), bulkheads,
+                new CognitoConcurrencyLimits(properties.getAdaptiveLimit(), meterRegistry),
+                new CognitoHedging(properties.getHedging(), meterRegistry), new CognitoCallTimeouts(properties),
+                new CognitoCallCancellation(meterRegistry));
+    }
+}
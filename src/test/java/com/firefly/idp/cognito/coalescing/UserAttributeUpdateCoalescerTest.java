@@ -0,0 +1,217 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.coalescing;
+
+import com.firefly.idp.cognito.client.CognitoCallCancellation;
+import com.firefly.idp.cognito.client.CognitoCallExecutor;
+import com.firefly.idp.cognito.client.CognitoClientFactory;
+import com.firefly.idp.cognito.metrics.CognitoMetrics;
+import com.firefly.idp.cognito.properties.CognitoProperties;
+import com.firefly.idp.cognito.resilience.CognitoBulkheads;
+import com.firefly.idp.cognito.resilience.CognitoCallTimeouts;
+import com.firefly.idp.cognito.resilience.CognitoCircuitBreakers;
+import com.firefly.idp.cognito.resilience.CognitoConcurrencyLimits;
+import com.firefly.idp.cognito.resilience.CognitoHedging;
+import com.firefly.idp.cognito.sharding.UserPoolShards;
+import com.firefly.idp.cognito.tracing.CognitoTracing;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import software.amazon.awssdk.services.cognitoidentityprovider.CognitoIdentityProviderClient;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.AdminUpdateUserAttributesRequest;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.AdminUpdateUserAttributesResponse;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.AttributeType;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.TooManyRequestsException;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for UserAttributeUpdateCoalescer.
+ */
+@ExtendWith(MockitoExtension.class)
+class UserAttributeUpdateCoalescerTest {
+
+    @Mock
+    private CognitoClientFactory clientFactory;
+
+    @Mock
+    private CognitoIdentityProviderClient client;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private CognitoBulkheads bulkheads;
+    private UserAttributeUpdateCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        CognitoProperties properties = new CognitoProperties();
+        properties.setUserPoolId("us-east-1_test");
+        properties.getUpdateCoalescing().setEnabled(true);
+        properties.getUpdateCoalescing().setWindow(50);
+        bulkheads = new CognitoBulkheads(properties.getBulkhead(), meterRegistry);
+        CognitoCallExecutor calls = new CognitoCallExecutor(new CognitoMetrics(meterRegistry),
+                new CognitoTracing(ObservationRegistry.NOOP, properties.getTracing()),
+                new CognitoCircuitBreakers(properties.getCircuitBreaker(), meterRegistry), bulkheads,
+                new CognitoConcurrencyLimits(properties.getAdaptiveLimit(), meterRegistry),
+                new CognitoHedging(properties.getHedging(), meterRegistry), new CognitoCallTimeouts(properties),
+                new CognitoCallCancellation(meterRegistry));
+        coalescer = new UserAttributeUpdateCoalescer(clientFactory, properties,
+                new UserPoolShards(properties, clientFactory), calls);
+    }
+
+    @AfterEach
+    void tearDown() {
+        coalescer.destroy();
+        bulkheads.destroy();
+    }
+
+    @Test
+    void testSubmit_MergesUpdatesWithinWindow() {
+        // Arrange
+        when(clientFactory.getAdminClient()).thenReturn(client);
+
+        // Act
+        Mono<Void> first = coalescer.submit("alice", List.of(attribute("email", "old@example.com"),
+                attribute("given_name", "Alice")));
+        Mono<Void> second = coalescer.submit("alice", List.of(attribute("email", "new@example.com")));
+
+        // Assert
+        StepVerifier.create(Mono.when(first, second)).verifyComplete();
+
+        ArgumentCaptor<AdminUpdateUserAttributesRequest> captor =
+                ArgumentCaptor.forClass(AdminUpdateUserAttributesRequest.class);
+        verify(client, times(1)).adminUpdateUserAttributes(captor.capture());
+
+        Map<String, String> written = captor.getValue().userAttributes().stream()
+                .collect(Collectors.toMap(AttributeType::name, AttributeType::value));
+        assertThat(captor.getValue().username()).isEqualTo("alice");
+        assertThat(written).containsEntry("email", "new@example.com")
+                .containsEntry("given_name", "Alice")
+                .hasSize(2);
+        assertThat(meterRegistry.get("cognito.operation").tag("operation", "update_user").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void testSubmit_FailurePropagatesToAllCallers() {
+        // Arrange
+        when(clientFactory.getAdminClient()).thenReturn(client);
+        when(client.adminUpdateUserAttributes(any(AdminUpdateUserAttributesRequest.class)))
+                .thenThrow(TooManyRequestsException.builder().message("slow down").build());
+
+        // Act
+        Mono<Throwable> first = coalescer.submit("bob", List.of(attribute("email", "bob@example.com")))
+                .then(Mono.<Throwable>empty())
+                .onErrorResume(Mono::just);
+        Mono<Throwable> second = coalescer.submit("bob", List.of(attribute("family_name", "Smith")))
+                .then(Mono.<Throwable>empty())
+                .onErrorResume(Mono::just);
+
+        // Assert
+        StepVerifier.create(Mono.zip(first, second))
+                .assertNext(errors -> {
+                    assertThat(errors.getT1()).isInstanceOf(TooManyRequestsException.class);
+                    assertThat(errors.getT2()).isInstanceOf(TooManyRequestsException.class);
+                })
+                .verifyComplete();
+        verify(client, times(1)).adminUpdateUserAttributes(any(AdminUpdateUserAttributesRequest.class));
+    }
+
+    @Test
+    void testNextBatch_WrittenAfterWriteInFlight() throws InterruptedException {
+        // Arrange
+        when(clientFactory.getAdminClient()).thenReturn(client);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        when(client.adminUpdateUserAttributes(any(AdminUpdateUserAttributesRequest.class))).thenAnswer(invocation -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            release.await(5, TimeUnit.SECONDS);
+            inFlight.decrementAndGet();
+            return AdminUpdateUserAttributesResponse.builder().build();
+        });
+        Mono<Void> first = coalescer.submit("erin", List.of(attribute("email", "first@example.com"))).cache();
+        first.subscribe();
+        Thread.sleep(150);
+
+        // Act
+        Mono<Void> second = coalescer.submit("erin", List.of(attribute("email", "second@example.com")));
+        Thread.sleep(150);
+        release.countDown();
+
+        // Assert
+        StepVerifier.create(Mono.when(first, second)).verifyComplete();
+        verify(client, times(2)).adminUpdateUserAttributes(any(AdminUpdateUserAttributesRequest.class));
+        assertThat(maxInFlight).hasValue(1);
+    }
+
+    @Test
+    void testCancelledUpdate_LeftOutOfBatch() {
+        // Arrange
+        when(clientFactory.getAdminClient()).thenReturn(client);
+        Disposable cancelled = coalescer.submit("carol", List.of(attribute("email", "typo@example.com"),
+                attribute("given_name", "Carol"))).subscribe();
+
+        // Act
+        cancelled.dispose();
+        Mono<Void> kept = coalescer.submit("carol", List.of(attribute("family_name", "Jones")));
+
+        // Assert
+        StepVerifier.create(kept).verifyComplete();
+        ArgumentCaptor<AdminUpdateUserAttributesRequest> captor =
+                ArgumentCaptor.forClass(AdminUpdateUserAttributesRequest.class);
+        verify(client, times(1)).adminUpdateUserAttributes(captor.capture());
+        assertThat(captor.getValue().userAttributes()).extracting(AttributeType::name).containsExactly("family_name");
+    }
+
+    @Test
+    void testAllUpdatesCancelled_NothingWritten() throws InterruptedException {
+        // Arrange
+        Disposable cancelled = coalescer.submit("dave", List.of(attribute("email", "dave@example.com"))).subscribe();
+
+        // Act
+        cancelled.dispose();
+        Thread.sleep(150);
+
+        // Assert
+        verifyNoInteractions(clientFactory);
+    }
+
+    private static AttributeType attribute(String name, String value) {
+        return AttributeType.builder().name(name).value(value).build();
+    }
+}
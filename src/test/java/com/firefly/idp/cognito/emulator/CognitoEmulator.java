@@ -0,0 +1,788 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.emulator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.firefly.idp.cognito.client.CognitoClientFactory;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.cognitoidentityprovider.CognitoIdentityProviderClient;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.security.SecureRandom;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Embeddable, in-memory emulator of the Cognito user pool API for Docker-free tests.
+ *
+ * <p>Speaks Cognito's JSON protocol over loopback HTTP, so the real AWS SDK client (and
+ * therefore the whole adapter) runs against it unchanged. It covers user pools and app
+ * clients, users, groups, devices, password and refresh authentication (including the
+ * {@code NEW_PASSWORD_REQUIRED} challenge and {@code SECRET_HASH}), {@code GetUser},
+ * global sign-out and refresh token revocation. Tokens are real RS256-signed JWTs whose
+ * issuer is {@code <endpoint>/<poolId>}; the matching JWKS is served at
+ * {@code <issuer>/.well-known/jwks.json}.
+ *
+ * <p>Each instance is independent and binds an ephemeral port, so tests can run in
+ * parallel with one emulator each:
+ * <pre>{@code
+ * try (CognitoEmulator emulator = new CognitoEmulator().start()) {
+ *     String poolId = emulator.createUserPool("test-pool");
+ *     CognitoEmulator.AppClientCredentials client = emulator.createUserPoolClient(poolId, "app", false);
+ *     emulator.configure(clientFactory);
+ *     ...
+ * }
+ * }</pre>
+ */
+@Slf4j
+public class CognitoEmulator implements AutoCloseable {
+
+    private static final String TARGET_PREFIX = "AWSCognitoIdentityProviderService.";
+    private static final String CONTENT_TYPE = "application/x-amz-json-1.1";
+    private static final String WELL_KNOWN = "/.well-known/";
+
+    static {
+        // Without TCP_NODELAY every response waits ~40ms on delayed ACKs; read once, before the first server starts
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    /**
+     * Credentials of an app client
+     *
+     * @param clientId App client id
+     * @param clientSecret App client secret, or {@code null} for public clients
+     */
+    public record AppClientCredentials(String clientId, String clientSecret) {
+    }
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final TokenSigner signer = new TokenSigner(objectMapper);
+    private final SecureRandom random = new SecureRandom();
+    private final Map<String, EmulatedUserPool> pools = new ConcurrentHashMap<>();
+    private final Map<String, EmulatedUserPool> poolsByClientId = new ConcurrentHashMap<>();
+    private final Map<String, Function<JsonNode, ObjectNode>> operations = new LinkedHashMap<>();
+
+    private String region = "us-east-1";
+    private Clock clock = Clock.systemUTC();
+    private Duration accessTokenValidity = Duration.ofHours(1);
+    private Duration refreshTokenValidity = Duration.ofDays(30);
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public CognitoEmulator() {
+        registerOperations();
+    }
+
+    /**
+     * Set the region used in pool ids and ARNs (default {@code us-east-1})
+     */
+    public CognitoEmulator region(String region) {
+        this.region = region;
+        return this;
+    }
+
+    /**
+     * Set the clock used for token issue and expiry times
+     */
+    public CognitoEmulator clock(Clock clock) {
+        this.clock = clock;
+        return this;
+    }
+
+    /**
+     * Set the validity of access and ID tokens (default one hour)
+     */
+    public CognitoEmulator accessTokenValidity(Duration validity) {
+        this.accessTokenValidity = validity;
+        return this;
+    }
+
+    /**
+     * Set the validity of refresh tokens (default 30 days)
+     */
+    public CognitoEmulator refreshTokenValidity(Duration validity) {
+        this.refreshTokenValidity = validity;
+        return this;
+    }
+
+    /**
+     * Start listening on an ephemeral loopback port
+     */
+    public CognitoEmulator start() throws IOException {
+        AtomicInteger threads = new AtomicInteger();
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "cognito-emulator-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 256);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+        return this;
+    }
+
+    @Override
+    public void close() {
+        if (server != null) {
+            server.stop(0);
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @return Endpoint to point Cognito clients at
+     */
+    public URI endpoint() {
+        return URI.create("http://127.0.0.1:" + server.getAddress().getPort());
+    }
+
+    public String region() {
+        return region;
+    }
+
+    /**
+     * @return Credentials accepted by the emulator (any are)
+     */
+    public AwsCredentialsProvider credentialsProvider() {
+        return StaticCredentialsProvider.create(AwsBasicCredentials.create("emulator", "emulator"));
+    }
+
+    /**
+     * Point a client factory at this emulator
+     */
+    public void configure(CognitoClientFactory clientFactory) {
+        clientFactory.setEndpointOverride(endpoint());
+        clientFactory.setCredentialsProvider(credentialsProvider());
+    }
+
+    /**
+     * Build an SDK client talking to this emulator, e.g. for test setup; the caller closes it
+     */
+    public CognitoIdentityProviderClient newClient() {
+        return CognitoIdentityProviderClient.builder()
+                .endpointOverride(endpoint())
+                .credentialsProvider(credentialsProvider())
+                .region(Region.of(region))
+                .build();
+    }
+
+    /**
+     * Create a user pool with Cognito's default password policy
+     *
+     * @return User pool id
+     */
+    public String createUserPool(String poolName) {
+        return createPool(poolName, EmulatedUserPool.PasswordPolicy.builder().build(), false, Set.of()).getId();
+    }
+
+    /**
+     * Create an app client allowing password and refresh token authentication
+     */
+    public AppClientCredentials createUserPoolClient(String userPoolId, String clientName, boolean generateSecret) {
+        EmulatedUserPool.AppClient client = registerClient(pool(userPoolId), clientName, generateSecret);
+        return new AppClientCredentials(client.getClientId(), client.getSecret());
+    }
+
+    /**
+     * @return Issuer ({@code iss} claim) of tokens issued by a pool
+     */
+    public String issuer(String userPoolId) {
+        return endpoint() + "/" + userPoolId;
+    }
+
+    /**
+     * @return Location of a pool's JSON Web Key Set
+     */
+    public URI jwksUri(String userPoolId) {
+        return URI.create(issuer(userPoolId) + WELL_KNOWN + "jwks.json");
+    }
+
+    /**
+     * @return Public key all tokens are signed with
+     */
+    public RSAPublicKey signingKey() {
+        return signer.publicKey();
+    }
+
+    /**
+     * @return Key id ({@code kid}) of the signing key
+     */
+    public String keyId() {
+        return signer.keyId();
+    }
+
+    // ------------------------------------------------------------------- HTTP
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            if ("GET".equals(exchange.getRequestMethod())) {
+                handleWellKnown(exchange);
+                return;
+            }
+
+            String target = exchange.getRequestHeaders().getFirst("X-Amz-Target");
+            Function<JsonNode, ObjectNode> operation = target == null || !target.startsWith(TARGET_PREFIX)
+                    ? null
+                    : operations.get(target.substring(TARGET_PREFIX.length()));
+            if (operation == null) {
+                sendError(exchange, new EmulatorException("UnknownOperationException", "Unknown operation: " + target));
+                return;
+            }
+
+            JsonNode request;
+            try {
+                request = body.length == 0 ? objectMapper.createObjectNode() : objectMapper.readTree(body);
+            } catch (IOException e) {
+                sendError(exchange, new EmulatorException("SerializationException", "Malformed request body"));
+                return;
+            }
+
+            try {
+                send(exchange, 200, operation.apply(request));
+            } catch (EmulatorException e) {
+                sendError(exchange, e);
+            } catch (RuntimeException e) {
+                log.warn("Emulated {} failed", target, e);
+                sendError(exchange, new EmulatorException("InternalErrorException", String.valueOf(e.getMessage()), 500));
+            }
+        }
+    }
+
+    private void handleWellKnown(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        int wellKnown = path.indexOf(WELL_KNOWN);
+        String poolId = wellKnown > 1 ? path.substring(1, wellKnown) : null;
+        if (poolId == null || !pools.containsKey(poolId)) {
+            send(exchange, 404, objectMapper.createObjectNode().put("message", "Not found"));
+            return;
+        }
+        switch (path.substring(wellKnown + WELL_KNOWN.length())) {
+            case "jwks.json" -> send(exchange, 200, signer.jwks());
+            case "openid-configuration" -> {
+                ObjectNode configuration = objectMapper.createObjectNode()
+                        .put("issuer", issuer(poolId))
+                        .put("jwks_uri", jwksUri(poolId).toString());
+                configuration.putArray("id_token_signing_alg_values_supported").add("RS256");
+                configuration.putArray("subject_types_supported").add("public");
+                send(exchange, 200, configuration);
+            }
+            default -> send(exchange, 404, objectMapper.createObjectNode().put("message", "Not found"));
+        }
+    }
+
+    private void send(HttpExchange exchange, int status, ObjectNode response) throws IOException {
+        byte[] body = objectMapper.writeValueAsBytes(response);
+        exchange.getResponseHeaders().add("Content-Type", CONTENT_TYPE);
+        exchange.getResponseHeaders().add("x-amzn-RequestId", java.util.UUID.randomUUID().toString());
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    private void sendError(HttpExchange exchange, EmulatorException error) throws IOException {
+        send(exchange, error.getStatus(), objectMapper.createObjectNode()
+                .put("__type", error.getType())
+                .put("message", error.getMessage()));
+    }
+
+    // ------------------------------------------------------------- operations
+
+    private void registerOperations() {
+        operations.put("CreateUserPool", this::createUserPool);
+        operations.put("DescribeUserPool", request -> {
+            ObjectNode response = objectMapper.createObjectNode();
+            response.set("UserPool", poolJson(pool(request)));
+            return response;
+        });
+        operations.put("DeleteUserPool", request -> {
+            EmulatedUserPool pool = pool(request);
+            pools.remove(pool.getId());
+            poolsByClientId.values().removeIf(candidate -> candidate == pool);
+            return empty();
+        });
+        operations.put("CreateUserPoolClient", request -> {
+            EmulatedUserPool.AppClient client = registerClient(pool(request), required(request, "ClientName"),
+                    request.path("GenerateSecret").asBoolean(false));
+            ObjectNode response = objectMapper.createObjectNode();
+            response.set("UserPoolClient", clientJson(pool(request), client));
+            return response;
+        });
+        operations.put("DescribeUserPoolClient", request -> {
+            EmulatedUserPool pool = pool(request);
+            ObjectNode response = objectMapper.createObjectNode();
+            response.set("UserPoolClient", clientJson(pool, pool.client(required(request, "ClientId"))));
+            return response;
+        });
+
+        operations.put("AdminCreateUser", request -> {
+            EmulatedUserPool pool = pool(request);
+            EmulatedUserPool.User user = pool.createUser(required(request, "Username"),
+                    attributes(request.path("UserAttributes")), optional(request, "TemporaryPassword"));
+            ObjectNode response = objectMapper.createObjectNode();
+            synchronized (pool) {
+                response.set("User", userJson(user, "Attributes", null));
+            }
+            return response;
+        });
+        operations.put("AdminGetUser", request -> {
+            EmulatedUserPool pool = pool(request);
+            synchronized (pool) {
+                ObjectNode response = userJson(pool.user(required(request, "Username")), "UserAttributes", null);
+                response.putArray("UserMFASettingList");
+                return response;
+            }
+        });
+        operations.put("AdminDeleteUser", request -> {
+            pool(request).deleteUser(required(request, "Username"));
+            return empty();
+        });
+        operations.put("AdminSetUserPassword", request -> {
+            pool(request).setPassword(required(request, "Username"), required(request, "Password"),
+                    request.path("Permanent").asBoolean(false));
+            return empty();
+        });
+        operations.put("AdminResetUserPassword", request -> {
+            pool(request).resetPassword(required(request, "Username"));
+            return empty();
+        });
+        operations.put("AdminEnableUser", request -> {
+            pool(request).setEnabled(required(request, "Username"), true);
+            return empty();
+        });
+        operations.put("AdminDisableUser", request -> {
+            pool(request).setEnabled(required(request, "Username"), false);
+            return empty();
+        });
+        operations.put("AdminUpdateUserAttributes", request -> {
+            pool(request).updateAttributes(required(request, "Username"), attributes(request.path("UserAttributes")));
+            return empty();
+        });
+        operations.put("ListUsers", request -> {
+            Set<String> attributesToGet = new HashSet<>();
+            request.path("AttributesToGet").forEach(name -> attributesToGet.add(name.asText()));
+            EmulatedUserPool pool = pool(request);
+            synchronized (pool) {
+                EmulatedUserPool.Page<EmulatedUserPool.User> page = pool.listUsers(optional(request, "Filter"),
+                        optionalInt(request, "Limit"), optional(request, "PaginationToken"));
+                ObjectNode response = objectMapper.createObjectNode();
+                ArrayNode users = response.putArray("Users");
+                page.items().forEach(user -> users.add(userJson(user, "Attributes",
+                        attributesToGet.isEmpty() ? null : attributesToGet)));
+                putIfPresent(response, "PaginationToken", page.nextToken());
+                return response;
+            }
+        });
+
+        operations.put("CreateGroup", request -> {
+            EmulatedUserPool pool = pool(request);
+            EmulatedUserPool.Group group = pool.createGroup(required(request, "GroupName"),
+                    optional(request, "Description"), optionalInt(request, "Precedence"));
+            ObjectNode response = objectMapper.createObjectNode();
+            response.set("Group", groupJson(pool, group));
+            return response;
+        });
+        operations.put("GetGroup", request -> {
+            EmulatedUserPool pool = pool(request);
+            ObjectNode response = objectMapper.createObjectNode();
+            response.set("Group", groupJson(pool, pool.group(required(request, "GroupName"))));
+            return response;
+        });
+        operations.put("DeleteGroup", request -> {
+            pool(request).deleteGroup(required(request, "GroupName"));
+            return empty();
+        });
+        operations.put("ListGroups", request -> {
+            EmulatedUserPool pool = pool(request);
+            return groupsPage(pool, pool.listGroups(optionalInt(request, "Limit"), optional(request, "NextToken")));
+        });
+        operations.put("AdminAddUserToGroup", request -> {
+            pool(request).addUserToGroup(required(request, "Username"), required(request, "GroupName"));
+            return empty();
+        });
+        operations.put("AdminRemoveUserFromGroup", request -> {
+            pool(request).removeUserFromGroup(required(request, "Username"), required(request, "GroupName"));
+            return empty();
+        });
+        operations.put("AdminListGroupsForUser", request -> {
+            EmulatedUserPool pool = pool(request);
+            return groupsPage(pool, pool.groupsForUser(required(request, "Username"),
+                    optionalInt(request, "Limit"), optional(request, "NextToken")));
+        });
+        operations.put("ListUsersInGroup", request -> {
+            EmulatedUserPool pool = pool(request);
+            synchronized (pool) {
+                EmulatedUserPool.Page<EmulatedUserPool.User> page = pool.usersInGroup(required(request, "GroupName"),
+                        optionalInt(request, "Limit"), optional(request, "NextToken"));
+                ObjectNode response = objectMapper.createObjectNode();
+                ArrayNode users = response.putArray("Users");
+                page.items().forEach(user -> users.add(userJson(user, "Attributes", null)));
+                putIfPresent(response, "NextToken", page.nextToken());
+                return response;
+            }
+        });
+
+        operations.put("AdminListDevices", request -> {
+            EmulatedUserPool.Page<EmulatedUserPool.Device> page = pool(request).devices(required(request, "Username"),
+                    optionalInt(request, "Limit"), optional(request, "PaginationToken"));
+            ObjectNode response = objectMapper.createObjectNode();
+            ArrayNode devices = response.putArray("Devices");
+            page.items().forEach(device -> devices.add(deviceJson(device)));
+            putIfPresent(response, "PaginationToken", page.nextToken());
+            return response;
+        });
+        operations.put("AdminForgetDevice", request -> {
+            pool(request).forgetDevice(required(request, "Username"), required(request, "DeviceKey"));
+            return empty();
+        });
+
+        operations.put("InitiateAuth", request -> initiateAuth(poolForClient(required(request, "ClientId")), request));
+        operations.put("AdminInitiateAuth", request -> initiateAuth(pool(request), request));
+        operations.put("RespondToAuthChallenge", request -> {
+            String clientId = required(request, "ClientId");
+            if (!"NEW_PASSWORD_REQUIRED".equals(required(request, "ChallengeName"))) {
+                throw EmulatorException.invalidParameter("Unsupported challenge: " + request.path("ChallengeName").asText());
+            }
+            JsonNode responses = request.path("ChallengeResponses");
+            return authResultJson(poolForClient(clientId).completeNewPassword(clientId, required(request, "Session"),
+                    responses.path("USERNAME").asText(), responses.path("NEW_PASSWORD").asText(),
+                    optional(responses, "SECRET_HASH")));
+        });
+        operations.put("GetUser", request -> {
+            JsonNode claims = signer.verify(required(request, "AccessToken"));
+            EmulatedUserPool pool = poolForToken(claims);
+            synchronized (pool) {
+                EmulatedUserPool.User user = pool.authenticate(claims);
+                ObjectNode response = objectMapper.createObjectNode().put("Username", user.username);
+                response.set("UserAttributes", attributesJson(user, null));
+                response.putArray("UserMFASettingList");
+                return response;
+            }
+        });
+        operations.put("GlobalSignOut", request -> {
+            JsonNode claims = signer.verify(required(request, "AccessToken"));
+            EmulatedUserPool pool = poolForToken(claims);
+            pool.signOut(pool.authenticate(claims).username);
+            return empty();
+        });
+        operations.put("AdminUserGlobalSignOut", request -> {
+            EmulatedUserPool pool = pool(request);
+            String username = required(request, "Username");
+            pool.user(username);
+            pool.signOut(username);
+            return empty();
+        });
+        operations.put("RevokeToken", request -> {
+            String clientId = required(request, "ClientId");
+            poolForClient(clientId).revokeRefreshToken(clientId, optional(request, "ClientSecret"),
+                    required(request, "Token"));
+            return empty();
+        });
+    }
+
+    private ObjectNode createUserPool(JsonNode request) {
+        JsonNode passwordPolicy = request.path("Policies").path("PasswordPolicy");
+        EmulatedUserPool.PasswordPolicy.PasswordPolicyBuilder policy = EmulatedUserPool.PasswordPolicy.builder();
+        if (passwordPolicy.has("MinimumLength")) {
+            policy.minimumLength(passwordPolicy.get("MinimumLength").asInt());
+        }
+        if (passwordPolicy.has("RequireUppercase")) {
+            policy.requireUppercase(passwordPolicy.get("RequireUppercase").asBoolean());
+        }
+        if (passwordPolicy.has("RequireLowercase")) {
+            policy.requireLowercase(passwordPolicy.get("RequireLowercase").asBoolean());
+        }
+        if (passwordPolicy.has("RequireNumbers")) {
+            policy.requireNumbers(passwordPolicy.get("RequireNumbers").asBoolean());
+        }
+        if (passwordPolicy.has("RequireSymbols")) {
+            policy.requireSymbols(passwordPolicy.get("RequireSymbols").asBoolean());
+        }
+
+        Set<String> customAttributes = new HashSet<>();
+        request.path("Schema").forEach(attribute -> {
+            String name = attribute.path("Name").asText();
+            if (!EmulatedUserPool.STANDARD_ATTRIBUTES.containsKey(name)) {
+                customAttributes.add(name.startsWith("custom:") ? name : "custom:" + name);
+            }
+        });
+
+        EmulatedUserPool pool = createPool(required(request, "PoolName"), policy.build(),
+                request.has("DeviceConfiguration"), customAttributes);
+        ObjectNode response = objectMapper.createObjectNode();
+        response.set("UserPool", poolJson(pool));
+        return response;
+    }
+
+    private ObjectNode initiateAuth(EmulatedUserPool pool, JsonNode request) {
+        String clientId = required(request, "ClientId");
+        JsonNode parameters = request.path("AuthParameters");
+        String secretHash = optional(parameters, "SECRET_HASH");
+        EmulatedUserPool.AuthOutcome outcome = switch (required(request, "AuthFlow")) {
+            case "USER_PASSWORD_AUTH", "ADMIN_USER_PASSWORD_AUTH", "ADMIN_NO_SRP_AUTH" -> pool.passwordAuth(clientId,
+                    required(parameters, "USERNAME"), required(parameters, "PASSWORD"), secretHash);
+            case "REFRESH_TOKEN_AUTH", "REFRESH_TOKEN" -> pool.refreshAuth(clientId,
+                    required(parameters, "REFRESH_TOKEN"), secretHash);
+            default -> throw EmulatorException.invalidParameter("Unsupported auth flow: " + request.path("AuthFlow").asText());
+        };
+        return authResultJson(outcome);
+    }
+
+    // ---------------------------------------------------------------- lookups
+
+    private EmulatedUserPool createPool(String poolName, EmulatedUserPool.PasswordPolicy policy,
+                                        boolean deviceTracking, Set<String> customAttributes) {
+        String id = region + "_" + randomId(9);
+        EmulatedUserPool pool = EmulatedUserPool.builder()
+                .id(id)
+                .name(poolName)
+                .issuer(issuer(id))
+                .passwordPolicy(policy)
+                .deviceTracking(deviceTracking)
+                .customAttributes(customAttributes)
+                .signer(signer)
+                .clock(clock)
+                .accessTokenValidity(accessTokenValidity)
+                .refreshTokenValidity(refreshTokenValidity)
+                .build();
+        pools.put(id, pool);
+        return pool;
+    }
+
+    private EmulatedUserPool.AppClient registerClient(EmulatedUserPool pool, String clientName, boolean generateSecret) {
+        EmulatedUserPool.AppClient client = pool.createClient(clientName, generateSecret);
+        poolsByClientId.put(client.getClientId(), pool);
+        return client;
+    }
+
+    private EmulatedUserPool pool(JsonNode request) {
+        return pool(required(request, "UserPoolId"));
+    }
+
+    private EmulatedUserPool pool(String userPoolId) {
+        EmulatedUserPool pool = pools.get(userPoolId);
+        if (pool == null) {
+            throw EmulatorException.resourceNotFound("User pool " + userPoolId + " does not exist.");
+        }
+        return pool;
+    }
+
+    private EmulatedUserPool poolForClient(String clientId) {
+        EmulatedUserPool pool = poolsByClientId.get(clientId);
+        if (pool == null) {
+            throw EmulatorException.resourceNotFound("User pool client " + clientId + " does not exist.");
+        }
+        return pool;
+    }
+
+    private EmulatedUserPool poolForToken(JsonNode claims) {
+        String issuer = claims.path("iss").asText();
+        EmulatedUserPool pool = pools.get(issuer.substring(issuer.lastIndexOf('/') + 1));
+        if (pool == null || !pool.getIssuer().equals(issuer)) {
+            throw EmulatorException.notAuthorized("Invalid Access Token");
+        }
+        return pool;
+    }
+
+    // ---------------------------------------------------------------- JSON
+
+    private ObjectNode empty() {
+        return objectMapper.createObjectNode();
+    }
+
+    private static String required(JsonNode request, String field) {
+        JsonNode value = request.get(field);
+        if (value == null || value.isNull()) {
+            throw EmulatorException.invalidParameter("1 validation error detected: Value null at '"
+                    + Character.toLowerCase(field.charAt(0)) + field.substring(1)
+                    + "' failed to satisfy constraint: Member must not be null");
+        }
+        return value.asText();
+    }
+
+    private static String optional(JsonNode request, String field) {
+        JsonNode value = request.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    private static Integer optionalInt(JsonNode request, String field) {
+        JsonNode value = request.get(field);
+        return value == null || value.isNull() ? null : value.asInt();
+    }
+
+    private static Map<String, String> attributes(JsonNode attributes) {
+        Map<String, String> values = new LinkedHashMap<>();
+        attributes.forEach(attribute -> values.put(attribute.path("Name").asText(), attribute.path("Value").asText()));
+        return values;
+    }
+
+    private static double epochSeconds(Instant instant) {
+        return instant.toEpochMilli() / 1000.0;
+    }
+
+    private static void putIfPresent(ObjectNode node, String field, String value) {
+        if (value != null) {
+            node.put(field, value);
+        }
+    }
+
+    private String randomId(int length) {
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
+        StringBuilder id = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            id.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return id.toString();
+    }
+
+    private ObjectNode poolJson(EmulatedUserPool pool) {
+        EmulatedUserPool.PasswordPolicy policy = pool.getPasswordPolicy();
+        ObjectNode json = objectMapper.createObjectNode()
+                .put("Id", pool.getId())
+                .put("Name", pool.getName())
+                .put("Arn", "arn:aws:cognito-idp:" + region + ":000000000000:userpool/" + pool.getId())
+                .put("CreationDate", epochSeconds(pool.getCreatedAt()))
+                .put("LastModifiedDate", epochSeconds(pool.getCreatedAt()));
+        json.putObject("Policies").putObject("PasswordPolicy")
+                .put("MinimumLength", policy.getMinimumLength())
+                .put("RequireUppercase", policy.isRequireUppercase())
+                .put("RequireLowercase", policy.isRequireLowercase())
+                .put("RequireNumbers", policy.isRequireNumbers())
+                .put("RequireSymbols", policy.isRequireSymbols());
+        ArrayNode schema = json.putArray("SchemaAttributes");
+        EmulatedUserPool.STANDARD_ATTRIBUTES.forEach((name, type) -> schema.addObject()
+                .put("Name", name)
+                .put("AttributeDataType", type)
+                .put("Mutable", !"sub".equals(name))
+                .put("Required", "sub".equals(name)));
+        pool.getCustomAttributes().forEach(name -> schema.addObject()
+                .put("Name", name)
+                .put("AttributeDataType", "String")
+                .put("Mutable", true)
+                .put("Required", false));
+        return json;
+    }
+
+    private ObjectNode clientJson(EmulatedUserPool pool, EmulatedUserPool.AppClient client) {
+        ObjectNode json = objectMapper.createObjectNode()
+                .put("UserPoolId", pool.getId())
+                .put("ClientName", client.getName())
+                .put("ClientId", client.getClientId());
+        putIfPresent(json, "ClientSecret", client.getSecret());
+        json.putArray("ExplicitAuthFlows").add("ALLOW_USER_PASSWORD_AUTH").add("ALLOW_REFRESH_TOKEN_AUTH");
+        return json;
+    }
+
+    private ObjectNode userJson(EmulatedUserPool.User user, String attributesField, Set<String> attributesToGet) {
+        ObjectNode json = objectMapper.createObjectNode().put("Username", user.username);
+        json.set(attributesField, attributesJson(user, attributesToGet));
+        json.put("UserCreateDate", epochSeconds(user.createdAt))
+                .put("UserLastModifiedDate", epochSeconds(user.modifiedAt))
+                .put("Enabled", user.enabled)
+                .put("UserStatus", user.status);
+        return json;
+    }
+
+    private ArrayNode attributesJson(EmulatedUserPool.User user, Set<String> attributesToGet) {
+        ArrayNode attributes = objectMapper.createArrayNode();
+        user.attributes.forEach((name, value) -> {
+            if (attributesToGet == null || attributesToGet.contains(name)) {
+                attributes.addObject().put("Name", name).put("Value", value);
+            }
+        });
+        return attributes;
+    }
+
+    private ObjectNode groupJson(EmulatedUserPool pool, EmulatedUserPool.Group group) {
+        ObjectNode json = objectMapper.createObjectNode()
+                .put("GroupName", group.name)
+                .put("UserPoolId", pool.getId())
+                .put("CreationDate", epochSeconds(group.createdAt))
+                .put("LastModifiedDate", epochSeconds(group.createdAt));
+        putIfPresent(json, "Description", group.description);
+        if (group.precedence != null) {
+            json.put("Precedence", group.precedence);
+        }
+        return json;
+    }
+
+    private ObjectNode groupsPage(EmulatedUserPool pool, EmulatedUserPool.Page<EmulatedUserPool.Group> page) {
+        ObjectNode response = objectMapper.createObjectNode();
+        ArrayNode groups = response.putArray("Groups");
+        page.items().forEach(group -> groups.add(groupJson(pool, group)));
+        putIfPresent(response, "NextToken", page.nextToken());
+        return response;
+    }
+
+    private ObjectNode deviceJson(EmulatedUserPool.Device device) {
+        ObjectNode json = objectMapper.createObjectNode().put("DeviceKey", device.key);
+        json.putArray("DeviceAttributes").addObject().put("Name", "device_status").put("Value", "valid");
+        json.put("DeviceCreateDate", epochSeconds(device.createdAt))
+                .put("DeviceLastModifiedDate", epochSeconds(device.createdAt))
+                .put("DeviceLastAuthenticatedDate", epochSeconds(device.createdAt));
+        return json;
+    }
+
+    private ObjectNode authResultJson(EmulatedUserPool.AuthOutcome outcome) {
+        ObjectNode response = objectMapper.createObjectNode();
+        ObjectNode challengeParameters = response.putObject("ChallengeParameters");
+        if (outcome.getChallengeName() != null) {
+            response.put("ChallengeName", outcome.getChallengeName()).put("Session", outcome.getSession());
+            challengeParameters.put("USER_ID_FOR_SRP", outcome.getChallengeUsername())
+                    .put("requiredAttributes", "[]")
+                    .put("userAttributes", "{}");
+            return response;
+        }
+        ObjectNode result = response.putObject("AuthenticationResult")
+                .put("AccessToken", outcome.getAccessToken())
+                .put("ExpiresIn", outcome.getExpiresIn())
+                .put("TokenType", "Bearer")
+                .put("IdToken", outcome.getIdToken());
+        putIfPresent(result, "RefreshToken", outcome.getRefreshToken());
+        if (outcome.getDevice() != null) {
+            result.putObject("NewDeviceMetadata")
+                    .put("DeviceKey", outcome.getDevice().key)
+                    .put("DeviceGroupKey", outcome.getDevice().groupKey);
+        }
+        return response;
+    }
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.emulator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.firefly.idp.cognito.util.CognitoSecretHashCalculator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.cognitoidentityprovider.CognitoIdentityProviderClient;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.*;
+
+import java.math.BigInteger;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.spec.RSAPublicKeySpec;
+import java.util.Base64;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for CognitoEmulator.
+ */
+class CognitoEmulatorTest {
+
+    private static final String PASSWORD = "TestPass123!";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private CognitoEmulator emulator;
+    private CognitoIdentityProviderClient client;
+    private String userPoolId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        emulator = new CognitoEmulator().start();
+        client = emulator.newClient();
+        userPoolId = client.createUserPool(CreateUserPoolRequest.builder()
+                        .poolName("test-pool")
+                        .deviceConfiguration(DeviceConfigurationType.builder()
+                                .challengeRequiredOnNewDevice(false)
+                                .build())
+                        .build())
+                .userPool().id();
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.close();
+        emulator.close();
+    }
+
+    @Test
+    void testPasswordAuth_IssuesTokensVerifiableWithJwks() throws Exception {
+        // Arrange
+        UserPoolClientType appClient = client.createUserPoolClient(CreateUserPoolClientRequest.builder()
+                .userPoolId(userPoolId)
+                .clientName("app")
+                .generateSecret(true)
+                .build()).userPoolClient();
+        createConfirmedUser("john", "john@example.com");
+        client.createGroup(CreateGroupRequest.builder().userPoolId(userPoolId).groupName("admin").build());
+        client.adminAddUserToGroup(AdminAddUserToGroupRequest.builder()
+                .userPoolId(userPoolId).username("john").groupName("admin").build());
+
+        // Act
+        AuthenticationResultType result = client.initiateAuth(InitiateAuthRequest.builder()
+                .authFlow(AuthFlowType.USER_PASSWORD_AUTH)
+                .clientId(appClient.clientId())
+                .authParameters(Map.of("USERNAME", "john", "PASSWORD", PASSWORD,
+                        "SECRET_HASH", CognitoSecretHashCalculator.calculateSecretHash(
+                                appClient.clientId(), appClient.clientSecret(), "john")))
+                .build()).authenticationResult();
+
+        // Assert
+        JsonNode jwks = objectMapper.readTree(HttpClient.newHttpClient().send(
+                HttpRequest.newBuilder(emulator.jwksUri(userPoolId)).build(),
+                HttpResponse.BodyHandlers.ofString()).body());
+        JsonNode key = jwks.path("keys").get(0);
+        assertThat(key.path("kid").asText()).isEqualTo(emulator.keyId());
+
+        JsonNode accessClaims = verify(result.accessToken(), key);
+        assertThat(accessClaims.path("iss").asText()).isEqualTo(emulator.issuer(userPoolId));
+        assertThat(accessClaims.path("token_use").asText()).isEqualTo("access");
+        assertThat(accessClaims.path("username").asText()).isEqualTo("john");
+        assertThat(accessClaims.path("client_id").asText()).isEqualTo(appClient.clientId());
+        assertThat(accessClaims.path("cognito:groups").get(0).asText()).isEqualTo("admin");
+
+        JsonNode idClaims = verify(result.idToken(), key);
+        assertThat(idClaims.path("token_use").asText()).isEqualTo("id");
+        assertThat(idClaims.path("aud").asText()).isEqualTo(appClient.clientId());
+        assertThat(idClaims.path("email").asText()).isEqualTo("john@example.com");
+        assertThat(result.refreshToken()).isNotEmpty();
+        assertThat(result.newDeviceMetadata().deviceKey()).startsWith("us-east-1_");
+    }
+
+    @Test
+    void testGlobalSignOut_RevokesAccessAndRefreshTokens() {
+        // Arrange
+        String clientId = emulator.createUserPoolClient(userPoolId, "app", false).clientId();
+        createConfirmedUser("john", "john@example.com");
+        AuthenticationResultType result = login(clientId, "john", PASSWORD);
+        GetUserResponse user = client.getUser(GetUserRequest.builder().accessToken(result.accessToken()).build());
+
+        // Act
+        client.globalSignOut(GlobalSignOutRequest.builder().accessToken(result.accessToken()).build());
+
+        // Assert
+        assertThat(user.username()).isEqualTo("john");
+        assertThatThrownBy(() -> client.getUser(GetUserRequest.builder().accessToken(result.accessToken()).build()))
+                .isInstanceOf(NotAuthorizedException.class)
+                .hasMessageContaining("revoked");
+        assertThatThrownBy(() -> refresh(clientId, result.refreshToken()))
+                .isInstanceOf(NotAuthorizedException.class);
+    }
+
+    @Test
+    void testRevokeToken_InvalidatesOnlyThatSession() {
+        // Arrange
+        String clientId = emulator.createUserPoolClient(userPoolId, "app", false).clientId();
+        createConfirmedUser("john", "john@example.com");
+        AuthenticationResultType revoked = login(clientId, "john", PASSWORD);
+        AuthenticationResultType kept = login(clientId, "john", PASSWORD);
+
+        // Act
+        client.revokeToken(RevokeTokenRequest.builder().clientId(clientId).token(revoked.refreshToken()).build());
+
+        // Assert
+        assertThatThrownBy(() -> refresh(clientId, revoked.refreshToken()))
+                .isInstanceOf(NotAuthorizedException.class);
+        assertThat(refresh(clientId, kept.refreshToken()).accessToken()).isNotEmpty();
+        assertThat(client.adminListDevices(AdminListDevicesRequest.builder()
+                .userPoolId(userPoolId).username("john").build()).devices()).hasSize(2);
+    }
+
+    @Test
+    void testNewUser_MustChangeTemporaryPassword() {
+        // Arrange
+        String clientId = emulator.createUserPoolClient(userPoolId, "app", false).clientId();
+        client.adminCreateUser(AdminCreateUserRequest.builder()
+                .userPoolId(userPoolId)
+                .username("jane")
+                .temporaryPassword("TempPass123!")
+                .build());
+
+        // Act
+        InitiateAuthResponse challenge = client.initiateAuth(InitiateAuthRequest.builder()
+                .authFlow(AuthFlowType.USER_PASSWORD_AUTH)
+                .clientId(clientId)
+                .authParameters(Map.of("USERNAME", "jane", "PASSWORD", "TempPass123!"))
+                .build());
+        RespondToAuthChallengeResponse response = client.respondToAuthChallenge(RespondToAuthChallengeRequest.builder()
+                .clientId(clientId)
+                .challengeName(ChallengeNameType.NEW_PASSWORD_REQUIRED)
+                .session(challenge.session())
+                .challengeResponses(Map.of("USERNAME", "jane", "NEW_PASSWORD", PASSWORD))
+                .build());
+
+        // Assert
+        assertThat(challenge.authenticationResult()).isNull();
+        assertThat(challenge.challengeName()).isEqualTo(ChallengeNameType.NEW_PASSWORD_REQUIRED);
+        assertThat(response.authenticationResult().accessToken()).isNotEmpty();
+        assertThat(client.adminGetUser(AdminGetUserRequest.builder().userPoolId(userPoolId).username("jane").build())
+                .userStatus()).isEqualTo(UserStatusType.CONFIRMED);
+        assertThatThrownBy(() -> login(clientId, "jane", "WrongPass123!"))
+                .isInstanceOf(NotAuthorizedException.class);
+        assertThatThrownBy(() -> login(clientId, "nobody", PASSWORD))
+                .isInstanceOf(UserNotFoundException.class);
+    }
+
+    private void createConfirmedUser(String username, String email) {
+        client.adminCreateUser(AdminCreateUserRequest.builder()
+                .userPoolId(userPoolId)
+                .username(username)
+                .userAttributes(AttributeType.builder().name("email").value(email).build())
+                .messageAction(MessageActionType.SUPPRESS)
+                .build());
+        client.adminSetUserPassword(AdminSetUserPasswordRequest.builder()
+                .userPoolId(userPoolId)
+                .username(username)
+                .password(PASSWORD)
+                .permanent(true)
+                .build());
+    }
+
+    private AuthenticationResultType login(String clientId, String username, String password) {
+        return client.initiateAuth(InitiateAuthRequest.builder()
+                .authFlow(AuthFlowType.USER_PASSWORD_AUTH)
+                .clientId(clientId)
+                .authParameters(Map.of("USERNAME", username, "PASSWORD", password))
+                .build()).authenticationResult();
+    }
+
+    private AuthenticationResultType refresh(String clientId, String refreshToken) {
+        return client.initiateAuth(InitiateAuthRequest.builder()
+                .authFlow(AuthFlowType.REFRESH_TOKEN_AUTH)
+                .clientId(clientId)
+                .authParameters(Map.of("REFRESH_TOKEN", refreshToken))
+                .build()).authenticationResult();
+    }
+
+    private JsonNode verify(String token, JsonNode jwk) throws Exception {
+        Base64.Decoder decoder = Base64.getUrlDecoder();
+        PublicKey key = KeyFactory.getInstance("RSA").generatePublic(new RSAPublicKeySpec(
+                new BigInteger(1, decoder.decode(jwk.path("n").asText())),
+                new BigInteger(1, decoder.decode(jwk.path("e").asText()))));
+        String[] parts = token.split("\\.");
+        Signature signature = Signature.getInstance("SHA256withRSA");
+        signature.initVerify(key);
+        signature.update((parts[0] + "." + parts[1]).getBytes(StandardCharsets.US_ASCII));
+
+        assertThat(signature.verify(decoder.decode(parts[2]))).isTrue();
+        assertThat(objectMapper.readTree(decoder.decode(parts[0])).path("alg").asText()).isEqualTo("RS256");
+        return objectMapper.readTree(decoder.decode(parts[1]));
+    }
+}
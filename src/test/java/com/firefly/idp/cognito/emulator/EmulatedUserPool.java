@@ -0,0 +1,680 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.emulator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.firefly.idp.cognito.util.CognitoSecretHashCalculator;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Value;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory state and behaviour of one emulated user pool: app clients, users,
+ * groups, devices and sign-in sessions.
+ *
+ * <p>Every method is synchronized on the pool; pools are independent of each other.
+ */
+final class EmulatedUserPool {
+
+    /**
+     * Standard attributes every Cognito user pool schema contains
+     */
+    static final Map<String, String> STANDARD_ATTRIBUTES = standardAttributes();
+
+    private static final Pattern FILTER = Pattern.compile("^\\s*([\\w:]+)\\s*(=|\\^=)\\s*\"(.*)\"\\s*$");
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final int MAX_PAGE_SIZE = 60;
+
+    @Getter
+    private final String id;
+    @Getter
+    private final String name;
+    @Getter
+    private final String issuer;
+    @Getter
+    private final Instant createdAt;
+    @Getter
+    private final PasswordPolicy passwordPolicy;
+    @Getter
+    private final boolean deviceTracking;
+    @Getter
+    private final Set<String> customAttributes;
+
+    private final TokenSigner signer;
+    private final Clock clock;
+    private final Duration accessTokenValidity;
+    private final Duration refreshTokenValidity;
+
+    private final Map<String, AppClient> clients = new LinkedHashMap<>();
+    private final Map<String, User> users = new LinkedHashMap<>();
+    private final Map<String, Group> groups = new LinkedHashMap<>();
+    private final Map<String, Session> sessionsById = new HashMap<>();
+    private final Map<String, Session> sessionsByRefreshToken = new HashMap<>();
+    private final Map<String, Session> pendingChallenges = new HashMap<>();
+
+    @Builder
+    EmulatedUserPool(String id, String name, String issuer, PasswordPolicy passwordPolicy, boolean deviceTracking,
+                     Set<String> customAttributes, TokenSigner signer, Clock clock,
+                     Duration accessTokenValidity, Duration refreshTokenValidity) {
+        this.id = id;
+        this.name = name;
+        this.issuer = issuer;
+        this.passwordPolicy = passwordPolicy;
+        this.deviceTracking = deviceTracking;
+        this.customAttributes = Set.copyOf(customAttributes);
+        this.signer = signer;
+        this.clock = clock;
+        this.accessTokenValidity = accessTokenValidity;
+        this.refreshTokenValidity = refreshTokenValidity;
+        this.createdAt = clock.instant();
+    }
+
+    // ---------------------------------------------------------------- clients
+
+    synchronized AppClient createClient(String clientName, boolean generateSecret) {
+        AppClient client = new AppClient(randomToken(26, "abcdefghijklmnopqrstuvwxyz0123456789"), clientName,
+                generateSecret ? randomToken(51, "abcdefghijklmnopqrstuvwxyz0123456789") : null);
+        clients.put(client.getClientId(), client);
+        return client;
+    }
+
+    synchronized AppClient client(String clientId) {
+        AppClient client = clients.get(clientId);
+        if (client == null) {
+            throw EmulatorException.resourceNotFound("User pool client " + clientId + " does not exist.");
+        }
+        return client;
+    }
+
+    // ------------------------------------------------------------------ users
+
+    synchronized User createUser(String username, Map<String, String> attributes, String temporaryPassword) {
+        if (users.containsKey(username)) {
+            throw new EmulatorException("UsernameExistsException", "User account already exists");
+        }
+        validateAttributes(attributes);
+        String password = temporaryPassword != null ? temporaryPassword : generatePassword();
+        passwordPolicy.check(password);
+
+        Instant now = clock.instant();
+        User user = new User(username, UUID.randomUUID().toString(), now);
+        user.attributes.put("sub", user.sub);
+        user.attributes.putAll(attributes);
+        user.password = password;
+        user.status = "FORCE_CHANGE_PASSWORD";
+        user.modifiedAt = now;
+        users.put(username, user);
+        return user;
+    }
+
+    synchronized User user(String username) {
+        User user = users.get(username);
+        if (user == null) {
+            throw EmulatorException.userNotFound();
+        }
+        return user;
+    }
+
+    synchronized void setPassword(String username, String password, boolean permanent) {
+        User user = user(username);
+        passwordPolicy.check(password);
+        user.password = password;
+        user.status = permanent ? "CONFIRMED" : "FORCE_CHANGE_PASSWORD";
+        user.modifiedAt = clock.instant();
+    }
+
+    synchronized void resetPassword(String username) {
+        User user = user(username);
+        user.status = "RESET_REQUIRED";
+        user.modifiedAt = clock.instant();
+    }
+
+    synchronized void setEnabled(String username, boolean enabled) {
+        User user = user(username);
+        user.enabled = enabled;
+        user.modifiedAt = clock.instant();
+    }
+
+    synchronized void updateAttributes(String username, Map<String, String> attributes) {
+        User user = user(username);
+        validateAttributes(attributes);
+        user.attributes.putAll(attributes);
+        user.modifiedAt = clock.instant();
+    }
+
+    synchronized void deleteUser(String username) {
+        User user = users.remove(username);
+        if (user == null) {
+            throw EmulatorException.userNotFound();
+        }
+        user.groups.forEach(group -> groups.get(group).members.remove(username));
+        signOut(username);
+    }
+
+    synchronized Page<User> listUsers(String filter, Integer limit, String paginationToken) {
+        return Page.of(List.copyOf(users.values()).stream().filter(userFilter(filter)).toList(), limit, paginationToken);
+    }
+
+    // ----------------------------------------------------------------- groups
+
+    synchronized Group createGroup(String groupName, String description, Integer precedence) {
+        if (groups.containsKey(groupName)) {
+            throw new EmulatorException("GroupExistsException", "A group with the name " + groupName + " already exists.");
+        }
+        Group group = new Group(groupName, description, precedence, clock.instant());
+        groups.put(groupName, group);
+        return group;
+    }
+
+    synchronized Group group(String groupName) {
+        Group group = groups.get(groupName);
+        if (group == null) {
+            throw EmulatorException.resourceNotFound("Group not found.");
+        }
+        return group;
+    }
+
+    synchronized void deleteGroup(String groupName) {
+        Group group = group(groupName);
+        group.members.forEach(member -> users.get(member).groups.remove(groupName));
+        groups.remove(groupName);
+    }
+
+    synchronized Page<Group> listGroups(Integer limit, String nextToken) {
+        return Page.of(List.copyOf(groups.values()), limit, nextToken);
+    }
+
+    synchronized void addUserToGroup(String username, String groupName) {
+        User user = user(username);
+        group(groupName).members.add(username);
+        user.groups.add(groupName);
+    }
+
+    synchronized void removeUserFromGroup(String username, String groupName) {
+        User user = user(username);
+        group(groupName).members.remove(username);
+        user.groups.remove(groupName);
+    }
+
+    synchronized Page<Group> groupsForUser(String username, Integer limit, String nextToken) {
+        return Page.of(user(username).groups.stream().map(groups::get).toList(), limit, nextToken);
+    }
+
+    synchronized Page<User> usersInGroup(String groupName, Integer limit, String nextToken) {
+        return Page.of(group(groupName).members.stream().map(users::get).toList(), limit, nextToken);
+    }
+
+    // ---------------------------------------------------------------- devices
+
+    synchronized Page<Device> devices(String username, Integer limit, String paginationToken) {
+        return Page.of(List.copyOf(user(username).devices.values()), limit, paginationToken);
+    }
+
+    synchronized void forgetDevice(String username, String deviceKey) {
+        Device device = user(username).devices.remove(deviceKey);
+        if (device == null) {
+            throw EmulatorException.resourceNotFound("Device does not exist.");
+        }
+        sessionsById.values().stream()
+                .filter(session -> deviceKey.equals(session.deviceKey))
+                .toList()
+                .forEach(this::revoke);
+    }
+
+    // ----------------------------------------------------------- authentication
+
+    /**
+     * USER_PASSWORD_AUTH / ADMIN_USER_PASSWORD_AUTH
+     */
+    synchronized AuthOutcome passwordAuth(String clientId, String username, String password, String secretHash) {
+        AppClient client = client(clientId);
+        checkSecretHash(client, username, secretHash, true);
+        User user = users.get(username);
+        if (user == null) {
+            throw EmulatorException.userNotFound();
+        }
+        if (!user.enabled) {
+            throw EmulatorException.notAuthorized("User is disabled.");
+        }
+        if (!MessageDigest.isEqual(user.password.getBytes(StandardCharsets.UTF_8), password.getBytes(StandardCharsets.UTF_8))) {
+            throw EmulatorException.notAuthorized("Incorrect username or password.");
+        }
+        if ("RESET_REQUIRED".equals(user.status)) {
+            throw new EmulatorException("PasswordResetRequiredException", "Password reset required for the user");
+        }
+        if ("FORCE_CHANGE_PASSWORD".equals(user.status)) {
+            Session challenge = new Session(UUID.randomUUID().toString(), username, clientId, clock.instant());
+            String sessionToken = randomToken(64, null);
+            pendingChallenges.put(sessionToken, challenge);
+            return AuthOutcome.builder().challengeName("NEW_PASSWORD_REQUIRED").session(sessionToken)
+                    .challengeUsername(username).build();
+        }
+        return startSession(client, user);
+    }
+
+    /**
+     * RespondToAuthChallenge for NEW_PASSWORD_REQUIRED
+     */
+    synchronized AuthOutcome completeNewPassword(String clientId, String sessionToken, String username,
+                                                 String newPassword, String secretHash) {
+        AppClient client = client(clientId);
+        checkSecretHash(client, username, secretHash, true);
+        Session challenge = pendingChallenges.remove(sessionToken);
+        if (challenge == null || !challenge.username.equals(username) || !challenge.clientId.equals(clientId)) {
+            throw EmulatorException.notAuthorized("Invalid session for the user.");
+        }
+        setPassword(username, newPassword, true);
+        return startSession(client, user(username));
+    }
+
+    /**
+     * REFRESH_TOKEN_AUTH / REFRESH_TOKEN
+     */
+    synchronized AuthOutcome refreshAuth(String clientId, String refreshToken, String secretHash) {
+        AppClient client = client(clientId);
+        Session session = sessionsByRefreshToken.get(refreshToken);
+        if (session == null || !session.clientId.equals(clientId)) {
+            throw EmulatorException.notAuthorized("Invalid Refresh Token");
+        }
+        if (session.revoked) {
+            throw EmulatorException.notAuthorized("Refresh Token has been revoked");
+        }
+        if (clock.instant().isAfter(session.authTime.plus(refreshTokenValidity))) {
+            throw EmulatorException.notAuthorized("Refresh Token has expired");
+        }
+        checkSecretHash(client, session.username, secretHash, false);
+        return AuthOutcome.builder()
+                .accessToken(accessToken(session, user(session.username)))
+                .idToken(idToken(session, user(session.username)))
+                .expiresIn(accessTokenValidity.toSeconds())
+                .build();
+    }
+
+    /**
+     * Resolve the user an access token was issued to
+     *
+     * @param claims Verified claims of the access token
+     */
+    synchronized User authenticate(JsonNode claims) {
+        if (!"access".equals(claims.path("token_use").asText())) {
+            throw EmulatorException.notAuthorized("Invalid Access Token");
+        }
+        if (clock.instant().getEpochSecond() >= claims.path("exp").asLong()) {
+            throw EmulatorException.notAuthorized("Access Token has expired");
+        }
+        Session session = sessionsById.get(claims.path("origin_jti").asText());
+        if (session == null || session.revoked) {
+            throw EmulatorException.notAuthorized("Access Token has been revoked");
+        }
+        User user = users.get(session.username);
+        if (user == null) {
+            throw EmulatorException.notAuthorized("Access Token has been revoked");
+        }
+        return user;
+    }
+
+    /**
+     * Revoke every session of a user, invalidating its access and refresh tokens
+     */
+    synchronized void signOut(String username) {
+        sessionsById.values().stream()
+                .filter(session -> session.username.equals(username))
+                .toList()
+                .forEach(this::revoke);
+    }
+
+    /**
+     * Revoke the session a refresh token belongs to; unknown tokens are ignored
+     */
+    synchronized void revokeRefreshToken(String clientId, String clientSecret, String refreshToken) {
+        AppClient client = client(clientId);
+        if (client.getSecret() != null && !client.getSecret().equals(clientSecret)) {
+            throw EmulatorException.notAuthorized("Client secret is invalid.");
+        }
+        Session session = sessionsByRefreshToken.get(refreshToken);
+        if (session != null) {
+            if (!session.clientId.equals(clientId)) {
+                throw new EmulatorException("UnauthorizedException", "Token was not issued to this client");
+            }
+            revoke(session);
+        }
+    }
+
+    // ---------------------------------------------------------------- helpers
+
+    private AuthOutcome startSession(AppClient client, User user) {
+        Instant now = clock.instant();
+        Session session = new Session(UUID.randomUUID().toString(), user.username, client.getClientId(), now);
+        session.refreshToken = randomToken(96, null);
+
+        Device device = null;
+        if (deviceTracking) {
+            device = new Device(id.substring(0, id.indexOf('_')) + "_" + UUID.randomUUID(),
+                    "-" + randomToken(9, "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789"), now);
+            user.devices.put(device.key, device);
+            session.deviceKey = device.key;
+        }
+
+        sessionsById.put(session.id, session);
+        sessionsByRefreshToken.put(session.refreshToken, session);
+        return AuthOutcome.builder()
+                .accessToken(accessToken(session, user))
+                .idToken(idToken(session, user))
+                .refreshToken(session.refreshToken)
+                .expiresIn(accessTokenValidity.toSeconds())
+                .device(device)
+                .build();
+    }
+
+    private String accessToken(Session session, User user) {
+        Instant now = clock.instant();
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("sub", user.sub);
+        if (session.deviceKey != null) {
+            claims.put("device_key", session.deviceKey);
+        }
+        if (!user.groups.isEmpty()) {
+            claims.put("cognito:groups", List.copyOf(user.groups));
+        }
+        claims.put("iss", issuer);
+        claims.put("client_id", session.clientId);
+        claims.put("origin_jti", session.id);
+        claims.put("event_id", UUID.randomUUID().toString());
+        claims.put("token_use", "access");
+        claims.put("scope", "aws.cognito.signin.user.admin");
+        claims.put("auth_time", session.authTime.getEpochSecond());
+        claims.put("exp", now.plus(accessTokenValidity).getEpochSecond());
+        claims.put("iat", now.getEpochSecond());
+        claims.put("jti", UUID.randomUUID().toString());
+        claims.put("username", user.username);
+        return signer.sign(claims);
+    }
+
+    private String idToken(Session session, User user) {
+        Instant now = clock.instant();
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("sub", user.sub);
+        if (!user.groups.isEmpty()) {
+            claims.put("cognito:groups", List.copyOf(user.groups));
+        }
+        user.attributes.forEach((attribute, value) -> {
+            if (!"sub".equals(attribute)) {
+                claims.put(attribute, "Boolean".equals(STANDARD_ATTRIBUTES.get(attribute)) ? Boolean.valueOf(value) : value);
+            }
+        });
+        claims.put("iss", issuer);
+        claims.put("cognito:username", user.username);
+        claims.put("origin_jti", session.id);
+        claims.put("aud", session.clientId);
+        claims.put("event_id", UUID.randomUUID().toString());
+        claims.put("token_use", "id");
+        claims.put("auth_time", session.authTime.getEpochSecond());
+        claims.put("exp", now.plus(accessTokenValidity).getEpochSecond());
+        claims.put("iat", now.getEpochSecond());
+        claims.put("jti", UUID.randomUUID().toString());
+        return signer.sign(claims);
+    }
+
+    private void revoke(Session session) {
+        session.revoked = true;
+        sessionsById.remove(session.id);
+        if (session.refreshToken != null) {
+            sessionsByRefreshToken.remove(session.refreshToken);
+        }
+    }
+
+    /**
+     * Cognito requires SECRET_HASH for password flows of clients with a secret.
+     * For refresh it is only verified when present, since the hash is keyed by a
+     * username the caller may not know.
+     */
+    private static void checkSecretHash(AppClient client, String username, String secretHash, boolean required) {
+        if (client.getSecret() == null || (secretHash == null && !required)) {
+            return;
+        }
+        if (secretHash == null) {
+            throw EmulatorException.notAuthorized("Client " + client.getClientId()
+                    + " is configured for secret but secret was not received");
+        }
+        String expected = CognitoSecretHashCalculator.calculateSecretHash(client.getClientId(), client.getSecret(), username);
+        if (!expected.equals(secretHash)) {
+            throw EmulatorException.notAuthorized("Unable to verify secret hash for client " + client.getClientId());
+        }
+    }
+
+    private void validateAttributes(Map<String, String> attributes) {
+        for (String attribute : attributes.keySet()) {
+            if ("sub".equals(attribute)) {
+                throw EmulatorException.invalidParameter("Cannot modify the non-mutable attribute sub");
+            }
+            if (!STANDARD_ATTRIBUTES.containsKey(attribute) && !customAttributes.contains(attribute)) {
+                throw EmulatorException.invalidParameter("Attribute does not exist in the schema: " + attribute);
+            }
+        }
+    }
+
+    private static Predicate<User> userFilter(String filter) {
+        if (filter == null || filter.isBlank()) {
+            return user -> true;
+        }
+        Matcher matcher = FILTER.matcher(filter);
+        if (!matcher.matches()) {
+            throw EmulatorException.invalidParameter("Invalid search filter: " + filter);
+        }
+        String attribute = matcher.group(1);
+        boolean prefix = "^=".equals(matcher.group(2));
+        String expected = matcher.group(3);
+        return user -> {
+            String actual = switch (attribute) {
+                case "username" -> user.username;
+                case "status" -> user.enabled ? "Enabled" : "Disabled";
+                case "cognito:user_status" -> user.status;
+                default -> user.attributes.get(attribute);
+            };
+            return actual != null && (prefix ? actual.startsWith(expected) : actual.equals(expected));
+        };
+    }
+
+    private String generatePassword() {
+        return randomToken(12, null) + "Aa1!";
+    }
+
+    private static String randomToken(int length, String alphabet) {
+        if (alphabet == null) {
+            byte[] bytes = new byte[length * 3 / 4 + 1];
+            RANDOM.nextBytes(bytes);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes).substring(0, length);
+        }
+        StringBuilder token = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            token.append(alphabet.charAt(RANDOM.nextInt(alphabet.length())));
+        }
+        return token.toString();
+    }
+
+    private static Map<String, String> standardAttributes() {
+        Map<String, String> attributes = new LinkedHashMap<>();
+        for (String attribute : List.of("sub", "name", "given_name", "family_name", "middle_name", "nickname",
+                "preferred_username", "profile", "picture", "website", "email", "gender", "birthdate",
+                "zoneinfo", "locale", "phone_number", "address")) {
+            attributes.put(attribute, "String");
+        }
+        attributes.put("email_verified", "Boolean");
+        attributes.put("phone_number_verified", "Boolean");
+        attributes.put("updated_at", "Number");
+        return Map.copyOf(attributes);
+    }
+
+    // ------------------------------------------------------------------ model
+
+    /**
+     * Password requirements of the pool; Cognito's defaults unless configured
+     */
+    @Value
+    @Builder
+    static class PasswordPolicy {
+        @Builder.Default
+        int minimumLength = 8;
+        @Builder.Default
+        boolean requireUppercase = true;
+        @Builder.Default
+        boolean requireLowercase = true;
+        @Builder.Default
+        boolean requireNumbers = true;
+        @Builder.Default
+        boolean requireSymbols = true;
+
+        void check(String password) {
+            boolean valid = password.length() >= minimumLength
+                    && (!requireUppercase || password.chars().anyMatch(Character::isUpperCase))
+                    && (!requireLowercase || password.chars().anyMatch(Character::isLowerCase))
+                    && (!requireNumbers || password.chars().anyMatch(Character::isDigit))
+                    && (!requireSymbols || password.chars().anyMatch(c -> !Character.isLetterOrDigit(c)));
+            if (!valid) {
+                throw new EmulatorException("InvalidPasswordException", "Password did not conform with policy");
+            }
+        }
+    }
+
+    @Value
+    static class AppClient {
+        String clientId;
+        String name;
+        String secret;
+    }
+
+    static final class User {
+        final String username;
+        final String sub;
+        final Instant createdAt;
+        final Map<String, String> attributes = new LinkedHashMap<>();
+        final Set<String> groups = new LinkedHashSet<>();
+        final Map<String, Device> devices = new LinkedHashMap<>();
+        String password;
+        String status;
+        boolean enabled = true;
+        Instant modifiedAt;
+
+        User(String username, String sub, Instant createdAt) {
+            this.username = username;
+            this.sub = sub;
+            this.createdAt = createdAt;
+        }
+    }
+
+    static final class Group {
+        final String name;
+        final String description;
+        final Integer precedence;
+        final Instant createdAt;
+        final Set<String> members = new LinkedHashSet<>();
+
+        Group(String name, String description, Integer precedence, Instant createdAt) {
+            this.name = name;
+            this.description = description;
+            this.precedence = precedence;
+            this.createdAt = createdAt;
+        }
+    }
+
+    static final class Device {
+        final String key;
+        final String groupKey;
+        final Instant createdAt;
+
+        Device(String key, String groupKey, Instant createdAt) {
+            this.key = key;
+            this.groupKey = groupKey;
+            this.createdAt = createdAt;
+        }
+    }
+
+    private static final class Session {
+        final String id;
+        final String username;
+        final String clientId;
+        final Instant authTime;
+        String refreshToken;
+        String deviceKey;
+        boolean revoked;
+
+        Session(String id, String username, String clientId, Instant authTime) {
+            this.id = id;
+            this.username = username;
+            this.clientId = clientId;
+            this.authTime = authTime;
+        }
+    }
+
+    /**
+     * Result of an authentication flow: either tokens or a challenge
+     */
+    @Value
+    @Builder
+    static class AuthOutcome {
+        String accessToken;
+        String idToken;
+        String refreshToken;
+        long expiresIn;
+        Device device;
+        String challengeName;
+        String challengeUsername;
+        String session;
+    }
+
+    /**
+     * One page of a listing; pagination tokens are opaque offsets
+     */
+    record Page<T>(List<T> items, String nextToken) {
+
+        static <T> Page<T> of(Collection<T> all, Integer limit, String token) {
+            List<T> list = new ArrayList<>(all);
+            int size = limit == null || limit <= 0 ? MAX_PAGE_SIZE : Math.min(limit, MAX_PAGE_SIZE);
+            int offset;
+            try {
+                offset = token == null ? 0 : Integer.parseInt(new String(Base64.getDecoder().decode(token), StandardCharsets.UTF_8));
+            } catch (IllegalArgumentException e) {
+                throw EmulatorException.invalidParameter("Invalid pagination token");
+            }
+            int end = Math.min(list.size(), offset + size);
+            String next = end < list.size()
+                    ? Base64.getEncoder().encodeToString(String.valueOf(end).getBytes(StandardCharsets.UTF_8))
+                    : null;
+            return new Page<>(offset >= list.size() ? List.of() : list.subList(offset, end), next);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.emulator;
+
+import lombok.Getter;
+
+/**
+ * Cognito service error raised by the emulator, rendered as a JSON error response
+ * whose {@code __type} the AWS SDK maps to the matching exception class.
+ */
+@Getter
+public class EmulatorException extends RuntimeException {
+
+    private final String type;
+    private final int status;
+
+    public EmulatorException(String type, String message) {
+        this(type, message, 400);
+    }
+
+    public EmulatorException(String type, String message, int status) {
+        super(message);
+        this.type = type;
+        this.status = status;
+    }
+
+    static EmulatorException notAuthorized(String message) {
+        return new EmulatorException("NotAuthorizedException", message);
+    }
+
+    static EmulatorException userNotFound() {
+        return new EmulatorException("UserNotFoundException", "User does not exist.");
+    }
+
+    static EmulatorException resourceNotFound(String message) {
+        return new EmulatorException("ResourceNotFoundException", message);
+    }
+
+    static EmulatorException invalidParameter(String message) {
+        return new EmulatorException("InvalidParameterException", message);
+    }
+}
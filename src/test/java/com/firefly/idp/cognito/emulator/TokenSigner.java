@@ -0,0 +1,153 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.emulator;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Base64;
+import java.util.Map;
+
+/**
+ * Issues and verifies RS256-signed JWTs and renders the matching JWKS.
+ *
+ * <p>The RSA key pair is generated once per JVM and shared by all emulator
+ * instances, so only the first emulator pays for key generation.
+ */
+final class TokenSigner {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final ObjectMapper objectMapper;
+
+    TokenSigner(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * @return Public key tokens are signed with
+     */
+    RSAPublicKey publicKey() {
+        return (RSAPublicKey) Keys.KEY_PAIR.getPublic();
+    }
+
+    /**
+     * @return Key id written to the JWT header and the JWKS
+     */
+    String keyId() {
+        return Keys.KEY_ID;
+    }
+
+    /**
+     * Sign claims as a compact JWS
+     */
+    String sign(Map<String, Object> claims) {
+        try {
+            String header = encode(objectMapper.writeValueAsBytes(Map.of("kid", Keys.KEY_ID, "alg", "RS256")));
+            String payload = encode(objectMapper.writeValueAsBytes(claims));
+            String signingInput = header + "." + payload;
+
+            Signature signature = Signature.getInstance("SHA256withRSA");
+            signature.initSign(Keys.KEY_PAIR.getPrivate());
+            signature.update(signingInput.getBytes(StandardCharsets.US_ASCII));
+            return signingInput + "." + encode(signature.sign());
+        } catch (JsonProcessingException | GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to sign token", e);
+        }
+    }
+
+    /**
+     * Verify a token's signature and return its claims
+     *
+     * @throws EmulatorException NotAuthorizedException if the token is malformed or not signed by this emulator
+     */
+    JsonNode verify(String token) {
+        String[] parts = token == null ? new String[0] : token.split("\\.");
+        if (parts.length != 3) {
+            throw EmulatorException.notAuthorized("Invalid Access Token");
+        }
+        try {
+            Signature signature = Signature.getInstance("SHA256withRSA");
+            signature.initVerify(Keys.KEY_PAIR.getPublic());
+            signature.update((parts[0] + "." + parts[1]).getBytes(StandardCharsets.US_ASCII));
+            if (!signature.verify(DECODER.decode(parts[2]))) {
+                throw EmulatorException.notAuthorized("Invalid Access Token");
+            }
+            return objectMapper.readTree(DECODER.decode(parts[1]));
+        } catch (IllegalArgumentException | GeneralSecurityException | java.io.IOException e) {
+            throw EmulatorException.notAuthorized("Invalid Access Token");
+        }
+    }
+
+    /**
+     * @return JSON Web Key Set containing the signing key
+     */
+    ObjectNode jwks() {
+        RSAPublicKey key = publicKey();
+        ObjectNode jwks = objectMapper.createObjectNode();
+        jwks.putArray("keys").addObject()
+                .put("kty", "RSA")
+                .put("alg", "RS256")
+                .put("use", "sig")
+                .put("kid", Keys.KEY_ID)
+                .put("n", encode(unsigned(key.getModulus())))
+                .put("e", encode(unsigned(key.getPublicExponent())));
+        return jwks;
+    }
+
+    private static String encode(byte[] bytes) {
+        return ENCODER.encodeToString(bytes);
+    }
+
+    private static byte[] unsigned(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        if (bytes.length > 1 && bytes[0] == 0) {
+            byte[] trimmed = new byte[bytes.length - 1];
+            System.arraycopy(bytes, 1, trimmed, 0, trimmed.length);
+            return trimmed;
+        }
+        return bytes;
+    }
+
+    /**
+     * Lazily generated, JVM-wide signing key
+     */
+    private static final class Keys {
+        static final KeyPair KEY_PAIR = generate();
+        static final String KEY_ID = Integer.toHexString(KEY_PAIR.getPublic().hashCode());
+
+        private static KeyPair generate() {
+            try {
+                KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+                generator.initialize(2048);
+                return generator.generateKeyPair();
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("RSA is not available", e);
+            }
+        }
+    }
+}
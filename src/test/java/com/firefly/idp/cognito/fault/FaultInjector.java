@@ -0,0 +1,260 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.fault;
+
+import com.firefly.idp.cognito.client.CognitoClientFactory;
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.core.exception.ApiCallTimeoutException;
+import software.amazon.awssdk.services.cognitoidentityprovider.CognitoIdentityProviderClient;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.CognitoIdentityProviderRequest;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.TooManyRequestsException;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Injects latency spikes, throttling, timeouts and errors into Cognito calls,
+ * for resilience tests and benchmarks.
+ *
+ * <p>{@link #decorate} wraps a {@link CognitoIdentityProviderClient}; install it
+ * with {@link CognitoClientFactory#setClientDecorator}. Faults are injected on
+ * the calling thread before the call is delegated, so the services see them
+ * exactly as they would see a slow or failing Cognito. The active scenario can
+ * be switched at any time, or scripted as timed phases:
+ * <pre>{@code
+ * FaultInjector faults = new FaultInjector();
+ * clientFactory.setClientDecorator(faults::decorate);
+ * faults.play(
+ *         FaultInjector.phase(Duration.ofSeconds(5), FaultScenario.HEALTHY),
+ *         FaultInjector.phase(Duration.ofSeconds(10), brownout),
+ *         FaultInjector.phase(Duration.ofSeconds(5), FaultScenario.HEALTHY));
+ * }</pre>
+ */
+public class FaultInjector {
+
+    /**
+     * A scenario active for a fixed time
+     */
+    public record Phase(Duration duration, FaultScenario scenario) {
+    }
+
+    private final Random random;
+    private final LongAdder calls = new LongAdder();
+    private final Map<FaultType, LongAdder> injected = new EnumMap<>(FaultType.class);
+
+    private volatile FaultScenario scenario = FaultScenario.HEALTHY;
+    private volatile List<Phase> phases = List.of();
+    private volatile long phasesStart;
+
+    /**
+     * Injector rolling faults with {@link ThreadLocalRandom}
+     */
+    public FaultInjector() {
+        this(null);
+    }
+
+    /**
+     * Injector rolling faults from a seeded generator, for reproducible runs
+     */
+    public FaultInjector(long seed) {
+        this(new Random(seed));
+    }
+
+    private FaultInjector(Random random) {
+        this.random = random;
+        for (FaultType type : FaultType.values()) {
+            injected.put(type, new LongAdder());
+        }
+    }
+
+    /**
+     * Create a phase for {@link #play}
+     */
+    public static Phase phase(Duration duration, FaultScenario scenario) {
+        return new Phase(duration, scenario);
+    }
+
+    /**
+     * Wrap a client so its calls are subject to the active scenario
+     */
+    public CognitoIdentityProviderClient decorate(CognitoIdentityProviderClient delegate) {
+        return (CognitoIdentityProviderClient) Proxy.newProxyInstance(
+                CognitoIdentityProviderClient.class.getClassLoader(),
+                new Class<?>[]{CognitoIdentityProviderClient.class},
+                new FaultInjectingHandler(delegate));
+    }
+
+    /**
+     * Make a scenario active until replaced; cancels scripted phases
+     */
+    public void activate(FaultScenario scenario) {
+        this.phases = List.of();
+        this.scenario = scenario;
+    }
+
+    /**
+     * Run scenarios one after the other, starting now; the healthy scenario follows the last phase
+     */
+    public void play(Phase... phases) {
+        this.scenario = FaultScenario.HEALTHY;
+        this.phasesStart = System.nanoTime();
+        this.phases = List.of(phases);
+    }
+
+    /**
+     * Stop injecting faults
+     */
+    public void clear() {
+        activate(FaultScenario.HEALTHY);
+    }
+
+    /**
+     * @return Scenario applied to a call made now
+     */
+    public FaultScenario current() {
+        List<Phase> script = phases;
+        if (script.isEmpty()) {
+            return scenario;
+        }
+        long elapsed = System.nanoTime() - phasesStart;
+        for (Phase phase : script) {
+            elapsed -= phase.duration().toNanos();
+            if (elapsed < 0) {
+                return phase.scenario();
+            }
+        }
+        return FaultScenario.HEALTHY;
+    }
+
+    /**
+     * @return Cognito calls made through decorated clients
+     */
+    public long calls() {
+        return calls.sum();
+    }
+
+    /**
+     * @return Faults of a type injected so far
+     */
+    public long injected(FaultType type) {
+        return injected.get(type).sum();
+    }
+
+    /**
+     * Apply the current scenario to a call of a Cognito API
+     */
+    void inject(String apiName) {
+        calls.increment();
+        FaultScenario active = current();
+        for (FaultRule rule : active.getRules()) {
+            if (rule.getType() == FaultType.LATENCY && rule.matches(apiName) && fires(rule)) {
+                injected.get(FaultType.LATENCY).increment();
+                LockSupport.parkNanos(rule.getLatency().sampleNanos(ThreadLocalRandom.current()));
+            }
+        }
+        for (FaultRule rule : active.getRules()) {
+            if (rule.getType() == FaultType.LATENCY || !rule.matches(apiName) || !fires(rule)) {
+                continue;
+            }
+            injected.get(rule.getType()).increment();
+            switch (rule.getType()) {
+                case THROTTLE -> throw throttled(apiName);
+                case TIMEOUT -> {
+                    LockSupport.parkNanos(rule.getTimeout().toNanos());
+                    throw ApiCallTimeoutException.create(rule.getTimeout().toMillis());
+                }
+                default -> throw rule.getError().get();
+            }
+        }
+    }
+
+    private boolean fires(FaultRule rule) {
+        if (rule.getProbability() >= 1.0) {
+            return true;
+        }
+        double roll = random != null ? random.nextDouble() : ThreadLocalRandom.current().nextDouble();
+        return roll < rule.getProbability();
+    }
+
+    private static TooManyRequestsException throttled(String apiName) {
+        return TooManyRequestsException.builder()
+                .message("Rate exceeded (injected into " + apiName + ")")
+                .statusCode(400)
+                .awsErrorDetails(AwsErrorDetails.builder()
+                        .errorCode("TooManyRequestsException")
+                        .errorMessage("Rate exceeded")
+                        .serviceName("CognitoIdentityProvider")
+                        .build())
+                .build();
+    }
+
+    /**
+     * Routes operation calls through {@link #inject} before delegating.
+     *
+     * <p>The SDK declares every operation as a default method. Overloads taking a
+     * request builder consumer end up calling the request overload, so they are
+     * run against the proxy itself, and paginators are built over the proxy; each
+     * request passes through here exactly once.
+     */
+    private final class FaultInjectingHandler implements InvocationHandler {
+
+        private final CognitoIdentityProviderClient delegate;
+
+        private FaultInjectingHandler(CognitoIdentityProviderClient delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getDeclaringClass() == Object.class) {
+                return switch (method.getName()) {
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    default -> "FaultInjecting(" + delegate + ")";
+                };
+            }
+            if (args != null && args.length == 1 && method.isDefault()
+                    && !(args[0] instanceof CognitoIdentityProviderRequest)) {
+                return InvocationHandler.invokeDefault(proxy, method, args);
+            }
+            if (args != null && args.length == 1 && args[0] instanceof CognitoIdentityProviderRequest) {
+                if (method.getName().endsWith("Paginator")) {
+                    // The interface's paginator methods are not implemented; build the iterable over the proxy
+                    return method.getReturnType()
+                            .getConstructor(CognitoIdentityProviderClient.class, method.getParameterTypes()[0])
+                            .newInstance(proxy, args[0]);
+                }
+                inject(Character.toUpperCase(method.getName().charAt(0)) + method.getName().substring(1));
+            }
+            try {
+                return method.invoke(delegate, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.fault;
+
+import com.firefly.idp.cognito.adapter.CognitoIdpAdapter;
+import com.firefly.idp.cognito.loadtest.LatencyDistribution;
+import com.firefly.idp.cognito.loadtest.LoadProfile;
+import com.firefly.idp.cognito.loadtest.LoadTestHarness;
+import com.firefly.idp.dtos.LoginRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import reactor.test.StepVerifier;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.exception.ApiCallTimeoutException;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.cognitoidentityprovider.CognitoIdentityProviderClient;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.GetUserRequest;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.ListUsersRequest;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.TooManyRequestsException;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for FaultInjector.
+ */
+class FaultInjectorTest {
+
+    private final FaultInjector faults = new FaultInjector(42L);
+    private LoadTestHarness harness;
+    private CognitoIdpAdapter adapter;
+    private CognitoIdentityProviderClient stubClient;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        harness = new LoadTestHarness(LoadProfile.builder().build(), faults::decorate);
+        adapter = harness.adapter();
+        stubClient = CognitoIdentityProviderClient.builder()
+                .region(Region.US_EAST_1)
+                .endpointOverride(harness.stub().endpoint())
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("stub", "stub")))
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        stubClient.close();
+        harness.close();
+    }
+
+    @Test
+    void testThrottle_FailsOnlyMatchingOperation() {
+        // Arrange
+        faults.activate(FaultScenario.named("throttled-logins").throttle("InitiateAuth", 1.0));
+
+        // Act & Assert
+        StepVerifier.create(adapter.login(login()))
+                .assertNext(response -> assertThat(response.getStatusCode()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR))
+                .verifyComplete();
+        StepVerifier.create(adapter.introspect("stub-access-token"))
+                .assertNext(response -> assertThat(response.getBody().isActive()).isTrue())
+                .verifyComplete();
+        assertThat(faults.injected(FaultType.THROTTLE)).isEqualTo(1);
+        assertThat(harness.stub().requestCount("InitiateAuth")).isZero();
+        assertThat(harness.stub().requestCount("GetUser")).isEqualTo(1);
+    }
+
+    @Test
+    void testLatencyAndTimeout_DelayCalls() {
+        // Arrange
+        CognitoIdentityProviderClient client = faults.decorate(stubClient);
+        faults.activate(FaultScenario.named("slow")
+                .latency("GetUser", 1.0, LatencyDistribution.fixed(50))
+                .timeout("ListUsers", 1.0, Duration.ofMillis(30)));
+
+        // Act
+        long start = System.nanoTime();
+        client.getUser(GetUserRequest.builder().accessToken("stub-access-token").build());
+        long getUserMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // Assert
+        assertThat(getUserMillis).isGreaterThanOrEqualTo(50);
+        assertThatThrownBy(() -> client.listUsers(ListUsersRequest.builder().userPoolId("us-east-1_stub").build()))
+                .isInstanceOf(ApiCallTimeoutException.class);
+        assertThatThrownBy(() -> client.listUsersPaginator(ListUsersRequest.builder().userPoolId("us-east-1_stub").build())
+                .stream().count())
+                .isInstanceOf(ApiCallTimeoutException.class);
+        assertThat(faults.injected(FaultType.TIMEOUT)).isEqualTo(2);
+        assertThat(faults.calls()).isEqualTo(3);
+    }
+
+    @Test
+    void testPartialFailures_HitConfiguredShareOfCalls() {
+        // Arrange
+        CognitoIdentityProviderClient client = faults.decorate(stubClient);
+        faults.activate(FaultScenario.named("flaky").throttle(FaultRule.ANY_OPERATION, 0.3));
+        int failures = 0;
+
+        // Act
+        for (int i = 0; i < 200; i++) {
+            try {
+                client.getUser(builder -> builder.accessToken("stub-access-token"));
+            } catch (TooManyRequestsException e) {
+                failures++;
+            }
+        }
+
+        // Assert
+        assertThat(failures).isBetween(40, 80);
+        assertThat(faults.calls()).isEqualTo(200);
+        assertThat(harness.stub().requestCount("GetUser")).isEqualTo(200 - failures);
+    }
+
+    @Test
+    void testPhases_DegradeAndRecover() {
+        // Arrange: create the SDK client up front so the first phase is not spent on it
+        adapter.introspect("stub-access-token").block();
+        faults.play(
+                FaultInjector.phase(Duration.ofMillis(300), FaultScenario.HEALTHY),
+                FaultInjector.phase(Duration.ofMillis(300), FaultScenario.named("outage").serverError("*", 1.0)));
+
+        // Act & Assert
+        assertThat(faults.current()).isSameAs(FaultScenario.HEALTHY);
+        StepVerifier.create(adapter.login(login()))
+                .assertNext(response -> assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK))
+                .verifyComplete();
+
+        sleep(400);
+        assertThat(faults.current().getName()).isEqualTo("outage");
+        StepVerifier.create(adapter.login(login()))
+                .assertNext(response -> assertThat(response.getStatusCode()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR))
+                .verifyComplete();
+
+        sleep(300);
+        assertThat(faults.current()).isSameAs(FaultScenario.HEALTHY);
+        StepVerifier.create(adapter.login(login()))
+                .assertNext(response -> assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK))
+                .verifyComplete();
+        assertThat(faults.injected(FaultType.ERROR)).isEqualTo(1);
+    }
+
+    private static LoginRequest login() {
+        return LoginRequest.builder().username("loaduser").password("LoadTest123!").build();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.fault;
+
+import com.firefly.idp.cognito.loadtest.LatencyDistribution;
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * One fault of a {@link FaultScenario}: what to inject, into which operation, how often.
+ */
+@Value
+@Builder
+public class FaultRule {
+
+    /**
+     * Operation name that matches every operation
+     */
+    public static final String ANY_OPERATION = "*";
+
+    /**
+     * Cognito API name the rule applies to (e.g. {@code InitiateAuth}), or {@link #ANY_OPERATION}
+     */
+    String operation;
+    FaultType type;
+
+    /**
+     * Share (0.0 - 1.0) of matching calls the fault is injected into
+     */
+    double probability;
+
+    /**
+     * Added delay, for {@link FaultType#LATENCY}
+     */
+    LatencyDistribution latency;
+
+    /**
+     * Time the call hangs before failing, for {@link FaultType#TIMEOUT}
+     */
+    Duration timeout;
+
+    /**
+     * Exception thrown, for {@link FaultType#ERROR}
+     */
+    Supplier<? extends RuntimeException> error;
+
+    /**
+     * @return Whether the rule applies to the given Cognito API
+     */
+    boolean matches(String apiName) {
+        return ANY_OPERATION.equals(operation) || operation.equals(apiName);
+    }
+}
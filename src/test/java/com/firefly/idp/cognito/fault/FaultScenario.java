@@ -0,0 +1,143 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.fault;
+
+import com.firefly.idp.cognito.loadtest.LatencyDistribution;
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.InternalErrorException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * An immutable set of {@link FaultRule}s describing how Cognito misbehaves, e.g. a brownout.
+ *
+ * <p>Scenarios are built fluently; every method returns a new scenario:
+ * <pre>{@code
+ * FaultScenario brownout = FaultScenario.named("brownout")
+ *         .latency("*", 0.5, LatencyDistribution.logNormal(300, 0.5))
+ *         .throttle("InitiateAuth", 0.2)
+ *         .timeout("GetUser", 0.05, Duration.ofSeconds(2));
+ * }</pre>
+ * For each call every matching latency rule may add its delay; then the first matching
+ * failure rule (throttle, timeout or error) that fires replaces the call.
+ */
+public final class FaultScenario {
+
+    /**
+     * Scenario without faults
+     */
+    public static final FaultScenario HEALTHY = named("healthy");
+
+    private final String name;
+    private final List<FaultRule> rules;
+
+    private FaultScenario(String name, List<FaultRule> rules) {
+        this.name = name;
+        this.rules = List.copyOf(rules);
+    }
+
+    /**
+     * Start an empty scenario
+     */
+    public static FaultScenario named(String name) {
+        return new FaultScenario(name, List.of());
+    }
+
+    /**
+     * Add delay to a share of the calls
+     */
+    public FaultScenario latency(String operation, double probability, LatencyDistribution latency) {
+        return with(FaultRule.builder()
+                .operation(operation)
+                .type(FaultType.LATENCY)
+                .probability(probability)
+                .latency(latency)
+                .build());
+    }
+
+    /**
+     * Fail a share of the calls with {@code TooManyRequestsException}
+     */
+    public FaultScenario throttle(String operation, double probability) {
+        return with(FaultRule.builder()
+                .operation(operation)
+                .type(FaultType.THROTTLE)
+                .probability(probability)
+                .build());
+    }
+
+    /**
+     * Let a share of the calls hang for {@code timeout}, then fail with {@code ApiCallTimeoutException}
+     */
+    public FaultScenario timeout(String operation, double probability, Duration timeout) {
+        return with(FaultRule.builder()
+                .operation(operation)
+                .type(FaultType.TIMEOUT)
+                .probability(probability)
+                .timeout(timeout)
+                .build());
+    }
+
+    /**
+     * Fail a share of the calls with an exception of choice
+     */
+    public FaultScenario error(String operation, double probability, Supplier<? extends RuntimeException> error) {
+        return with(FaultRule.builder()
+                .operation(operation)
+                .type(FaultType.ERROR)
+                .probability(probability)
+                .error(error)
+                .build());
+    }
+
+    /**
+     * Fail a share of the calls with a 500 {@code InternalErrorException}
+     */
+    public FaultScenario serverError(String operation, double probability) {
+        return error(operation, probability, () -> InternalErrorException.builder()
+                .message("Injected internal error")
+                .statusCode(500)
+                .awsErrorDetails(AwsErrorDetails.builder()
+                        .errorCode("InternalErrorException")
+                        .errorMessage("Injected internal error")
+                        .serviceName("CognitoIdentityProvider")
+                        .build())
+                .build());
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<FaultRule> getRules() {
+        return rules;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    private FaultScenario with(FaultRule rule) {
+        List<FaultRule> extended = new ArrayList<>(rules);
+        extended.add(rule);
+        return new FaultScenario(name, extended);
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.fault;
+
+/**
+ * Kinds of faults a {@link FaultInjector} can inject into Cognito calls.
+ */
+public enum FaultType {
+
+    /** Extra delay before the call reaches Cognito; the call itself still happens */
+    LATENCY,
+
+    /** {@code TooManyRequestsException} instead of the call */
+    THROTTLE,
+
+    /** The call hangs for the rule's timeout, then fails with {@code ApiCallTimeoutException} */
+    TIMEOUT,
+
+    /** An arbitrary exception instead of the call, e.g. {@code InternalErrorException} */
+    ERROR
+}
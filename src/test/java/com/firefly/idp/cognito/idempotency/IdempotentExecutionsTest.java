@@ -0,0 +1,191 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.idempotency;
+
+import com.firefly.idp.cognito.client.CognitoOperation;
+import com.firefly.idp.cognito.properties.CognitoProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for IdempotentExecutions.
+ */
+class IdempotentExecutionsTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CognitoProperties.Idempotency settings = new CognitoProperties.Idempotency();
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Test
+    void testReplay_ReturnsStoredResultWithoutExecuting() {
+        // Arrange
+        IdempotentExecutions executions = executions();
+        Mono<ResponseEntity<String>> create = executions.execute(CognitoOperation.CREATE_USER, "alice",
+                counted(Mono.fromSupplier(() -> ResponseEntity.ok("created-" + calls.get()))));
+
+        // Act & Assert
+        StepVerifier.create(create.contextWrite(IdempotencyKey.of("key-1")))
+                .assertNext(response -> assertThat(response.getBody()).isEqualTo("created-1"))
+                .verifyComplete();
+        StepVerifier.create(create.contextWrite(IdempotencyKey.of("key-1")))
+                .assertNext(response -> assertThat(response.getBody()).isEqualTo("created-1"))
+                .verifyComplete();
+        assertThat(calls).hasValue(1);
+        assertThat(outcome("executed")).isEqualTo(1.0);
+        assertThat(outcome("replayed")).isEqualTo(1.0);
+    }
+
+    @Test
+    void testConcurrentDuplicates_ShareOneExecution() {
+        // Arrange
+        IdempotentExecutions executions = executions();
+        Sinks.One<String> cognito = Sinks.one();
+        Mono<String> delete = executions.execute(CognitoOperation.DELETE_USER, "alice", counted(cognito.asMono()))
+                .contextWrite(IdempotencyKey.of("key-1"));
+
+        // Act & Assert
+        StepVerifier.create(delete)
+                .then(() -> StepVerifier.create(delete)
+                        .then(() -> cognito.tryEmitValue("deleted"))
+                        .expectNext("deleted")
+                        .verifyComplete())
+                .expectNext("deleted")
+                .verifyComplete();
+        assertThat(calls).hasValue(1);
+        assertThat(outcome("shared")).isEqualTo(1.0);
+    }
+
+    @Test
+    void testKeys_ScopedByOperationAndSubject() {
+        // Arrange
+        IdempotentExecutions executions = executions();
+        Mono<Void> change = counted(Mono.empty());
+
+        // Act
+        executions.execute(CognitoOperation.CHANGE_PASSWORD, "alice", change)
+                .contextWrite(IdempotencyKey.of("key-1")).block();
+        executions.execute(CognitoOperation.CHANGE_PASSWORD, "bob", change)
+                .contextWrite(IdempotencyKey.of("key-1")).block();
+        executions.execute(CognitoOperation.RESET_PASSWORD, "alice", change)
+                .contextWrite(IdempotencyKey.of("key-1")).block();
+        executions.execute(CognitoOperation.CHANGE_PASSWORD, "alice", change)
+                .contextWrite(IdempotencyKey.of("key-1")).block();
+
+        // Assert
+        assertThat(calls).hasValue(3);
+        assertThat(executions.size()).isEqualTo(3);
+    }
+
+    @Test
+    void testFailures_SharedButNotStored() {
+        // Arrange
+        IdempotentExecutions executions = executions();
+        Mono<ResponseEntity<String>> failing = executions.execute(CognitoOperation.UPDATE_USER, "alice",
+                        counted(Mono.just(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).<String>build())))
+                .contextWrite(IdempotencyKey.of("key-1"));
+        Mono<String> erroring = executions.execute(CognitoOperation.DELETE_USER, "alice",
+                        counted(Mono.<String>error(new IllegalStateException("boom"))))
+                .contextWrite(IdempotencyKey.of("key-2"));
+
+        // Act & Assert
+        StepVerifier.create(failing)
+                .assertNext(response -> assertThat(response.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE))
+                .verifyComplete();
+        StepVerifier.create(failing).expectNextCount(1).verifyComplete();
+        StepVerifier.create(erroring).expectError(IllegalStateException.class).verify();
+        StepVerifier.create(erroring).expectError(IllegalStateException.class).verify();
+        assertThat(calls).hasValue(4);
+        assertThat(executions.size()).isZero();
+    }
+
+    @Test
+    void testStoredResult_ExpiresAfterTtl() {
+        // Arrange
+        settings.setTtl(1000L);
+        IdempotentExecutions executions = executions();
+        Mono<String> assign = executions.execute(CognitoOperation.ASSIGN_ROLES, "alice", counted(Mono.just("assigned")))
+                .contextWrite(IdempotencyKey.of("key-1"));
+        assign.block();
+
+        // Act
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(1001));
+        assign.block();
+
+        // Assert
+        assertThat(calls).hasValue(2);
+    }
+
+    @Test
+    void testFullCache_DropsStoredResults() {
+        // Arrange
+        settings.setMaxEntries(10);
+        IdempotentExecutions executions = executions();
+
+        // Act
+        for (int i = 0; i < 25; i++) {
+            executions.execute(CognitoOperation.DELETE_USER, "user-" + i, Mono.just("deleted"))
+                    .contextWrite(IdempotencyKey.of("key-1")).block();
+        }
+
+        // Assert
+        assertThat(executions.size()).isLessThanOrEqualTo(10);
+    }
+
+    @Test
+    void testWithoutKey_ExecutesEveryTime() {
+        // Arrange
+        IdempotentExecutions executions = executions();
+        Mono<String> delete = executions.execute(CognitoOperation.DELETE_USER, "alice", counted(Mono.just("deleted")));
+
+        // Act
+        delete.block();
+        delete.block();
+
+        // Assert
+        assertThat(calls).hasValue(2);
+        assertThat(executions.size()).isZero();
+        assertThatThrownBy(() -> IdempotencyKey.of(" ")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private IdempotentExecutions executions() {
+        return new IdempotentExecutions(settings, meterRegistry, clock::get);
+    }
+
+    private <T> Mono<T> counted(Mono<T> source) {
+        return Mono.defer(() -> {
+            calls.incrementAndGet();
+            return source;
+        });
+    }
+
+    private double outcome(String outcome) {
+        return meterRegistry.get("cognito.idempotency.requests").tag("outcome", outcome).counter().count();
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.firefly.idp.cognito.index;
+
+import com.firefly.idp.cognito.client.CognitoCallCancellation;
+import com.firefly.idp.cognito.client.CognitoCallExecutor;
+import com.firefly.idp.cognito.client.CognitoClientFactory;
+import com.firefly.idp.cognito.metrics.CognitoMetrics;
+import com.firefly.idp.cognito.properties.CognitoProperties;
+import com.firefly.idp.cognito.resilience.CognitoBulkheads;
+import com.firefly.idp.cognito.resilience.CognitoCallTimeouts;
+import com.firefly.idp.cognito.resilience.CognitoCircuitBreakers;
+import com.firefly.idp.cognito.resilience.CognitoConcurrencyLimits;
+import com.firefly.idp.cognito.resilience.CognitoHedging;
+import com.firefly.idp.cognito.sharding.UserPoolShards;
+import com.firefly.idp.cognito.tracing.CognitoTracing;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.test.StepVerifier;
+import software.amazon.awssdk.services.cognitoidentityprovider.CognitoIdentityProviderClient;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.AdminListDevicesRequest;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.AdminListDevicesResponse;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.DeviceType;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.InternalErrorException;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.ListUsersRequest;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.ListUsersResponse;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.ResourceNotFoundException;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.UserType;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for DeviceOwnerIndex.
+ */
+@ExtendWith(MockitoExtension.class)
+class DeviceOwnerIndexTest {
+
+    @Mock
+    private CognitoClientFactory clientFactory;
+
+    @Mock
+    private CognitoIdentityProviderClient client;
+
+    private CognitoProperties properties;
+    private CognitoBulkheads bulkheads;
+    private CognitoCallExecutor calls;
+
+    @BeforeEach
+    void setUp() {
+        properties = new CognitoProperties();
+        properties.setUserPoolId("us-east-1_test");
+        properties.setClientId("test-client");
+        properties.getDeviceIndex().setLookupConcurrency(1);
+        properties.getDeviceIndex().setLookupRatePerSecond(1000);
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        bulkheads = new CognitoBulkheads(properties.getBulkhead(), registry);
+        calls = new CognitoCallExecutor(new CognitoMetrics(registry),
+                new CognitoTracing(ObservationRegistry.NOOP, properties.getTracing()),
+                new CognitoCircuitBreakers(properties.getCircuitBreaker(), registry), bulkheads,
+                new CognitoConcurrencyLimits(properties.getAdaptiveLimit(), registry),
+                new CognitoHedging(properties.getHedging(), registry), new CognitoCallTimeouts(properties),
+                new CognitoCallCancellation(registry));
+    }
+
+    @AfterEach
+    void tearDown() {
+        bulkheads.destroy();
+    }
+
+    @Test
+    void testPut_EvictsLeastRecentlyUsedDevice() {
+        // Arrange
+        properties.getDeviceIndex().setMaxEntries(2);
+        DeviceOwnerIndex index = newIndex();
+        index.put("device-a", "alice");
+        index.put("device-b", "bob");
+
+        // Act
+        index.get("device-a");
+        index.put("device-c", "carol");
+
+        // Assert
+        assertThat(index.get("device-a")).isEqualTo("alice");
+        assertThat(index.get("device-b")).isNull();
+        assertThat(index.get("device-c")).isEqualTo("carol");
+    }
+
+    @Test
+    void testFindOwner_IndexedDeviceResolvedWithoutCognito() {
+        // Arrange
+        DeviceOwnerIndex index = newIndex();
+        index.put("device-a", "alice");
+
+        // Act & Assert
+        StepVerifier.create(index.findOwner("device-a"))
+                .expectNext("alice")
+                .verifyComplete();
+        verifyNoInteractions(clientFactory);
+    }
+
+    @Test
+    void testFindOwner_ScanIndexesEveryDeviceSeen() {
+        // Arrange
+        stubPool(Map.of("alice", List.of("device-a1", "device-a2"), "bob", List.of("device-b")), "alice", "bob");
+        DeviceOwnerIndex index = newIndex();
+
+        // Act & Assert
+        StepVerifier.create(index.findOwner("device-b"))
+                .expectNext("bob")
+                .verifyComplete();
+        assertThat(index.get("device-a1")).isEqualTo("alice");
+        assertThat(index.get("device-a2")).isEqualTo("alice");
+        assertThat(index.get("device-b")).isEqualTo("bob");
+    }
+
+    @Test
+    void testFindOwner_MissAnsweredWithoutRescan() {
+        // Arrange
+        stubPool(Map.of("alice", List.of("device-a")), "alice");
+        DeviceOwnerIndex index = newIndex();
+
+        // Act & Assert
+        StepVerifier.create(index.findOwner("device-unknown"))
+                .expectError(ResourceNotFoundException.class)
+                .verify();
+        StepVerifier.create(index.findOwner("device-unknown"))
+                .expectError(ResourceNotFoundException.class)
+                .verify();
+        verify(client, times(1)).listUsers(any(ListUsersRequest.class));
+        verify(client, times(1)).adminListDevices(any(AdminListDevicesRequest.class));
+    }
+
+    @Test
+    void testFindOwner_MissForgottenOnceDeviceIndexed() {
+        // Arrange
+        stubPool(Map.of("alice", List.of("device-a")), "alice");
+        DeviceOwnerIndex index = newIndex();
+        StepVerifier.create(index.findOwner("device-new"))
+                .expectError(ResourceNotFoundException.class)
+                .verify();
+
+        // Act
+        index.put("device-new", "alice");
+
+        // Assert
+        StepVerifier.create(index.findOwner("device-new"))
+                .expectNext("alice")
+                .verifyComplete();
+    }
+
+    @Test
+    void testFindOwner_ScanStopsAtCallBudget() {
+        // Arrange: a pool too large to scan, every page pointing at another one
+        properties.getDeviceIndex().setLookupMaxCalls(5);
+        when(clientFactory.getAdminClient()).thenReturn(client);
+        when(client.listUsers(any(ListUsersRequest.class))).thenReturn(ListUsersResponse.builder()
+                .users(UserType.builder().username("alice").build())
+                .paginationToken("next")
+                .build());
+        when(client.adminListDevices(any(AdminListDevicesRequest.class)))
+                .thenReturn(AdminListDevicesResponse.builder().build());
+        DeviceOwnerIndex index = newIndex();
+
+        // Act & Assert
+        StepVerifier.create(index.findOwner("device-unknown"))
+                .expectError(ResourceNotFoundException.class)
+                .verify();
+        assertThat(mockingDetails(client).getInvocations()).hasSize(5);
+    }
+
+    @Test
+    void testFindOwner_CognitoFailureNotRememberedAsMiss() {
+        // Arrange
+        when(clientFactory.getAdminClient()).thenReturn(client);
+        when(client.listUsers(any(ListUsersRequest.class)))
+                .thenThrow(InternalErrorException.builder().message("boom").statusCode(500).build())
+                .thenReturn(ListUsersResponse.builder().users(UserType.builder().username("alice").build()).build());
+        when(client.adminListDevices(any(AdminListDevicesRequest.class)))
+                .thenReturn(devices("device-a"));
+        DeviceOwnerIndex index = newIndex();
+
+        // Act & Assert
+        StepVerifier.create(index.findOwner("device-a"))
+                .expectErrorSatisfies(error -> assertThat(error).isNotInstanceOf(ResourceNotFoundException.class))
+                .verify();
+        StepVerifier.create(index.findOwner("device-a"))
+                .expectNext("alice")
+                .verifyComplete();
+        verify(client, atMost(2)).listUsers(any(ListUsersRequest.class));
+    }
+
+    private DeviceOwnerIndex newIndex() {
+        return new DeviceOwnerIndex(clientFactory, properties, new UserPoolShards(properties, clientFactory), calls);
+    }
+
+    private void stubPool(Map<String, List<String>> devicesByUser, String... usernames) {
+        when(clientFactory.getAdminClient()).thenReturn(client);
+        when(client.listUsers(any(ListUsersRequest.class))).thenReturn(ListUsersResponse.builder()
+                .users(Arrays.stream(usernames).map(username -> UserType.builder().username(username).build()).toList())
+                .build());
+        when(client.adminListDevices(any(AdminListDevicesRequest.class))).thenAnswer(invocation -> devices(
+                devicesByUser.get(invocation.<AdminListDevicesRequest>getArgument(0).username()).toArray(String[]::new)));
+    }
+
+    private static AdminListDevicesResponse devices(String... deviceKeys) {
+        return AdminListDevicesResponse.builder()
+                .devices(Arrays.stream(deviceKeys).map(key -> DeviceType.builder().deviceKey(key).build()).toList())
+                .build();
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.index;
+
+import com.firefly.idp.cognito.client.CognitoClientFactory;
+import com.firefly.idp.cognito.properties.CognitoProperties;
+import com.firefly.idp.cognito.sharding.UserPoolShards;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.services.cognitoidentityprovider.CognitoIdentityProviderClient;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.ListUsersInGroupRequest;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.ListUsersInGroupResponse;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.UserType;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for GroupMembershipIndex.
+ */
+@ExtendWith(MockitoExtension.class)
+class GroupMembershipIndexTest {
+
+    @Mock
+    private CognitoClientFactory clientFactory;
+
+    @Mock
+    private CognitoIdentityProviderClient client;
+
+    private CognitoProperties properties;
+    private GroupMembershipIndex index;
+
+    @BeforeEach
+    void setUp() {
+        properties = new CognitoProperties();
+        properties.setUserPoolId("us-east-1_test");
+        index = new GroupMembershipIndex(clientFactory, properties, new UserPoolShards(properties, clientFactory));
+        when(clientFactory.getAdminClient()).thenReturn(client);
+    }
+
+    @Test
+    void testMembers_LoadsAllPagesSorted() {
+        // Arrange
+        when(client.listUsersInGroup(argThat((ListUsersInGroupRequest r) -> r != null && r.nextToken() == null)))
+                .thenReturn(page("page-2", "carol", "alice"));
+        when(client.listUsersInGroup(argThat((ListUsersInGroupRequest r) -> r != null && "page-2".equals(r.nextToken()))))
+                .thenReturn(page(null, "bob"));
+
+        // Act & Assert
+        assertThat(index.members("admin", 0, 10)).containsExactly("alice", "bob", "carol");
+        assertThat(index.members("admin", 1, 1)).containsExactly("bob");
+        assertThat(index.members("admin", 5, 10)).isEmpty();
+        verify(client, times(2)).listUsersInGroup(any(ListUsersInGroupRequest.class));
+    }
+
+    @Test
+    void testMembers_LargeLimitDoesNotOverflow() {
+        // Arrange
+        when(client.listUsersInGroup(any(ListUsersInGroupRequest.class)))
+                .thenReturn(page(null, "alice", "bob", "carol"));
+
+        // Act & Assert
+        assertThat(index.members("admin", 1, Integer.MAX_VALUE)).containsExactly("bob", "carol");
+        assertThat(index.members("admin", Integer.MAX_VALUE, Integer.MAX_VALUE)).isEmpty();
+    }
+
+    @Test
+    void testPages_SplitOneSnapshot() {
+        // Arrange
+        when(client.listUsersInGroup(any(ListUsersInGroupRequest.class)))
+                .thenReturn(page(null, "alice", "bob", "carol"));
+
+        // Act
+        Iterable<List<String>> pages = index.pages("admin", 2);
+        index.addMember("admin", "anna");
+
+        // Assert: pages are taken from the snapshot current when iteration started
+        assertThat(pages).containsExactly(List.of("alice", "bob"), List.of("carol"));
+    }
+
+    @Test
+    void testConcurrentQueries_ShareOneLoadWithoutBlockingOtherGroups() throws Exception {
+        // Arrange
+        CountDownLatch adminListing = new CountDownLatch(1);
+        CountDownLatch adminRelease = new CountDownLatch(1);
+        when(client.listUsersInGroup(argThat((ListUsersInGroupRequest r) -> r != null && "admin".equals(r.groupName()))))
+                .thenAnswer(invocation -> {
+                    adminListing.countDown();
+                    adminRelease.await(5, TimeUnit.SECONDS);
+                    return page(null, "alice");
+                });
+        when(client.listUsersInGroup(argThat((ListUsersInGroupRequest r) -> r != null && !"admin".equals(r.groupName()))))
+                .thenReturn(page(null, "bob"));
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<List<String>> first = executor.submit(() -> index.members("admin", 0, 10));
+            assertThat(adminListing.await(5, TimeUnit.SECONDS)).isTrue();
+            Future<List<String>> second = executor.submit(() -> index.members("admin", 0, 10));
+
+            // Act: every other group loads while the admin listing is in progress
+            for (int i = 0; i < 64; i++) {
+                assertThat(index.members("group-" + i, 0, 10)).containsExactly("bob");
+            }
+            adminRelease.countDown();
+
+            // Assert
+            assertThat(first.get(5, TimeUnit.SECONDS)).containsExactly("alice");
+            assertThat(second.get(5, TimeUnit.SECONDS)).containsExactly("alice");
+            verify(client, times(1)).listUsersInGroup(
+                    argThat((ListUsersInGroupRequest r) -> r != null && "admin".equals(r.groupName())));
+        } finally {
+            adminRelease.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testMutations_AppliedToLoadedGroup() {
+        // Arrange
+        when(client.listUsersInGroup(any(ListUsersInGroupRequest.class)))
+                .thenReturn(page(null, "alice", "carol"));
+        index.size("admin");
+
+        // Act
+        index.addMember("admin", "bob");
+        index.addMember("admin", "bob");
+        index.removeMember("admin", "carol");
+        index.removeUser("alice");
+
+        // Assert
+        assertThat(index.members("admin", 0, 10)).containsExactly("bob");
+        verify(client, times(1)).listUsersInGroup(any(ListUsersInGroupRequest.class));
+    }
+
+    @Test
+    void testMutationsDuringLoad_AppliedToLoadedGroup() {
+        // Arrange: the listing has passed both users when they change
+        when(client.listUsersInGroup(any(ListUsersInGroupRequest.class))).thenAnswer(invocation -> {
+            index.addMember("admin", "bob");
+            index.removeUser("alice");
+            return page(null, "alice", "carol");
+        });
+
+        // Act
+        List<String> members = index.members("admin", 0, 10);
+
+        // Assert
+        assertThat(members).containsExactly("bob", "carol");
+        assertThat(index.members("admin", 0, 10)).containsExactly("bob", "carol");
+        verify(client, times(1)).listUsersInGroup(any(ListUsersInGroupRequest.class));
+    }
+
+    @Test
+    void testInvalidateDuringLoad_ResultNotCached() {
+        // Arrange
+        when(client.listUsersInGroup(any(ListUsersInGroupRequest.class)))
+                .thenAnswer(invocation -> {
+                    index.invalidate("admin");
+                    return page(null, "alice");
+                })
+                .thenReturn(page(null, "alice", "dave"));
+
+        // Act & Assert
+        assertThat(index.members("admin", 0, 10)).containsExactly("alice");
+        assertThat(index.members("admin", 0, 10)).containsExactly("alice", "dave");
+        verify(client, times(2)).listUsersInGroup(any(ListUsersInGroupRequest.class));
+    }
+
+    @Test
+    void testMembers_ReloadsWhenStale() {
+        // Arrange
+        properties.getGroupIndex().setFreshness(0);
+        when(client.listUsersInGroup(any(ListUsersInGroupRequest.class)))
+                .thenReturn(page(null, "alice"))
+                .thenReturn(page(null, "alice", "dave"));
+
+        // Act & Assert
+        assertThat(index.members("admin", 0, 10)).containsExactly("alice");
+        assertThat(index.members("admin", 0, 10)).containsExactly("alice", "dave");
+    }
+
+    private static ListUsersInGroupResponse page(String nextToken, String... usernames) {
+        List<UserType> users = java.util.Arrays.stream(usernames)
+                .map(username -> UserType.builder().username(username).build())
+                .toList();
+        return ListUsersInGroupResponse.builder()
+                .users(users)
+                .nextToken(nextToken)
+                .build();
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.journal;
+
+import com.firefly.idp.cognito.client.CognitoOperation;
+import com.firefly.idp.cognito.properties.CognitoProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for AuthEventJournal.
+ */
+class AuthEventJournalTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void testRecord_ExportsEventsInOrderFromManyProducers() throws Exception {
+        // Arrange
+        List<AuthEvent> exported = new CopyOnWriteArrayList<>();
+        AuthEventJournal journal = new AuthEventJournal(settings(1024), List.of(exported::addAll), registry);
+
+        // Act
+        List<Thread> producers = new ArrayList<>();
+        for (int p = 0; p < 4; p++) {
+            String user = "user-" + p;
+            Thread producer = new Thread(() -> {
+                for (int i = 0; i < 100; i++) {
+                    journal.recordSuccess(CognitoOperation.LOGIN, user, Integer.toString(i));
+                }
+            });
+            producers.add(producer);
+            producer.start();
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        journal.destroy();
+
+        // Assert
+        assertThat(exported).hasSize(400);
+        for (int p = 0; p < 4; p++) {
+            String user = "user-" + p;
+            assertThat(exported.stream().filter(event -> user.equals(event.getSubject())).map(AuthEvent::getDetail))
+                    .containsExactly(Stream.iterate(0, i -> i + 1).limit(100).map(String::valueOf).toArray(String[]::new));
+        }
+        assertThat(journal.backlog()).isZero();
+    }
+
+    @Test
+    void testRecord_DropsWhenFullWithoutBlocking() throws Exception {
+        // Arrange
+        CountDownLatch exporting = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CognitoProperties.Journal settings = settings(4);
+        settings.setBatchSize(1);
+        AuthEventJournal journal = new AuthEventJournal(settings, List.of(events -> {
+            exporting.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }), registry);
+
+        // Act
+        journal.recordSuccess(CognitoOperation.LOGIN, "first");
+        assertThat(exporting.await(5, TimeUnit.SECONDS)).isTrue();
+        List<Boolean> accepted = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            accepted.add(journal.record(CognitoOperation.LOGIN, "user", true, null));
+        }
+        release.countDown();
+        journal.destroy();
+
+        // Assert
+        assertThat(accepted).containsExactly(true, true, true, true, false);
+        assertThat(registry.get("cognito.journal.dropped").tag("reason", "overflow").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void testNdjsonSink_RotatesAndCompresses(@TempDir Path directory) throws Exception {
+        // Arrange
+        NdjsonFileAuthEventSink sink = new NdjsonFileAuthEventSink(directory, 200, true, 10);
+        AuthEvent event = AuthEvent.builder()
+                .timestamp(0)
+                .operation(CognitoOperation.ASSIGN_ROLES)
+                .subject("jo\"hn")
+                .success(true)
+                .detail("admin,user")
+                .build();
+
+        // Act
+        sink.export(List.of(event, event));
+        sink.export(List.of(event));
+        sink.close();
+
+        // Assert
+        List<Path> rotated;
+        try (Stream<Path> files = Files.list(directory)) {
+            rotated = files.filter(file -> file.getFileName().toString().endsWith(".gz")).toList();
+        }
+        assertThat(rotated).hasSize(1);
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(rotated.get(0)))) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8).lines())
+                    .hasSize(2)
+                    .allMatch(line -> line.equals("{\"timestamp\":\"1970-01-01T00:00:00Z\",\"operation\":\"assign_roles\","
+                            + "\"subject\":\"jo\\\"hn\",\"success\":true,\"detail\":\"admin,user\"}"));
+        }
+        assertThat(Files.readAllLines(directory.resolve(NdjsonFileAuthEventSink.ACTIVE_FILE))).hasSize(1);
+    }
+
+    private static CognitoProperties.Journal settings(int capacity) {
+        CognitoProperties.Journal settings = new CognitoProperties.Journal();
+        settings.setCapacity(capacity);
+        settings.setFlushInterval(10);
+        return settings;
+    }
+}
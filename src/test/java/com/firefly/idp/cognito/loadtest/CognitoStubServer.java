@@ -0,0 +1,262 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Lightweight in-process HTTP server speaking Cognito's JSON protocol.
+ *
+ * <p>Answers the operations used by the adapter ({@code InitiateAuth}, {@code GetUser},
+ * {@code DescribeUserPool} and the {@code Admin*} family) with canned responses after
+ * a configurable service time, and fails a configurable share of requests with a
+ * Cognito error. It keeps no state: every user exists, every password is correct.
+ *
+ * <p>Point a {@link com.firefly.idp.cognito.client.CognitoClientFactory} at
+ * {@link #endpoint()} via {@code setEndpointOverride}. Memory allocated while
+ * handling requests is tracked so load tests can subtract it from the JVM total.
+ */
+public class CognitoStubServer implements AutoCloseable {
+
+    private static final String TARGET_PREFIX = "AWSCognitoIdentityProviderService.";
+    private static final String CONTENT_TYPE = "application/x-amz-json-1.1";
+    private static final String EMPTY = "{}";
+
+    private static final Map<String, String> DEFAULT_RESPONSES = Map.ofEntries(
+            Map.entry("InitiateAuth", "{\"AuthenticationResult\":{\"AccessToken\":\"stub-access-token\","
+                    + "\"IdToken\":\"stub-id-token\",\"RefreshToken\":\"stub-refresh-token\","
+                    + "\"TokenType\":\"Bearer\",\"ExpiresIn\":3600},\"ChallengeParameters\":{}}"),
+            Map.entry("GetUser", "{\"Username\":\"loaduser\",\"UserAttributes\":["
+                    + "{\"Name\":\"sub\",\"Value\":\"0f6a4c1e-5a43-4a3b-9c1d-7d2f0e6b9a10\"},"
+                    + "{\"Name\":\"email\",\"Value\":\"loaduser@example.com\"},"
+                    + "{\"Name\":\"given_name\",\"Value\":\"Load\"},"
+                    + "{\"Name\":\"family_name\",\"Value\":\"User\"}]}"),
+            Map.entry("AdminGetUser", "{\"Username\":\"loaduser\",\"UserAttributes\":[],\"Enabled\":true,"
+                    + "\"UserStatus\":\"CONFIRMED\"}"),
+            Map.entry("DescribeUserPool", "{\"UserPool\":{\"Id\":\"us-east-1_stub\",\"SchemaAttributes\":["
+                    + "{\"Name\":\"sub\",\"Mutable\":false},{\"Name\":\"email\",\"Mutable\":true},"
+                    + "{\"Name\":\"given_name\",\"Mutable\":true},{\"Name\":\"family_name\",\"Mutable\":true}]}}"),
+            Map.entry("AdminListGroupsForUser", "{\"Groups\":[{\"GroupName\":\"user\"},{\"GroupName\":\"admin\"}]}"),
+            Map.entry("ListUsersInGroup", "{\"Users\":[{\"Username\":\"loaduser\"}]}"),
+            Map.entry("ListUsers", "{\"Users\":[]}"),
+            Map.entry("AdminListDevices", "{\"Devices\":[]}")
+    );
+
+    static {
+        // Without TCP_NODELAY every response waits ~40ms on delayed ACKs; read once, before the first server starts
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final com.sun.management.ThreadMXBean threadBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private final Map<String, String> responses = new ConcurrentHashMap<>(DEFAULT_RESPONSES);
+    private final Map<String, LatencyDistribution> latencies = new ConcurrentHashMap<>();
+    private final Map<String, Double> errorRates = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> requestCounts = new ConcurrentHashMap<>();
+    private final LongAdder injectedErrors = new LongAdder();
+    private final LongAdder allocatedBytes = new LongAdder();
+
+    private volatile LatencyDistribution defaultLatency = LatencyDistribution.none();
+    private volatile double defaultErrorRate;
+    private volatile String errorType = "TooManyRequestsException";
+    private volatile int errorStatus = 400;
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    /**
+     * Set the service time of every operation without its own distribution
+     */
+    public CognitoStubServer latency(LatencyDistribution latency) {
+        this.defaultLatency = latency;
+        return this;
+    }
+
+    /**
+     * Set the service time of one operation, e.g. {@code InitiateAuth}
+     */
+    public CognitoStubServer latency(String operation, LatencyDistribution latency) {
+        latencies.put(operation, latency);
+        return this;
+    }
+
+    /**
+     * Set the share of requests, between 0 and 1, failed for operations without their own rate
+     */
+    public CognitoStubServer errorRate(double rate) {
+        this.defaultErrorRate = rate;
+        return this;
+    }
+
+    /**
+     * Set the share of requests, between 0 and 1, failed for one operation
+     */
+    public CognitoStubServer errorRate(String operation, double rate) {
+        errorRates.put(operation, rate);
+        return this;
+    }
+
+    /**
+     * Set the Cognito error returned for injected failures
+     *
+     * @param type Error type, e.g. {@code TooManyRequestsException} or {@code InternalErrorException}
+     * @param status HTTP status of the error response
+     */
+    public CognitoStubServer errorType(String type, int status) {
+        this.errorType = type;
+        this.errorStatus = status;
+        return this;
+    }
+
+    /**
+     * Replace the canned JSON response of one operation
+     */
+    public CognitoStubServer respond(String operation, String json) {
+        responses.put(operation, json);
+        return this;
+    }
+
+    /**
+     * Start listening on an ephemeral loopback port
+     */
+    public CognitoStubServer start() throws IOException {
+        AtomicInteger threads = new AtomicInteger();
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "cognito-stub-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+        return this;
+    }
+
+    /**
+     * @return Endpoint to pass to {@code CognitoClientFactory.setEndpointOverride}
+     */
+    public URI endpoint() {
+        return URI.create("http://127.0.0.1:" + server.getAddress().getPort());
+    }
+
+    /**
+     * @return Requests received for one operation, including failed ones
+     */
+    public long requestCount(String operation) {
+        LongAdder count = requestCounts.get(operation);
+        return count == null ? 0 : count.sum();
+    }
+
+    /**
+     * @return Requests received for all operations
+     */
+    public long requestCount() {
+        return requestCounts.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    /**
+     * @return Requests answered with an injected error
+     */
+    public long injectedErrors() {
+        return injectedErrors.sum();
+    }
+
+    /**
+     * @return Heap bytes allocated by the stub's handler threads
+     */
+    public long allocatedBytes() {
+        return allocatedBytes.sum();
+    }
+
+    @Override
+    public void close() {
+        if (server != null) {
+            server.stop(0);
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        long allocatedBefore = threadBean.getCurrentThreadAllocatedBytes();
+        try (exchange) {
+            byte[] requestBody = exchange.getRequestBody().readAllBytes();
+            String target = exchange.getRequestHeaders().getFirst("X-Amz-Target");
+            String operation = target == null ? "" : target.substring(target.lastIndexOf('.') + 1);
+            requestCounts.computeIfAbsent(operation, key -> new LongAdder()).increment();
+
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long delay = latencies.getOrDefault(operation, defaultLatency).sampleNanos(random);
+            if (delay > 0) {
+                LockSupport.parkNanos(delay);
+            }
+
+            if (target == null || !target.startsWith(TARGET_PREFIX)) {
+                send(exchange, 400, error("UnknownOperationException", "Missing or unknown X-Amz-Target"));
+            } else if (random.nextDouble() < errorRates.getOrDefault(operation, defaultErrorRate)) {
+                injectedErrors.increment();
+                send(exchange, errorStatus, error(errorType, "Injected by CognitoStubServer"));
+            } else {
+                send(exchange, 200, respond(operation, requestBody));
+            }
+        } finally {
+            allocatedBytes.add(threadBean.getCurrentThreadAllocatedBytes() - allocatedBefore);
+        }
+    }
+
+    private String respond(String operation, byte[] requestBody) throws IOException {
+        if ("AdminCreateUser".equals(operation)) {
+            JsonNode request = objectMapper.readTree(requestBody);
+            return "{\"User\":{\"Username\":" + objectMapper.writeValueAsString(request.path("Username").asText())
+                    + ",\"Attributes\":[],\"Enabled\":true,\"UserStatus\":\"FORCE_CHANGE_PASSWORD\"}}";
+        }
+        return responses.getOrDefault(operation, EMPTY);
+    }
+
+    private static String error(String type, String message) {
+        return "{\"__type\":\"" + type + "\",\"message\":\"" + message + "\"}";
+    }
+
+    private static void send(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", CONTENT_TYPE);
+        exchange.getResponseHeaders().add("x-amzn-RequestId", UUID.randomUUID().toString());
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+    }
+}
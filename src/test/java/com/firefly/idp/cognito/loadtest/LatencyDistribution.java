@@ -0,0 +1,102 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.loadtest;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service-time distribution applied by {@link CognitoStubServer} before answering a request.
+ *
+ * <p>Distributions can be written as {@code kind:parameters} with all values in milliseconds:
+ * <ul>
+ *   <li>{@code none}</li>
+ *   <li>{@code fixed:20}</li>
+ *   <li>{@code uniform:5-50}</li>
+ *   <li>{@code exponential:15} (mean)</li>
+ *   <li>{@code lognormal:20,0.5} (median, sigma)</li>
+ * </ul>
+ */
+@FunctionalInterface
+public interface LatencyDistribution {
+
+    /**
+     * Draw the next delay
+     *
+     * @param random Random source of the calling thread
+     * @return Delay in nanoseconds, never negative
+     */
+    long sampleNanos(ThreadLocalRandom random);
+
+    static LatencyDistribution none() {
+        return random -> 0L;
+    }
+
+    static LatencyDistribution fixed(double millis) {
+        long nanos = toNanos(millis);
+        return random -> nanos;
+    }
+
+    static LatencyDistribution uniform(double minMillis, double maxMillis) {
+        long min = toNanos(minMillis);
+        long max = toNanos(maxMillis);
+        if (max <= min) {
+            return random -> min;
+        }
+        return random -> random.nextLong(min, max + 1);
+    }
+
+    static LatencyDistribution exponential(double meanMillis) {
+        double mean = toNanos(meanMillis);
+        return random -> (long) (-mean * Math.log(1.0 - random.nextDouble()));
+    }
+
+    static LatencyDistribution logNormal(double medianMillis, double sigma) {
+        double mu = Math.log(toNanos(medianMillis));
+        return random -> (long) Math.exp(mu + sigma * random.nextGaussian());
+    }
+
+    /**
+     * Parse a distribution written as {@code kind:parameters}
+     *
+     * @param spec Distribution specification
+     * @return Parsed distribution
+     */
+    static LatencyDistribution parse(String spec) {
+        String[] parts = spec.trim().split(":", 2);
+        String kind = parts[0].toLowerCase();
+        String args = parts.length > 1 ? parts[1] : "";
+        return switch (kind) {
+            case "none" -> none();
+            case "fixed" -> fixed(Double.parseDouble(args));
+            case "uniform" -> {
+                String[] range = args.split("-", 2);
+                yield uniform(Double.parseDouble(range[0]), Double.parseDouble(range[1]));
+            }
+            case "exponential" -> exponential(Double.parseDouble(args));
+            case "lognormal" -> {
+                String[] params = args.split(",", 2);
+                yield logNormal(Double.parseDouble(params[0]), Double.parseDouble(params[1]));
+            }
+            default -> throw new IllegalArgumentException("Unknown latency distribution: " + spec);
+        };
+    }
+
+    private static long toNanos(double millis) {
+        return (long) (millis * TimeUnit.MILLISECONDS.toNanos(1));
+    }
+}
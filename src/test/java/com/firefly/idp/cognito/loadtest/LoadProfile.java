@@ -0,0 +1,145 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.loadtest;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Shape of a load test run: how much load, which operations, on which threads,
+ * and how the Cognito stub behaves.
+ */
+@Value
+@Builder
+public class LoadProfile {
+
+    /**
+     * Threads adapter calls are subscribed on
+     */
+    public enum SchedulerKind {
+        /** Reactor's shared bounded elastic scheduler */
+        BOUNDED_ELASTIC,
+        /** One platform thread per concurrent caller */
+        FIXED,
+        /** A virtual thread per call */
+        VIRTUAL
+    }
+
+    /**
+     * Maximum number of adapter calls in flight
+     */
+    @Builder.Default
+    int concurrency = 32;
+
+    /**
+     * Measured adapter calls
+     */
+    @Builder.Default
+    int operations = 20_000;
+
+    /**
+     * Unmeasured calls issued first to warm up the JIT, connection pool and caches
+     */
+    @Builder.Default
+    int warmupOperations = 2_000;
+
+    /**
+     * Relative weight of each scenario
+     */
+    @Builder.Default
+    Map<LoadScenario, Integer> mix = defaultMix();
+
+    @Builder.Default
+    SchedulerKind scheduler = SchedulerKind.BOUNDED_ELASTIC;
+
+    /**
+     * Service time of the stub for every operation
+     */
+    @Builder.Default
+    LatencyDistribution latency = LatencyDistribution.none();
+
+    /**
+     * Share of stub requests failed with a throttling error
+     */
+    @Builder.Default
+    double errorRate = 0.0;
+
+    /**
+     * Build a profile from {@code loadtest.*} system properties, falling back to defaults.
+     *
+     * <p>Recognised properties: {@code loadtest.concurrency}, {@code loadtest.operations},
+     * {@code loadtest.warmup}, {@code loadtest.mix} (e.g. {@code LOGIN=40,INTROSPECT=40,GET_ROLES=20}),
+     * {@code loadtest.scheduler}, {@code loadtest.latency} (see {@link LatencyDistribution#parse})
+     * and {@code loadtest.errorRate}.
+     */
+    public static LoadProfile fromSystemProperties() {
+        LoadProfileBuilder builder = LoadProfile.builder();
+        String value;
+        if ((value = System.getProperty("loadtest.concurrency")) != null) {
+            builder.concurrency(Integer.parseInt(value));
+        }
+        if ((value = System.getProperty("loadtest.operations")) != null) {
+            builder.operations(Integer.parseInt(value));
+        }
+        if ((value = System.getProperty("loadtest.warmup")) != null) {
+            builder.warmupOperations(Integer.parseInt(value));
+        }
+        if ((value = System.getProperty("loadtest.mix")) != null) {
+            builder.mix(parseMix(value));
+        }
+        if ((value = System.getProperty("loadtest.scheduler")) != null) {
+            builder.scheduler(SchedulerKind.valueOf(value.toUpperCase().replace('-', '_')));
+        }
+        if ((value = System.getProperty("loadtest.latency")) != null) {
+            builder.latency(LatencyDistribution.parse(value));
+        }
+        if ((value = System.getProperty("loadtest.errorRate")) != null) {
+            builder.errorRate(Double.parseDouble(value));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Parse a mix written as {@code SCENARIO=weight,...}
+     */
+    public static Map<LoadScenario, Integer> parseMix(String spec) {
+        Map<LoadScenario, Integer> mix = new EnumMap<>(LoadScenario.class);
+        for (String entry : spec.split(",")) {
+            String[] parts = entry.trim().split("=", 2);
+            mix.put(LoadScenario.valueOf(parts[0].trim().toUpperCase()), Integer.parseInt(parts[1].trim()));
+        }
+        return mix;
+    }
+
+    /**
+     * Read-heavy mix dominated by token validation, as seen behind an API gateway
+     */
+    private static Map<LoadScenario, Integer> defaultMix() {
+        Map<LoadScenario, Integer> mix = new EnumMap<>(LoadScenario.class);
+        mix.put(LoadScenario.INTROSPECT, 40);
+        mix.put(LoadScenario.LOGIN, 20);
+        mix.put(LoadScenario.GET_USER_INFO, 15);
+        mix.put(LoadScenario.REFRESH, 10);
+        mix.put(LoadScenario.GET_ROLES, 10);
+        mix.put(LoadScenario.CREATE_USER, 3);
+        mix.put(LoadScenario.UPDATE_USER, 2);
+        return mix;
+    }
+}
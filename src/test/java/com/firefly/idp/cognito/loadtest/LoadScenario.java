@@ -0,0 +1,125 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.loadtest;
+
+import com.firefly.idp.cognito.adapter.CognitoIdpAdapter;
+import com.firefly.idp.cognito.client.CognitoOperation;
+import com.firefly.idp.dtos.AssignRolesRequest;
+import com.firefly.idp.dtos.ChangePasswordRequest;
+import com.firefly.idp.dtos.CreateUserRequest;
+import com.firefly.idp.dtos.LoginRequest;
+import com.firefly.idp.dtos.LogoutRequest;
+import com.firefly.idp.dtos.RefreshRequest;
+import com.firefly.idp.dtos.UpdateUserRequest;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * Adapter operations a load test can mix.
+ *
+ * <p>Each scenario invokes one {@link CognitoIdpAdapter} method with a request derived
+ * from the invocation's sequence number, so users are spread over a bounded key space.
+ */
+public enum LoadScenario {
+
+    LOGIN((adapter, user) -> adapter.login(LoginRequest.builder()
+            .username(user)
+            .password("LoadTest123!")
+            .build())),
+    REFRESH((adapter, user) -> adapter.refresh(RefreshRequest.builder()
+            .refreshToken("stub-refresh-token")
+            .build())),
+    LOGOUT((adapter, user) -> adapter.logout(LogoutRequest.builder()
+            .accessToken("stub-access-token")
+            .build())),
+    INTROSPECT((adapter, user) -> adapter.introspect("stub-access-token")),
+    GET_USER_INFO((adapter, user) -> adapter.getUserInfo("stub-access-token")),
+    GET_ROLES((adapter, user) -> adapter.getRoles(user)),
+    CREATE_USER((adapter, user) -> adapter.createUser(CreateUserRequest.builder()
+            .username(user)
+            .email(user + "@example.com")
+            .givenName("Load")
+            .familyName("User")
+            .password("LoadTest123!")
+            .build())),
+    UPDATE_USER((adapter, user) -> adapter.updateUser(UpdateUserRequest.builder()
+            .userId(user)
+            .givenName("Load")
+            .familyName("Updated")
+            .build())),
+    CHANGE_PASSWORD((adapter, user) -> adapter.changePassword(ChangePasswordRequest.builder()
+            .userId(user)
+            .newPassword("LoadTest456!")
+            .build())),
+    DELETE_USER((adapter, user) -> adapter.deleteUser(user)),
+    REVOKE_REFRESH_TOKEN((adapter, user) -> adapter.revokeRefreshToken("stub-refresh-token")),
+    RESET_PASSWORD((adapter, user) -> adapter.resetPassword(user)),
+    LIST_SESSIONS((adapter, user) -> adapter.listSessions(user)),
+    ASSIGN_ROLES((adapter, user) -> adapter.assignRolesToUser(AssignRolesRequest.builder()
+            .userId(user)
+            .roleNames(List.of("user"))
+            .build())),
+    REMOVE_ROLES((adapter, user) -> adapter.removeRolesFromUser(AssignRolesRequest.builder()
+            .userId(user)
+            .roleNames(List.of("user"))
+            .build()));
+
+    /**
+     * Number of distinct users the scenarios cycle through
+     */
+    static final int USERS = 1024;
+
+    private final BiFunction<CognitoIdpAdapter, String, Mono<?>> invocation;
+
+    LoadScenario(BiFunction<CognitoIdpAdapter, String, Mono<?>> invocation) {
+        this.invocation = invocation;
+    }
+
+    /**
+     * Scenario exercising an adapter operation, e.g. to replay a captured trace
+     *
+     * @return Matching scenario, or null if the operation has none
+     */
+    static LoadScenario of(CognitoOperation operation) {
+        for (LoadScenario scenario : values()) {
+            if (scenario.name().equals(operation.name())) {
+                return scenario;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Invoke the scenario and report whether it succeeded.
+     *
+     * <p>Adapter methods map most failures to error status codes rather than signalling
+     * errors, so a non-2xx {@link ResponseEntity} counts as a failure as well.
+     *
+     * @param adapter Adapter under test
+     * @param sequence Invocation sequence number
+     * @return Mono emitting {@code true} on success
+     */
+    Mono<Boolean> invoke(CognitoIdpAdapter adapter, long sequence) {
+        return invocation.apply(adapter, "loaduser-" + (sequence % USERS))
+                .map(result -> !(result instanceof ResponseEntity<?> response) || response.getStatusCode().is2xxSuccessful())
+                .defaultIfEmpty(true)
+                .onErrorReturn(false);
+    }
+}
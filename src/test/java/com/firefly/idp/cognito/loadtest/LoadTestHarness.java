@@ -0,0 +1,317 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.loadtest;
+
+import com.firefly.idp.cognito.capture.TrafficRecorder;
+import com.firefly.idp.cognito.adapter.CognitoIdpAdapter;
+import com.firefly.idp.cognito.client.CognitoCallCancellation;
+import com.firefly.idp.cognito.client.CognitoCallExecutor;
+import com.firefly.idp.cognito.client.CognitoClientFactory;
+import com.firefly.idp.cognito.coalescing.UserAttributeUpdateCoalescer;
+import com.firefly.idp.cognito.idempotency.IdempotentExecutions;
+import com.firefly.idp.cognito.index.DeviceOwnerIndex;
+import com.firefly.idp.cognito.index.GroupMembershipIndex;
+import com.firefly.idp.cognito.journal.AuthEventJournal;
+import com.firefly.idp.cognito.mapping.CognitoAttributeMapper;
+import com.firefly.idp.cognito.metrics.CognitoMetrics;
+import com.firefly.idp.cognito.outbox.AdminMutationOutbox;
+import com.firefly.idp.cognito.properties.CognitoProperties;
+import com.firefly.idp.cognito.resilience.CognitoBulkheads;
+import com.firefly.idp.cognito.resilience.CognitoCallTimeouts;
+import com.firefly.idp.cognito.resilience.CognitoCircuitBreakers;
+import com.firefly.idp.cognito.resilience.CognitoConcurrencyLimits;
+import com.firefly.idp.cognito.resilience.CognitoHedging;
+import com.firefly.idp.cognito.revocation.SignOutRegistry;
+import com.firefly.idp.cognito.service.CognitoAdminService;
+import com.firefly.idp.cognito.service.CognitoUserService;
+import com.firefly.idp.cognito.sharding.UserPoolMigrator;
+import com.firefly.idp.cognito.sharding.UserPoolShards;
+import com.firefly.idp.cognito.telemetry.CognitoTelemetryInterceptor;
+import com.firefly.idp.cognito.telemetry.MicrometerCallTelemetrySink;
+import com.firefly.idp.cognito.tracing.CognitoTracing;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.services.cognitoidentityprovider.CognitoIdentityProviderClient;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.Executors;
+import java.util.function.UnaryOperator;
+
+/**
+ * Drives a fully wired {@link CognitoIdpAdapter} against a {@link CognitoStubServer}
+ * and reports throughput, latency percentiles and allocation rate.
+ *
+ * <p>The adapter is assembled the same way the Spring configuration does it, including
+ * metrics, SDK telemetry, tracing and the auth event journal, with the client factory's
+ * endpoint overridden to the stub. No Docker or AWS account is needed, so threading-model
+ * changes can be compared offline by running the same profile before and after.
+ *
+ * <p>Run from the command line with {@code mvn -P loadtest verify}; see {@link LoadProfile#fromSystemProperties()}
+ * for the available settings.
+ */
+public class LoadTestHarness implements AutoCloseable {
+
+    private static final long SEED = 42L;
+
+    private final LoadProfile profile;
+    private final CognitoStubServer stub;
+    private final CognitoClientFactory clientFactory;
+    private final CognitoAttributeMapper attributeMapper;
+    private final UserAttributeUpdateCoalescer updateCoalescer;
+    private final AuthEventJournal journal;
+    private final CognitoBulkheads bulkheads;
+    private final CognitoIdpAdapter adapter;
+    private final Scheduler scheduler;
+
+    public LoadTestHarness(LoadProfile profile) throws IOException {
+        this(profile, null);
+    }
+
+    /**
+     * @param profile Load profile
+     * @param clientDecorator Wraps the Cognito client, e.g. a {@code FaultInjector}; may be null
+     */
+    public LoadTestHarness(LoadProfile profile, UnaryOperator<CognitoIdentityProviderClient> clientDecorator)
+            throws IOException {
+        this.profile = profile;
+        this.stub = new CognitoStubServer()
+                .latency(profile.getLatency())
+                .errorRate(profile.getErrorRate())
+                .start();
+
+        CognitoProperties properties = new CognitoProperties();
+        properties.setRegion("us-east-1");
+        properties.setUserPoolId("us-east-1_stub");
+        properties.setClientId("stub-client");
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        CognitoMetrics metrics = new CognitoMetrics(meterRegistry);
+        clientFactory = new CognitoClientFactory(properties);
+        CognitoCallTimeouts callTimeouts = new CognitoCallTimeouts(properties);
+        clientFactory.setCallTimeouts(callTimeouts);
+        clientFactory.setEndpointOverride(stub.endpoint());
+        clientFactory.setCredentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("stub", "stub")));
+        clientFactory.setTelemetryInterceptor(new CognitoTelemetryInterceptor(List.of(new MicrometerCallTelemetrySink(metrics))));
+        clientFactory.setClientDecorator(clientDecorator);
+
+        CognitoTracing tracing = new CognitoTracing(ObservationRegistry.NOOP, properties.getTracing());
+        bulkheads = new CognitoBulkheads(properties.getBulkhead(), meterRegistry);
+        CognitoCallCancellation callCancellation = new CognitoCallCancellation(meterRegistry);
+        clientFactory.setCallCancellation(callCancellation);
+        CognitoCallExecutor calls = new CognitoCallExecutor(metrics, tracing,
+                new CognitoCircuitBreakers(properties.getCircuitBreaker(), meterRegistry), bulkheads,
+                new CognitoConcurrencyLimits(properties.getAdaptiveLimit(), meterRegistry),
+                new CognitoHedging(properties.getHedging(), meterRegistry), callTimeouts, callCancellation);
+        journal = new AuthEventJournal(properties.getJournal(), List.of(events -> { }), meterRegistry);
+        attributeMapper = new CognitoAttributeMapper(clientFactory, properties);
+        UserPoolShards shards = new UserPoolShards(properties, clientFactory);
+        DeviceOwnerIndex deviceIndex = new DeviceOwnerIndex(clientFactory, properties, shards, calls);
+        updateCoalescer = new UserAttributeUpdateCoalescer(clientFactory, properties, shards, calls);
+        SignOutRegistry signOutRegistry = new SignOutRegistry(properties);
+        CognitoUserService userService = new CognitoUserService(clientFactory, properties, attributeMapper,
+                deviceIndex, calls, journal, signOutRegistry, shards, new UserPoolMigrator(clientFactory, meterRegistry));
+        CognitoAdminService adminService = new CognitoAdminService(clientFactory, properties,
+                new GroupMembershipIndex(clientFactory, properties, shards), updateCoalescer, attributeMapper, deviceIndex,
+                signOutRegistry, calls, journal,
+                new AdminMutationOutbox(properties.getOutbox(), meterRegistry),
+                new IdempotentExecutions(properties.getIdempotency(), meterRegistry), shards);
+        adapter = new CognitoIdpAdapter(userService, adminService, tracing,
+                new TrafficRecorder(properties.getCapture(), meterRegistry));
+
+        scheduler = switch (profile.getScheduler()) {
+            case BOUNDED_ELASTIC -> Schedulers.boundedElastic();
+            case FIXED -> Schedulers.newParallel("loadtest", profile.getConcurrency(), true);
+            case VIRTUAL -> Schedulers.fromExecutorService(Executors.newVirtualThreadPerTaskExecutor(), "loadtest-virtual");
+        };
+    }
+
+    /**
+     * @return Stub the adapter talks to, e.g. to inspect request counts
+     */
+    public CognitoStubServer stub() {
+        return stub;
+    }
+
+    /**
+     * @return Profile the harness was built with
+     */
+    LoadProfile profile() {
+        return profile;
+    }
+
+    /**
+     * @return Adapter under test
+     */
+    public CognitoIdpAdapter adapter() {
+        return adapter;
+    }
+
+    /**
+     * @return Scheduler adapter calls are subscribed on
+     */
+    Scheduler scheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Issue the warm-up calls, then the measured calls, and report on the latter
+     */
+    public LoadTestReport run() {
+        LoadScenario[] plan = plan(profile.getMix(), profile.getWarmupOperations() + profile.getOperations());
+        execute(plan, 0, profile.getWarmupOperations(), new long[0], new boolean[0]);
+
+        int operations = profile.getOperations();
+        long[] latencies = new long[operations];
+        boolean[] failed = new boolean[operations];
+        com.sun.management.ThreadMXBean threadBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long stubAllocatedBefore = stub.allocatedBytes();
+        long stubRequestsBefore = stub.requestCount();
+        long gcCountBefore = gcCount();
+        long gcTimeBefore = gcTimeMillis();
+        long allocatedBefore = threadBean.getTotalThreadAllocatedBytes();
+        long start = System.nanoTime();
+
+        execute(plan, profile.getWarmupOperations(), operations, latencies, failed);
+
+        long elapsed = System.nanoTime() - start;
+        long allocated = threadBean.getTotalThreadAllocatedBytes() - allocatedBefore
+                - (stub.allocatedBytes() - stubAllocatedBefore);
+
+        return LoadTestReport.builder()
+                .profile(profile)
+                .elapsedNanos(elapsed)
+                .total(LoadTestReport.ScenarioStats.of("total", latencies.clone(), count(failed)))
+                .scenarios(scenarioStats(plan, profile.getWarmupOperations(), latencies, failed))
+                .allocatedBytes(Math.max(0, allocated))
+                .stubRequests(stub.requestCount() - stubRequestsBefore)
+                .gcCount(gcCount() - gcCountBefore)
+                .gcTimeMillis(gcTimeMillis() - gcTimeBefore)
+                .build();
+    }
+
+    @Override
+    public void close() {
+        journal.destroy();
+        updateCoalescer.destroy();
+        attributeMapper.destroy();
+        clientFactory.destroy();
+        bulkheads.destroy();
+        stub.close();
+        if (profile.getScheduler() != LoadProfile.SchedulerKind.BOUNDED_ELASTIC) {
+            scheduler.dispose();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        LoadProfile profile = LoadProfile.fromSystemProperties();
+        try (LoadTestHarness harness = new LoadTestHarness(profile)) {
+            System.out.print(harness.run().format());
+        }
+    }
+
+    private void execute(LoadScenario[] plan, int offset, int operations, long[] latencies, boolean[] failed) {
+        boolean measured = latencies.length > 0;
+        Flux.range(0, operations)
+                .flatMap(index -> Mono.defer(() -> {
+                    long start = System.nanoTime();
+                    return plan[offset + index].invoke(adapter, offset + index)
+                            .subscribeOn(scheduler)
+                            .doOnNext(success -> {
+                                if (measured) {
+                                    latencies[index] = System.nanoTime() - start;
+                                    failed[index] = !success;
+                                }
+                            });
+                }), profile.getConcurrency())
+                .blockLast();
+    }
+
+    private static LoadScenario[] plan(Map<LoadScenario, Integer> mix, int operations) {
+        List<LoadScenario> weighted = new ArrayList<>();
+        mix.forEach((scenario, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                weighted.add(scenario);
+            }
+        });
+        if (weighted.isEmpty()) {
+            throw new IllegalArgumentException("Load profile mix has no positive weights");
+        }
+        SplittableRandom random = new SplittableRandom(SEED);
+        LoadScenario[] plan = new LoadScenario[operations];
+        for (int i = 0; i < operations; i++) {
+            plan[i] = weighted.get(random.nextInt(weighted.size()));
+        }
+        return plan;
+    }
+
+    private static List<LoadTestReport.ScenarioStats> scenarioStats(LoadScenario[] plan, int offset,
+                                                                    long[] latencies, boolean[] failed) {
+        List<LoadTestReport.ScenarioStats> stats = new ArrayList<>();
+        for (LoadScenario scenario : LoadScenario.values()) {
+            long[] scenarioLatencies = new long[latencies.length];
+            int count = 0;
+            long failures = 0;
+            for (int i = 0; i < latencies.length; i++) {
+                if (plan[offset + i] == scenario) {
+                    scenarioLatencies[count++] = latencies[i];
+                    failures += failed[i] ? 1 : 0;
+                }
+            }
+            if (count > 0) {
+                stats.add(LoadTestReport.ScenarioStats.of(scenario.name(),
+                        Arrays.copyOf(scenarioLatencies, count), failures));
+            }
+        }
+        return stats;
+    }
+
+    private static long count(boolean[] values) {
+        long count = 0;
+        for (boolean value : values) {
+            count += value ? 1 : 0;
+        }
+        return count;
+    }
+
+    private static long gcCount() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionCount)
+                .filter(count -> count > 0)
+                .sum();
+    }
+
+    private static long gcTimeMillis() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionTime)
+                .filter(time -> time > 0)
+                .sum();
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.loadtest;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for LoadTestHarness and CognitoStubServer.
+ */
+class LoadTestHarnessTest {
+
+    @Test
+    void testRun_ReportsEveryMeasuredCall() throws Exception {
+        // Arrange
+        LoadProfile profile = LoadProfile.builder()
+                .concurrency(8)
+                .operations(400)
+                .warmupOperations(50)
+                .latency(LatencyDistribution.parse("fixed:2"))
+                .build();
+
+        // Act
+        LoadTestReport report;
+        try (LoadTestHarness harness = new LoadTestHarness(profile)) {
+            report = harness.run();
+        }
+
+        // Assert
+        LoadTestReport.ScenarioStats total = report.getTotal();
+        assertThat(total.getCount()).isEqualTo(400);
+        assertThat(total.getFailures()).isZero();
+        assertThat(report.getScenarios()).extracting(LoadTestReport.ScenarioStats::getCount)
+                .allSatisfy(count -> assertThat(count).isPositive());
+        assertThat(report.getScenarios().stream().mapToLong(LoadTestReport.ScenarioStats::getCount).sum()).isEqualTo(400);
+        assertThat(report.getStubRequests()).isGreaterThanOrEqualTo(400);
+        assertThat(total.getP50Nanos()).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(2));
+        assertThat(total.getP50Nanos()).isLessThanOrEqualTo(total.getP99Nanos());
+        assertThat(total.getP99Nanos()).isLessThanOrEqualTo(total.getMaxNanos());
+        assertThat(report.throughput()).isPositive();
+        assertThat(report.bytesPerOperation()).isPositive();
+        assertThat(report.format()).contains("INTROSPECT", "total");
+    }
+
+    @Test
+    void testRun_CountsInjectedErrorsAsFailures() throws Exception {
+        // Arrange
+        LoadProfile profile = LoadProfile.builder()
+                .concurrency(4)
+                .operations(100)
+                .warmupOperations(0)
+                .mix(LoadProfile.parseMix("GET_USER_INFO=1"))
+                .build();
+
+        // Act
+        LoadTestReport report;
+        long injectedErrors;
+        try (LoadTestHarness harness = new LoadTestHarness(profile)) {
+            harness.stub().errorRate("GetUser", 1.0).errorType("NotAuthorizedException", 400);
+            report = harness.run();
+            injectedErrors = harness.stub().injectedErrors();
+        }
+
+        // Assert
+        assertThat(report.getTotal().getFailures()).isEqualTo(100);
+        assertThat(injectedErrors).isEqualTo(100);
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.loadtest;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outcome of a load test run: throughput, latency percentiles per scenario and
+ * memory allocated by the adapter (the stub's own allocations are excluded).
+ */
+@Value
+@Builder
+public class LoadTestReport {
+
+    LoadProfile profile;
+    long elapsedNanos;
+    ScenarioStats total;
+    List<ScenarioStats> scenarios;
+
+    /**
+     * Heap bytes allocated by the JVM during the run, minus those of the stub's handler threads
+     */
+    long allocatedBytes;
+    long stubRequests;
+    long gcCount;
+    long gcTimeMillis;
+
+    /**
+     * Latency statistics of one scenario, or of all scenarios combined
+     */
+    @Value
+    @Builder
+    public static class ScenarioStats {
+        String name;
+        long count;
+        long failures;
+        long meanNanos;
+        long p50Nanos;
+        long p90Nanos;
+        long p99Nanos;
+        long p999Nanos;
+        long maxNanos;
+
+        /**
+         * Compute statistics from recorded latencies
+         *
+         * @param name Scenario name
+         * @param latencies Latencies in nanoseconds; sorted in place
+         * @param failures Failed calls among them
+         */
+        static ScenarioStats of(String name, long[] latencies, long failures) {
+            Arrays.sort(latencies);
+            int count = latencies.length;
+            return ScenarioStats.builder()
+                    .name(name)
+                    .count(count)
+                    .failures(failures)
+                    .meanNanos(count == 0 ? 0 : (long) Arrays.stream(latencies).average().orElse(0))
+                    .p50Nanos(percentile(latencies, 0.50))
+                    .p90Nanos(percentile(latencies, 0.90))
+                    .p99Nanos(percentile(latencies, 0.99))
+                    .p999Nanos(percentile(latencies, 0.999))
+                    .maxNanos(count == 0 ? 0 : latencies[count - 1])
+                    .build();
+        }
+
+        private static long percentile(long[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+        }
+    }
+
+    /**
+     * @return Completed adapter calls per second
+     */
+    public double throughput() {
+        return elapsedNanos == 0 ? 0 : total.getCount() * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    /**
+     * @return Adapter allocation rate in MB per second
+     */
+    public double allocationRateMbPerSecond() {
+        return elapsedNanos == 0 ? 0 : allocatedBytes / 1_048_576.0 * TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    /**
+     * @return Adapter bytes allocated per call
+     */
+    public long bytesPerOperation() {
+        return total.getCount() == 0 ? 0 : allocatedBytes / total.getCount();
+    }
+
+    /**
+     * Render the report as a plain-text table
+     */
+    public String format() {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format(Locale.ROOT, "concurrency=%d scheduler=%s operations=%d elapsed=%.2fs%n",
+                profile.getConcurrency(), profile.getScheduler(), total.getCount(), elapsedNanos / 1e9));
+        out.append(String.format(Locale.ROOT, "throughput=%.1f ops/s stub-requests=%d%n", throughput(), stubRequests));
+        out.append(String.format(Locale.ROOT, "allocation=%.1f MB/s %d B/op gc=%d (%d ms)%n",
+                allocationRateMbPerSecond(), bytesPerOperation(), gcCount, gcTimeMillis));
+        out.append(String.format(Locale.ROOT, "%-16s %8s %8s %9s %9s %9s %9s %9s %9s%n",
+                "scenario", "count", "failed", "mean ms", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms"));
+        for (ScenarioStats stats : scenarios) {
+            appendRow(out, stats);
+        }
+        appendRow(out, total);
+        return out.toString();
+    }
+
+    private static void appendRow(StringBuilder out, ScenarioStats stats) {
+        out.append(String.format(Locale.ROOT, "%-16s %8d %8d %9.3f %9.3f %9.3f %9.3f %9.3f %9.3f%n",
+                stats.getName(), stats.getCount(), stats.getFailures(), stats.getMeanNanos() / 1e6,
+                stats.getP50Nanos() / 1e6, stats.getP90Nanos() / 1e6, stats.getP99Nanos() / 1e6,
+                stats.getP999Nanos() / 1e6, stats.getMaxNanos() / 1e6));
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.loadtest;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outcome of replaying a traffic trace: throughput and latency percentiles per
+ * operation. Reports can be saved and compared, so a replay on one build serves
+ * as the baseline for the same replay on another.
+ */
+@Value
+@Builder
+public class ReplayReport {
+
+    private static final String SCENARIO_PREFIX = "scenario.";
+
+    /**
+     * Replay speed relative to the captured timing
+     */
+    double speed;
+    long elapsedNanos;
+
+    /**
+     * Invocations replayed
+     */
+    long replayed;
+
+    /**
+     * Invocations skipped because no load scenario exercises their operation
+     */
+    long skipped;
+
+    /**
+     * Largest delay between an invocation's due time and its dispatch; a large
+     * value means the replayer itself could not keep up
+     */
+    long maxLagNanos;
+    LoadTestReport.ScenarioStats total;
+    List<LoadTestReport.ScenarioStats> scenarios;
+
+    /**
+     * @return Completed adapter calls per second
+     */
+    public double throughput() {
+        return elapsedNanos == 0 ? 0 : total.getCount() * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    /**
+     * Render the report as a plain-text table
+     */
+    public String format() {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format(Locale.ROOT, "speed=%.2fx replayed=%d skipped=%d elapsed=%.2fs max-lag=%.3f ms%n",
+                speed, replayed, skipped, elapsedNanos / 1e9, maxLagNanos / 1e6));
+        out.append(String.format(Locale.ROOT, "throughput=%.1f ops/s%n", throughput()));
+        out.append(String.format(Locale.ROOT, "%-20s %8s %8s %9s %9s %9s %9s %9s%n",
+                "operation", "count", "failed", "mean ms", "p50 ms", "p90 ms", "p99 ms", "max ms"));
+        for (LoadTestReport.ScenarioStats stats : scenarios) {
+            appendRow(out, stats);
+        }
+        appendRow(out, total);
+        return out.toString();
+    }
+
+    /**
+     * Render the change from a baseline report, e.g. of the previous build
+     *
+     * @param baseline Report of the same trace replayed on the baseline build
+     */
+    public String formatDelta(ReplayReport baseline) {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format(Locale.ROOT, "throughput %.1f -> %.1f ops/s (%s)%n",
+                baseline.throughput(), throughput(), delta(baseline.throughput(), throughput())));
+        out.append(String.format(Locale.ROOT, "%-20s %9s %9s %8s %9s %9s %8s%n",
+                "operation", "p50 base", "p50 ms", "delta", "p99 base", "p99 ms", "delta"));
+        for (LoadTestReport.ScenarioStats stats : scenarios) {
+            LoadTestReport.ScenarioStats base = baseline.scenario(stats.getName());
+            if (base != null) {
+                appendDelta(out, base, stats);
+            }
+        }
+        appendDelta(out, baseline.getTotal(), total);
+        return out.toString();
+    }
+
+    /**
+     * @return Statistics of an operation, or null if the replay had none
+     */
+    public LoadTestReport.ScenarioStats scenario(String name) {
+        return scenarios.stream().filter(stats -> stats.getName().equals(name)).findFirst().orElse(null);
+    }
+
+    /**
+     * Save the report as a properties file, to be loaded as a baseline later
+     */
+    public void save(Path file) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("speed", Double.toString(speed));
+        properties.setProperty("elapsedNanos", Long.toString(elapsedNanos));
+        properties.setProperty("replayed", Long.toString(replayed));
+        properties.setProperty("skipped", Long.toString(skipped));
+        properties.setProperty("maxLagNanos", Long.toString(maxLagNanos));
+        store(properties, total);
+        scenarios.forEach(stats -> store(properties, stats));
+        try (Writer writer = Files.newBufferedWriter(file)) {
+            properties.store(writer, "Traffic replay report");
+        }
+    }
+
+    /**
+     * Load a report saved with {@link #save(Path)}
+     */
+    public static ReplayReport load(Path file) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(file)) {
+            properties.load(reader);
+        }
+        List<LoadTestReport.ScenarioStats> scenarios = new ArrayList<>();
+        properties.stringPropertyNames().stream()
+                .filter(key -> key.startsWith(SCENARIO_PREFIX) && key.endsWith(".count"))
+                .map(key -> key.substring(SCENARIO_PREFIX.length(), key.length() - ".count".length()))
+                .filter(name -> !name.equals("total"))
+                .sorted()
+                .forEach(name -> scenarios.add(stats(properties, name)));
+        return ReplayReport.builder()
+                .speed(Double.parseDouble(properties.getProperty("speed")))
+                .elapsedNanos(Long.parseLong(properties.getProperty("elapsedNanos")))
+                .replayed(Long.parseLong(properties.getProperty("replayed")))
+                .skipped(Long.parseLong(properties.getProperty("skipped")))
+                .maxLagNanos(Long.parseLong(properties.getProperty("maxLagNanos")))
+                .total(stats(properties, "total"))
+                .scenarios(scenarios)
+                .build();
+    }
+
+    private static void store(Properties properties, LoadTestReport.ScenarioStats stats) {
+        String prefix = SCENARIO_PREFIX + stats.getName() + ".";
+        properties.setProperty(prefix + "count", Long.toString(stats.getCount()));
+        properties.setProperty(prefix + "failures", Long.toString(stats.getFailures()));
+        properties.setProperty(prefix + "meanNanos", Long.toString(stats.getMeanNanos()));
+        properties.setProperty(prefix + "p50Nanos", Long.toString(stats.getP50Nanos()));
+        properties.setProperty(prefix + "p90Nanos", Long.toString(stats.getP90Nanos()));
+        properties.setProperty(prefix + "p99Nanos", Long.toString(stats.getP99Nanos()));
+        properties.setProperty(prefix + "p999Nanos", Long.toString(stats.getP999Nanos()));
+        properties.setProperty(prefix + "maxNanos", Long.toString(stats.getMaxNanos()));
+    }
+
+    private static LoadTestReport.ScenarioStats stats(Properties properties, String name) {
+        String prefix = SCENARIO_PREFIX + name + ".";
+        return LoadTestReport.ScenarioStats.builder()
+                .name(name)
+                .count(Long.parseLong(properties.getProperty(prefix + "count")))
+                .failures(Long.parseLong(properties.getProperty(prefix + "failures")))
+                .meanNanos(Long.parseLong(properties.getProperty(prefix + "meanNanos")))
+                .p50Nanos(Long.parseLong(properties.getProperty(prefix + "p50Nanos")))
+                .p90Nanos(Long.parseLong(properties.getProperty(prefix + "p90Nanos")))
+                .p99Nanos(Long.parseLong(properties.getProperty(prefix + "p99Nanos")))
+                .p999Nanos(Long.parseLong(properties.getProperty(prefix + "p999Nanos")))
+                .maxNanos(Long.parseLong(properties.getProperty(prefix + "maxNanos")))
+                .build();
+    }
+
+    private static void appendRow(StringBuilder out, LoadTestReport.ScenarioStats stats) {
+        out.append(String.format(Locale.ROOT, "%-20s %8d %8d %9.3f %9.3f %9.3f %9.3f %9.3f%n",
+                stats.getName(), stats.getCount(), stats.getFailures(), stats.getMeanNanos() / 1e6,
+                stats.getP50Nanos() / 1e6, stats.getP90Nanos() / 1e6, stats.getP99Nanos() / 1e6,
+                stats.getMaxNanos() / 1e6));
+    }
+
+    private static void appendDelta(StringBuilder out, LoadTestReport.ScenarioStats base,
+                                    LoadTestReport.ScenarioStats current) {
+        out.append(String.format(Locale.ROOT, "%-20s %9.3f %9.3f %8s %9.3f %9.3f %8s%n",
+                current.getName(),
+                base.getP50Nanos() / 1e6, current.getP50Nanos() / 1e6, delta(base.getP50Nanos(), current.getP50Nanos()),
+                base.getP99Nanos() / 1e6, current.getP99Nanos() / 1e6, delta(base.getP99Nanos(), current.getP99Nanos())));
+    }
+
+    private static String delta(double base, double current) {
+        if (base == 0) {
+            return "n/a";
+        }
+        return String.format(Locale.ROOT, "%+.1f%%", (current - base) * 100 / base);
+    }
+}
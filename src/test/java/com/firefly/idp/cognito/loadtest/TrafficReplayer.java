@@ -0,0 +1,197 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.loadtest;
+
+import com.firefly.idp.cognito.capture.TrafficRecord;
+import com.firefly.idp.cognito.capture.TrafficRecorder;
+import com.firefly.idp.cognito.capture.TrafficTrace;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Re-drives a traffic trace captured by {@link TrafficRecorder} through a
+ * {@link LoadTestHarness}, preserving the captured arrival times.
+ *
+ * <p>The replay is open-loop: each invocation is dispatched when it is due,
+ * whether or not earlier ones have completed, so bursts in the trace reach the
+ * adapter as bursts. Latency is measured from the due time rather than the
+ * dispatch time, which keeps the replayer's own delays in the numbers instead
+ * of hiding them. Each hashed identity is mapped onto one of the harness users,
+ * so invocations on the same identity hit the same user again.
+ *
+ * <p>Run from the command line with {@code mvn -P replay verify}; see {@link #main} for settings.
+ */
+public class TrafficReplayer {
+
+    private final LoadTestHarness harness;
+    private final double speed;
+    private final int warmupOperations;
+
+    /**
+     * @param harness Harness whose adapter the trace is replayed against
+     * @param speed Replay speed relative to the captured timing, e.g. 2.0 for twice as fast
+     * @param warmupOperations Invocations from the start of the trace issued, unmeasured, as fast as possible first
+     */
+    public TrafficReplayer(LoadTestHarness harness, double speed, int warmupOperations) {
+        if (speed <= 0) {
+            throw new IllegalArgumentException("Replay speed must be positive: " + speed);
+        }
+        this.harness = harness;
+        this.speed = speed;
+        this.warmupOperations = warmupOperations;
+    }
+
+    /**
+     * Replay a trace and report on it
+     */
+    public ReplayReport replay(TrafficTrace trace) {
+        List<TrafficRecord> records = new ArrayList<>();
+        long skipped = 0;
+        for (TrafficRecord record : trace.getRecords()) {
+            if (record.getOperation() != null && LoadScenario.of(record.getOperation()) != null) {
+                records.add(record);
+            } else {
+                skipped++;
+            }
+        }
+        warmUp(records);
+
+        int count = records.size();
+        long[] latencies = new long[count];
+        boolean[] failed = new boolean[count];
+        CountDownLatch completed = new CountDownLatch(count);
+        long origin = count == 0 ? 0 : records.get(0).getStartMicros();
+        long maxLag = 0;
+        long start = System.nanoTime();
+
+        for (int i = 0; i < count; i++) {
+            TrafficRecord record = records.get(i);
+            long due = start + (long) ((record.getStartMicros() - origin) * 1_000 / speed);
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            } else {
+                maxLag = Math.max(maxLag, -wait);
+            }
+            int index = i;
+            invoke(record).subscribe(success -> {
+                latencies[index] = System.nanoTime() - due;
+                failed[index] = !success;
+                completed.countDown();
+            });
+        }
+        try {
+            completed.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for replayed calls", e);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        return ReplayReport.builder()
+                .speed(speed)
+                .elapsedNanos(elapsed)
+                .replayed(count)
+                .skipped(skipped)
+                .maxLagNanos(maxLag)
+                .total(LoadTestReport.ScenarioStats.of("total", latencies.clone(), count(failed)))
+                .scenarios(scenarioStats(records, latencies, failed))
+                .build();
+    }
+
+    /**
+     * Replay a trace file against a fresh harness.
+     *
+     * <p>Recognised properties: {@code replay.trace} (required), {@code replay.speed} (default 1.0),
+     * {@code replay.warmup} (default 1000), {@code replay.output} to save the report and
+     * {@code replay.baseline} to print the change from a saved report. The stub and threading
+     * settings of {@link LoadProfile#fromSystemProperties()} apply as well.
+     */
+    public static void main(String[] args) throws IOException {
+        String tracePath = System.getProperty("replay.trace");
+        if (tracePath == null || tracePath.isEmpty()) {
+            throw new IllegalArgumentException("Set -Dreplay.trace to the trace file to replay");
+        }
+        double speed = Double.parseDouble(System.getProperty("replay.speed", "1.0"));
+        int warmup = Integer.parseInt(System.getProperty("replay.warmup", "1000"));
+        TrafficTrace trace = TrafficTrace.read(Path.of(tracePath));
+
+        try (LoadTestHarness harness = new LoadTestHarness(LoadProfile.fromSystemProperties())) {
+            ReplayReport report = new TrafficReplayer(harness, speed, warmup).replay(trace);
+            System.out.print(report.format());
+
+            String output = System.getProperty("replay.output");
+            if (output != null && !output.isEmpty()) {
+                report.save(Path.of(output));
+            }
+            String baseline = System.getProperty("replay.baseline");
+            if (baseline != null && !baseline.isEmpty()) {
+                System.out.println();
+                System.out.print(report.formatDelta(ReplayReport.load(Path.of(baseline))));
+            }
+        }
+    }
+
+    private void warmUp(List<TrafficRecord> records) {
+        Flux.fromIterable(records.subList(0, Math.min(warmupOperations, records.size())))
+                .flatMap(this::invoke, harness.profile().getConcurrency())
+                .blockLast();
+    }
+
+    private Mono<Boolean> invoke(TrafficRecord record) {
+        return LoadScenario.of(record.getOperation())
+                .invoke(harness.adapter(), Math.floorMod(record.getIdentity(), (long) LoadScenario.USERS))
+                .subscribeOn(harness.scheduler());
+    }
+
+    private static List<LoadTestReport.ScenarioStats> scenarioStats(List<TrafficRecord> records,
+                                                                    long[] latencies, boolean[] failed) {
+        List<LoadTestReport.ScenarioStats> stats = new ArrayList<>();
+        for (LoadScenario scenario : LoadScenario.values()) {
+            long[] scenarioLatencies = new long[latencies.length];
+            int count = 0;
+            long failures = 0;
+            for (int i = 0; i < latencies.length; i++) {
+                if (LoadScenario.of(records.get(i).getOperation()) == scenario) {
+                    scenarioLatencies[count++] = latencies[i];
+                    failures += failed[i] ? 1 : 0;
+                }
+            }
+            if (count > 0) {
+                stats.add(LoadTestReport.ScenarioStats.of(scenario.name(),
+                        Arrays.copyOf(scenarioLatencies, count), failures));
+            }
+        }
+        return stats;
+    }
+
+    private static long count(boolean[] values) {
+        long count = 0;
+        for (boolean value : values) {
+            count += value ? 1 : 0;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.loadtest;
+
+import com.firefly.idp.cognito.capture.TrafficRecord;
+import com.firefly.idp.cognito.capture.TrafficTrace;
+import com.firefly.idp.cognito.capture.TrafficTraceWriter;
+import com.firefly.idp.cognito.client.CognitoOperation;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for TrafficReplayer.
+ */
+class TrafficReplayerTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testReplay_ReDrivesTraceAtScaledSpeed() throws Exception {
+        // Arrange: a refresh burst, then introspection spread over two seconds, plus an MFA call no scenario covers
+        Path file = directory.resolve("traffic.trace");
+        try (TrafficTraceWriter writer = new TrafficTraceWriter(file, System.currentTimeMillis())) {
+            for (int i = 0; i < 50; i++) {
+                writer.write(record(i * 100L, CognitoOperation.REFRESH, i));
+            }
+            for (int i = 0; i < 100; i++) {
+                writer.write(record(i * 20_000L, CognitoOperation.INTROSPECT, i % 10));
+            }
+            writer.write(record(1_000_000, CognitoOperation.MFA_VERIFY, 0));
+        }
+        TrafficTrace trace = TrafficTrace.read(file);
+
+        try (LoadTestHarness harness = new LoadTestHarness(LoadProfile.builder().build())) {
+            // Act
+            long start = System.nanoTime();
+            ReplayReport report = new TrafficReplayer(harness, 4.0, 0).replay(trace);
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+            // Assert
+            assertThat(report.getReplayed()).isEqualTo(150);
+            assertThat(report.getSkipped()).isEqualTo(1);
+            assertThat(report.getTotal().getFailures()).isZero();
+            assertThat(report.scenario("REFRESH").getCount()).isEqualTo(50);
+            assertThat(report.scenario("INTROSPECT").getCount()).isEqualTo(100);
+            assertThat(harness.stub().requestCount("InitiateAuth")).isEqualTo(50);
+            assertThat(harness.stub().requestCount("GetUser")).isEqualTo(100);
+            // The trace spans two seconds, so a 4x replay takes about half a second
+            assertThat(elapsedMillis).isGreaterThanOrEqualTo(450);
+        }
+    }
+
+    @Test
+    void testSavedReport_ServesAsBaselineForDeltas() throws Exception {
+        // Arrange
+        ReplayReport report = ReplayReport.builder()
+                .speed(1.0)
+                .elapsedNanos(2_000_000_000L)
+                .replayed(100)
+                .skipped(0)
+                .maxLagNanos(0)
+                .total(LoadTestReport.ScenarioStats.of("total", latencies(100, 2_000_000), 0))
+                .scenarios(List.of(LoadTestReport.ScenarioStats.of("LOGIN", latencies(100, 2_000_000), 0)))
+                .build();
+        Path file = directory.resolve("baseline.properties");
+
+        // Act
+        report.save(file);
+        ReplayReport baseline = ReplayReport.load(file);
+
+        // Assert
+        assertThat(baseline).isEqualTo(report);
+        assertThat(report.formatDelta(baseline))
+                .contains("throughput 50.0 -> 50.0 ops/s (+0.0%)")
+                .containsPattern("LOGIN\\s+2\\.000\\s+2\\.000\\s+\\+0\\.0%");
+    }
+
+    private static TrafficRecord record(long startMicros, CognitoOperation operation, long identity) {
+        return TrafficRecord.builder()
+                .startMicros(startMicros)
+                .durationMicros(1_000)
+                .operation(operation)
+                .identity(identity)
+                .status(200)
+                .build();
+    }
+
+    private static long[] latencies(int count, long nanos) {
+        long[] latencies = new long[count];
+        Arrays.fill(latencies, nanos);
+        return latencies;
+    }
+}
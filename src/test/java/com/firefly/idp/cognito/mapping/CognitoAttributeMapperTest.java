@@ -0,0 +1,194 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.mapping;
+
+import com.firefly.idp.cognito.client.CognitoClientFactory;
+import com.firefly.idp.cognito.properties.CognitoProperties;
+import com.firefly.idp.dtos.UpdateUserRequest;
+import com.firefly.idp.dtos.UserInfoResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.services.cognitoidentityprovider.CognitoIdentityProviderClient;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.AttributeType;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.DescribeUserPoolRequest;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.DescribeUserPoolResponse;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.SchemaAttributeType;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.UserPoolType;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for CognitoAttributeMapper.
+ */
+@ExtendWith(MockitoExtension.class)
+class CognitoAttributeMapperTest {
+
+    @Mock
+    private CognitoClientFactory clientFactory;
+
+    @Mock
+    private CognitoIdentityProviderClient client;
+
+    private CognitoAttributeMapper mapper;
+
+    @BeforeEach
+    void setUp() {
+        CognitoProperties properties = new CognitoProperties();
+        properties.setUserPoolId("us-east-1_test");
+        properties.getAttributeMapping().getOverrides().put("givenName", "custom:first_name");
+        mapper = new CognitoAttributeMapper(clientFactory, properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        mapper.destroy();
+    }
+
+    @Test
+    void testToUserInfo_UsesOverriddenAttribute() {
+        // Arrange
+        stubSchema();
+        mapper.refresh();
+
+        // Act
+        UserInfoResponse userInfo = mapper.toUserInfo("testuser", List.of(
+                attribute("sub", "user-123"),
+                attribute("email", "test@example.com"),
+                attribute("email_verified", "true"),
+                attribute("custom:first_name", "Test"),
+                attribute("given_name", "Ignored")));
+
+        // Assert
+        assertThat(userInfo.getSub()).isEqualTo("user-123");
+        assertThat(userInfo.getPreferredUsername()).isEqualTo("testuser");
+        assertThat(userInfo.getEmail()).isEqualTo("test@example.com");
+        assertThat(userInfo.isEmailVerified()).isTrue();
+        assertThat(userInfo.getGivenName()).isEqualTo("Test");
+    }
+
+    @Test
+    void testToAttributes_MapsMutableOnUpdate() {
+        // Arrange
+        stubSchema();
+        mapper.refresh();
+        UpdateUserRequest request = UpdateUserRequest.builder()
+                .userId("testuser")
+                .email("new@example.com")
+                .givenName("New")
+                .build();
+
+        // Act
+        List<AttributeType> attributes = mapper.toAttributes(request);
+
+        // Assert
+        assertThat(attributes).extracting(AttributeType::name)
+                .containsExactly("email", "custom:first_name");
+    }
+
+    @Test
+    void testToAttributes_RejectsImmutableOnUpdate() {
+        // Arrange
+        stubSchema();
+        mapper.refresh();
+        UpdateUserRequest request = UpdateUserRequest.builder()
+                .userId("testuser")
+                .email("new@example.com")
+                .givenName("New")
+                .familyName("Immutable")
+                .build();
+
+        // Act & Assert
+        assertThatThrownBy(() -> mapper.toAttributes(request))
+                .isInstanceOf(UnwritableAttributesException.class)
+                .extracting(exception -> ((UnwritableAttributesException) exception).getFields())
+                .isEqualTo(List.of("familyName"));
+    }
+
+    @Test
+    void testStart_LoadsSchemaOnBoundedElastic() {
+        // Arrange
+        AtomicReference<String> loadingThread = new AtomicReference<>();
+        when(clientFactory.getClient()).thenReturn(client);
+        when(client.describeUserPool(any(DescribeUserPoolRequest.class))).thenAnswer(invocation -> {
+            loadingThread.set(Thread.currentThread().getName());
+            return schemaResponse();
+        });
+
+        // Act
+        mapper.start();
+
+        // Assert
+        verify(client, timeout(2000)).describeUserPool(any(DescribeUserPoolRequest.class));
+        assertThat(loadingThread.get()).startsWith("boundedElastic");
+    }
+
+    @Test
+    void testToAttributes_BeforeSchemaLoaded_WritesWithoutValidation() {
+        // Arrange
+        UpdateUserRequest request = UpdateUserRequest.builder()
+                .userId("testuser")
+                .familyName("Unvalidated")
+                .build();
+
+        // Act
+        List<AttributeType> attributes = mapper.toAttributes(request);
+
+        // Assert: the caller never waits for DescribeUserPool
+        assertThat(attributes).extracting(AttributeType::name).containsExactly("family_name");
+        verifyNoInteractions(clientFactory);
+    }
+
+    private void stubSchema() {
+        when(clientFactory.getClient()).thenReturn(client);
+        when(client.describeUserPool(any(DescribeUserPoolRequest.class))).thenReturn(schemaResponse());
+    }
+
+    private static DescribeUserPoolResponse schemaResponse() {
+        return DescribeUserPoolResponse.builder()
+                .userPool(UserPoolType.builder()
+                        .schemaAttributes(
+                                schema("sub", false),
+                                schema("email", true),
+                                schema("email_verified", true),
+                                schema("family_name", false),
+                                schema("name", true),
+                                schema("custom:first_name", true))
+                        .build())
+                .build();
+    }
+
+    private static SchemaAttributeType schema(String name, boolean mutable) {
+        return SchemaAttributeType.builder().name(name).mutable(mutable).build();
+    }
+
+    private static AttributeType attribute(String name, String value) {
+        return AttributeType.builder().name(name).value(value).build();
+    }
+}
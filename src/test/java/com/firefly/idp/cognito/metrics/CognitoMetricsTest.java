@@ -0,0 +1,109 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.metrics;
+
+import com.firefly.idp.cognito.client.CognitoOperation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.TooManyRequestsException;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for CognitoMetrics.
+ */
+class CognitoMetricsTest {
+
+    private SimpleMeterRegistry registry;
+    private CognitoMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        metrics = new CognitoMetrics(registry);
+    }
+
+    @Test
+    void testInstrument_RecordsSuccessAndStatusOutcome() {
+        // Act
+        StepVerifier.create(metrics.instrument(CognitoOperation.LOGIN, Mono.just("ok")))
+                .expectNext("ok")
+                .verifyComplete();
+        StepVerifier.create(metrics.instrument(CognitoOperation.LOGIN,
+                        Mono.just(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build())))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        // Assert
+        assertThat(timerCount("login", "success", "none")).isEqualTo(1);
+        assertThat(timerCount("login", "unauthorized", "none")).isEqualTo(1);
+        assertThat(inFlight("login")).isZero();
+    }
+
+    @Test
+    void testInstrument_ClassifiesWrappedThrottling() {
+        // Arrange
+        TooManyRequestsException throttled = (TooManyRequestsException) TooManyRequestsException.builder()
+                .awsErrorDetails(AwsErrorDetails.builder().errorCode("TooManyRequestsException").build())
+                .build();
+
+        // Act
+        StepVerifier.create(metrics.instrument(CognitoOperation.ASSIGN_ROLES,
+                        Mono.error(new RuntimeException("Role assignment failed", throttled))))
+                .expectError(RuntimeException.class)
+                .verify();
+
+        // Assert
+        assertThat(timerCount("assign_roles", "throttled", "TooManyRequestsException")).isEqualTo(1);
+    }
+
+    @Test
+    void testInstrument_CountsCancellation() {
+        // Act
+        StepVerifier.create(metrics.instrument(CognitoOperation.GET_ROLES, Mono.never()))
+                .expectSubscription()
+                .then(() -> assertThat(inFlight("get_roles")).isEqualTo(1))
+                .thenCancel()
+                .verify(Duration.ofSeconds(1));
+
+        // Assert
+        assertThat(registry.get("cognito.operation.cancelled").tag("operation", "get_roles").counter().count())
+                .isEqualTo(1);
+        assertThat(inFlight("get_roles")).isZero();
+    }
+
+    private long timerCount(String operation, String outcome, String errorCode) {
+        return registry.get("cognito.operation")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .tag("error_code", errorCode)
+                .timer()
+                .count();
+    }
+
+    private double inFlight(String operation) {
+        return registry.get("cognito.operation.inflight").tag("operation", operation).gauge().value();
+    }
+}
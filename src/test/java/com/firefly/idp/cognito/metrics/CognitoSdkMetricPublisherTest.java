@@ -0,0 +1,76 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.firefly.idp.cognito.metrics;
+
+import com.firefly.idp.cognito.client.CognitoOperation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.http.HttpMetric;
+import software.amazon.awssdk.metrics.MetricCollection;
+import software.amazon.awssdk.metrics.MetricCollector;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for CognitoSdkMetricPublisher.
+ */
+class CognitoSdkMetricPublisherTest {
+
+    private SimpleMeterRegistry registry;
+    private CognitoSdkMetricPublisher publisher;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        publisher = new CognitoSdkMetricPublisher(new CognitoMetrics(registry));
+    }
+
+    @Test
+    void testForClient_ReportsEachPoolUnderItsClientTag() {
+        // Act
+        publisher.forClient(CognitoOperation.Compartment.AUTH).publish(apiCall(50, 3));
+        publisher.forClient(CognitoOperation.Compartment.ADMIN).publish(apiCall(10, 7));
+
+        // Assert
+        assertThat(gauge("max", "auth")).isEqualTo(50);
+        assertThat(gauge("leased", "auth")).isEqualTo(3);
+        assertThat(gauge("max", "admin")).isEqualTo(10);
+        assertThat(gauge("leased", "admin")).isEqualTo(7);
+    }
+
+    @Test
+    void testForClient_ReturnsSamePublisherPerClient() {
+        // Act & Assert
+        assertThat(publisher.forClient(CognitoOperation.Compartment.ADMIN))
+                .isSameAs(publisher.forClient(CognitoOperation.Compartment.ADMIN));
+        assertThat(registry.find("cognito.http.pool.max").gauges()).hasSize(1);
+    }
+
+    private static MetricCollection apiCall(int max, int leased) {
+        MetricCollector call = MetricCollector.create("ApiCall");
+        MetricCollector http = call.createChild("ApiCallAttempt").createChild("HttpClient");
+        http.reportMetric(HttpMetric.MAX_CONCURRENCY, max);
+        http.reportMetric(HttpMetric.LEASED_CONCURRENCY, leased);
+        return call.collect();
+    }
+
+    private double gauge(String name, String client) {
+        return registry.get("cognito.http.pool." + name).tag("client", client).gauge().value();
+    }
+}
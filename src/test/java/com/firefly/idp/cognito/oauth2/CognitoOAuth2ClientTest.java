@@ -0,0 +1,376 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.firefly.idp.cognito.oauth2;
+
+import com.firefly.idp.cognito.client.CognitoCallCancellation;
+import com.firefly.idp.cognito.client.CognitoCallExecutor;
+import com.firefly.idp.cognito.client.CognitoClientFactory;
+import com.firefly.idp.cognito.journal.AuthEventJournal;
+import com.firefly.idp.cognito.mapping.CognitoAttributeMapper;
+import com.firefly.idp.cognito.metrics.CognitoMetrics;
+import com.firefly.idp.cognito.properties.CognitoProperties;
+import com.firefly.idp.cognito.resilience.CognitoBulkheads;
+import com.firefly.idp.cognito.resilience.CognitoCallTimeouts;
+import com.firefly.idp.cognito.resilience.CognitoCircuitBreakers;
+import com.firefly.idp.cognito.resilience.CognitoConcurrencyLimits;
+import com.firefly.idp.cognito.resilience.CognitoHedging;
+import com.firefly.idp.cognito.tracing.CognitoTracing;
+import com.firefly.idp.dtos.TokenResponse;
+import com.firefly.idp.dtos.UserInfoResponse;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.test.StepVerifier;
+import software.amazon.awssdk.services.cognitoidentityprovider.CognitoIdentityProviderClient;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.DescribeUserPoolRequest;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.DescribeUserPoolResponse;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.UserPoolType;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for CognitoOAuth2Client.
+ */
+@ExtendWith(MockitoExtension.class)
+class CognitoOAuth2ClientTest {
+
+    private static final String CLIENT_ID = "hosted-ui-client";
+    private static final String CLIENT_SECRET = "hosted-ui-secret";
+    private static final String REDIRECT_URI = "https://app.example.com/callback";
+    private static final String CODE = "authorization-code";
+    private static final String ACCESS_TOKEN = "access-token";
+
+    @Mock
+    private CognitoClientFactory clientFactory;
+
+    @Mock
+    private CognitoIdentityProviderClient cognitoClient;
+
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    private final Map<String, String> lastTokenRequest = new ConcurrentHashMap<>();
+
+    private ExecutorService executor;
+    private HttpServer domain;
+    private volatile String expectedVerifier;
+    private volatile long delayMillis;
+    private CognitoProperties properties;
+    private CognitoAttributeMapper attributeMapper;
+    private CognitoOAuth2Client client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        executor = Executors.newCachedThreadPool();
+        domain = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 64);
+        domain.setExecutor(executor);
+        domain.createContext("/oauth2/token", this::token);
+        domain.createContext("/oauth2/userInfo", this::userInfo);
+        domain.start();
+
+        properties = new CognitoProperties();
+        properties.setUserPoolId("us-east-1_hosted");
+        properties.setClientId(CLIENT_ID);
+        properties.setClientSecret(CLIENT_SECRET);
+        properties.setDomain("http://127.0.0.1:" + domain.getAddress().getPort());
+        properties.getOauth2().setRedirectUri(REDIRECT_URI);
+        properties.getOauth2().setResponseTimeout(500);
+        client = newClient();
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.destroy();
+        if (attributeMapper != null) {
+            attributeMapper.destroy();
+        }
+        domain.stop(0);
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testPkceChallenge_MatchesRfc7636Example() {
+        // Act
+        PkceChallenge pkce = PkceChallenge.of("dBjftJeZ4CVP-mB92K27uhbUJU1p1r_wW1gFWFOEjXk");
+
+        // Assert
+        assertThat(pkce.getCodeChallenge()).isEqualTo("E9Melhoa2OwvFrEMTJguCHaoeK1t8URWbuGJSstw-cM");
+        assertThat(PkceChallenge.generate().getCodeVerifier()).hasSize(43).isNotEqualTo(pkce.getCodeVerifier());
+    }
+
+    @Test
+    void testAuthorizationUrl_CarriesPkceChallenge() {
+        // Arrange
+        PkceChallenge pkce = PkceChallenge.generate();
+
+        // Act
+        String url = client.authorizationUrl("state-1", pkce, "Google");
+
+        // Assert
+        Map<String, String> query = UriComponentsBuilder.fromUriString(url).build().getQueryParams().toSingleValueMap();
+        assertThat(url).startsWith(properties.getDomain() + "/oauth2/authorize?");
+        assertThat(query).containsEntry("response_type", "code")
+                .containsEntry("client_id", CLIENT_ID)
+                .containsEntry("state", "state-1")
+                .containsEntry("code_challenge", pkce.getCodeChallenge())
+                .containsEntry("code_challenge_method", "S256")
+                .containsEntry("identity_provider", "Google");
+        assertThat(URLDecoder.decode(query.get("redirect_uri"), StandardCharsets.UTF_8)).isEqualTo(REDIRECT_URI);
+    }
+
+    @Test
+    void testExchangeAuthorizationCode_ReturnsTokens() {
+        // Arrange
+        PkceChallenge pkce = PkceChallenge.generate();
+        expectedVerifier = pkce.getCodeVerifier();
+
+        // Act & Assert
+        StepVerifier.create(client.exchangeAuthorizationCode(CODE, pkce.getCodeVerifier(), null))
+                .assertNext(response -> {
+                    assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+                    TokenResponse tokens = response.getBody();
+                    assertThat(tokens.getAccessToken()).isEqualTo(ACCESS_TOKEN);
+                    assertThat(tokens.getIdToken()).isEqualTo("id-token");
+                    assertThat(tokens.getRefreshToken()).isEqualTo("refresh-token");
+                    assertThat(tokens.getTokenType()).isEqualTo("Bearer");
+                    assertThat(tokens.getExpiresIn()).isEqualTo(3600L);
+                })
+                .verifyComplete();
+        assertThat(lastTokenRequest)
+                .containsEntry("grant_type", "authorization_code")
+                .containsEntry("redirect_uri", REDIRECT_URI)
+                .containsEntry("authorization", "Basic " + Base64.getEncoder()
+                        .encodeToString((CLIENT_ID + ":" + CLIENT_SECRET).getBytes(StandardCharsets.UTF_8)))
+                .doesNotContainKey("client_id");
+    }
+
+    @Test
+    void testExchangeAuthorizationCode_WrongVerifier_ReturnsUnauthorized() {
+        // Arrange
+        expectedVerifier = PkceChallenge.generate().getCodeVerifier();
+
+        // Act & Assert
+        StepVerifier.create(client.exchangeAuthorizationCode(CODE, PkceChallenge.generate().getCodeVerifier(), null))
+                .assertNext(response -> assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED))
+                .verifyComplete();
+    }
+
+    @Test
+    void testRefresh_PublicClient_KeepsRefreshToken() {
+        // Arrange
+        properties.setClientSecret(null);
+        client.destroy();
+        client = newClient();
+
+        // Act & Assert
+        StepVerifier.create(client.refresh("refresh-token"))
+                .assertNext(response -> {
+                    assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+                    assertThat(response.getBody().getAccessToken()).isEqualTo(ACCESS_TOKEN);
+                    assertThat(response.getBody().getRefreshToken()).isEqualTo("refresh-token");
+                })
+                .verifyComplete();
+        assertThat(lastTokenRequest)
+                .containsEntry("grant_type", "refresh_token")
+                .containsEntry("client_id", CLIENT_ID)
+                .doesNotContainKey("authorization");
+    }
+
+    @Test
+    void testUserInfo_MapsClaims() {
+        // Arrange
+        when(clientFactory.getClient()).thenReturn(cognitoClient);
+        when(cognitoClient.describeUserPool(any(DescribeUserPoolRequest.class)))
+                .thenReturn(DescribeUserPoolResponse.builder().userPool(UserPoolType.builder().build()).build());
+        attributeMapper.refresh();
+
+        // Act & Assert
+        StepVerifier.create(client.userInfo(ACCESS_TOKEN))
+                .assertNext(response -> {
+                    assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+                    UserInfoResponse userInfo = response.getBody();
+                    assertThat(userInfo.getSub()).isEqualTo("user-123");
+                    assertThat(userInfo.getPreferredUsername()).isEqualTo("Google_1234");
+                    assertThat(userInfo.getEmail()).isEqualTo("jane@example.com");
+                    assertThat(userInfo.isEmailVerified()).isTrue();
+                    assertThat(userInfo.getGivenName()).isEqualTo("Jane");
+                })
+                .verifyComplete();
+        StepVerifier.create(client.userInfo("unknown-token"))
+                .assertNext(response -> assertThat(response.getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED))
+                .verifyComplete();
+    }
+
+    @Test
+    void testCalls_ReusePooledConnection() {
+        // Arrange
+        expectedVerifier = "verifier";
+
+        // Act
+        for (int i = 0; i < 10; i++) {
+            ResponseEntity<TokenResponse> response = client.exchangeAuthorizationCode(CODE, "verifier", null)
+                    .block(Duration.ofSeconds(5));
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        }
+
+        // Assert: a connection goes back to the pool asynchronously, the next call may still open another one
+        assertThat(clientPorts).hasSizeLessThan(5);
+    }
+
+    @Test
+    void testRefresh_NonJsonErrorPage_KeepsStatus() {
+        // Act & Assert
+        StepVerifier.create(client.refresh("behind-proxy"))
+                .assertNext(response -> assertThat(response.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN))
+                .verifyComplete();
+    }
+
+    @Test
+    void testCalls_WithoutDomain_AnswerServerError() {
+        // Arrange
+        properties.setDomain(null);
+        client.destroy();
+        client = newClient();
+
+        // Act & Assert
+        StepVerifier.create(client.refresh("refresh-token"))
+                .assertNext(response -> assertThat(response.getStatusCode()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR))
+                .verifyComplete();
+        StepVerifier.create(client.userInfo(ACCESS_TOKEN))
+                .assertNext(response -> assertThat(response.getStatusCode()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR))
+                .verifyComplete();
+    }
+
+    @Test
+    void testSlowDomain_FailsAfterResponseTimeout() {
+        // Arrange
+        delayMillis = 2000;
+
+        // Act & Assert
+        StepVerifier.create(client.refresh("refresh-token"))
+                .assertNext(response -> assertThat(response.getStatusCode()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR))
+                .expectComplete()
+                .verify(Duration.ofMillis(1500));
+    }
+
+    private CognitoOAuth2Client newClient() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        CognitoCallTimeouts timeouts = new CognitoCallTimeouts(properties);
+        CognitoCallCancellation cancellation = new CognitoCallCancellation(registry);
+        CognitoCallExecutor calls = new CognitoCallExecutor(new CognitoMetrics(registry),
+                new CognitoTracing(ObservationRegistry.NOOP, properties.getTracing()),
+                new CognitoCircuitBreakers(properties.getCircuitBreaker(), registry),
+                new CognitoBulkheads(properties.getBulkhead(), registry),
+                new CognitoConcurrencyLimits(properties.getAdaptiveLimit(), registry),
+                new CognitoHedging(properties.getHedging(), registry), timeouts, cancellation);
+        AuthEventJournal journal = new AuthEventJournal(properties.getJournal(), List.of(events -> { }), registry);
+        attributeMapper = new CognitoAttributeMapper(clientFactory, properties);
+        return new CognitoOAuth2Client(properties, calls, attributeMapper, journal);
+    }
+
+    private void token(HttpExchange exchange) throws IOException {
+        clientPorts.add(exchange.getRemoteAddress().getPort());
+        Map<String, String> form = parseForm(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+        String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        if (authorization != null) {
+            form.put("authorization", authorization);
+        }
+        lastTokenRequest.clear();
+        lastTokenRequest.putAll(form);
+        sleep();
+
+        String grantType = form.get("grant_type");
+        if ("authorization_code".equals(grantType)
+                && CODE.equals(form.get("code")) && form.get("code_verifier").equals(expectedVerifier)) {
+            respond(exchange, 200, "{\"access_token\":\"" + ACCESS_TOKEN + "\",\"id_token\":\"id-token\","
+                    + "\"refresh_token\":\"refresh-token\",\"token_type\":\"Bearer\",\"expires_in\":3600}");
+        } else if ("refresh_token".equals(grantType) && "refresh-token".equals(form.get("refresh_token"))) {
+            respond(exchange, 200, "{\"access_token\":\"" + ACCESS_TOKEN + "\",\"id_token\":\"id-token\","
+                    + "\"token_type\":\"Bearer\",\"expires_in\":3600}");
+        } else if ("behind-proxy".equals(form.get("refresh_token"))) {
+            respond(exchange, 403, "text/html", "<html><body>403 Forbidden</body></html>");
+        } else {
+            respond(exchange, 400, "{\"error\":\"invalid_grant\"}");
+        }
+    }
+
+    private void userInfo(HttpExchange exchange) throws IOException {
+        if (!("Bearer " + ACCESS_TOKEN).equals(exchange.getRequestHeaders().getFirst("Authorization"))) {
+            respond(exchange, 401, "{\"error\":\"invalid_token\"}");
+            return;
+        }
+        respond(exchange, 200, "{\"sub\":\"user-123\",\"email_verified\":\"true\",\"given_name\":\"Jane\","
+                + "\"email\":\"jane@example.com\",\"username\":\"Google_1234\"}");
+    }
+
+    private void sleep() {
+        try {
+            Thread.sleep(delayMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Map<String, String> parseForm(String body) {
+        Map<String, String> form = new HashMap<>();
+        for (String pair : body.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0) {
+                form.put(URLDecoder.decode(pair.substring(0, separator), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return form;
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        respond(exchange, status, "application/json", body);
+    }
+
+    private static void respond(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+}
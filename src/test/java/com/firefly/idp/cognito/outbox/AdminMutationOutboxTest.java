@@ -0,0 +1,352 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.outbox;
+
+import com.firefly.idp.cognito.client.CognitoOperation;
+import com.firefly.idp.cognito.properties.CognitoProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.publisher.Mono;
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.InternalErrorException;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.InvalidParameterException;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.TooManyRequestsException;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.UsernameExistsException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for AdminMutationOutbox.
+ */
+class AdminMutationOutboxTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<AdminMutation> applied = new CopyOnWriteArrayList<>();
+    private final List<AdminMutationOutbox> outboxes = new ArrayList<>();
+    private final CognitoProperties.Outbox settings = new CognitoProperties.Outbox();
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void setUp() {
+        settings.setEnabled(true);
+        settings.setDirectory(directory.toString());
+        settings.setFsyncInterval(1);
+        settings.setRatePerSecond(1000);
+        settings.setInitialRetryBackoff(10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        outboxes.forEach(AdminMutationOutbox::destroy);
+    }
+
+    @Test
+    void testSubmit_AcceptedDurablyThenApplied() {
+        // Arrange
+        AdminMutationOutbox outbox = outbox();
+        outbox.start(record());
+
+        // Act
+        MutationStatus accepted = submitUpdate(outbox, "alice", "Alice");
+
+        // Assert
+        assertThat(accepted.getState()).isEqualTo(MutationStatus.State.PENDING);
+        MutationStatus status = awaitCompleted(outbox, accepted.getId());
+        assertThat(status.getState()).isEqualTo(MutationStatus.State.SUCCEEDED);
+        assertThat(status.getAttempts()).isEqualTo(1);
+        assertThat(applied).singleElement().satisfies(mutation -> {
+            assertThat(mutation.getOperation()).isEqualTo(CognitoOperation.UPDATE_USER);
+            assertThat(mutation.getAttributes()).containsEntry("name", "Alice");
+        });
+        assertThat(outbox.statuses("alice")).containsExactly(status);
+    }
+
+    @Test
+    void testThrottledMutation_RetriedUntilApplied() {
+        // Arrange
+        AdminMutationOutbox outbox = outbox();
+        AtomicInteger calls = new AtomicInteger();
+        outbox.start(mutation -> calls.incrementAndGet() < 3
+                ? Mono.error(TooManyRequestsException.builder()
+                        .awsErrorDetails(AwsErrorDetails.builder().errorCode("TooManyRequestsException").build())
+                        .build())
+                : record().apply(mutation));
+
+        // Act
+        MutationStatus accepted = submitUpdate(outbox, "alice", "Alice");
+
+        // Assert
+        MutationStatus status = awaitCompleted(outbox, accepted.getId());
+        assertThat(status.getState()).isEqualTo(MutationStatus.State.SUCCEEDED);
+        assertThat(status.getAttempts()).isEqualTo(3);
+        assertThat(meterRegistry.get("cognito.outbox.retries").counter().count()).isEqualTo(2.0);
+    }
+
+    @Test
+    void testRejectedMutation_FailsWithoutRetry() {
+        // Arrange
+        AdminMutationOutbox outbox = outbox();
+        outbox.start(mutation -> Mono.error(InvalidParameterException.builder()
+                .awsErrorDetails(AwsErrorDetails.builder().errorCode("InvalidParameterException").build())
+                .build()));
+
+        // Act
+        MutationStatus accepted = submitUpdate(outbox, "alice", "Alice");
+
+        // Assert
+        MutationStatus status = awaitCompleted(outbox, accepted.getId());
+        assertThat(status.getState()).isEqualTo(MutationStatus.State.FAILED);
+        assertThat(status.getError()).isEqualTo("InvalidParameterException");
+        assertThat(status.getAttempts()).isEqualTo(1);
+    }
+
+    @Test
+    void testRetriedCreation_UsernameExistsCountsAsApplied() {
+        // Arrange: the first attempt creates the user, but its answer is lost
+        AdminMutationOutbox outbox = outbox();
+        AtomicInteger calls = new AtomicInteger();
+        outbox.start(mutation -> calls.incrementAndGet() == 1
+                ? Mono.error(InternalErrorException.builder()
+                        .statusCode(500)
+                        .awsErrorDetails(AwsErrorDetails.builder().errorCode("InternalErrorException").build())
+                        .build())
+                : Mono.error(usernameExists()));
+
+        // Act
+        MutationStatus accepted = submitCreate(outbox, "alice");
+
+        // Assert
+        MutationStatus status = awaitCompleted(outbox, accepted.getId());
+        assertThat(status.getState()).isEqualTo(MutationStatus.State.SUCCEEDED);
+        assertThat(status.getAttempts()).isEqualTo(2);
+    }
+
+    @Test
+    void testCreationOfExistingUser_Fails() {
+        // Arrange
+        AdminMutationOutbox outbox = outbox();
+        outbox.start(mutation -> Mono.error(usernameExists()));
+
+        // Act
+        MutationStatus accepted = submitCreate(outbox, "alice");
+
+        // Assert
+        MutationStatus status = awaitCompleted(outbox, accepted.getId());
+        assertThat(status.getState()).isEqualTo(MutationStatus.State.FAILED);
+        assertThat(status.getError()).isEqualTo("UsernameExistsException");
+    }
+
+    @Test
+    void testMutationsOfOneUser_AppliedOneAtATimeInOrder() {
+        // Arrange
+        AdminMutationOutbox outbox = outbox();
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        outbox.start(mutation -> Mono.defer(() -> {
+                    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    return Mono.delay(Duration.ofMillis(20));
+                })
+                .doOnNext(tick -> inFlight.decrementAndGet())
+                .then(record().apply(mutation)));
+
+        // Act
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(submitUpdate(outbox, "alice", "Alice " + i).getId());
+        }
+
+        // Assert
+        awaitCompleted(outbox, ids.get(ids.size() - 1));
+        assertThat(applied).extracting(AdminMutation::getId).containsExactlyElementsOf(ids);
+        assertThat(maxInFlight.get()).isEqualTo(1);
+    }
+
+    @Test
+    void testRestart_ReplaysPendingMutationsOnly() {
+        // Arrange
+        AdminMutationOutbox first = outbox();
+        first.start(record());
+        long done = submitUpdate(first, "alice", "Alice").getId();
+        awaitCompleted(first, done);
+        first.destroy();
+        AdminMutationOutbox stopped = outbox();
+        long pending = stopped.submit(CognitoOperation.ASSIGN_ROLES, "bob", Map.of(), List.of("admin"))
+                .block(Duration.ofSeconds(5)).getId();
+        stopped.destroy();
+        applied.clear();
+
+        // Act
+        AdminMutationOutbox restarted = outbox();
+        restarted.start(record());
+
+        // Assert
+        assertThat(restarted.status(done)).hasValueSatisfying(status ->
+                assertThat(status.getState()).isEqualTo(MutationStatus.State.SUCCEEDED));
+        assertThat(awaitCompleted(restarted, pending).getState()).isEqualTo(MutationStatus.State.SUCCEEDED);
+        assertThat(applied).singleElement().satisfies(mutation -> {
+            assertThat(mutation.getSubject()).isEqualTo("bob");
+            assertThat(mutation.getRoleNames()).containsExactly("admin");
+        });
+        assertThat(submitUpdate(restarted, "carol", "Carol").getId()).isGreaterThan(pending);
+    }
+
+    @Test
+    void testTornRecord_DiscardedOnRestart() throws IOException {
+        // Arrange
+        AdminMutationOutbox first = outbox();
+        long kept = submitUpdate(first, "alice", "Alice").getId();
+        first.destroy();
+        Path segment = segments().get(0);
+        long end = endOfRecords(segment);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            // A record whose payload never made it to disk
+            channel.write(ByteBuffer.allocate(12).putInt(4).putInt(0x12345678).putInt(0x0BADF00D).flip(), end);
+        }
+
+        // Act
+        AdminMutationOutbox restarted = outbox();
+        restarted.start(record());
+        long added = submitUpdate(restarted, "bob", "Bob").getId();
+
+        // Assert
+        awaitCompleted(restarted, kept);
+        awaitCompleted(restarted, added);
+        assertThat(applied).extracting(AdminMutation::getSubject).containsExactly("alice", "bob");
+    }
+
+    @Test
+    void testIds_NotReusedOnceSegmentsDeleted() throws IOException {
+        // Arrange
+        AdminMutationOutbox first = outbox();
+        first.start(record());
+        long issued = submitUpdate(first, "alice", "Alice").getId();
+        awaitCompleted(first, issued);
+        first.destroy();
+        for (Path segment : segments()) {
+            Files.delete(segment);
+        }
+
+        // Act
+        AdminMutationOutbox restarted = outbox();
+        long next = submitUpdate(restarted, "bob", "Bob").getId();
+
+        // Assert
+        assertThat(next).isGreaterThan(issued);
+    }
+
+    @Test
+    void testCompletedSegments_Deleted() throws IOException {
+        // Arrange
+        settings.setSegmentSize(4096);
+        AdminMutationOutbox outbox = outbox();
+        outbox.start(record());
+        long last = 0;
+
+        // Act
+        for (int i = 0; i < 100; i++) {
+            last = submitUpdate(outbox, "user-" + i, "x".repeat(64)).getId();
+        }
+        awaitCompleted(outbox, last);
+
+        // Assert
+        assertThat(segments()).hasSize(1);
+        assertThat(meterRegistry.get("cognito.outbox.pending").gauge().value()).isZero();
+    }
+
+    private AdminMutationOutbox outbox() {
+        meterRegistry.clear();
+        AdminMutationOutbox outbox = new AdminMutationOutbox(settings, meterRegistry);
+        outboxes.add(outbox);
+        return outbox;
+    }
+
+    private Function<AdminMutation, Mono<Void>> record() {
+        return mutation -> Mono.fromRunnable(() -> applied.add(mutation));
+    }
+
+    private MutationStatus submitUpdate(AdminMutationOutbox outbox, String subject, String name) {
+        return outbox.submit(CognitoOperation.UPDATE_USER, subject, Map.of("name", name), List.of())
+                .block(Duration.ofSeconds(5));
+    }
+
+    private MutationStatus submitCreate(AdminMutationOutbox outbox, String subject) {
+        return outbox.submit(CognitoOperation.CREATE_USER, subject, Map.of("email", subject + "@example.com"), List.of())
+                .block(Duration.ofSeconds(5));
+    }
+
+    private static UsernameExistsException usernameExists() {
+        return UsernameExistsException.builder()
+                .awsErrorDetails(AwsErrorDetails.builder().errorCode("UsernameExistsException").build())
+                .build();
+    }
+
+    private MutationStatus awaitCompleted(AdminMutationOutbox outbox, long id) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (System.nanoTime() < deadline) {
+            MutationStatus status = outbox.status(id).orElseThrow();
+            if (status.getState() != MutationStatus.State.PENDING) {
+                return status;
+            }
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        throw new AssertionError("Mutation " + id + " still pending");
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+
+    /**
+     * Position after the last record of a segment
+     */
+    private static long endOfRecords(Path segment) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(segment));
+        int position = 5;
+        while (buffer.getInt(position) != 0) {
+            position += 8 + buffer.getInt(position);
+        }
+        return position;
+    }
+}
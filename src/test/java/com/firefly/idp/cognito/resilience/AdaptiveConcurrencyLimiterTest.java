@@ -0,0 +1,131 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.resilience;
+
+import com.firefly.idp.cognito.properties.CognitoProperties;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for AdaptiveConcurrencyLimiter.
+ */
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long INTERVAL = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    void testSteadyLatencyAtFullUse_RaisesLimit() {
+        // Arrange
+        AdaptiveConcurrencyLimiter limiter = limiter(10);
+
+        // Act
+        for (int i = 0; i < 20; i++) {
+            window(limiter, limiter.limit(), 10);
+        }
+
+        // Assert
+        assertThat(limiter.limit()).isGreaterThan(10);
+    }
+
+    @Test
+    void testSteadyLatencyAtLowUse_KeepsLimit() {
+        // Arrange
+        AdaptiveConcurrencyLimiter limiter = limiter(10);
+
+        // Act
+        for (int i = 0; i < 20; i++) {
+            window(limiter, 2, 10);
+        }
+
+        // Assert
+        assertThat(limiter.limit()).isEqualTo(10);
+    }
+
+    @Test
+    void testRisingLatency_LowersLimit() {
+        // Arrange
+        AdaptiveConcurrencyLimiter limiter = limiter(40);
+        for (int i = 0; i < 10; i++) {
+            window(limiter, 20, 10);
+        }
+        int before = limiter.limit();
+
+        // Act
+        for (int i = 0; i < 5; i++) {
+            window(limiter, 20, 60);
+        }
+
+        // Assert
+        assertThat(limiter.limit()).isLessThan(before);
+    }
+
+    @Test
+    void testThrottledCall_DecreasesMultiplicatively() {
+        // Arrange
+        AdaptiveConcurrencyLimiter limiter = limiter(50);
+        assertThat(limiter.tryAcquire()).isTrue();
+        clock.addAndGet(INTERVAL);
+
+        // Act
+        limiter.onDropped();
+
+        // Assert
+        assertThat(limiter.limit()).isEqualTo(45);
+        assertThat(limiter.inFlight()).isZero();
+    }
+
+    @Test
+    void testTryAcquire_RejectsAtLimitUntilSlotReleased() {
+        // Arrange
+        AdaptiveConcurrencyLimiter limiter = limiter(2);
+
+        // Act & Assert
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.tryAcquire()).isFalse();
+        limiter.onIgnored();
+        assertThat(limiter.tryAcquire()).isTrue();
+        assertThat(limiter.inFlight()).isEqualTo(2);
+    }
+
+    private AdaptiveConcurrencyLimiter limiter(int initialLimit) {
+        CognitoProperties.AdaptiveLimit settings = new CognitoProperties.AdaptiveLimit();
+        settings.setInitialLimit(initialLimit);
+        settings.setMinLimit(1);
+        return new AdaptiveConcurrencyLimiter(settings, clock::get);
+    }
+
+    /**
+     * Run {@code calls} concurrent calls of {@code rttMillis} each through one update interval
+     */
+    private void window(AdaptiveConcurrencyLimiter limiter, int calls, long rttMillis) {
+        int acquired = 0;
+        while (acquired < calls && limiter.tryAcquire()) {
+            acquired++;
+        }
+        clock.addAndGet(INTERVAL);
+        for (int i = 0; i < acquired; i++) {
+            limiter.onSuccess(TimeUnit.MILLISECONDS.toNanos(rttMillis));
+        }
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.resilience;
+
+import com.firefly.idp.cognito.client.CognitoOperation;
+import com.firefly.idp.cognito.properties.CognitoProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for CognitoBulkheads.
+ */
+class CognitoBulkheadsTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch adminRelease = new CountDownLatch(1);
+    private final List<String> completed = new CopyOnWriteArrayList<>();
+    private CognitoBulkheads bulkheads;
+
+    @BeforeEach
+    void setUp() {
+        bulkheads = bulkheads(200, 1, 1000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        adminRelease.countDown();
+        bulkheads.destroy();
+    }
+
+    @Test
+    void testSaturatedAdmin_DoesNotDelayAuth() throws Exception {
+        // Arrange
+        bulkheads.isolate(CognitoOperation.CREATE_USER, blockedAdminCall()).subscribe();
+        Mono<String> queued = bulkheads.isolate(CognitoOperation.ASSIGN_ROLES, Mono.fromCallable(() -> "assigned"));
+        awaitActive(CognitoOperation.Compartment.ADMIN, 1);
+
+        // Act & Assert
+        StepVerifier.create(queued)
+                .then(() -> {
+                    assertThat(bulkheads.queued(CognitoOperation.Compartment.ADMIN)).isEqualTo(1);
+                    StepVerifier.create(bulkheads.isolate(CognitoOperation.DELETE_USER, Mono.just("deleted")))
+                            .expectError(BulkheadFullException.class)
+                            .verify();
+                    StepVerifier.create(bulkheads.isolate(CognitoOperation.LOGIN,
+                                    Mono.fromCallable(() -> Thread.currentThread().getName())))
+                            .assertNext(thread -> assertThat(thread).startsWith("cognito-auth"))
+                            .verifyComplete();
+                    adminRelease.countDown();
+                })
+                .expectNext("assigned")
+                .verifyComplete();
+        awaitActive(CognitoOperation.Compartment.ADMIN, 0);
+        assertThat(meterRegistry.get("cognito.bulkhead.rejected")
+                .tags("compartment", "admin", "reason", "queue_full").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void testQueuedCall_RejectedAfterMaxWait() throws Exception {
+        // Arrange
+        bulkheads.isolate(CognitoOperation.CREATE_USER, blockedAdminCall()).subscribe();
+        awaitActive(CognitoOperation.Compartment.ADMIN, 1);
+
+        // Act & Assert
+        StepVerifier.create(bulkheads.isolate(CognitoOperation.GET_ROLES, Mono.just("roles")))
+                .expectErrorSatisfies(error -> {
+                    assertThat(error).isInstanceOf(BulkheadFullException.class);
+                    assertThat(((BulkheadFullException) error).getCompartment())
+                            .isEqualTo(CognitoOperation.Compartment.ADMIN);
+                })
+                .verify(Duration.ofSeconds(5));
+        assertThat(bulkheads.queued(CognitoOperation.Compartment.ADMIN)).isZero();
+        assertThat(meterRegistry.get("cognito.bulkhead.rejected")
+                .tags("compartment", "admin", "reason", "timeout").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void testCancelledWaiter_LeavesQueueAndSlotIsFreed() throws Exception {
+        // Arrange
+        bulkheads.isolate(CognitoOperation.CREATE_USER, blockedAdminCall()).subscribe();
+        awaitActive(CognitoOperation.Compartment.ADMIN, 1);
+        Disposable waiting = bulkheads.isolate(CognitoOperation.GET_ROLES, Mono.just("roles")).subscribe();
+
+        // Act
+        waiting.dispose();
+        adminRelease.countDown();
+
+        // Assert
+        assertThat(bulkheads.queued(CognitoOperation.Compartment.ADMIN)).isZero();
+        awaitActive(CognitoOperation.Compartment.ADMIN, 0);
+        StepVerifier.create(bulkheads.isolate(CognitoOperation.GET_ROLES, Mono.just("roles")))
+                .expectNext("roles")
+                .verifyComplete();
+    }
+
+    @Test
+    void testQueuedCalls_ServedByPriority() throws Exception {
+        // Arrange
+        bulkheads.destroy();
+        bulkheads = bulkheads(5000, 3, 1000);
+        bulkheads.isolate(CognitoOperation.CREATE_USER, blockedAdminCall()).subscribe();
+        awaitActive(CognitoOperation.Compartment.ADMIN, 1);
+        bulkheads.isolate(CognitoOperation.GET_ROLES, recordingCall("warmup"))
+                .contextWrite(CognitoOperation.Priority.LOW.inContext())
+                .subscribe();
+        bulkheads.isolate(CognitoOperation.DELETE_USER, recordingCall("delete")).subscribe();
+        bulkheads.isolate(CognitoOperation.MFA_VERIFY, recordingCall("mfa")).subscribe();
+        awaitQueued(CognitoOperation.Compartment.ADMIN, 3);
+
+        // Act
+        adminRelease.countDown();
+
+        // Assert
+        awaitActive(CognitoOperation.Compartment.ADMIN, 0);
+        assertThat(completed).containsExactly("mfa", "delete", "warmup");
+        assertThat(meterRegistry.get("cognito.bulkhead.wait")
+                .tags("compartment", "admin", "priority", "low").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testFullQueue_HigherPriorityDisplacesLowerWaiter() throws Exception {
+        // Arrange
+        bulkheads.isolate(CognitoOperation.CREATE_USER, blockedAdminCall()).subscribe();
+        awaitActive(CognitoOperation.Compartment.ADMIN, 1);
+        Mono<String> background = bulkheads.isolate(CognitoOperation.GET_ROLES, Mono.just("roles"))
+                .contextWrite(CognitoOperation.Priority.LOW.inContext());
+
+        // Act & Assert
+        StepVerifier.create(background)
+                .then(() -> StepVerifier.create(bulkheads.isolate(CognitoOperation.MFA_VERIFY, recordingCall("mfa")))
+                        .then(() -> {
+                            assertThat(bulkheads.queued(CognitoOperation.Compartment.ADMIN)).isEqualTo(1);
+                            adminRelease.countDown();
+                        })
+                        .expectNext("mfa")
+                        .verifyComplete())
+                .expectError(BulkheadFullException.class)
+                .verify(Duration.ofSeconds(5));
+        awaitActive(CognitoOperation.Compartment.ADMIN, 0);
+        assertThat(meterRegistry.get("cognito.bulkhead.rejected")
+                .tags("compartment", "admin", "reason", "displaced").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void testStarvingWaiter_ServedAheadOfHigherPriority() throws Exception {
+        // Arrange
+        bulkheads.destroy();
+        bulkheads = bulkheads(5000, 2, 50);
+        bulkheads.isolate(CognitoOperation.CREATE_USER, blockedAdminCall()).subscribe();
+        awaitActive(CognitoOperation.Compartment.ADMIN, 1);
+        bulkheads.isolate(CognitoOperation.CREATE_SCOPE, recordingCall("scope")).subscribe();
+        awaitQueued(CognitoOperation.Compartment.ADMIN, 1);
+        Thread.sleep(100);
+        bulkheads.isolate(CognitoOperation.MFA_VERIFY, recordingCall("mfa")).subscribe();
+        awaitQueued(CognitoOperation.Compartment.ADMIN, 2);
+
+        // Act
+        adminRelease.countDown();
+
+        // Assert
+        awaitActive(CognitoOperation.Compartment.ADMIN, 0);
+        assertThat(completed).containsExactly("scope", "mfa");
+        assertThat(meterRegistry.get("cognito.bulkhead.promoted")
+                .tags("compartment", "admin").counter().count()).isEqualTo(1.0);
+    }
+
+    private CognitoBulkheads bulkheads(int maxWait, int maxQueued, int starvationThreshold) {
+        CognitoProperties.Bulkhead settings = new CognitoProperties.Bulkhead();
+        settings.setMaxWaitDuration(maxWait);
+        settings.setStarvationThreshold(starvationThreshold);
+        settings.getAdmin().setMaxConcurrentCalls(1);
+        settings.getAdmin().setMaxQueuedCalls(maxQueued);
+        meterRegistry.clear();
+        return new CognitoBulkheads(settings, meterRegistry);
+    }
+
+    private Mono<String> recordingCall(String name) {
+        return Mono.fromCallable(() -> {
+            completed.add(name);
+            return name;
+        });
+    }
+
+    private Mono<String> blockedAdminCall() {
+        return Mono.fromCallable(() -> {
+            adminRelease.await(5, TimeUnit.SECONDS);
+            return "created";
+        });
+    }
+
+    private void awaitQueued(CognitoOperation.Compartment compartment, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (bulkheads.queued(compartment) != expected && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(bulkheads.queued(compartment)).isEqualTo(expected);
+    }
+
+    private void awaitActive(CognitoOperation.Compartment compartment, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (bulkheads.active(compartment) != expected && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(bulkheads.active(compartment)).isEqualTo(expected);
+    }
+}
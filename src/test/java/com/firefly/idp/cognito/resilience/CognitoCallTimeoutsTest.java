@@ -0,0 +1,139 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.resilience;
+
+import com.firefly.idp.cognito.client.CognitoOperation;
+import com.firefly.idp.cognito.loadtest.LoadProfile;
+import com.firefly.idp.cognito.loadtest.LoadTestHarness;
+import com.firefly.idp.cognito.properties.CognitoProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import reactor.test.StepVerifier;
+import reactor.util.context.Context;
+import software.amazon.awssdk.awscore.AwsRequestOverrideConfiguration;
+import software.amazon.awssdk.core.SdkRequest;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.interceptor.InterceptorContext;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.GetUserRequest;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for CognitoCallTimeouts.
+ */
+class CognitoCallTimeoutsTest {
+
+    private final CognitoProperties properties = new CognitoProperties();
+
+    @Test
+    void testOperationTimeout_SetOnSdkRequest() throws Exception {
+        // Arrange
+        properties.getTimeouts().getOperations().put("introspect", 2000);
+        CognitoCallTimeouts timeouts = new CognitoCallTimeouts(properties);
+
+        // Act
+        AwsRequestOverrideConfiguration override = timeouts.bound(CognitoOperation.INTROSPECT, null,
+                () -> modify(timeouts, GetUserRequest.builder().accessToken("token").build())).call();
+
+        // Assert
+        assertThat(override.apiCallTimeout()).contains(Duration.ofSeconds(2));
+        assertThat(override.apiCallAttemptTimeout()).contains(Duration.ofSeconds(2));
+        assertThat(timeouts.timeout(CognitoOperation.LOGIN)).isEqualTo(Duration.ofMillis(properties.getRequestTimeout()));
+    }
+
+    @Test
+    void testDeadline_ShortensTimeoutToTimeLeft() throws Exception {
+        // Arrange
+        CognitoCallTimeouts timeouts = new CognitoCallTimeouts(properties);
+        CognitoDeadline deadline = deadline(Duration.ofMillis(500));
+
+        // Act
+        AwsRequestOverrideConfiguration override = timeouts.bound(CognitoOperation.GET_USER_INFO, deadline,
+                () -> modify(timeouts, GetUserRequest.builder().accessToken("token").build())).call();
+
+        // Assert
+        assertThat(override.apiCallTimeout()).hasValueSatisfying(timeout ->
+                assertThat(timeout).isPositive().isLessThanOrEqualTo(Duration.ofMillis(500)));
+    }
+
+    @Test
+    void testExpiredDeadline_FailsWithoutCalling() {
+        // Arrange
+        CognitoCallTimeouts timeouts = new CognitoCallTimeouts(properties);
+        AtomicBoolean called = new AtomicBoolean();
+
+        // Act & Assert
+        assertThatThrownBy(() -> timeouts.bound(CognitoOperation.GET_ROLES, deadline(Duration.ZERO), () -> {
+            called.set(true);
+            return "roles";
+        }).call()).isInstanceOf(DeadlineExceededException.class);
+        assertThat(called).isFalse();
+    }
+
+    @Test
+    void testExplicitRequestTimeout_IsKept() throws Exception {
+        // Arrange
+        CognitoCallTimeouts timeouts = new CognitoCallTimeouts(properties);
+        GetUserRequest request = GetUserRequest.builder()
+                .accessToken("token")
+                .overrideConfiguration(config -> config.apiCallTimeout(Duration.ofSeconds(7)))
+                .build();
+
+        // Act
+        AwsRequestOverrideConfiguration override = timeouts.bound(CognitoOperation.GET_USER_INFO,
+                deadline(Duration.ofSeconds(1)), () -> modify(timeouts, request)).call();
+
+        // Assert
+        assertThat(override.apiCallTimeout()).contains(Duration.ofSeconds(7));
+    }
+
+    @Test
+    void testCallerDeadline_CancelsSlowCognitoCall() throws Exception {
+        try (LoadTestHarness harness = new LoadTestHarness(LoadProfile.builder().build())) {
+            // Arrange: a first call creates the SDK client
+            harness.adapter().getUserInfo("token").block();
+            harness.stub().latency("GetUser", random -> TimeUnit.SECONDS.toNanos(3));
+
+            // Act & Assert
+            long start = System.nanoTime();
+            StepVerifier.create(harness.adapter().getUserInfo("token")
+                            .contextWrite(CognitoDeadline.within(Duration.ofMillis(300))))
+                    .assertNext(response -> {
+                        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.GATEWAY_TIMEOUT);
+                        assertThat(response.getHeaders().containsKey("Retry-After")).isFalse();
+                    })
+                    .verifyComplete();
+            assertThat(System.nanoTime() - start).isLessThan(TimeUnit.SECONDS.toNanos(2));
+            assertThat(harness.stub().requestCount("GetUser")).isEqualTo(2);
+        }
+    }
+
+    private static CognitoDeadline deadline(Duration budget) {
+        return CognitoDeadline.from(CognitoDeadline.within(budget).apply(Context.empty()));
+    }
+
+    private static AwsRequestOverrideConfiguration modify(CognitoCallTimeouts timeouts, SdkRequest request) {
+        SdkRequest modified = timeouts.modifyRequest(InterceptorContext.builder().request(request).build(),
+                new ExecutionAttributes());
+        return ((GetUserRequest) modified).overrideConfiguration().orElseThrow();
+    }
+}
@@ -0,0 +1,282 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.resilience;
+
+import com.firefly.idp.cognito.adapter.CognitoIdpAdapter;
+import com.firefly.idp.cognito.client.CognitoOperation;
+import com.firefly.idp.cognito.fault.FaultInjector;
+import com.firefly.idp.cognito.fault.FaultScenario;
+import com.firefly.idp.cognito.loadtest.LoadProfile;
+import com.firefly.idp.cognito.loadtest.LoadTestHarness;
+import com.firefly.idp.cognito.properties.CognitoProperties;
+import com.firefly.idp.dtos.LoginRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.InternalErrorException;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.NotAuthorizedException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for CognitoCircuitBreakers.
+ */
+class CognitoCircuitBreakersTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private CognitoProperties.CircuitBreaker settings;
+    private CognitoCircuitBreakers breakers;
+
+    @BeforeEach
+    void setUp() {
+        settings = new CognitoProperties.CircuitBreaker();
+        settings.setSlidingWindowSize(10);
+        settings.setMinimumCalls(4);
+        settings.setPermittedCallsInHalfOpenState(2);
+        breakers = new CognitoCircuitBreakers(settings, meterRegistry, clock::get);
+    }
+
+    @Test
+    void testFailureRate_OpensAndFailsFast() {
+        // Arrange
+        AtomicInteger subscriptions = new AtomicInteger();
+        Mono<String> failing = Mono.defer(() -> {
+            subscriptions.incrementAndGet();
+            return Mono.error(InternalErrorException.builder().statusCode(500).message("down").build());
+        });
+
+        // Act
+        for (int i = 0; i < 4; i++) {
+            breakers.protect(CognitoOperation.LOGIN, failing).onErrorResume(e -> Mono.empty()).block();
+        }
+
+        // Assert
+        assertThat(breakers.state(CognitoOperation.LOGIN)).isEqualTo(CircuitBreaker.State.OPEN);
+        StepVerifier.create(breakers.protect(CognitoOperation.LOGIN, failing))
+                .expectErrorSatisfies(error -> {
+                    assertThat(error).isInstanceOf(CircuitOpenException.class);
+                    assertThat(((CircuitOpenException) error).getRetryAfter()).isEqualTo(Duration.ofSeconds(30));
+                    assertThat(((CircuitOpenException) error).getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+                })
+                .verify();
+        assertThat(subscriptions).hasValue(4);
+        assertThat(breakers.state(CognitoOperation.INTROSPECT)).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(meterRegistry.get("cognito.circuit.rejected").tag("operation", "login").counter().count())
+                .isEqualTo(1.0);
+        assertThat(meterRegistry.get("cognito.circuit.state").tag("operation", "login").gauge().value())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void testClientErrors_DoNotOpen() {
+        // Arrange
+        Mono<String> rejected = Mono.error(NotAuthorizedException.builder().statusCode(400).message("bad").build());
+
+        // Act
+        for (int i = 0; i < 10; i++) {
+            breakers.protect(CognitoOperation.LOGIN, rejected).onErrorResume(e -> Mono.empty()).block();
+        }
+
+        // Assert
+        assertThat(breakers.state(CognitoOperation.LOGIN)).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    void testDomainErrors_OnlyServerErrorsCount() {
+        // Act & Assert
+        assertThat(CognitoCircuitBreakers.isFailure(WebClientResponseException.create(502, "Bad Gateway", null, null, null)))
+                .isTrue();
+        assertThat(CognitoCircuitBreakers.isFailure(WebClientResponseException.create(429, "Too Many Requests", null, null, null)))
+                .isTrue();
+        assertThat(CognitoCircuitBreakers.isFailure(WebClientResponseException.create(400, "Bad Request", null, null, null)))
+                .isFalse();
+    }
+
+    @Test
+    void testSlowCalls_OpenAndHalfOpenTrialsClose() {
+        // Arrange
+        Mono<String> slow = Mono.fromCallable(() -> {
+            clock.addAndGet(TimeUnit.SECONDS.toNanos(6));
+            return "ok";
+        });
+
+        // Act
+        for (int i = 0; i < 4; i++) {
+            breakers.protect(CognitoOperation.GET_USER_INFO, slow).block();
+        }
+        CircuitBreaker.State opened = breakers.state(CognitoOperation.GET_USER_INFO);
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(30));
+        breakers.protect(CognitoOperation.GET_USER_INFO, Mono.just("ok")).block();
+        CircuitBreaker.State trial = breakers.state(CognitoOperation.GET_USER_INFO);
+        breakers.protect(CognitoOperation.GET_USER_INFO, Mono.just("ok")).block();
+
+        // Assert
+        assertThat(opened).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(trial).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThat(breakers.state(CognitoOperation.GET_USER_INFO)).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(meterRegistry.get("cognito.circuit.transitions")
+                .tags("operation", "get_user_info", "state", "closed").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void testFallback_ServesStoredResultUntilExpired() {
+        // Arrange
+        Mono<ResponseEntity<String>> down = Mono.error(InternalErrorException.builder().statusCode(500).build());
+        String token = token(Instant.now().plus(Duration.ofHours(1)));
+        breakers.protect(CognitoOperation.INTROSPECT, token, Mono.just(ResponseEntity.ok("active"))).block();
+
+        // Act & Assert
+        for (int i = 0; i < 6; i++) {
+            StepVerifier.create(breakers.protect(CognitoOperation.INTROSPECT, token, down))
+                    .assertNext(response -> assertThat(response.getBody()).isEqualTo("active"))
+                    .verifyComplete();
+        }
+        assertThat(breakers.state(CognitoOperation.INTROSPECT)).isEqualTo(CircuitBreaker.State.OPEN);
+        StepVerifier.create(breakers.protect(CognitoOperation.INTROSPECT, "other-token", down))
+                .expectError(CircuitOpenException.class)
+                .verify();
+
+        // The half-open trial reaches Cognito again and the stored result has expired
+        clock.addAndGet(TimeUnit.MINUTES.toNanos(6));
+        StepVerifier.create(breakers.protect(CognitoOperation.INTROSPECT, token, down))
+                .expectError(InternalErrorException.class)
+                .verify();
+        assertThat(meterRegistry.get("cognito.circuit.fallbacks").tag("operation", "introspect").counter().count())
+                .isEqualTo(6.0);
+    }
+
+    @Test
+    void testIntrospectionFallback_NeverOutlivesToken() {
+        // Arrange
+        Mono<ResponseEntity<String>> down = Mono.error(InternalErrorException.builder().statusCode(500).build());
+        String expiring = token(Instant.now().plusSeconds(60));
+        String expired = token(Instant.now().minusSeconds(1));
+        breakers.protect(CognitoOperation.INTROSPECT, expiring, Mono.just(ResponseEntity.ok("active"))).block();
+        breakers.protect(CognitoOperation.INTROSPECT, expired, Mono.just(ResponseEntity.ok("active"))).block();
+        breakers.protect(CognitoOperation.INTROSPECT, "opaque", Mono.just(ResponseEntity.ok("active"))).block();
+
+        // Act
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(61));
+
+        // Assert
+        for (String token : List.of(expiring, expired, "opaque")) {
+            StepVerifier.create(breakers.protect(CognitoOperation.INTROSPECT, token, down))
+                    .expectError(InternalErrorException.class)
+                    .verify();
+        }
+    }
+
+    @Test
+    void testFallback_NotServedForCallsShedLocally() {
+        // Arrange
+        String token = token(Instant.now().plus(Duration.ofHours(1)));
+        breakers.protect(CognitoOperation.INTROSPECT, token, Mono.just(ResponseEntity.ok("active"))).block();
+        Mono<ResponseEntity<String>> shed = Mono.error(
+                new ConcurrencyLimitExceededException(CognitoOperation.Compartment.AUTH, 10));
+        Mono<ResponseEntity<String>> pastDeadline = Mono.error(new DeadlineExceededException(CognitoOperation.INTROSPECT));
+
+        // Act & Assert
+        StepVerifier.create(breakers.protect(CognitoOperation.INTROSPECT, token, shed))
+                .expectError(ConcurrencyLimitExceededException.class)
+                .verify();
+        StepVerifier.create(breakers.protect(CognitoOperation.INTROSPECT, token, pastDeadline))
+                .expectError(DeadlineExceededException.class)
+                .verify();
+    }
+
+    @Test
+    void testEvictIf_DropsMatchingResults() {
+        // Arrange
+        Mono<ResponseEntity<String>> down = Mono.error(InternalErrorException.builder().statusCode(500).build());
+        String alice = token(Instant.now().plus(Duration.ofHours(1)));
+        String bob = token(Instant.now().plus(Duration.ofHours(2)));
+        breakers.protect(CognitoOperation.INTROSPECT, alice, Mono.just(ResponseEntity.ok("alice"))).block();
+        breakers.protect(CognitoOperation.INTROSPECT, bob, Mono.just(ResponseEntity.ok("bob"))).block();
+
+        // Act
+        breakers.evictIf(CognitoOperation.INTROSPECT,
+                result -> "alice".equals(((ResponseEntity<?>) result).getBody()));
+
+        // Assert
+        StepVerifier.create(breakers.protect(CognitoOperation.INTROSPECT, alice, down))
+                .expectError(InternalErrorException.class)
+                .verify();
+        StepVerifier.create(breakers.protect(CognitoOperation.INTROSPECT, bob, down))
+                .assertNext(response -> assertThat(response.getBody()).isEqualTo("bob"))
+                .verifyComplete();
+    }
+
+    @Test
+    void testOutage_AdapterAnswersServiceUnavailable() throws Exception {
+        // Arrange
+        FaultInjector faults = new FaultInjector();
+        try (LoadTestHarness harness = new LoadTestHarness(LoadProfile.builder().build(), faults::decorate)) {
+            CognitoIdpAdapter adapter = harness.adapter();
+            String accessToken = token(Instant.now().plus(Duration.ofHours(1)));
+            adapter.introspect(accessToken).block();
+            faults.activate(FaultScenario.named("outage").serverError("*", 1.0));
+
+            // Act
+            for (int i = 0; i < 20; i++) {
+                adapter.login(login()).block();
+            }
+
+            // Assert
+            StepVerifier.create(adapter.login(login()))
+                    .assertNext(response -> {
+                        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+                        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("30");
+                    })
+                    .verifyComplete();
+            StepVerifier.create(adapter.introspect(accessToken))
+                    .assertNext(response -> assertThat(response.getBody().isActive()).isTrue())
+                    .verifyComplete();
+            assertThat(faults.calls()).isEqualTo(22);
+        }
+    }
+
+    /**
+     * An unsigned JWT expiring at the given time
+     */
+    private static String token(Instant expiresAt) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String claims = "{\"sub\":\"" + UUID.randomUUID() + "\",\"exp\":" + expiresAt.getEpochSecond() + "}";
+        return encoder.encodeToString("{\"alg\":\"none\"}".getBytes(StandardCharsets.UTF_8)) + "."
+                + encoder.encodeToString(claims.getBytes(StandardCharsets.UTF_8)) + ".signature";
+    }
+
+    private static LoginRequest login() {
+        return LoginRequest.builder().username("loaduser").password("LoadTest123!").build();
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.resilience;
+
+import com.firefly.idp.cognito.client.CognitoOperation;
+import com.firefly.idp.cognito.properties.CognitoProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.NotAuthorizedException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for CognitoConcurrencyLimits.
+ */
+class CognitoConcurrencyLimitsTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void testCallOverLimit_FailsFastAndIsCounted() {
+        // Arrange
+        CognitoConcurrencyLimits limits = limits(1);
+        Sinks.One<String> pending = Sinks.one();
+
+        // Act & Assert
+        StepVerifier.create(limits.limit(CognitoOperation.CREATE_USER, pending.asMono()))
+                .then(() -> {
+                    assertThat(limits.inFlight(CognitoOperation.Compartment.ADMIN)).isEqualTo(1);
+                    StepVerifier.create(limits.limit(CognitoOperation.DELETE_USER, Mono.just("deleted")))
+                            .expectErrorSatisfies(error -> {
+                                assertThat(error).isInstanceOf(ConcurrencyLimitExceededException.class);
+                                assertThat(((ConcurrencyLimitExceededException) error).getLimit()).isEqualTo(1);
+                            })
+                            .verify();
+                    StepVerifier.create(limits.limit(CognitoOperation.LOGIN, Mono.just("token")))
+                            .expectNext("token")
+                            .verifyComplete();
+                    pending.tryEmitValue("created");
+                })
+                .expectNext("created")
+                .verifyComplete();
+        assertThat(limits.inFlight(CognitoOperation.Compartment.ADMIN)).isZero();
+        assertThat(meterRegistry.get("cognito.limiter.rejected")
+                .tag("compartment", "admin").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("cognito.limiter.limit")
+                .tag("compartment", "auth").gauge().value()).isEqualTo(1.0);
+    }
+
+    @Test
+    void testFailedAndCancelledCalls_ReleaseTheirSlot() {
+        // Arrange
+        CognitoConcurrencyLimits limits = limits(1);
+        Mono<String> rejected = Mono.error(NotAuthorizedException.builder().message("bad password").build());
+
+        // Act
+        StepVerifier.create(limits.limit(CognitoOperation.LOGIN, rejected))
+                .expectError(NotAuthorizedException.class)
+                .verify();
+        limits.limit(CognitoOperation.LOGIN, Mono.never()).subscribe().dispose();
+
+        // Assert
+        assertThat(limits.inFlight(CognitoOperation.Compartment.AUTH)).isZero();
+        StepVerifier.create(limits.limit(CognitoOperation.LOGIN, Mono.just("token")))
+                .expectNext("token")
+                .verifyComplete();
+    }
+
+    private CognitoConcurrencyLimits limits(int initialLimit) {
+        CognitoProperties.AdaptiveLimit settings = new CognitoProperties.AdaptiveLimit();
+        settings.setInitialLimit(initialLimit);
+        settings.setMinLimit(1);
+        return new CognitoConcurrencyLimits(settings, meterRegistry);
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.resilience;
+
+import com.firefly.idp.cognito.client.CognitoOperation;
+import com.firefly.idp.cognito.properties.CognitoProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.NotAuthorizedException;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for CognitoHedging.
+ */
+class CognitoHedgingTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch slowRelease = new CountDownLatch(1);
+    private final AtomicInteger attempts = new AtomicInteger();
+
+    @AfterEach
+    void tearDown() {
+        slowRelease.countDown();
+    }
+
+    @Test
+    void testSlowFirstAttempt_HedgeAnswersFirst() {
+        // Arrange
+        CognitoHedging hedging = hedging(1.0, 10);
+        Mono<String> attempt = Mono.fromCallable(() -> {
+            if (attempts.incrementAndGet() == 1) {
+                slowRelease.await(5, TimeUnit.SECONDS);
+                return "slow";
+            }
+            return "hedged";
+        });
+
+        // Act & Assert
+        StepVerifier.create(hedging.hedge(CognitoOperation.GET_ROLES, attempt).subscribeOn(Schedulers.boundedElastic()))
+                .expectNext("hedged")
+                .expectComplete()
+                .verify(Duration.ofSeconds(2));
+        assertThat(attempts.get()).isEqualTo(2);
+        assertThat(counter("cognito.hedge.sent")).isEqualTo(1.0);
+        assertThat(counter("cognito.hedge.won")).isEqualTo(1.0);
+    }
+
+    @Test
+    void testFastFirstAttempt_SendsNoHedge() {
+        // Arrange
+        CognitoHedging hedging = hedging(1.0, 10);
+
+        // Act
+        for (int i = 0; i < LatencyPercentile.RECOMPUTE_EVERY; i++) {
+            StepVerifier.create(hedging.hedge(CognitoOperation.INTROSPECT, Mono.fromCallable(attempts::incrementAndGet)))
+                    .expectNextCount(1)
+                    .verifyComplete();
+        }
+
+        // Assert
+        assertThat(attempts.get()).isEqualTo(LatencyPercentile.RECOMPUTE_EVERY);
+        assertThat(meterRegistry.get("cognito.hedge.sent").tag("operation", "introspect").counter().count()).isZero();
+        assertThat(hedging.delay(CognitoOperation.INTROSPECT)).isEqualTo(Duration.ofMillis(10));
+    }
+
+    @Test
+    void testSpentBudget_SkipsHedge() {
+        // Arrange
+        CognitoHedging hedging = hedging(0.0, 0);
+        Mono<String> attempt = Mono.fromCallable(() -> {
+            attempts.incrementAndGet();
+            Thread.sleep(150);
+            return "roles";
+        });
+
+        // Act & Assert
+        StepVerifier.create(hedging.hedge(CognitoOperation.GET_ROLES, attempt).subscribeOn(Schedulers.boundedElastic()))
+                .expectNext("roles")
+                .verifyComplete();
+        assertThat(attempts.get()).isEqualTo(1);
+        assertThat(counter("cognito.hedge.skipped")).isEqualTo(1.0);
+    }
+
+    @Test
+    void testFirstAttemptError_IsFinal() {
+        // Arrange
+        CognitoHedging hedging = hedging(1.0, 10);
+        Mono<String> attempt = Mono.fromCallable(() -> {
+            attempts.incrementAndGet();
+            throw NotAuthorizedException.builder().message("Access Token has expired").build();
+        });
+
+        // Act & Assert
+        StepVerifier.create(hedging.hedge(CognitoOperation.GET_ROLES, attempt))
+                .expectError(NotAuthorizedException.class)
+                .verify(Duration.ofSeconds(1));
+        assertThat(attempts.get()).isEqualTo(1);
+    }
+
+    @Test
+    void testFailedFirstAttempts_CountInDelay() {
+        // Arrange
+        CognitoHedging hedging = hedging(0.0, 0);
+        Mono<String> attempt = Mono.fromCallable(() -> {
+            Thread.sleep(80);
+            throw NotAuthorizedException.builder().message("Access Token has expired").build();
+        });
+
+        // Act
+        for (int i = 0; i < LatencyPercentile.RECOMPUTE_EVERY; i++) {
+            StepVerifier.create(hedging.hedge(CognitoOperation.GET_ROLES, attempt))
+                    .expectError(NotAuthorizedException.class)
+                    .verify(Duration.ofSeconds(1));
+        }
+
+        // Assert
+        assertThat(hedging.delay(CognitoOperation.GET_ROLES)).isGreaterThanOrEqualTo(Duration.ofMillis(80));
+    }
+
+    @Test
+    void testHedge_AsksForLowPriority() {
+        // Arrange
+        CognitoHedging hedging = hedging(1.0, 10);
+        AtomicReference<CognitoOperation.Priority> hedgePriority = new AtomicReference<>();
+        Mono<String> attempt = Mono.deferContextual(context -> Mono.fromCallable(() -> {
+            if (attempts.incrementAndGet() == 1) {
+                slowRelease.await(5, TimeUnit.SECONDS);
+                return "slow";
+            }
+            hedgePriority.set(CognitoOperation.GET_ROLES.priority(context));
+            return "hedged";
+        }));
+
+        // Act & Assert
+        StepVerifier.create(hedging.hedge(CognitoOperation.GET_ROLES, attempt).subscribeOn(Schedulers.boundedElastic()))
+                .expectNext("hedged")
+                .verifyComplete();
+        assertThat(hedgePriority.get()).isEqualTo(CognitoOperation.Priority.LOW);
+    }
+
+    private CognitoHedging hedging(double budgetRatio, int budgetBurst) {
+        CognitoProperties.Hedging settings = new CognitoProperties.Hedging();
+        settings.setEnabled(true);
+        settings.setInitialDelay(50);
+        settings.setBudgetRatio(budgetRatio);
+        settings.setBudgetBurst(budgetBurst);
+        return new CognitoHedging(settings, meterRegistry);
+    }
+
+    private double counter(String name) {
+        return meterRegistry.get(name).tag("operation", "get_roles").counter().count();
+    }
+}
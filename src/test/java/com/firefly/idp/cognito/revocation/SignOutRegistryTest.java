@@ -0,0 +1,104 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.firefly.idp.cognito.revocation;
+
+import com.firefly.idp.cognito.properties.CognitoProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for SignOutRegistry.
+ */
+class SignOutRegistryTest {
+
+    private CognitoProperties properties;
+    private SignOutRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        properties = new CognitoProperties();
+        registry = new SignOutRegistry(properties);
+    }
+
+    @Test
+    void testRecordSignOut_NotifiesListeners() {
+        // Arrange
+        List<String> notified = new ArrayList<>();
+        registry.addListener(username -> {
+            throw new IllegalStateException("broken listener");
+        });
+        registry.addListener(notified::add);
+
+        // Act
+        registry.recordSignOut("alice");
+        registry.recordSignOut("bob");
+
+        // Assert
+        assertThat(notified).containsExactly("alice", "bob");
+    }
+
+    @Test
+    void testIsSignedOutSince_RejectsTokensIssuedBeforeSignOut() {
+        // Arrange
+        Instant before = Instant.now().minusSeconds(60);
+
+        // Act
+        registry.recordSignOut("Alice");
+
+        // Assert
+        assertThat(registry.isSignedOutSince("alice", before)).isTrue();
+        assertThat(registry.isSignedOutSince("alice", Instant.now().plusSeconds(1))).isFalse();
+        assertThat(registry.isSignedOutSince("bob", before)).isFalse();
+    }
+
+    @Test
+    void testIsSignedOutSince_AcceptsTokenIssuedInSignOutSecond() {
+        // Arrange
+        registry.recordSignOut("alice");
+
+        // Act: token issue times have second precision, as in the JWT iat claim
+        Instant issuedAfter = Instant.ofEpochSecond(Instant.now().getEpochSecond());
+
+        // Assert
+        assertThat(registry.isSignedOutSince("alice", issuedAfter)).isFalse();
+        assertThat(registry.isSignedOutSince("alice", issuedAfter.minusSeconds(1))).isTrue();
+    }
+
+    @Test
+    void testSignOuts_ForgottenAfterRetention() throws InterruptedException {
+        // Arrange
+        properties.getBulkSignOut().setRevocationRetention(10L);
+        Instant before = Instant.now().minusSeconds(60);
+        registry.recordSignOut("alice");
+        registry.recordSignOut("bob");
+
+        // Act
+        Thread.sleep(20);
+        registry.purgeExpired();
+
+        // Assert
+        assertThat(registry.isSignedOutSince("alice", before)).isFalse();
+        assertThat(registry.isSignedOutSince("bob", before)).isFalse();
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.firefly.idp.cognito.service;
+
+import com.firefly.idp.cognito.client.CognitoCallCancellation;
+import com.firefly.idp.cognito.client.CognitoCallExecutor;
+import com.firefly.idp.cognito.client.CognitoClientFactory;
+import com.firefly.idp.cognito.coalescing.UserAttributeUpdateCoalescer;
+import com.firefly.idp.cognito.idempotency.IdempotentExecutions;
+import com.firefly.idp.cognito.index.DeviceOwnerIndex;
+import com.firefly.idp.cognito.index.GroupMembershipIndex;
+import com.firefly.idp.cognito.journal.AuthEventJournal;
+import com.firefly.idp.cognito.mapping.CognitoAttributeMapper;
+import com.firefly.idp.cognito.metrics.CognitoMetrics;
+import com.firefly.idp.cognito.outbox.AdminMutationOutbox;
+import com.firefly.idp.cognito.properties.CognitoProperties;
+import com.firefly.idp.cognito.resilience.CognitoBulkheads;
+import com.firefly.idp.cognito.resilience.CognitoCallTimeouts;
+import com.firefly.idp.cognito.resilience.CognitoCircuitBreakers;
+import com.firefly.idp.cognito.resilience.CognitoConcurrencyLimits;
+import com.firefly.idp.cognito.resilience.CognitoHedging;
+import com.firefly.idp.cognito.revocation.BulkSignOutResult;
+import com.firefly.idp.cognito.revocation.SignOutRegistry;
+import com.firefly.idp.cognito.sharding.UserPoolShards;
+import com.firefly.idp.cognito.tracing.CognitoTracing;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.services.cognitoidentityprovider.CognitoIdentityProviderClient;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.AdminUserGlobalSignOutRequest;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.AdminUserGlobalSignOutResponse;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.TooManyRequestsException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the bulk global sign-out of CognitoAdminService.
+ */
+@ExtendWith(MockitoExtension.class)
+class CognitoAdminServiceBulkSignOutTest {
+
+    @Mock
+    private CognitoClientFactory clientFactory;
+
+    @Mock
+    private CognitoIdentityProviderClient client;
+
+    @Mock
+    private GroupMembershipIndex groupIndex;
+
+    @Mock
+    private UserAttributeUpdateCoalescer updateCoalescer;
+
+    @Mock
+    private CognitoAttributeMapper attributeMapper;
+
+    @Mock
+    private DeviceOwnerIndex deviceIndex;
+
+    @Mock
+    private AuthEventJournal journal;
+
+    @Mock
+    private AdminMutationOutbox outbox;
+
+    @Mock
+    private IdempotentExecutions idempotency;
+
+    /** Call start times in nanoseconds, in call order */
+    private final List<Long> calls = Collections.synchronizedList(new ArrayList<>());
+    /** Users whose next call is throttled */
+    private final Set<String> throttleOnce = ConcurrentHashMap.newKeySet();
+    /** Users whose calls are always throttled */
+    private final Set<String> throttleAlways = ConcurrentHashMap.newKeySet();
+
+    private CognitoProperties properties;
+    private CognitoBulkheads bulkheads;
+    private SignOutRegistry signOutRegistry;
+    private CognitoAdminService adminService;
+
+    @BeforeEach
+    void setUp() {
+        properties = new CognitoProperties();
+        properties.setUserPoolId("us-east-1_test");
+        properties.setClientId("test-client");
+        properties.getBulkSignOut().setRatePerSecond(10);
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        CognitoCallTimeouts timeouts = new CognitoCallTimeouts(properties);
+        bulkheads = new CognitoBulkheads(properties.getBulkhead(), registry);
+        CognitoCallExecutor executor = new CognitoCallExecutor(new CognitoMetrics(registry),
+                new CognitoTracing(ObservationRegistry.NOOP, properties.getTracing()),
+                new CognitoCircuitBreakers(properties.getCircuitBreaker(), registry), bulkheads,
+                new CognitoConcurrencyLimits(properties.getAdaptiveLimit(), registry),
+                new CognitoHedging(properties.getHedging(), registry), timeouts, new CognitoCallCancellation(registry));
+        signOutRegistry = new SignOutRegistry(properties);
+        adminService = new CognitoAdminService(clientFactory, properties, groupIndex, updateCoalescer, attributeMapper,
+                deviceIndex, signOutRegistry, executor, journal, outbox, idempotency,
+                new UserPoolShards(properties, clientFactory));
+    }
+
+    @AfterEach
+    void tearDown() {
+        bulkheads.destroy();
+    }
+
+    @Test
+    void testBulkGlobalSignOut_StreamsResultsAndRecordsSignOuts() {
+        // Arrange
+        stubSignOut();
+        List<String> notified = Collections.synchronizedList(new ArrayList<>());
+        signOutRegistry.addListener(notified::add);
+        Instant before = Instant.now().minusSeconds(1);
+
+        // Act & Assert
+        StepVerifier.create(adminService.bulkGlobalSignOut(Flux.just("alice", "bob", "carol")))
+                .assertNext(result -> assertThat(result.getProcessed()).isEqualTo(1))
+                .assertNext(result -> assertThat(result.getProcessed()).isEqualTo(2))
+                .assertNext(result -> assertThat(result.getProcessed()).isEqualTo(3))
+                .verifyComplete();
+        assertThat(notified).containsExactlyInAnyOrder("alice", "bob", "carol");
+        assertThat(signOutRegistry.isSignedOutSince("bob", before)).isTrue();
+    }
+
+    @Test
+    void testThrottledCalls_RetriedInPacedSlots() {
+        // Arrange
+        stubSignOut();
+        throttleOnce.addAll(List.of("alice", "bob", "carol"));
+        long start = System.nanoTime();
+
+        // Act
+        List<BulkSignOutResult> results = adminService.bulkGlobalSignOut(Flux.just("alice", "bob", "carol"))
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+        // Assert: every attempt, retries included, waited for a slot of its own (100ms apart)
+        assertThat(results).hasSize(3).allSatisfy(result -> assertThat(result.isSuccess()).isTrue());
+        List<Long> started = new ArrayList<>(calls);
+        Collections.sort(started);
+        assertThat(started).hasSize(6);
+        for (int i = 1; i < started.size(); i++) {
+            assertThat(Duration.ofNanos(started.get(i) - start)).isGreaterThanOrEqualTo(Duration.ofMillis(100L * i));
+        }
+    }
+
+    @Test
+    void testRetriesExhausted_ReportsErrorWithoutRecording() {
+        // Arrange
+        properties.getBulkSignOut().setMaxRetries(1);
+        stubSignOut();
+        throttleAlways.add("mallory");
+        Instant before = Instant.now().minusSeconds(1);
+
+        // Act & Assert
+        StepVerifier.create(adminService.bulkGlobalSignOut(Flux.just("mallory")))
+                .assertNext(result -> {
+                    assertThat(result.isSuccess()).isFalse();
+                    assertThat(result.getError()).isEqualTo("TooManyRequestsException");
+                })
+                .verifyComplete();
+        assertThat(calls).hasSize(2);
+        assertThat(signOutRegistry.isSignedOutSince("mallory", before)).isFalse();
+    }
+
+    @Test
+    void testBulkGlobalSignOutGroup_SignsOutFreshMemberList() {
+        // Arrange
+        stubSignOut();
+        when(groupIndex.pages(eq("admins"), anyInt())).thenReturn(List.of(List.of("alice", "bob"), List.of("carol")));
+
+        // Act & Assert
+        StepVerifier.create(adminService.bulkGlobalSignOutGroup("admins"))
+                .expectNextCount(3)
+                .verifyComplete();
+        InOrder order = inOrder(groupIndex);
+        order.verify(groupIndex).invalidate("admins");
+        order.verify(groupIndex).pages(eq("admins"), anyInt());
+        assertThat(calls).hasSize(3);
+    }
+
+    private void stubSignOut() {
+        when(clientFactory.getAdminClient()).thenReturn(client);
+        when(client.adminUserGlobalSignOut(any(AdminUserGlobalSignOutRequest.class))).thenAnswer(invocation -> {
+            calls.add(System.nanoTime());
+            String username = invocation.<AdminUserGlobalSignOutRequest>getArgument(0).username();
+            if (throttleAlways.contains(username) || throttleOnce.remove(username)) {
+                throw TooManyRequestsException.builder()
+                        .statusCode(400)
+                        .awsErrorDetails(AwsErrorDetails.builder().errorCode("TooManyRequestsException").build())
+                        .message("Rate exceeded")
+                        .build();
+            }
+            return AdminUserGlobalSignOutResponse.builder().build();
+        });
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.firefly.idp.cognito.service;
+
+import com.firefly.idp.cognito.client.CognitoCallCancellation;
+import com.firefly.idp.cognito.client.CognitoCallExecutor;
+import com.firefly.idp.cognito.client.CognitoClientFactory;
+import com.firefly.idp.cognito.client.CognitoOperation;
+import com.firefly.idp.cognito.coalescing.UserAttributeUpdateCoalescer;
+import com.firefly.idp.cognito.idempotency.IdempotentExecutions;
+import com.firefly.idp.cognito.index.DeviceOwnerIndex;
+import com.firefly.idp.cognito.index.GroupMembershipIndex;
+import com.firefly.idp.cognito.journal.AuthEventJournal;
+import com.firefly.idp.cognito.mapping.CognitoAttributeMapper;
+import com.firefly.idp.cognito.metrics.CognitoMetrics;
+import com.firefly.idp.cognito.outbox.AdminMutationOutbox;
+import com.firefly.idp.cognito.properties.CognitoProperties;
+import com.firefly.idp.cognito.resilience.BulkheadFullException;
+import com.firefly.idp.cognito.resilience.CognitoBulkheads;
+import com.firefly.idp.cognito.resilience.CognitoCallTimeouts;
+import com.firefly.idp.cognito.resilience.CognitoCircuitBreakers;
+import com.firefly.idp.cognito.resilience.CognitoConcurrencyLimits;
+import com.firefly.idp.cognito.resilience.CognitoHedging;
+import com.firefly.idp.cognito.revocation.SignOutRegistry;
+import com.firefly.idp.cognito.sharding.UserPoolShards;
+import com.firefly.idp.cognito.tracing.CognitoTracing;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import software.amazon.awssdk.services.cognitoidentityprovider.CognitoIdentityProviderClient;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.AdminForgetDeviceRequest;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.AdminForgetDeviceResponse;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the session revocation of CognitoAdminService.
+ */
+@ExtendWith(MockitoExtension.class)
+class CognitoAdminServiceRevokeSessionTest {
+
+    private static final String SESSION_ID = "us-east-1_device";
+
+    @Mock
+    private CognitoClientFactory clientFactory;
+
+    @Mock
+    private CognitoIdentityProviderClient client;
+
+    @Mock
+    private GroupMembershipIndex groupIndex;
+
+    @Mock
+    private UserAttributeUpdateCoalescer updateCoalescer;
+
+    @Mock
+    private CognitoAttributeMapper attributeMapper;
+
+    @Mock
+    private DeviceOwnerIndex deviceIndex;
+
+    @Mock
+    private AuthEventJournal journal;
+
+    @Mock
+    private AdminMutationOutbox outbox;
+
+    @Mock
+    private IdempotentExecutions idempotency;
+
+    private final CountDownLatch adminRelease = new CountDownLatch(1);
+    private CognitoBulkheads bulkheads;
+    private CognitoAdminService adminService;
+
+    @BeforeEach
+    void setUp() {
+        CognitoProperties properties = new CognitoProperties();
+        properties.setUserPoolId("us-east-1_test");
+        properties.setClientId("test-client");
+        properties.getBulkhead().getAdmin().setMaxConcurrentCalls(1);
+        properties.getBulkhead().getAdmin().setMaxQueuedCalls(0);
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        bulkheads = new CognitoBulkheads(properties.getBulkhead(), registry);
+        CognitoCallExecutor executor = new CognitoCallExecutor(new CognitoMetrics(registry),
+                new CognitoTracing(ObservationRegistry.NOOP, properties.getTracing()),
+                new CognitoCircuitBreakers(properties.getCircuitBreaker(), registry), bulkheads,
+                new CognitoConcurrencyLimits(properties.getAdaptiveLimit(), registry),
+                new CognitoHedging(properties.getHedging(), registry), new CognitoCallTimeouts(properties),
+                new CognitoCallCancellation(registry));
+        adminService = new CognitoAdminService(clientFactory, properties, groupIndex, updateCoalescer, attributeMapper,
+                deviceIndex, new SignOutRegistry(properties), executor, journal, outbox, idempotency,
+                new UserPoolShards(properties, clientFactory));
+
+        when(idempotency.execute(eq(CognitoOperation.REVOKE_SESSION), eq(SESSION_ID), any()))
+                .thenAnswer(invocation -> invocation.getArgument(2));
+        when(deviceIndex.findOwner(SESSION_ID)).thenReturn(Mono.just("alice"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        adminRelease.countDown();
+        bulkheads.destroy();
+    }
+
+    @Test
+    void testRevokeSession_ForgetsDeviceWithinAdminCompartment() {
+        // Arrange
+        AtomicReference<String> forgetThread = new AtomicReference<>();
+        when(clientFactory.getAdminClient()).thenReturn(client);
+        when(client.adminForgetDevice(any(AdminForgetDeviceRequest.class))).thenAnswer(invocation -> {
+            forgetThread.set(Thread.currentThread().getName());
+            return AdminForgetDeviceResponse.builder().build();
+        });
+
+        // Act
+        StepVerifier.create(adminService.revokeSession(SESSION_ID)).verifyComplete();
+
+        // Assert
+        assertThat(forgetThread.get()).startsWith("cognito-admin");
+        verify(deviceIndex).remove(SESSION_ID);
+        verify(journal).recordSuccess(CognitoOperation.REVOKE_SESSION, "alice", SESSION_ID);
+    }
+
+    @Test
+    void testRevokeSession_FullCompartment_SurfacesUnavailable() throws Exception {
+        // Arrange
+        bulkheads.isolate(CognitoOperation.CREATE_USER, Mono.fromCallable(() -> adminRelease.await(5, TimeUnit.SECONDS)))
+                .subscribe();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (bulkheads.active(CognitoOperation.Compartment.ADMIN) != 1 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+
+        // Act & Assert
+        StepVerifier.create(adminService.revokeSession(SESSION_ID))
+                .expectError(BulkheadFullException.class)
+                .verify();
+        verify(clientFactory, never()).getAdminClient();
+    }
+}
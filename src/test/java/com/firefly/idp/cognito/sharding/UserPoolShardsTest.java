@@ -0,0 +1,242 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.sharding;
+
+import com.firefly.idp.cognito.client.CognitoClientFactory;
+import com.firefly.idp.cognito.properties.CognitoProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import software.amazon.awssdk.services.cognitoidentityprovider.CognitoIdentityProviderClient;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.AdminGetUserRequest;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.AdminGetUserResponse;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.UserNotFoundException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for UserPoolShards.
+ */
+@ExtendWith(MockitoExtension.class)
+class UserPoolShardsTest {
+
+    private static final int USERS = 20000;
+
+    @Mock
+    private CognitoClientFactory clientFactory;
+
+    @Mock
+    private CognitoIdentityProviderClient client;
+
+    private CognitoProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new CognitoProperties();
+        properties.setRegion("eu-west-1");
+        properties.setUserPoolId("eu-west-1_default");
+        properties.setClientId("default-client");
+    }
+
+    @Test
+    void testDisabled_RoutesEverythingToDefaultPool() {
+        // Arrange
+        addShards("s1");
+        UserPoolShards shards = new UserPoolShards(properties, clientFactory);
+
+        // Act & Assert
+        assertThat(shards.all()).hasSize(1);
+        assertThat(shards.forUser("alice").getUserPoolId()).isEqualTo("eu-west-1_default");
+        assertThat(shards.tagRefreshToken(shards.defaultShard(), "token")).isEqualTo("token");
+        assertThat(shards.routeRefreshToken("s1:token").token()).isEqualTo("s1:token");
+    }
+
+    @Test
+    void testUsers_SpreadEvenlyOverShards() {
+        // Arrange
+        properties.getSharding().setEnabled(true);
+        addShards("s1", "s2", "s3");
+        UserPoolShards shards = new UserPoolShards(properties, clientFactory);
+
+        // Act
+        Map<String, Integer> users = new HashMap<>();
+        for (int i = 0; i < USERS; i++) {
+            users.merge(shards.forUser("user-" + i).getName(), 1, Integer::sum);
+        }
+
+        // Assert
+        assertThat(users).containsOnlyKeys(UserPoolShards.DEFAULT_SHARD, "s1", "s2", "s3");
+        assertThat(users.values()).allSatisfy(count -> assertThat(count).isBetween(USERS / 4 * 8 / 10, USERS / 4 * 12 / 10));
+        assertThat(shards.forUser("Alice")).isSameAs(shards.forUser("alice"));
+    }
+
+    @Test
+    void testAddedShard_TakesUsersOnlyFromOthers() {
+        // Arrange
+        properties.getSharding().setEnabled(true);
+        addShards("s1", "s2");
+        UserPoolShards before = new UserPoolShards(properties, clientFactory);
+        addShards("s1", "s2", "s3");
+        properties.getSharding().setPreviousShards(List.of(UserPoolShards.DEFAULT_SHARD, "s1", "s2"));
+        UserPoolShards after = new UserPoolShards(properties, clientFactory);
+
+        // Act
+        int moved = 0;
+        for (int i = 0; i < USERS; i++) {
+            String username = "user-" + i;
+            UserPoolShard owner = after.forUser(username);
+            UserPoolShard previous = after.previousForUser(username);
+            if (!owner.getName().equals(before.forUser(username).getName())) {
+                moved++;
+                assertThat(owner.getName()).isEqualTo("s3");
+                assertThat(previous.getName()).isEqualTo(before.forUser(username).getName());
+            } else {
+                assertThat(previous).isNull();
+            }
+        }
+
+        // Assert
+        assertThat(moved).isBetween(USERS / 4 * 8 / 10, USERS / 4 * 12 / 10);
+    }
+
+    @Test
+    void testTokens_RoutedByIssuer() {
+        // Arrange
+        properties.getSharding().setEnabled(true);
+        addShards("s1");
+        UserPoolShards shards = new UserPoolShards(properties, clientFactory);
+
+        // Act & Assert
+        assertThat(shards.forToken(token("https://cognito-idp.eu-west-1.amazonaws.com/eu-west-1_s1")).getName())
+                .isEqualTo("s1");
+        assertThat(shards.forToken(token("https://cognito-idp.eu-west-1.amazonaws.com/eu-west-1_default")))
+                .isSameAs(shards.defaultShard());
+        assertThat(shards.forToken(token("https://cognito-idp.eu-west-1.amazonaws.com/eu-west-1_other"))).isNull();
+        assertThat(shards.forToken("not-a-jwt")).isNull();
+        assertThat(shards.forToken("a.!!!.c")).isNull();
+    }
+
+    @Test
+    void testRefreshTokens_RoutedToIssuingShard() {
+        // Arrange
+        properties.getSharding().setEnabled(true);
+        addShards("s1");
+        UserPoolShards shards = new UserPoolShards(properties, clientFactory);
+        UserPoolShard s1 = shards.all().stream().filter(shard -> shard.getName().equals("s1")).findFirst().orElseThrow();
+
+        // Act
+        UserPoolShards.RoutedToken tagged = shards.routeRefreshToken(shards.tagRefreshToken(s1, "eyJ.abc.def"));
+        UserPoolShards.RoutedToken untagged = shards.routeRefreshToken("eyJ.abc.def");
+
+        // Assert
+        assertThat(tagged.shard()).isSameAs(s1);
+        assertThat(tagged.token()).isEqualTo("eyJ.abc.def");
+        assertThat(untagged.shard()).isSameAs(shards.defaultShard());
+        assertThat(untagged.token()).isEqualTo("eyJ.abc.def");
+    }
+
+    @Test
+    void testSingleShard_HandsOutRefreshTokensUntagged() {
+        // Arrange
+        properties.getSharding().setEnabled(true);
+        UserPoolShards shards = new UserPoolShards(properties, clientFactory);
+
+        // Act & Assert
+        assertThat(shards.tagRefreshToken(shards.defaultShard(), "eyJ.abc.def")).isEqualTo("eyJ.abc.def");
+        assertThat(shards.routeRefreshToken("default:eyJ.abc.def").token()).isEqualTo("eyJ.abc.def");
+    }
+
+    @Test
+    void testLocate_RemembersUsersThatMoved() {
+        // Arrange
+        properties.getSharding().setEnabled(true);
+        addShards("s1");
+        properties.getSharding().setPreviousShards(List.of(UserPoolShards.DEFAULT_SHARD));
+        UserPoolShards shards = new UserPoolShards(properties, clientFactory);
+        List<String> moving = IntStream.range(0, 100)
+                .mapToObj(i -> "user-" + i)
+                .filter(username -> shards.previousForUser(username) != null)
+                .limit(2)
+                .toList();
+        String moved = moving.get(0);
+        String stillHome = moving.get(1);
+        when(clientFactory.getAdminClient()).thenReturn(client);
+        when(client.adminGetUser(argThat((AdminGetUserRequest r) -> r != null && moved.equals(r.username()))))
+                .thenThrow(UserNotFoundException.builder().message("User does not exist.").build());
+        when(client.adminGetUser(argThat((AdminGetUserRequest r) -> r != null && stillHome.equals(r.username()))))
+                .thenReturn(AdminGetUserResponse.builder().username(stillHome).build());
+
+        // Act & Assert: the former pool is asked once for a moved user, every time for one still there
+        for (int i = 0; i < 3; i++) {
+            assertThat(shards.locate(moved)).isSameAs(shards.forUser(moved));
+            assertThat(shards.locate(stillHome)).isSameAs(shards.previousForUser(stillHome));
+        }
+        assertThat(shards.formerHome(moved)).isNull();
+        verify(client, times(1)).adminGetUser(argThat((AdminGetUserRequest r) -> r != null && moved.equals(r.username())));
+        verify(client, times(3)).adminGetUser(argThat((AdminGetUserRequest r) -> r != null && stillHome.equals(r.username())));
+    }
+
+    @Test
+    void testInvalidShards_Rejected() {
+        // Arrange
+        properties.getSharding().setEnabled(true);
+        addShards("s1", "s1");
+
+        // Act & Assert
+        assertThatThrownBy(() -> new UserPoolShards(properties, clientFactory))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Duplicate");
+        addShards("s1");
+        properties.getSharding().setPreviousShards(List.of("s0"));
+        assertThatThrownBy(() -> new UserPoolShards(properties, clientFactory))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("s0");
+    }
+
+    private void addShards(String... names) {
+        properties.getSharding().setShards(Arrays.stream(names)
+                .map(name -> {
+                    CognitoProperties.Sharding.Shard shard = new CognitoProperties.Sharding.Shard();
+                    shard.setName(name);
+                    shard.setUserPoolId("eu-west-1_" + name);
+                    shard.setClientId(name + "-client");
+                    return shard;
+                })
+                .toList());
+    }
+
+    private static String token(String issuer) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString("{\"alg\":\"RS256\"}".getBytes(StandardCharsets.UTF_8)) + "."
+                + encoder.encodeToString(("{\"iss\":\"" + issuer + "\"}").getBytes(StandardCharsets.UTF_8)) + ".sig";
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.telemetry;
+
+import com.firefly.idp.cognito.client.CognitoClientFactory;
+import com.firefly.idp.cognito.properties.CognitoProperties;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.AdminGetUserRequest;
+import software.amazon.awssdk.services.cognitoidentityprovider.model.AdminGetUserResponse;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for CognitoTelemetryInterceptor.
+ */
+class CognitoTelemetryInterceptorTest {
+
+    private static final String ADMIN_GET_USER_RESPONSE = "{\"Username\":\"john\",\"UserAttributes\":[]}";
+    private static final AdminGetUserRequest ADMIN_GET_USER = AdminGetUserRequest.builder()
+            .userPoolId("us-east-1_test")
+            .username("john")
+            .build();
+    private static final String ERROR_RESPONSE = "{\"__type\":\"InternalErrorException\",\"message\":\"boom\"}";
+
+    private HttpServer server;
+    private final AtomicInteger failuresLeft = new AtomicInteger();
+    private final List<CallTrace> traces = new CopyOnWriteArrayList<>();
+    private CognitoClientFactory clientFactory;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            boolean fail = failuresLeft.getAndDecrement() > 0;
+            byte[] body = (fail ? ERROR_RESPONSE : ADMIN_GET_USER_RESPONSE).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("x-amzn-RequestId", fail ? "req-failed" : "req-ok");
+            exchange.getResponseHeaders().add("Content-Type", "application/x-amz-json-1.1");
+            exchange.sendResponseHeaders(fail ? 500 : 200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+
+        CognitoProperties properties = new CognitoProperties();
+        properties.setRegion("us-east-1");
+        clientFactory = new CognitoClientFactory(properties);
+        clientFactory.setEndpointOverride(URI.create("http://127.0.0.1:" + server.getAddress().getPort()));
+        clientFactory.setCredentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("test", "test")));
+        clientFactory.setTelemetryInterceptor(new CognitoTelemetryInterceptor(List.of(traces::add)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        clientFactory.destroy();
+        server.stop(0);
+    }
+
+    @Test
+    void testSuccessfulCall_RecordsAttemptWithSdkDurations() {
+        // Act
+        AdminGetUserResponse response = clientFactory.getClient().adminGetUser(ADMIN_GET_USER);
+
+        // Assert
+        assertThat(response.username()).isEqualTo("john");
+        assertThat(traces).hasSize(1);
+        CallTrace trace = traces.get(0);
+        assertThat(trace.getOperation()).isEqualTo("AdminGetUser");
+        assertThat(trace.isSuccess()).isTrue();
+        assertThat(trace.retries()).isZero();
+
+        CallAttempt attempt = trace.lastAttempt();
+        assertThat(attempt.getStatusCode()).isEqualTo(200);
+        assertThat(attempt.getRequestId()).isEqualTo("req-ok");
+        assertThat(attempt.getResponseBytes()).isEqualTo(ADMIN_GET_USER_RESPONSE.length());
+        assertThat(attempt.getRequestBytes()).isPositive();
+        assertThat(attempt.getLatencyNanos()).isPositive();
+        assertThat(attempt.getSigningNanos()).isNotNegative();
+        assertThat(attempt.getConnectionAcquireNanos()).isNotNegative();
+    }
+
+    @Test
+    void testRetriedCall_RecordsEveryAttempt() {
+        // Arrange
+        failuresLeft.set(1);
+
+        // Act
+        clientFactory.getClient().adminGetUser(ADMIN_GET_USER);
+
+        // Assert
+        assertThat(traces).hasSize(1);
+        CallTrace trace = traces.get(0);
+        assertThat(trace.retries()).isEqualTo(1);
+        assertThat(trace.getAttempts()).extracting(CallAttempt::getAttempt).containsExactly(1, 2);
+        assertThat(trace.getAttempts()).extracting(CallAttempt::getStatusCode).containsExactly(500, 200);
+        assertThat(trace.getAttempts()).extracting(CallAttempt::getRequestId).containsExactly("req-failed", "req-ok");
+        assertThat(trace.getAttempts()).allSatisfy(attempt -> assertThat(attempt.getSigningNanos()).isNotNegative());
+    }
+
+    @Test
+    void testSlowCallRecorder_KeepsNewestSlowCalls() {
+        // Arrange
+        SlowCallRecorder recorder = new SlowCallRecorder(0, 2);
+
+        // Act
+        for (int i = 1; i <= 3; i++) {
+            recorder.accept(CallTrace.builder().operation("op" + i).totalNanos(i).attempts(List.of()).build());
+        }
+
+        // Assert
+        assertThat(recorder.count()).isEqualTo(3);
+        assertThat(recorder.recent()).extracting(CallTrace::getOperation).containsExactly("op3", "op2");
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.firefly.idp.cognito.tracing;
+
+import com.firefly.idp.cognito.client.CognitoOperation;
+import com.firefly.idp.cognito.properties.CognitoProperties;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for CognitoTracing.
+ */
+class CognitoTracingTest {
+
+    private ObservationRegistry registry;
+    private final List<Observation.Context> stopped = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        registry = ObservationRegistry.create();
+        registry.observationConfig().observationHandler(new ObservationHandler<>() {
+            @Override
+            public void onStop(Observation.Context context) {
+                stopped.add(context);
+            }
+
+            @Override
+            public boolean supportsContext(Observation.Context context) {
+                return true;
+            }
+        });
+    }
+
+    @Test
+    void testObserve_PropagatesAdapterObservationToCallThread() {
+        // Arrange
+        CognitoTracing tracing = new CognitoTracing(registry, settings(1.0));
+        AtomicReference<Observation> current = new AtomicReference<>();
+        AtomicReference<String> callThread = new AtomicReference<>();
+        Mono<String> call = tracing.observeCall(CognitoOperation.LOGIN, () -> {
+            current.set(registry.getCurrentObservation());
+            callThread.set(Thread.currentThread().getName());
+            return "ok";
+        }).subscribeOn(Schedulers.boundedElastic());
+
+        // Act
+        StepVerifier.create(tracing.observeAdapter(CognitoOperation.LOGIN, call))
+                .expectNext("ok")
+                .verifyComplete();
+
+        // Assert
+        assertThat(stopped).extracting(Observation.Context::getName)
+                .containsExactly(CognitoTracing.CALL_OBSERVATION, CognitoTracing.ADAPTER_OBSERVATION);
+        Observation.Context callContext = stopped.get(0);
+        Observation.Context adapterContext = stopped.get(1);
+        assertThat(callContext.getParentObservation().getContextView()).isSameAs(adapterContext);
+        assertThat(callContext.getLowCardinalityKeyValue("operation").getValue()).isEqualTo("login");
+        assertThat(callThread.get()).startsWith("boundedElastic");
+        assertThat(current.get().getContextView()).isSameAs(callContext);
+    }
+
+    @Test
+    void testObserve_UnsampledInvocationSkipsCalls() {
+        // Arrange
+        CognitoTracing tracing = new CognitoTracing(registry, settings(1.0E-9));
+
+        // Act
+        StepVerifier.create(tracing.observeAdapter(CognitoOperation.GET_ROLES,
+                        tracing.observeCall(CognitoOperation.GET_ROLES, () -> "ok")))
+                .expectNext("ok")
+                .verifyComplete();
+
+        // Assert
+        assertThat(stopped).isEmpty();
+    }
+
+    @Test
+    void testObserve_ReturnsSourceUndecoratedWhenInactive() {
+        // Arrange
+        Mono<String> source = Mono.just("ok");
+        CognitoProperties.Tracing disabled = settings(1.0);
+        disabled.setEnabled(false);
+
+        // Act & Assert
+        assertThat(new CognitoTracing(registry, disabled).observeAdapter(CognitoOperation.LOGIN, source))
+                .isSameAs(source);
+        assertThat(new CognitoTracing(ObservationRegistry.NOOP, settings(1.0)).observeCall(CognitoOperation.LOGIN, source))
+                .isSameAs(source);
+    }
+
+    private static CognitoProperties.Tracing settings(double sampleRate) {
+        CognitoProperties.Tracing settings = new CognitoProperties.Tracing();
+        settings.setSampleRate(sampleRate);
+        return settings;
+    }
+}
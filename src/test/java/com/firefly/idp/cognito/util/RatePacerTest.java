@@ -0,0 +1,67 @@
+/*
+ * Copyright 2025 Firefly Software Solutions Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.firefly.idp.cognito.util;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for RatePacer.
+ */
+class RatePacerTest {
+
+    @Test
+    void testAcquire_SpacesCallsEvenly() {
+        // Arrange
+        RatePacer pacer = new RatePacer(20);
+        long start = System.nanoTime();
+
+        // Act
+        List<Long> elapsed = Flux.range(0, 5)
+                .flatMap(i -> pacer.acquire().then(Mono.fromCallable(() -> System.nanoTime() - start)))
+                .sort()
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        // Assert: slot i never opens before i intervals of 50ms have passed
+        for (int i = 1; i < elapsed.size(); i++) {
+            assertThat(Duration.ofNanos(elapsed.get(i))).isGreaterThanOrEqualTo(Duration.ofMillis(50L * i));
+        }
+    }
+
+    @Test
+    void testBackOff_DelaysNextSlot() {
+        // Arrange
+        RatePacer pacer = new RatePacer(1000);
+        pacer.acquire().block();
+        long start = System.nanoTime();
+
+        // Act
+        pacer.backOff(Duration.ofMillis(200));
+        pacer.acquire().block(Duration.ofSeconds(5));
+
+        // Assert
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(195));
+    }
+}